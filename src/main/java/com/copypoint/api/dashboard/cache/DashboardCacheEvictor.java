@@ -0,0 +1,78 @@
+package com.copypoint.api.dashboard.cache;
+
+import com.copypoint.api.domain.payment.event.PaymentChangedEvent;
+import com.copypoint.api.domain.paymentattempt.event.PaymentAttemptChangedEvent;
+import com.copypoint.api.domain.sale.event.SaleChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+
+/**
+ * Invalida del cache del dashboard solo las consultas cuyo rango incluye el
+ * día afectado por una venta, un pago o un intento de pago.
+ * <p>
+ * Corre después del commit y al final de los listeners, para que el resumen
+ * diario ya esté recalculado cuando la siguiente consulta vuelva a llenar el cache.
+ */
+@Slf4j
+@Component
+public class DashboardCacheEvictor {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSaleChanged(SaleChangedEvent event) {
+        evictDay(event.day());
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPaymentChanged(PaymentChangedEvent event) {
+        evictDay(event.day());
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPaymentAttemptChanged(PaymentAttemptChangedEvent event) {
+        evictDay(event.day());
+    }
+
+    /**
+     * Elimina las entradas cuyo rango contiene el día indicado
+     */
+    public void evictDay(LocalDate day) {
+        if (day == null) {
+            return;
+        }
+
+        Cache<Object, Object> cache = nativeCache();
+        if (cache == null) {
+            return;
+        }
+
+        boolean removed = cache.asMap().keySet()
+                .removeIf(key -> key instanceof DashboardCacheKey dashboardKey && dashboardKey.covers(day));
+        if (removed) {
+            log.debug("Cache del dashboard invalidado para el día {}", day);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> nativeCache() {
+        org.springframework.cache.Cache cache = cacheManager.getCache(DashboardCacheKey.CACHE_NAME);
+        if (cache == null || !(cache.getNativeCache() instanceof Cache<?, ?> nativeCache)) {
+            return null;
+        }
+        return (Cache<Object, Object>) nativeCache;
+    }
+}
@@ -0,0 +1,28 @@
+package com.copypoint.api.dashboard.cache;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Llave del cache de resultados del dashboard: consulta, rango de fechas
+ * y el resto de parámetros (límite, servicios, etc.).
+ */
+public record DashboardCacheKey(String method, LocalDate startDate, LocalDate endDate, List<Object> params) {
+
+    public static final String CACHE_NAME = "dashboardResults";
+
+    /**
+     * Indica si el día cae dentro del rango de la consulta
+     */
+    public boolean covers(LocalDate day) {
+        return !day.isBefore(startDate) && !day.isAfter(endDate);
+    }
+
+    /**
+     * Un rango cerrado termina antes de hoy y sus datos ya no cambian salvo por
+     * ediciones puntuales, que se invalidan por evento.
+     */
+    public boolean isClosed(LocalDate today) {
+        return endDate.isBefore(today);
+    }
+}
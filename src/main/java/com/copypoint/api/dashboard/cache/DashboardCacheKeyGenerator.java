@@ -0,0 +1,32 @@
+package com.copypoint.api.dashboard.cache;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Genera {@link DashboardCacheKey} para los métodos de DashboardAnalyticsService,
+ * que reciben siempre (startDate, endDate, ...).
+ */
+@Component(DashboardCacheKeyGenerator.BEAN_NAME)
+public class DashboardCacheKeyGenerator implements KeyGenerator {
+
+    public static final String BEAN_NAME = "dashboardCacheKeyGenerator";
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        if (params.length < 2 || !(params[0] instanceof LocalDate startDate) || !(params[1] instanceof LocalDate endDate)) {
+            throw new IllegalArgumentException("El método " + method.getName() + " no recibe un rango de fechas");
+        }
+
+        List<Object> rest = params.length > 2
+                ? Arrays.asList(Arrays.copyOfRange(params, 2, params.length))
+                : List.of();
+
+        return new DashboardCacheKey(method.getName(), startDate, endDate, rest);
+    }
+}
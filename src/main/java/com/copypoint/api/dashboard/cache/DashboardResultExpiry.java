@@ -0,0 +1,41 @@
+package com.copypoint.api.dashboard.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Expiración por entrada del cache del dashboard: los rangos cerrados no
+ * expiran (solo salen por evicción de memoria o por un cambio en sus días)
+ * y los rangos que incluyen hoy viven un TTL corto.
+ */
+public class DashboardResultExpiry implements Expiry<Object, Object> {
+
+    private final long openRangeTtlNanos;
+    private final Clock clock;
+
+    public DashboardResultExpiry(Duration openRangeTtl, Clock clock) {
+        this.openRangeTtlNanos = openRangeTtl.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        if (key instanceof DashboardCacheKey dashboardKey && dashboardKey.isClosed(LocalDate.now(clock))) {
+            return Long.MAX_VALUE;
+        }
+        return openRangeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
@@ -0,0 +1,50 @@
+package com.copypoint.api.dashboard.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Estima en bytes el tamaño de una respuesta del dashboard para acotar el
+ * cache por memoria y no por número de entradas.
+ * <p>
+ * Las respuestas son records con listas de filas y un bloque de métricas; el
+ * peso es una base fija más un costo por fila. No es exacto, pero escala con
+ * lo que realmente ocupa cada entrada.
+ */
+public class DashboardResultWeigher implements Weigher<Object, Object> {
+
+    private static final int BASE_BYTES = 512;
+    private static final int ROW_BYTES = 160;
+    private static final int MAX_DEPTH = 2;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long bytes = BASE_BYTES + estimate(value, 0);
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private long estimate(Object value, int depth) {
+        if (value instanceof Collection<?> collection) {
+            return (long) collection.size() * ROW_BYTES;
+        }
+        if (value instanceof Map<?, ?> map) {
+            return (long) map.size() * ROW_BYTES;
+        }
+        if (value == null || depth >= MAX_DEPTH || !value.getClass().isRecord()) {
+            return 0;
+        }
+
+        long bytes = 0;
+        for (RecordComponent component : value.getClass().getRecordComponents()) {
+            try {
+                bytes += estimate(component.getAccessor().invoke(value), depth + 1);
+            } catch (ReflectiveOperationException e) {
+                bytes += ROW_BYTES;
+            }
+        }
+        return bytes;
+    }
+}
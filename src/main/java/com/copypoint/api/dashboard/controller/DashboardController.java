@@ -2,6 +2,8 @@ package com.copypoint.api.dashboard.controller;
 
 import com.copypoint.api.dashboard.dto.*;
 import com.copypoint.api.dashboard.service.DashboardAnalyticsService;
+import com.copypoint.api.dashboard.service.DashboardSummaryService;
+import com.copypoint.api.dashboard.service.SalesRollupService;
 import com.copypoint.api.dashboard.util.DashboardValidationUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -27,6 +30,12 @@ public class DashboardController {
     @Autowired
     private DashboardAnalyticsService analyticsService;
 
+    @Autowired
+    private DashboardSummaryService summaryService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
     // === DASHBOARD DE VENTAS GENERALES ===
 
     @GetMapping("/sales/timeline")
@@ -192,7 +201,7 @@ public class DashboardController {
 
     @GetMapping("/summary")
     @Operation(summary = "Resumen general del dashboard",
-            description = "Devuelve un resumen con las métricas principales de todos los dashboards")
+            description = "Devuelve en una sola llamada las métricas y secciones de todos los dashboards, con el tiempo de cada sección")
     public ResponseEntity<DashboardSummaryResponse> getDashboardSummary(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
@@ -206,22 +215,54 @@ public class DashboardController {
         DashboardValidationUtils.validateDateRange(startDate, endDate);
         log.info("Obteniendo resumen del dashboard desde {} hasta {}", startDate, endDate);
 
-        // Obtener datos resumidos
-        SalesTimelineResponse salesTimeline = analyticsService.getSalesTimeline(startDate, endDate);
-        PaymentStatusResponse paymentStatus = analyticsService.getPaymentStatusDistribution(startDate, endDate);
-        TopServicesResponse topServices = analyticsService.getTopServices(startDate, endDate, 5);
-        CopypointPerformanceResponse copypointPerformance = analyticsService.getCopypointPerformance(startDate, endDate);
-
-        DashboardSummaryResponse summary = new DashboardSummaryResponse(
-                salesTimeline.metrics(),
-                paymentStatus.metrics(),
-                topServices.metrics().top5Services(),
-                copypointPerformance.metrics()
-        );
+        // Todas las secciones se consultan en paralelo; si alguna excede el tiempo
+        // límite se devuelve un resumen parcial con el estado de cada sección
+        DashboardSummaryResponse summary = summaryService.getSummary(startDate, endDate);
 
         return ResponseEntity.ok(summary);
     }
 
+    // === MANTENIMIENTO DEL RESUMEN DIARIO DE VENTAS ===
+
+    @PostMapping("/rollup/backfill")
+    @Operation(summary = "Reconstruir resumen diario de ventas",
+            description = "Recalcula el resumen diario de ventas a partir de la tabla de ventas para un rango de fechas")
+    public ResponseEntity<RollupBackfillResponse> backfillSalesRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        DashboardValidationUtils.validateDateRange(startDate, endDate);
+        log.info("Reconstruyendo resumen diario de ventas desde {} hasta {}", startDate, endDate);
+
+        return ResponseEntity.ok(salesRollupService.backfill(startDate, endDate));
+    }
+
+    @GetMapping("/rollup/consistency")
+    @Operation(summary = "Verificar consistencia del resumen diario",
+            description = "Compara el resumen diario contra la tabla de ventas sin modificar nada")
+    public ResponseEntity<RollupConsistencyResponse> checkSalesRollupConsistency(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        DashboardValidationUtils.validateDateRange(startDate, endDate);
+        log.info("Verificando resumen diario de ventas desde {} hasta {}", startDate, endDate);
+
+        return ResponseEntity.ok(salesRollupService.checkConsistency(startDate, endDate, false));
+    }
+
+    @PostMapping("/rollup/consistency/repair")
+    @Operation(summary = "Reparar resumen diario",
+            description = "Compara el resumen diario contra la tabla de ventas y recalcula los días que no coinciden")
+    public ResponseEntity<RollupConsistencyResponse> repairSalesRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        DashboardValidationUtils.validateDateRange(startDate, endDate);
+        log.info("Reparando resumen diario de ventas desde {} hasta {}", startDate, endDate);
+
+        return ResponseEntity.ok(salesRollupService.checkConsistency(startDate, endDate, true));
+    }
+
     // Endpoints con rangos predefinidos
     @GetMapping("/sales/timeline/last-week")
     @Operation(summary = "Ventas de la última semana")
@@ -0,0 +1,10 @@
+package com.copypoint.api.dashboard.dto;
+
+// Estado y tiempo de cada sección del resumen del dashboard
+public record DashboardSectionResult(
+        String section,
+        String status,
+        Long elapsedMillis,
+        String error
+) {
+}
@@ -6,6 +6,17 @@ public record DashboardSummaryResponse(
         SalesMetrics salesMetrics,
         PaymentStatusMetrics paymentMetrics,
         List<ServiceSalesData> topServices,
-        CopypointMetrics copypointMetrics
+        CopypointMetrics copypointMetrics,
+        SalesTimelineResponse salesTimeline,
+        SalesByCopypointResponse salesByCopypoint,
+        PaymentStatusResponse paymentStatus,
+        PaymentAttemptsResponse paymentAttempts,
+        PaymentMethodResponse paymentMethodRevenue,
+        PaymentMethodDistributionResponse paymentMethodDistribution,
+        TopServicesResponse topServicesRanking,
+        CopypointPerformanceResponse copypointPerformance,
+        CopypointTrendResponse copypointTrends,
+        List<DashboardSectionResult> sections,
+        Boolean partial
 ) {
 }
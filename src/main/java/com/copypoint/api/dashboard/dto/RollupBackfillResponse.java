@@ -0,0 +1,12 @@
+package com.copypoint.api.dashboard.dto;
+
+import java.time.LocalDate;
+
+public record RollupBackfillResponse(
+        LocalDate startDate,
+        LocalDate endDate,
+        Integer rowsUpserted,
+        Integer rowsDeleted,
+        Long elapsedMillis
+) {
+}
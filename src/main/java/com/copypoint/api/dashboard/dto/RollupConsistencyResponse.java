@@ -0,0 +1,12 @@
+package com.copypoint.api.dashboard.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record RollupConsistencyResponse(
+        LocalDate startDate,
+        LocalDate endDate,
+        List<RollupInconsistencyData> inconsistencies,
+        Boolean repaired
+) {
+}
@@ -0,0 +1,9 @@
+package com.copypoint.api.dashboard.dto;
+
+import java.time.LocalDate;
+
+public record RollupInconsistencyData(
+        Long copypointId,
+        LocalDate date
+) {
+}
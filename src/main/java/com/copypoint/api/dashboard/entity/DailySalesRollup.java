@@ -0,0 +1,36 @@
+package com.copypoint.api.dashboard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resumen diario de ventas por copypoint y moneda.
+ * Se escribe solo mediante los upserts de DailySalesRollupRepository.
+ */
+@Entity
+@Table(name = "daily_sales_rollup")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailySalesRollup {
+    @EmbeddedId
+    private DailySalesRollupId id;
+
+    @Column(name = "total_sales")
+    private Double totalSales;
+
+    @Column(name = "total_discount")
+    private Double totalDiscount;
+
+    @Column(name = "sale_count")
+    private Long saleCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
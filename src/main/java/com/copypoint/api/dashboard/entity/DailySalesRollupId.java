@@ -0,0 +1,25 @@
+package com.copypoint.api.dashboard.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class DailySalesRollupId implements Serializable {
+    @Column(name = "copypoint_id")
+    private Long copypointId;
+    @Column(name = "day")
+    private LocalDate day;
+    @Column(name = "currency", length = 3)
+    private String currency;
+}
@@ -0,0 +1,208 @@
+package com.copypoint.api.dashboard.repository;
+
+import com.copypoint.api.dashboard.entity.DailySalesRollup;
+import com.copypoint.api.dashboard.entity.DailySalesRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, DailySalesRollupId> {
+
+    // === MANTENIMIENTO DEL RESUMEN ===
+
+    /**
+     * Recalcula desde sales los días de un copypoint dentro del rango [startDate, endDate)
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO daily_sales_rollup (copypoint_id, day, currency, total_sales, total_discount, sale_count, updated_at)
+        SELECT s.copypoint_id,
+               DATE(s.created_at),
+               COALESCE(s.currency, ''),
+               COALESCE(SUM(s.total_sale), 0),
+               COALESCE(SUM(s.discount), 0),
+               COUNT(s.id),
+               now()
+        FROM sales s
+        WHERE s.copypoint_id = :copypointId
+          AND s.created_at >= :startDate AND s.created_at < :endDate
+        GROUP BY s.copypoint_id, DATE(s.created_at), COALESCE(s.currency, '')
+        ON CONFLICT (copypoint_id, day, currency) DO UPDATE
+            SET total_sales = EXCLUDED.total_sales,
+                total_discount = EXCLUDED.total_discount,
+                sale_count = EXCLUDED.sale_count,
+                updated_at = EXCLUDED.updated_at
+        """, nativeQuery = true)
+    int upsertCopypointRange(@Param("copypointId") Long copypointId,
+                             @Param("startDate") LocalDateTime startDate,
+                             @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Recalcula desde sales todos los copypoints dentro del rango [startDate, endDate)
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO daily_sales_rollup (copypoint_id, day, currency, total_sales, total_discount, sale_count, updated_at)
+        SELECT s.copypoint_id,
+               DATE(s.created_at),
+               COALESCE(s.currency, ''),
+               COALESCE(SUM(s.total_sale), 0),
+               COALESCE(SUM(s.discount), 0),
+               COUNT(s.id),
+               now()
+        FROM sales s
+        WHERE s.copypoint_id IS NOT NULL
+          AND s.created_at >= :startDate AND s.created_at < :endDate
+        GROUP BY s.copypoint_id, DATE(s.created_at), COALESCE(s.currency, '')
+        ON CONFLICT (copypoint_id, day, currency) DO UPDATE
+            SET total_sales = EXCLUDED.total_sales,
+                total_discount = EXCLUDED.total_discount,
+                sale_count = EXCLUDED.sale_count,
+                updated_at = EXCLUDED.updated_at
+        """, nativeQuery = true)
+    int upsertRange(@Param("startDate") LocalDateTime startDate,
+                    @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Elimina las filas de un copypoint y día cuya moneda ya no tiene ventas,
+     * por ejemplo al cancelar la última venta o cambiarle la moneda
+     */
+    @Modifying
+    @Query(value = """
+        DELETE FROM daily_sales_rollup r
+        WHERE r.copypoint_id = :copypointId
+          AND r.day = :day
+          AND NOT EXISTS (
+              SELECT 1 FROM sales s
+              WHERE s.copypoint_id = r.copypoint_id
+                AND COALESCE(s.currency, '') = r.currency
+                AND s.created_at >= :startDate
+                AND s.created_at < :endDate
+          )
+        """, nativeQuery = true)
+    int deleteStaleCopypointDay(@Param("copypointId") Long copypointId,
+                                @Param("day") LocalDate day,
+                                @Param("startDate") LocalDateTime startDate,
+                                @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Elimina filas del resumen que ya no tienen ventas que las respalden
+     */
+    @Modifying
+    @Query(value = """
+        DELETE FROM daily_sales_rollup r
+        WHERE r.day BETWEEN :startDay AND :endDay
+          AND NOT EXISTS (
+              SELECT 1 FROM sales s
+              WHERE s.copypoint_id = r.copypoint_id
+                AND COALESCE(s.currency, '') = r.currency
+                AND s.created_at >= r.day
+                AND s.created_at < r.day + 1
+          )
+        """, nativeQuery = true)
+    int deleteOrphanRows(@Param("startDay") LocalDate startDay,
+                         @Param("endDay") LocalDate endDay);
+
+    /**
+     * Días (copypoint, día) cuyo resumen no coincide con lo que hay en sales
+     */
+    @Query(value = """
+        SELECT COALESCE(raw.copypoint_id, r.copypoint_id) as copypoint_id,
+               COALESCE(raw.day, r.day) as day
+        FROM (
+            SELECT s.copypoint_id as copypoint_id,
+                   DATE(s.created_at) as day,
+                   COALESCE(s.currency, '') as currency,
+                   COALESCE(SUM(s.total_sale), 0) as total_sales,
+                   COALESCE(SUM(s.discount), 0) as total_discount,
+                   COUNT(s.id) as sale_count
+            FROM sales s
+            WHERE s.copypoint_id IS NOT NULL
+              AND s.created_at >= :startDate AND s.created_at < :endDate
+            GROUP BY s.copypoint_id, DATE(s.created_at), COALESCE(s.currency, '')
+        ) raw
+        FULL OUTER JOIN (
+            SELECT * FROM daily_sales_rollup
+            WHERE day >= :startDay AND day <= :endDay
+        ) r ON r.copypoint_id = raw.copypoint_id
+           AND r.day = raw.day
+           AND r.currency = raw.currency
+        WHERE raw.copypoint_id IS NULL
+           OR r.copypoint_id IS NULL
+           OR r.sale_count <> raw.sale_count
+           OR ABS(r.total_sales - raw.total_sales) > 0.005
+           OR ABS(r.total_discount - raw.total_discount) > 0.005
+        GROUP BY COALESCE(raw.copypoint_id, r.copypoint_id), COALESCE(raw.day, r.day)
+        """, nativeQuery = true)
+    List<Object[]> findInconsistentDays(@Param("startDate") LocalDateTime startDate,
+                                        @Param("endDate") LocalDateTime endDate,
+                                        @Param("startDay") LocalDate startDay,
+                                        @Param("endDay") LocalDate endDay);
+
+    // === CONSULTAS DEL DASHBOARD ===
+
+    @Query(value = """
+        SELECT r.day as sale_date,
+               COALESCE(SUM(r.total_sales), 0) as total_sales,
+               COALESCE(SUM(r.sale_count), 0) as transaction_count
+        FROM daily_sales_rollup r
+        WHERE r.day BETWEEN :startDate AND :endDate
+        GROUP BY r.day
+        ORDER BY sale_date
+        """, nativeQuery = true)
+    List<Object[]> findSalesTimelineData(@Param("startDate") LocalDate startDate,
+                                         @Param("endDate") LocalDate endDate);
+
+    @Query(value = """
+        SELECT c.id as copypoint_id,
+               c.name as copypoint_name,
+               COALESCE(SUM(r.total_sales), 0) as total_sales,
+               COALESCE(SUM(r.sale_count), 0) as transaction_count
+        FROM copypoints c
+        LEFT JOIN daily_sales_rollup r ON c.id = r.copypoint_id
+            AND r.day BETWEEN :startDate AND :endDate
+        GROUP BY c.id, c.name
+        ORDER BY total_sales DESC
+        """, nativeQuery = true)
+    List<Object[]> findSalesByCopypoint(@Param("startDate") LocalDate startDate,
+                                        @Param("endDate") LocalDate endDate);
+
+    @Query(value = """
+        SELECT c.id as copypoint_id,
+               c.name as copypoint_name,
+               COALESCE(SUM(r.total_sales), 0) as total_sales,
+               COALESCE(SUM(r.sale_count), 0) as transaction_count,
+               CASE WHEN COALESCE(SUM(r.sale_count), 0) > 0
+                    THEN COALESCE(SUM(r.total_sales), 0) / SUM(r.sale_count)
+                    ELSE 0 END as average_per_transaction
+        FROM copypoints c
+        LEFT JOIN daily_sales_rollup r ON c.id = r.copypoint_id
+            AND r.day BETWEEN :startDate AND :endDate
+        GROUP BY c.id, c.name
+        ORDER BY total_sales DESC
+        """, nativeQuery = true)
+    List<Object[]> findCopypointPerformance(@Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate);
+
+    @Query(value = """
+        SELECT r.day as sale_date,
+               c.id as copypoint_id,
+               c.name as copypoint_name,
+               COALESCE(SUM(r.total_sales), 0) as sales,
+               COALESCE(SUM(r.sale_count), 0) as transactions
+        FROM daily_sales_rollup r
+        JOIN copypoints c ON c.id = r.copypoint_id
+        WHERE r.day BETWEEN :startDate AND :endDate
+        GROUP BY r.day, c.id, c.name
+        ORDER BY sale_date, c.name
+        """, nativeQuery = true)
+    List<Object[]> findCopypointTrends(@Param("startDate") LocalDate startDate,
+                                       @Param("endDate") LocalDate endDate);
+}
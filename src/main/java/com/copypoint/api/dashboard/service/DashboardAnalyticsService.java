@@ -1,14 +1,18 @@
 package com.copypoint.api.dashboard.service;
 
 
+import com.copypoint.api.dashboard.cache.DashboardCacheKey;
+import com.copypoint.api.dashboard.cache.DashboardCacheKeyGenerator;
 import com.copypoint.api.dashboard.dto.*;
+import com.copypoint.api.dashboard.repository.DailySalesRollupRepository;
 import com.copypoint.api.domain.payment.entity.PaymentStatus;
 import com.copypoint.api.domain.payment.repository.PaymentRepository;
 import com.copypoint.api.domain.paymentattempt.entity.PaymentAttemptStatus;
 import com.copypoint.api.domain.paymentattempt.repository.PaymentAttemptRepository;
-import com.copypoint.api.domain.sale.repository.SaleRepository;
 import com.copypoint.api.domain.saleprofile.repository.SaleProfileRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -17,11 +21,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+/**
+ * Consultas del dashboard. Los resultados se guardan en el cache
+ * dashboardResults por (método, rango, parámetros); ver DashboardCacheEvictor
+ * para la invalidación por día. La misma instancia se entrega a todos los que
+ * leen del cache, por eso las listas de las respuestas son inmutables.
+ */
 @Service
+@CacheConfig(cacheNames = DashboardCacheKey.CACHE_NAME, keyGenerator = DashboardCacheKeyGenerator.BEAN_NAME)
 public class DashboardAnalyticsService {
 
     @Autowired
-    private SaleRepository saleRepository;
+    private DailySalesRollupRepository dailySalesRollupRepository;
 
     @Autowired
     private PaymentRepository paymentRepository;
@@ -33,12 +44,10 @@ public class DashboardAnalyticsService {
     private SaleProfileRepository saleProfileRepository;
 
     // Dashboard de Ventas Generales
+    @Cacheable
     public SalesTimelineResponse getSalesTimeline(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        // Query nativo para obtener ventas por día
-        List<Object[]> results = saleRepository.findSalesTimelineData(start, end);
+        // Ventas por día, leídas del resumen diario en lugar de recorrer la tabla sales
+        List<Object[]> results = dailySalesRollupRepository.findSalesTimelineData(startDate, endDate);
 
         List<SalesTimelineData> timeline = results.stream()
                 .map(row -> new SalesTimelineData(
@@ -46,18 +55,16 @@ public class DashboardAnalyticsService {
                         ((Number) row[1]).doubleValue(),
                         ((Number) row[2]).intValue()
                 ))
-                .collect(Collectors.toList());
+                .toList();
 
         SalesMetrics metrics = calculateSalesMetrics(timeline);
 
         return new SalesTimelineResponse(timeline, metrics);
     }
 
+    @Cacheable
     public SalesByCopypointResponse getSalesByCopypoint(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<Object[]> results = saleRepository.findSalesByCopypoint(start, end);
+        List<Object[]> results = dailySalesRollupRepository.findSalesByCopypoint(startDate, endDate);
 
         List<SalesByCopypointData> salesByLocation = results.stream()
                 .map(row -> new SalesByCopypointData(
@@ -66,7 +73,7 @@ public class DashboardAnalyticsService {
                         ((Number) row[2]).doubleValue(),
                         ((Number) row[3]).intValue()
                 ))
-                .collect(Collectors.toList());
+                .toList();
 
         SalesMetrics globalMetrics = calculateGlobalMetrics(salesByLocation);
 
@@ -74,6 +81,7 @@ public class DashboardAnalyticsService {
     }
 
     // Dashboard de Estados de Pagos
+    @Cacheable
     public PaymentStatusResponse getPaymentStatusDistribution(LocalDate startDate, LocalDate endDate) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
@@ -92,13 +100,14 @@ public class DashboardAnalyticsService {
                     Double percentage = (count.doubleValue() / totalPayments) * 100;
                     return new PaymentStatusData(status, count, percentage);
                 })
-                .collect(Collectors.toList());
+                .toList();
 
         PaymentStatusMetrics metrics = calculatePaymentStatusMetrics(statusDistribution, totalPayments);
 
         return new PaymentStatusResponse(statusDistribution, metrics);
     }
 
+    @Cacheable
     public PaymentAttemptsResponse getPaymentAttemptsByStatus(LocalDate startDate, LocalDate endDate) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
@@ -110,12 +119,13 @@ public class DashboardAnalyticsService {
                         ((PaymentAttemptStatus) row[0]).name(),
                         ((Number) row[1]).intValue()
                 ))
-                .collect(Collectors.toList());
+                .toList();
 
         return new PaymentAttemptsResponse(attempts);
     }
 
     // Dashboard de Métodos de Pago
+    @Cacheable
     public PaymentMethodResponse getPaymentMethodRevenue(LocalDate startDate, LocalDate endDate) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
@@ -129,13 +139,14 @@ public class DashboardAnalyticsService {
                         ((Number) row[2]).doubleValue(), // revenue
                         ((Number) row[3]).intValue() // transaction count
                 ))
-                .collect(Collectors.toList());
+                .toList();
 
         PaymentMethodMetrics metrics = calculatePaymentMethodMetrics(revenueByMethod);
 
         return new PaymentMethodResponse(revenueByMethod, metrics);
     }
 
+    @Cacheable
     public PaymentMethodDistributionResponse getPaymentMethodDistribution(LocalDate startDate, LocalDate endDate) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
@@ -153,12 +164,13 @@ public class DashboardAnalyticsService {
                     Double percentage = (count.doubleValue() / totalUsage) * 100;
                     return new PaymentMethodDistributionData(description, count, percentage);
                 })
-                .collect(Collectors.toList());
+                .toList();
 
         return new PaymentMethodDistributionResponse(distribution);
     }
 
     // Dashboard de Servicios Más Vendidos
+    @Cacheable
     public TopServicesResponse getTopServices(LocalDate startDate, LocalDate endDate, Integer limit) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
@@ -172,13 +184,14 @@ public class DashboardAnalyticsService {
                         ((Number) row[2]).intValue(), // quantitySold
                         ((Number) row[3]).doubleValue() // totalRevenue
                 ))
-                .collect(Collectors.toList());
+                .toList();
 
         ServiceMetrics metrics = calculateServiceMetrics(topServices);
 
         return new TopServicesResponse(topServices, metrics);
     }
 
+    @Cacheable
     public ServiceTrendResponse getServiceTrends(LocalDate startDate, LocalDate endDate, List<Long> serviceIds) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
@@ -192,17 +205,15 @@ public class DashboardAnalyticsService {
                         ((Number) row[2]).intValue(),
                         ((Number) row[3]).doubleValue()
                 ))
-                .collect(Collectors.toList());
+                .toList();
 
         return new ServiceTrendResponse(trends);
     }
 
     // Dashboard de Performance por Copypoint
+    @Cacheable
     public CopypointPerformanceResponse getCopypointPerformance(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<Object[]> results = saleRepository.findCopypointPerformance(start, end);
+        List<Object[]> results = dailySalesRollupRepository.findCopypointPerformance(startDate, endDate);
 
         List<CopypointPerformanceData> performance = results.stream()
                 .map(row -> new CopypointPerformanceData(
@@ -212,18 +223,16 @@ public class DashboardAnalyticsService {
                         ((Number) row[3]).intValue(),
                         ((Number) row[4]).doubleValue()
                 ))
-                .collect(Collectors.toList());
+                .toList();
 
         CopypointMetrics metrics = calculateCopypointMetrics(performance);
 
         return new CopypointPerformanceResponse(performance, metrics);
     }
 
+    @Cacheable
     public CopypointTrendResponse getCopypointTrends(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<Object[]> results = saleRepository.findCopypointTrends(start, end);
+        List<Object[]> results = dailySalesRollupRepository.findCopypointTrends(startDate, endDate);
 
         List<CopypointTrendData> trends = results.stream()
                 .map(row -> new CopypointTrendData(
@@ -233,7 +242,7 @@ public class DashboardAnalyticsService {
                         ((Number) row[3]).doubleValue(),
                         ((Number) row[4]).intValue()
                 ))
-                .collect(Collectors.toList());
+                .toList();
 
         return new CopypointTrendResponse(trends);
     }
@@ -290,7 +299,7 @@ public class DashboardAnalyticsService {
 
         List<GatewayRevenueData> gatewayRevenues = revenueByGateway.entrySet().stream()
                 .map(entry -> new GatewayRevenueData(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList());
+                .toList();
 
         return new PaymentMethodMetrics(mostUsedMethod, gatewayRevenues);
     }
@@ -298,11 +307,11 @@ public class DashboardAnalyticsService {
     private ServiceMetrics calculateServiceMetrics(List<ServiceSalesData> topServices) {
         List<ServiceSalesData> top5Services = topServices.stream()
                 .limit(5)
-                .collect(Collectors.toList());
+                .toList();
 
         List<ServiceRevenueData> revenueByService = topServices.stream()
                 .map(service -> new ServiceRevenueData(service.serviceName(), service.totalRevenue()))
-                .collect(Collectors.toList());
+                .toList();
 
         return new ServiceMetrics(top5Services, revenueByService);
     }
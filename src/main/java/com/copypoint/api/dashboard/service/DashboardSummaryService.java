@@ -0,0 +1,179 @@
+package com.copypoint.api.dashboard.service;
+
+import com.copypoint.api.dashboard.dto.*;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Construye el resumen completo del dashboard ejecutando todas las consultas
+ * de {@link DashboardAnalyticsService} en paralelo sobre hilos virtuales.
+ * <p>
+ * Un semáforo limita cuántas consultas usan una conexión a la vez, para no
+ * agotar el pool. Cada sección corre en una transacción de solo lectura cuyo
+ * timeout se aplica como timeout de las sentencias JDBC y no pasa del tiempo
+ * límite del resumen, de modo que una consulta lenta no retiene su conexión ni
+ * su permiso. Si una sección no termina a tiempo se cancela, se devuelve vacía
+ * y el resumen se marca como parcial, con el tiempo y el estado de cada sección.
+ */
+@Slf4j
+@Service
+public class DashboardSummaryService {
+
+    private static final String STATUS_OK = "OK";
+    private static final String STATUS_TIMEOUT = "TIMEOUT";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private final DashboardAnalyticsService analyticsService;
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService executor;
+    private final Semaphore connectionBudget;
+    private final long timeoutMillis;
+
+    @Autowired
+    public DashboardSummaryService(
+            DashboardAnalyticsService analyticsService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.dashboard.summary.max-concurrent-queries:4}") int maxConcurrentQueries,
+            @Value("${app.dashboard.summary.timeout-ms:5000}") long timeoutMillis) {
+        this.analyticsService = analyticsService;
+        this.transactionManager = transactionManager;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.connectionBudget = new Semaphore(maxConcurrentQueries);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public DashboardSummaryResponse getSummary(LocalDate startDate, LocalDate endDate) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        Section<SalesTimelineResponse> timeline = submit(deadline, "salesTimeline",
+                () -> analyticsService.getSalesTimeline(startDate, endDate));
+        Section<SalesByCopypointResponse> byCopypoint = submit(deadline, "salesByCopypoint",
+                () -> analyticsService.getSalesByCopypoint(startDate, endDate));
+        Section<PaymentStatusResponse> paymentStatus = submit(deadline, "paymentStatus",
+                () -> analyticsService.getPaymentStatusDistribution(startDate, endDate));
+        Section<PaymentAttemptsResponse> attempts = submit(deadline, "paymentAttempts",
+                () -> analyticsService.getPaymentAttemptsByStatus(startDate, endDate));
+        Section<PaymentMethodResponse> methodRevenue = submit(deadline, "paymentMethodRevenue",
+                () -> analyticsService.getPaymentMethodRevenue(startDate, endDate));
+        Section<PaymentMethodDistributionResponse> methodDistribution = submit(deadline, "paymentMethodDistribution",
+                () -> analyticsService.getPaymentMethodDistribution(startDate, endDate));
+        Section<TopServicesResponse> topServices = submit(deadline, "topServices",
+                () -> analyticsService.getTopServices(startDate, endDate, 10));
+        Section<CopypointPerformanceResponse> performance = submit(deadline, "copypointPerformance",
+                () -> analyticsService.getCopypointPerformance(startDate, endDate));
+        Section<CopypointTrendResponse> trends = submit(deadline, "copypointTrends",
+                () -> analyticsService.getCopypointTrends(startDate, endDate));
+
+        List<DashboardSectionResult> results = new ArrayList<>();
+        SalesTimelineResponse timelineResult = timeline.await(deadline, results);
+        SalesByCopypointResponse byCopypointResult = byCopypoint.await(deadline, results);
+        PaymentStatusResponse paymentStatusResult = paymentStatus.await(deadline, results);
+        PaymentAttemptsResponse attemptsResult = attempts.await(deadline, results);
+        PaymentMethodResponse methodRevenueResult = methodRevenue.await(deadline, results);
+        PaymentMethodDistributionResponse methodDistributionResult = methodDistribution.await(deadline, results);
+        TopServicesResponse topServicesResult = topServices.await(deadline, results);
+        CopypointPerformanceResponse performanceResult = performance.await(deadline, results);
+        CopypointTrendResponse trendsResult = trends.await(deadline, results);
+
+        boolean partial = results.stream().anyMatch(result -> !STATUS_OK.equals(result.status()));
+        if (partial) {
+            log.warn("Resumen del dashboard parcial ({} - {}): {}", startDate, endDate, results);
+        }
+
+        return new DashboardSummaryResponse(
+                timelineResult != null ? timelineResult.metrics() : null,
+                paymentStatusResult != null ? paymentStatusResult.metrics() : null,
+                topServicesResult != null ? topServicesResult.metrics().top5Services() : null,
+                performanceResult != null ? performanceResult.metrics() : null,
+                timelineResult,
+                byCopypointResult,
+                paymentStatusResult,
+                attemptsResult,
+                methodRevenueResult,
+                methodDistributionResult,
+                topServicesResult,
+                performanceResult,
+                trendsResult,
+                results,
+                partial
+        );
+    }
+
+    private <T> Section<T> submit(long deadline, String name, Supplier<T> query) {
+        Section<T> section = new Section<>(name);
+        section.future = executor.submit(() -> {
+            if (!connectionBudget.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("Sin conexión disponible antes del tiempo límite");
+            }
+            try {
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                transactionTemplate.setReadOnly(true);
+                // Segundos completos que quedan hasta el límite, al menos uno
+                transactionTemplate.setTimeout((int) Math.max(1,
+                        TimeUnit.NANOSECONDS.toSeconds(deadline - System.nanoTime())));
+                return transactionTemplate.execute(status -> query.get());
+            } finally {
+                connectionBudget.release();
+                section.finishedAt = System.nanoTime();
+            }
+        });
+        return section;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Section<T> {
+        private final String name;
+        private final long startedAt = System.nanoTime();
+        private volatile long finishedAt;
+        private Future<T> future;
+
+        private Section(String name) {
+            this.name = name;
+        }
+
+        private T await(long deadline, List<DashboardSectionResult> results) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                T value = future.get(remaining, TimeUnit.NANOSECONDS);
+                results.add(new DashboardSectionResult(name, STATUS_OK, elapsedMillis(), null));
+                return value;
+            } catch (TimeoutException e) {
+                // Interrumpe el hilo; la sentencia en curso termina por su propio timeout
+                future.cancel(true);
+                results.add(new DashboardSectionResult(name, STATUS_TIMEOUT, elapsedMillis(), null));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof TimeoutException) {
+                    results.add(new DashboardSectionResult(name, STATUS_TIMEOUT, elapsedMillis(), null));
+                    return null;
+                }
+                log.error("Error en la sección {} del resumen del dashboard: {}", name, cause.getMessage(), cause);
+                results.add(new DashboardSectionResult(name, STATUS_FAILED, elapsedMillis(), cause.getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(new DashboardSectionResult(name, STATUS_FAILED, elapsedMillis(), "interrupted"));
+            }
+            return null;
+        }
+
+        private long elapsedMillis() {
+            long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+            return TimeUnit.NANOSECONDS.toMillis(end - startedAt);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.copypoint.api.dashboard.service;
+
+import com.copypoint.api.dashboard.dto.RollupBackfillResponse;
+import com.copypoint.api.dashboard.dto.RollupConsistencyResponse;
+import com.copypoint.api.dashboard.dto.RollupInconsistencyData;
+import com.copypoint.api.dashboard.repository.DailySalesRollupRepository;
+import com.copypoint.api.domain.sale.event.SaleChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene la tabla daily_sales_rollup que usa el dashboard.
+ * <p>
+ * Cada cambio de una venta recalcula, después del commit, solo el día del
+ * copypoint afectado. El backfill reconstruye rangos completos por bloques y
+ * el verificador de consistencia compara el resumen contra sales y repara
+ * los días que no coinciden.
+ */
+@Slf4j
+@Service
+public class SalesRollupService {
+
+    private static final int BACKFILL_CHUNK_DAYS = 31;
+
+    @Autowired
+    private DailySalesRollupRepository rollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.dashboard.rollup.consistency-window-days:7}")
+    private int consistencyWindowDays;
+
+    /**
+     * Recalcula el día de la venta una vez confirmada la transacción que la modificó.
+     * Corre antes que la invalidación del cache del dashboard.
+     * <p>
+     * La transacción propia se abre dentro del try: si falla, el rollback
+     * termina ahí y el error solo se registra, en lugar de escaparse como
+     * UnexpectedRollbackException al confirmar.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSaleChanged(SaleChangedEvent event) {
+        if (event.copypointId() == null || event.day() == null) {
+            return;
+        }
+
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transactionTemplate.executeWithoutResult(status -> refreshDay(event.copypointId(), event.day()));
+        } catch (Exception e) {
+            // El verificador de consistencia reparará el día en su siguiente ejecución
+            log.error("Error actualizando resumen diario para venta {} (copypoint {}, día {}): {}",
+                    event.saleId(), event.copypointId(), event.day(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recalcula el resumen de un copypoint para un día, eliminando las monedas
+     * que ya no tienen ventas ese día
+     */
+    @Transactional
+    public void refreshDay(Long copypointId, LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+        rollupRepository.upsertCopypointRange(copypointId, start, end);
+        rollupRepository.deleteStaleCopypointDay(copypointId, day, start, end);
+        log.debug("Resumen diario actualizado - copypoint {}, día {}", copypointId, day);
+    }
+
+    /**
+     * Reconstruye el resumen para el rango indicado, en bloques de un mes
+     * con una transacción por bloque para no bloquear la tabla completa.
+     */
+    public RollupBackfillResponse backfill(LocalDate startDate, LocalDate endDate) {
+        long started = System.currentTimeMillis();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        int upserted = 0;
+        int deleted = 0;
+        LocalDate chunkStart = startDate;
+
+        while (!chunkStart.isAfter(endDate)) {
+            LocalDate chunkEnd = chunkStart.plusDays(BACKFILL_CHUNK_DAYS - 1L);
+            if (chunkEnd.isAfter(endDate)) {
+                chunkEnd = endDate;
+            }
+
+            LocalDate from = chunkStart;
+            LocalDate to = chunkEnd;
+            int[] counts = transactionTemplate.execute(status -> new int[]{
+                    rollupRepository.upsertRange(from.atStartOfDay(), to.plusDays(1).atStartOfDay()),
+                    rollupRepository.deleteOrphanRows(from, to)
+            });
+
+            if (counts != null) {
+                upserted += counts[0];
+                deleted += counts[1];
+            }
+            chunkStart = chunkEnd.plusDays(1);
+        }
+
+        long elapsed = System.currentTimeMillis() - started;
+        log.info("Backfill de resumen diario {} - {}: {} filas actualizadas, {} eliminadas en {} ms",
+                startDate, endDate, upserted, deleted, elapsed);
+
+        return new RollupBackfillResponse(startDate, endDate, upserted, deleted, elapsed);
+    }
+
+    /**
+     * Compara el resumen contra sales en el rango y, si se indica, repara los días distintos
+     */
+    public RollupConsistencyResponse checkConsistency(LocalDate startDate, LocalDate endDate, boolean repair) {
+        List<RollupInconsistencyData> inconsistencies = rollupRepository.findInconsistentDays(
+                        startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(), startDate, endDate)
+                .stream()
+                .map(row -> new RollupInconsistencyData(
+                        ((Number) row[0]).longValue(),
+                        ((java.sql.Date) row[1]).toLocalDate()
+                ))
+                .collect(Collectors.toList());
+
+        if (!inconsistencies.isEmpty()) {
+            log.warn("Resumen diario inconsistente en {} días entre {} y {}", inconsistencies.size(), startDate, endDate);
+
+            if (repair) {
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                transactionTemplate.executeWithoutResult(status -> {
+                    inconsistencies.forEach(day -> refreshDay(day.copypointId(), day.date()));
+                    rollupRepository.deleteOrphanRows(startDate, endDate);
+                });
+            }
+        }
+
+        return new RollupConsistencyResponse(startDate, endDate, inconsistencies, repair && !inconsistencies.isEmpty());
+    }
+
+    /**
+     * Verifica y repara cada noche los últimos días, que son los que aún reciben cambios
+     */
+    @Scheduled(cron = "${app.dashboard.rollup.consistency-cron:0 15 3 * * *}")
+    public void scheduledConsistencyCheck() {
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(consistencyWindowDays);
+
+        try {
+            checkConsistency(startDate, endDate, true);
+        } catch (Exception e) {
+            log.error("Error verificando consistencia del resumen diario: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -14,6 +16,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "attachments")
+@EntityListeners(AttachmentStorageListener.class)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -76,6 +79,38 @@ public class Attachment {
     @Column(name = "mime_type", length = 100)
     private String mimeType;
 
+    // Análisis del documento al recibirlo (ver AttachmentAnalysisWorker)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "analysis_status", nullable = false, length = 20)
+    @Builder.Default
+    private AttachmentAnalysisStatus analysisStatus = AttachmentAnalysisStatus.PENDING;
+
+    @Column(name = "analysis_claimed_at")
+    private LocalDateTime analysisClaimedAt;
+
+    @Column(name = "analyzed_at")
+    private LocalDateTime analyzedAt;
+
+    @Column(name = "analysis_error", length = 500)
+    private String analysisError;
+
+    @Column(name = "color_pages")
+    private Integer colorPages;
+
+    @Column(name = "paper_size", length = 20)
+    private String paperSize;
+
+    @Column(name = "page_details", columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<AttachmentPageInfo> pageDetails;
+
+    // Versiones reducidas en R2 (ver AttachmentRenditionService)
+    @Column(name = "thumbnail_path", length = 500)
+    private String thumbnailPath;
+
+    @Column(name = "preview_path", length = 500)
+    private String previewPath;
+
     // Fechas de auditoría
     @Column(name = "date_created", nullable = false)
     @Builder.Default
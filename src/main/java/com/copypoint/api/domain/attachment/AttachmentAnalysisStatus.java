@@ -0,0 +1,9 @@
+package com.copypoint.api.domain.attachment;
+
+public enum AttachmentAnalysisStatus {
+    PENDING,    // Esperando a que el archivo se descargue o a un worker
+    ANALYZING,  // Reclamado por un worker
+    ANALYZED,   // Páginas, tamaño y color calculados
+    SKIPPED,    // Tipo de archivo sin páginas (audio, video...)
+    FAILED      // El archivo no se pudo analizar
+}
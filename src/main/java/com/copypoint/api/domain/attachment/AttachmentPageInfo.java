@@ -0,0 +1,15 @@
+package com.copypoint.api.domain.attachment;
+
+/**
+ * Datos de una página de un attachment, guardados en attachments.page_details.
+ *
+ * @param color null si no se analizó el color de la página
+ */
+public record AttachmentPageInfo(
+        int page,
+        float widthPt,
+        float heightPt,
+        PaperSize paperSize,
+        Boolean color
+) {
+}
@@ -0,0 +1,30 @@
+package com.copypoint.api.domain.attachment;
+
+/**
+ * Versiones reducidas de un attachment. Se guardan en R2 junto al original
+ * ({@code <storagePath>.thumb.jpg}), así que los archivos direccionados por
+ * contenido comparten también sus versiones.
+ */
+public enum AttachmentRendition {
+    THUMBNAIL("thumb", 320),
+    PREVIEW("preview", 1280);
+
+    private final String suffix;
+    private final int maxSide;
+
+    AttachmentRendition(String suffix, int maxSide) {
+        this.suffix = suffix;
+        this.maxSide = maxSide;
+    }
+
+    /**
+     * Lado mayor de la imagen en píxeles
+     */
+    public int getMaxSide() {
+        return maxSide;
+    }
+
+    public String keyFor(String storagePath) {
+        return storagePath + "." + suffix + ".jpg";
+    }
+}
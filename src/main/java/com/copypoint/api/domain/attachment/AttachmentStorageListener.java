@@ -0,0 +1,25 @@
+package com.copypoint.api.domain.attachment;
+
+import com.copypoint.api.domain.storedmedia.service.StoredMediaService;
+import jakarta.persistence.PreRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Libera la referencia al contenido guardado en R2 cuando se elimina un attachment.
+ */
+@Component
+public class AttachmentStorageListener {
+
+    @Lazy
+    @Autowired
+    private StoredMediaService storedMediaService;
+
+    @PreRemove
+    public void onRemove(Attachment attachment) {
+        if (attachment.isDownloaded() && attachment.getStoragePath() != null) {
+            storedMediaService.release(attachment.getStoragePath());
+        }
+    }
+}
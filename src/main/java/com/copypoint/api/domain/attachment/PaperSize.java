@@ -0,0 +1,41 @@
+package com.copypoint.api.domain.attachment;
+
+/**
+ * Tamaños de papel reconocidos, en puntos PDF (1/72 de pulgada), en orientación vertical.
+ */
+public enum PaperSize {
+    LETTER(612, 792),
+    LEGAL(612, 1008),
+    TABLOID(792, 1224),
+    A4(595, 842),
+    A3(842, 1191),
+    A5(420, 595),
+    OTHER(0, 0);
+
+    // Tolerancia para redondeos de los generadores de PDF (~2 mm)
+    private static final float TOLERANCE = 6;
+
+    private final float width;
+    private final float height;
+
+    PaperSize(float width, float height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Clasifica una página por sus dimensiones, sin importar la orientación
+     */
+    public static PaperSize classify(float widthPt, float heightPt) {
+        float shortSide = Math.min(widthPt, heightPt);
+        float longSide = Math.max(widthPt, heightPt);
+        for (PaperSize size : values()) {
+            if (size != OTHER
+                    && Math.abs(size.width - shortSide) <= TOLERANCE
+                    && Math.abs(size.height - longSide) <= TOLERANCE) {
+                return size;
+            }
+        }
+        return OTHER;
+    }
+}
@@ -1,30 +1,71 @@
 package com.copypoint.api.domain.attachment.controller;
 
 import com.copypoint.api.domain.attachment.Attachment;
+import com.copypoint.api.domain.attachment.AttachmentRendition;
 import com.copypoint.api.domain.attachment.dto.AttachmentAvailabilityResponse;
 import com.copypoint.api.domain.attachment.dto.AttachmentResponse;
 import com.copypoint.api.domain.attachment.dto.PresignedUrlResponse;
 import com.copypoint.api.domain.attachment.service.AttachmentMediaService;
+import com.copypoint.api.infra.cloudflare.r2.dto.R2PresignedUrl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/attachments")
 public class AttachmentController {
+    private static final int MAX_AVAILABILITY_IDS = 200;
 
     @Autowired
     private AttachmentMediaService attachmentService;
 
     /**
      * Descargar un archivo attachment por su ID
-     * Este endpoint retorna directamente el archivo para visualización/descarga
+     * Este endpoint retorna directamente el archivo para visualización/descarga,
+     * por streaming y con soporte de Range (reproducir video, reanudar descargas).
+     * Con {@code redirect=true} responde un 302 a una URL prefirmada de R2 y los
+     * bytes no pasan por la API; sin el parámetro se usa la configuración.
      */
     @GetMapping("/{id}/download")
-    public ResponseEntity<byte[]> downloadAttachment(@PathVariable Long id) {
-        return attachmentService.downloadAttachmentFile(id);
+    public ResponseEntity<?> downloadAttachment(@PathVariable Long id,
+                                                @RequestParam(required = false) Boolean redirect,
+                                                @RequestHeader HttpHeaders headers) {
+        if (attachmentService.shouldRedirect(redirect)) {
+            return attachmentService.redirectToAttachmentFile(id);
+        }
+        return attachmentService.streamAttachmentFile(id, headers);
+    }
+
+    /**
+     * Miniatura JPEG (lado mayor de 320 px) de una imagen o de la primera página de un PDF.
+     * Pensada para la vista de conversaciones; 404 si el attachment no tiene miniatura.
+     */
+    @GetMapping("/{id}/thumbnail")
+    public ResponseEntity<?> getThumbnail(@PathVariable Long id,
+                                          @RequestParam(required = false) Boolean redirect,
+                                          @RequestHeader HttpHeaders headers) {
+        return rendition(id, AttachmentRendition.THUMBNAIL, redirect, headers);
+    }
+
+    /**
+     * Vista previa JPEG (lado mayor de 1280 px) de una imagen o de la primera página de un PDF
+     */
+    @GetMapping("/{id}/preview")
+    public ResponseEntity<?> getPreview(@PathVariable Long id,
+                                        @RequestParam(required = false) Boolean redirect,
+                                        @RequestHeader HttpHeaders headers) {
+        return rendition(id, AttachmentRendition.PREVIEW, redirect, headers);
+    }
+
+    private ResponseEntity<?> rendition(Long id, AttachmentRendition rendition, Boolean redirect, HttpHeaders headers) {
+        if (attachmentService.shouldRedirect(redirect)) {
+            return attachmentService.redirectToRendition(id, rendition);
+        }
+        return attachmentService.streamRendition(id, rendition, headers);
     }
 
     /**
@@ -46,15 +87,16 @@ public class AttachmentController {
     }
 
     /**
-     * Generar URL prefirmada para acceso directo (opcional)
-     * Útil si quieres que el frontend acceda directamente a R2
+     * Generar URL prefirmada (SigV4) para acceso directo (opcional)
+     * Útil si quieres que el frontend acceda directamente a R2. La URL dura al
+     * menos {@code expirationMinutes} (máximo 7 días); {@code expiresAt} indica el vencimiento real.
      */
     @GetMapping("/{id}/presigned-url")
     public ResponseEntity<PresignedUrlResponse> generatePresignedUrl(
             @PathVariable Long id,
             @RequestParam(defaultValue = "60") int expirationMinutes) {
 
-        Optional<String> urlOpt = attachmentService.generatePresignedUrl(id, expirationMinutes);
+        Optional<R2PresignedUrl> urlOpt = attachmentService.generatePresignedUrl(id, expirationMinutes);
 
         if (urlOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
@@ -62,8 +104,9 @@ public class AttachmentController {
 
         PresignedUrlResponse response = new PresignedUrlResponse(
                 id,
-                urlOpt.get(),
-                expirationMinutes
+                urlOpt.get().url(),
+                expirationMinutes,
+                urlOpt.get().expiresAt()
         );
         return ResponseEntity.ok(response);
     }
@@ -82,4 +125,16 @@ public class AttachmentController {
 
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Verificar la disponibilidad de varios attachments en una sola petición
+     * (p. ej. todos los de una conversación): {@code ?ids=1,2,3}, máximo 200
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<List<AttachmentAvailabilityResponse>> checkAvailability(@RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_AVAILABILITY_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(attachmentService.checkAvailability(ids));
+    }
 }
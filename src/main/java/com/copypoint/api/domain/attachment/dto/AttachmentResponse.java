@@ -1,6 +1,7 @@
 package com.copypoint.api.domain.attachment.dto;
 
 import com.copypoint.api.domain.attachment.Attachment;
+import com.copypoint.api.domain.attachment.AttachmentAnalysisStatus;
 import com.copypoint.api.domain.attachment.AttachmentDownloadStatus;
 import com.copypoint.api.domain.attachment.AttachmentFileType;
 
@@ -17,7 +18,12 @@ public record AttachmentResponse(
         Boolean isAvailable,
         LocalDateTime dateCreated,
         LocalDateTime dateDownloaded,
-        Integer pages
+        Integer pages,
+        Integer colorPages,
+        String paperSize,
+        AttachmentAnalysisStatus analysisStatus,
+        boolean hasThumbnail,
+        boolean hasPreview
 ) {
 
     public AttachmentResponse(Attachment attachment) {
@@ -32,7 +38,12 @@ public record AttachmentResponse(
                 attachment.isDownloaded(),
                 attachment.getDateCreated(),
                 attachment.getDateUpdated(),
-                attachment.getPages()
+                attachment.getPages(),
+                attachment.getColorPages(),
+                attachment.getPaperSize(),
+                attachment.getAnalysisStatus(),
+                attachment.getThumbnailPath() != null,
+                attachment.getPreviewPath() != null
         );
     }
 }
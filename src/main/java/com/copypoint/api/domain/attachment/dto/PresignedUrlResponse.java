@@ -1,8 +1,11 @@
 package com.copypoint.api.domain.attachment.dto;
 
+import java.time.Instant;
+
 public record PresignedUrlResponse(
         Long attachmentId,
         String presignedUrl,
-        Integer expirationMinutes
+        Integer expirationMinutes,
+        Instant expiresAt
 ) {
 }
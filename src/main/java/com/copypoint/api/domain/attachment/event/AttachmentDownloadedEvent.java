@@ -0,0 +1,7 @@
+package com.copypoint.api.domain.attachment.event;
+
+/**
+ * Se publica cuando el archivo de un attachment queda guardado en R2.
+ */
+public record AttachmentDownloadedEvent(Long attachmentId) {
+}
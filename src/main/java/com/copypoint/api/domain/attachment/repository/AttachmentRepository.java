@@ -1,15 +1,21 @@
 package com.copypoint.api.domain.attachment.repository;
 
 import com.copypoint.api.domain.attachment.Attachment;
+import com.copypoint.api.domain.attachment.AttachmentAnalysisStatus;
 import com.copypoint.api.domain.attachment.AttachmentDownloadStatus;
+import com.copypoint.api.domain.attachment.AttachmentPageInfo;
 import com.copypoint.api.domain.message.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
@@ -19,12 +25,104 @@ public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
 
     List<Attachment> findByDownloadStatus(AttachmentDownloadStatus attachmentDownloadStatus);
 
-    @Query("SELECT a FROM Attachment a WHERE a.downloadStatus = 'FAILED' AND a.downloadAttempts < :maxAttempts")
-    List<Attachment> findFailedAttachmentsForRetry(@Param("maxAttempts") int maxAttempts);
+    Optional<Attachment> findFirstByStoragePathAndAnalysisStatus(String storagePath, AttachmentAnalysisStatus status);
 
-    @Query("SELECT a FROM Attachment a WHERE a.downloadStatus = 'PENDING' OR " +
-            "(a.downloadStatus = 'DOWNLOADING' AND a.lastDownloadAttempt < :timeoutThreshold)")
-    List<Attachment> findStuckDownloads(@Param("timeoutThreshold") LocalDateTime timeoutThreshold);
+    /**
+     * Reclama un attachment descargado para analizarlo. Solo un worker lo logra:
+     * debe estar PENDING o ANALYZING con el lease vencido.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Attachment a
+        SET a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.ANALYZING,
+            a.analysisClaimedAt = :now
+        WHERE a.id = :id
+          AND a.downloadStatus = com.copypoint.api.domain.attachment.AttachmentDownloadStatus.DOWNLOADED
+          AND (a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.PENDING
+               OR (a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.ANALYZING
+                   AND a.analysisClaimedAt < :leaseExpiredBefore))
+        """)
+    int claimAnalysis(@Param("id") Long id,
+                      @Param("now") LocalDateTime now,
+                      @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore);
+
+    /**
+     * Devuelve el attachment a PENDING para analizarlo más tarde
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Attachment a
+        SET a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.PENDING,
+            a.analysisClaimedAt = null
+        WHERE a.id = :id
+          AND a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.ANALYZING
+        """)
+    int releaseAnalysis(@Param("id") Long id);
+
+    /**
+     * Guarda el resultado del análisis. Solo escribe las columnas del análisis para no
+     * pisar lo que haya cambiado en el attachment mientras el worker lo procesaba.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Attachment a
+        SET a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.ANALYZED,
+            a.analysisClaimedAt = null,
+            a.analysisError = null,
+            a.analyzedAt = :analyzedAt,
+            a.pages = :pages,
+            a.colorPages = :colorPages,
+            a.paperSize = :paperSize,
+            a.pageDetails = :pageDetails,
+            a.thumbnailPath = :thumbnailPath,
+            a.previewPath = :previewPath
+        WHERE a.id = :id
+          AND a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.ANALYZING
+        """)
+    int completeAnalysis(@Param("id") Long id,
+                         @Param("pages") Integer pages,
+                         @Param("colorPages") Integer colorPages,
+                         @Param("paperSize") String paperSize,
+                         @Param("pageDetails") List<AttachmentPageInfo> pageDetails,
+                         @Param("thumbnailPath") String thumbnailPath,
+                         @Param("previewPath") String previewPath,
+                         @Param("analyzedAt") LocalDateTime analyzedAt);
+
+    /**
+     * Cierra el análisis sin resultado (SKIPPED o FAILED)
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Attachment a
+        SET a.analysisStatus = :status,
+            a.analysisClaimedAt = null,
+            a.analysisError = :error,
+            a.analyzedAt = :analyzedAt
+        WHERE a.id = :id
+          AND a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.ANALYZING
+        """)
+    int finishAnalysis(@Param("id") Long id,
+                       @Param("status") AttachmentAnalysisStatus status,
+                       @Param("error") String error,
+                       @Param("analyzedAt") LocalDateTime analyzedAt);
+
+    /**
+     * Attachments descargados sin analizar o con el lease de análisis vencido
+     */
+    @Query("""
+        SELECT a.id FROM Attachment a
+        WHERE a.downloadStatus = com.copypoint.api.domain.attachment.AttachmentDownloadStatus.DOWNLOADED
+          AND (a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.PENDING
+               OR (a.analysisStatus = com.copypoint.api.domain.attachment.AttachmentAnalysisStatus.ANALYZING
+                   AND a.analysisClaimedAt < :leaseExpiredBefore))
+        ORDER BY a.id
+        """)
+    List<Long> findIdsPendingAnalysis(@Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore,
+                                      Pageable pageable);
 
     List<Attachment> findByMessageAndDownloadStatus(Message message, AttachmentDownloadStatus status);
 
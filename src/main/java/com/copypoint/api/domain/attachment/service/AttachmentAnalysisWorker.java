@@ -0,0 +1,295 @@
+package com.copypoint.api.domain.attachment.service;
+
+import com.copypoint.api.domain.attachment.Attachment;
+import com.copypoint.api.domain.attachment.AttachmentAnalysisStatus;
+import com.copypoint.api.domain.attachment.AttachmentRendition;
+import com.copypoint.api.domain.attachment.event.AttachmentDownloadedEvent;
+import com.copypoint.api.domain.attachment.repository.AttachmentRepository;
+import com.copypoint.api.domain.storedmedia.service.StoredMediaService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Etapa de análisis de documentos: cuando un attachment queda DOWNLOADED se
+ * calculan sus páginas, tamaño de papel y páginas a color (ver
+ * DocumentAnalysisService) y se guardan en el attachment, para que la venta
+ * cotice sin leer el archivo. En la misma pasada se generan la miniatura y la
+ * vista previa de imágenes y PDF (ver AttachmentRenditionService); si eso
+ * falla el análisis se guarda igual.
+ * <p>
+ * Corre en un pool acotado con cola acotada. Además, cada análisis reserva
+ * memoria de un presupuesto global según el tamaño del archivo, de modo que
+ * varios PDF enormes no se procesan a la vez; si la memoria no se libera en
+ * una espera corta, el análisis se suelta en lugar de ocupar el hilo. Lo que no
+ * cabe en la cola o se soltó lo retoma el recuperador, que también reintenta
+ * los análisis con el lease vencido.
+ */
+@Slf4j
+@Service
+public class AttachmentAnalysisWorker {
+    private static final int RECOVERY_BATCH_SIZE = 100;
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+    // Memoria mínima reservada por análisis (buffers de lectura y rasterizado)
+    private static final int MIN_RESERVATION_MB = 4;
+    // Memoria extra para decodificar y escalar las versiones reducidas
+    private static final int RENDITION_RESERVATION_MB = 8;
+
+    private final AttachmentRepository attachmentRepository;
+    private final DocumentAnalysisService analysisService;
+    private final AttachmentRenditionService renditionService;
+    private final StoredMediaService storedMediaService;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore memoryBudget;
+    private final int memoryBudgetMb;
+    private final Duration lease;
+    private final Duration memoryWait;
+    // Attachments ya encolados en esta instancia, para que el recuperador no los duplique
+    private final Set<Long> queuedIds = ConcurrentHashMap.newKeySet();
+
+    private final Counter analyzedCounter;
+    private final Counter reusedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final Counter deferredCounter;
+    private final Counter renditionsCounter;
+    private final Counter renditionsFailedCounter;
+
+    public AttachmentAnalysisWorker(AttachmentRepository attachmentRepository,
+                                    DocumentAnalysisService analysisService,
+                                    AttachmentRenditionService renditionService,
+                                    StoredMediaService storedMediaService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.attachments.analysis.workers:2}") int workers,
+                                    @Value("${app.attachments.analysis.queue-capacity:200}") int queueCapacity,
+                                    @Value("${app.attachments.analysis.memory-budget-mb:256}") int memoryBudgetMb,
+                                    @Value("${app.attachments.analysis.lease:15m}") Duration lease,
+                                    @Value("${app.attachments.analysis.memory-wait:5s}") Duration memoryWait) {
+        this.attachmentRepository = attachmentRepository;
+        this.analysisService = analysisService;
+        this.renditionService = renditionService;
+        this.storedMediaService = storedMediaService;
+        this.memoryBudgetMb = Math.max(MIN_RESERVATION_MB, memoryBudgetMb);
+        this.memoryBudget = new Semaphore(this.memoryBudgetMb, true);
+        this.lease = lease;
+        this.memoryWait = memoryWait;
+
+        int threads = Math.max(1, workers);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+            Thread thread = new Thread(runnable, "attachment-analysis-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.analyzedCounter = Counter.builder("attachments.analysis.completed")
+                .register(meterRegistry);
+        this.reusedCounter = Counter.builder("attachments.analysis.reused")
+                .description("Análisis copiados de otro attachment con el mismo contenido")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("attachments.analysis.failed")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("attachments.analysis.rejected")
+                .description("Análisis que no entraron a la cola por estar llena (se reintentan después)")
+                .register(meterRegistry);
+        this.deferredCounter = Counter.builder("attachments.analysis.deferred")
+                .description("Análisis soltados por falta de memoria (los retoma el recuperador)")
+                .register(meterRegistry);
+        this.renditionsCounter = Counter.builder("attachments.renditions.generated")
+                .description("Attachments con miniatura y vista previa generadas")
+                .register(meterRegistry);
+        this.renditionsFailedCounter = Counter.builder("attachments.renditions.failed")
+                .register(meterRegistry);
+        Gauge.builder("attachments.analysis.queue.depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("attachments.analysis.memory.reserved", memoryBudget,
+                        budget -> this.memoryBudgetMb - budget.availablePermits())
+                .baseUnit("megabytes")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAttachmentDownloaded(AttachmentDownloadedEvent event) {
+        submit(event.attachmentId());
+    }
+
+    /**
+     * Encola el análisis; devuelve false si la cola está llena
+     */
+    public boolean submit(Long attachmentId) {
+        if (attachmentId == null || !queuedIds.add(attachmentId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    analyze(attachmentId);
+                } finally {
+                    queuedIds.remove(attachmentId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queuedIds.remove(attachmentId);
+            rejectedCounter.increment();
+            return false;
+        }
+    }
+
+    private void analyze(Long attachmentId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (attachmentRepository.claimAnalysis(attachmentId, now, now.minus(lease)) == 0) {
+            return;
+        }
+
+        Optional<Attachment> attachmentOpt = attachmentRepository.findById(attachmentId);
+        if (attachmentOpt.isEmpty()) {
+            return;
+        }
+        Attachment attachment = attachmentOpt.get();
+
+        // El mismo contenido ya se analizó para otro attachment
+        if (attachment.getStoragePath() != null) {
+            Optional<Attachment> analyzed = attachmentRepository.findFirstByStoragePathAndAnalysisStatus(
+                    attachment.getStoragePath(), AttachmentAnalysisStatus.ANALYZED);
+            if (analyzed.isPresent() && analyzed.get().getPages() != null) {
+                Attachment source = analyzed.get();
+                // Las versiones reducidas viven junto al contenido, así que también se comparten
+                attachment.setThumbnailPath(source.getThumbnailPath());
+                attachment.setPreviewPath(source.getPreviewPath());
+                store(attachment, new DocumentAnalysisService.DocumentAnalysis(
+                        source.getPages(), source.getColorPages(), source.getPaperSize(), source.getPageDetails()));
+                reusedCounter.increment();
+                return;
+            }
+        }
+
+        int reservation = reservationMb(attachment);
+        boolean reserved = false;
+        try {
+            // Espera corta: un hilo bloqueado aquí no atiende la cola mientras los PDF grandes terminan
+            reserved = memoryBudget.tryAcquire(reservation, memoryWait.toMillis(), TimeUnit.MILLISECONDS);
+            if (!reserved) {
+                deferredCounter.increment();
+                log.info("Sin memoria disponible para analizar el attachment {} ({} MB), se reintentará",
+                        attachmentId, reservation);
+                attachmentRepository.releaseAnalysis(attachmentId);
+                return;
+            }
+
+            DocumentAnalysisService.DocumentAnalysis analysis = analysisService.analyze(attachment);
+            if (analysis == null) {
+                attachmentRepository.finishAnalysis(attachmentId, AttachmentAnalysisStatus.SKIPPED,
+                        null, LocalDateTime.now());
+                return;
+            }
+
+            generateRenditions(attachment);
+            store(attachment, analysis);
+            storedMediaService.recordPageCount(attachment.getStoragePath(), analysis.pages());
+            analyzedCounter.increment();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            attachmentRepository.releaseAnalysis(attachmentId);
+        } catch (Exception e) {
+            log.warn("No se pudo analizar el attachment {}: {}", attachmentId, e.getMessage());
+            attachmentRepository.finishAnalysis(attachmentId, AttachmentAnalysisStatus.FAILED,
+                    truncate(e.getMessage()), LocalDateTime.now());
+            failedCounter.increment();
+        } finally {
+            if (reserved) {
+                memoryBudget.release(reservation);
+            }
+        }
+    }
+
+    private void generateRenditions(Attachment attachment) {
+        if (!renditionService.supports(attachment)) {
+            return;
+        }
+        try {
+            Map<AttachmentRendition, String> keys = renditionService.generate(attachment);
+            attachment.setThumbnailPath(keys.get(AttachmentRendition.THUMBNAIL));
+            attachment.setPreviewPath(keys.get(AttachmentRendition.PREVIEW));
+            if (!keys.isEmpty()) {
+                renditionsCounter.increment();
+            }
+        } catch (Exception e) {
+            log.warn("No se pudieron generar las versiones reducidas del attachment {}: {}",
+                    attachment.getId(), e.getMessage());
+            renditionsFailedCounter.increment();
+        }
+    }
+
+    private void store(Attachment attachment, DocumentAnalysisService.DocumentAnalysis analysis) {
+        // La entidad se leyó antes de analizar y puede estar desactualizada: solo se escriben las columnas del análisis
+        attachmentRepository.completeAnalysis(attachment.getId(), analysis.pages(), analysis.colorPages(),
+                analysis.paperSize(), analysis.pageDetails(), attachment.getThumbnailPath(),
+                attachment.getPreviewPath(), LocalDateTime.now());
+
+        log.debug("Attachment {} analizado: {} páginas, {} a color, papel {}", attachment.getId(),
+                analysis.pages(), analysis.colorPages(), analysis.paperSize());
+    }
+
+    /**
+     * Memoria a reservar: proporcional al tamaño del archivo, acotada al presupuesto total
+     */
+    private int reservationMb(Attachment attachment) {
+        long sizeBytes = attachment.getFileSizeBytes() != null ? attachment.getFileSizeBytes() : 0;
+        long sizeMb = (sizeBytes + BYTES_PER_MB - 1) / BYTES_PER_MB;
+        int renditions = renditionService.supports(attachment) ? RENDITION_RESERVATION_MB : 0;
+        return (int) Math.min(memoryBudgetMb, Math.max(MIN_RESERVATION_MB, sizeMb) + renditions);
+    }
+
+    /**
+     * Retoma los attachments descargados que no se analizaron: cola llena,
+     * reinicios o workers caídos con el lease vencido.
+     */
+    @Scheduled(fixedDelayString = "${app.attachments.analysis.recovery-interval-ms:60000}")
+    public void recoverPending() {
+        try {
+            List<Long> pending = attachmentRepository.findIdsPendingAnalysis(
+                    LocalDateTime.now().minus(lease), PageRequest.of(0, RECOVERY_BATCH_SIZE));
+            for (Long attachmentId : pending) {
+                if (!submit(attachmentId)) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error recuperando análisis pendientes: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Lo interrumpido queda ANALYZING y se retoma al vencer el lease
+        executor.shutdownNow();
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -1,18 +1,36 @@
 package com.copypoint.api.domain.attachment.service;
 
 import com.copypoint.api.domain.attachment.Attachment;
+import com.copypoint.api.domain.attachment.dto.AttachmentAvailabilityResponse;
+import com.copypoint.api.domain.attachment.AttachmentRendition;
 import com.copypoint.api.domain.attachment.repository.AttachmentRepository;
+import com.copypoint.api.domain.storedmedia.service.StoredMediaService;
+import com.copypoint.api.infra.cloudflare.r2.dto.R2ObjectInfo;
+import com.copypoint.api.infra.cloudflare.r2.dto.R2PresignedUrl;
 import com.copypoint.api.infra.cloudflare.r2.service.CloudflareR2Service;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
-
 public class AttachmentMediaService {
 
     @Autowired
@@ -21,6 +39,15 @@ public class AttachmentMediaService {
     @Autowired
     private CloudflareR2Service cloudflareR2Service;
 
+    @Autowired
+    private StoredMediaService storedMediaService;
+
+    @Value("${app.attachments.download.redirect-by-default:false}")
+    private boolean redirectByDefault;
+
+    @Value("${app.attachments.download.redirect-url-ttl:15m}")
+    private Duration redirectUrlTtl;
+
     /**
      * Obtiene un attachment por ID desde la base de datos
      */
@@ -29,10 +56,15 @@ public class AttachmentMediaService {
     }
 
     /**
-     * Descarga el archivo del attachment desde R2 y lo retorna como ResponseEntity
+     * Entrega el archivo del attachment leyendo de R2 por streaming.
+     * <p>
+     * Soporta {@code Range} (un solo rango; varios se responden con el archivo
+     * completo) e {@code If-None-Match}. Los bytes pasan de R2 al cliente con un
+     * buffer fijo, así que la memoria por descarga no depende del tamaño del archivo.
+     * Los archivos direccionados por contenido usan su SHA-256 como ETag y son
+     * inmutables; para esos el 304 se responde sin consultar R2.
      */
-    public ResponseEntity<byte[]> downloadAttachmentFile(Long attachmentId) {
-        // Buscar el attachment en la base de datos
+    public ResponseEntity<StreamingResponseBody> streamAttachmentFile(Long attachmentId, HttpHeaders requestHeaders) {
         Optional<Attachment> attachmentOpt = attachmentRepository.findById(attachmentId);
 
         if (attachmentOpt.isEmpty()) {
@@ -46,39 +78,217 @@ public class AttachmentMediaService {
             return ResponseEntity.notFound().build();
         }
 
+        String storagePath = attachment.getStoragePath();
+        String contentHash = contentHash(storagePath);
+        String etag;
+        long length;
+        CacheControl cacheControl;
+
         try {
-            // Descargar el archivo desde R2
-            byte[] fileContent = cloudflareR2Service.downloadFile(attachment.getStoragePath());
+            if (contentHash != null && attachment.getFileSizeBytes() != null) {
+                etag = "\"" + contentHash + "\"";
+                length = attachment.getFileSizeBytes();
+                cacheControl = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+            } else {
+                // Rutas anteriores a la deduplicación: ETag y tamaño los da R2
+                R2ObjectInfo metadata = cloudflareR2Service.getObjectInfo(storagePath);
+                etag = metadata.eTag();
+                length = metadata.sizeBytes();
+                cacheControl = CacheControl.maxAge(Duration.ofHours(1)).cachePrivate();
+            }
+        } catch (Exception e) {
+            log.error("Error consultando el archivo del attachment {}: {}", attachmentId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(cacheControl);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matchesETag(requestHeaders.getIfNoneMatch(), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        headers.setContentType(determineMediaType(attachment));
+        if (attachment.getOriginalName() != null) {
+            headers.setContentDisposition(inlineDisposition(attachment));
+        }
+
+        long start = 0;
+        long end = length - 1;
+        HttpStatus status = HttpStatus.OK;
+
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+        if (ranges.size() == 1 && length > 0) {
+            HttpRange range = ranges.get(0);
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+            // HttpRange no valida que el inicio caiga dentro del recurso: "bytes=500-" sobre
+            // 100 bytes devuelve start=500, end=99
+            if (start >= length || start > end) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long contentLength = Math.max(0, end - start + 1);
+        headers.setContentLength(contentLength);
+
+        long rangeStart = start;
+        long rangeEnd = end;
+        StreamingResponseBody body = output -> {
+            if (contentLength == 0) {
+                return;
+            }
+            try (InputStream input = cloudflareR2Service.openStream(storagePath, rangeStart, rangeEnd)) {
+                input.transferTo(output);
+            }
+        };
+
+        return ResponseEntity.status(status).headers(headers).body(body);
+    }
+
+    /**
+     * SHA-256 de una ruta direccionada por contenido, o null si es una ruta anterior
+     */
+    private static String contentHash(String storagePath) {
+        if (!storagePath.startsWith(StoredMediaService.CONTENT_PREFIX + "/")) {
+            return null;
+        }
+        return storagePath.substring(storagePath.lastIndexOf('/') + 1);
+    }
+
+    private static boolean matchesETag(List<String> ifNoneMatch, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        String normalized = stripWeak(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || stripWeak(candidate).equals(normalized)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * Indica si la descarga debe responderse con un 302 a R2. {@code requested}
+     * es el parámetro de la petición; si no viene se usa la configuración.
+     */
+    public boolean shouldRedirect(Boolean requested) {
+        return requested != null ? requested : redirectByDefault;
+    }
 
-            // Determinar el MediaType basado en el mimeType o fileType
-            MediaType mediaType = determineMediaType(attachment);
+    /**
+     * Responde la descarga con un 302 a una URL prefirmada de R2, de modo que
+     * los bytes no pasan por la API. R2 atiende Range y condicionales por su cuenta.
+     */
+    public ResponseEntity<Void> redirectToAttachmentFile(Long attachmentId) {
+        return generatePresignedUrl(attachmentId, redirectUrlTtl)
+                .map(AttachmentMediaService::redirectTo)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-            // Construir los headers de respuesta
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(mediaType);
-            headers.setContentLength(fileContent.length);
+    /**
+     * Entrega la miniatura o la vista previa del attachment (JPEG). Responde 404
+     * si el tipo no tiene versiones reducidas o todavía no se generan.
+     */
+    public ResponseEntity<StreamingResponseBody> streamRendition(Long attachmentId, AttachmentRendition rendition,
+                                                                 HttpHeaders requestHeaders) {
+        Optional<Attachment> attachmentOpt = attachmentRepository.findById(attachmentId);
+        String renditionPath = attachmentOpt.map(attachment -> renditionPath(attachment, rendition)).orElse(null);
+        if (renditionPath == null) {
+            return ResponseEntity.notFound().build();
+        }
 
-            // Opcional: agregar el nombre original del archivo
-            if (attachment.getOriginalName() != null) {
-                headers.add(HttpHeaders.CONTENT_DISPOSITION,
-                        "inline; filename=\"" + attachment.getOriginalName() + "\"");
+        HttpHeaders headers = new HttpHeaders();
+        String contentHash = contentHash(attachmentOpt.get().getStoragePath());
+        if (contentHash != null) {
+            // Generada a partir de contenido inmutable: la versión tampoco cambia
+            String etag = "\"" + contentHash + "-" + rendition.name().toLowerCase() + "\"";
+            headers.setETag(etag);
+            headers.setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable());
+            if (matchesETag(requestHeaders.getIfNoneMatch(), etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
             }
+        } else {
+            headers.setCacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate());
+        }
+        headers.setContentType(MediaType.IMAGE_JPEG);
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(fileContent);
+        StreamingResponseBody body = output -> {
+            try (InputStream input = cloudflareR2Service.openStream(renditionPath)) {
+                input.transferTo(output);
+            }
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
 
+    /**
+     * Responde la miniatura o la vista previa con un 302 a una URL prefirmada de R2
+     */
+    public ResponseEntity<Void> redirectToRendition(Long attachmentId, AttachmentRendition rendition) {
+        String renditionPath = attachmentRepository.findById(attachmentId)
+                .map(attachment -> renditionPath(attachment, rendition))
+                .orElse(null);
+        if (renditionPath == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            return redirectTo(cloudflareR2Service.generatePresignedUrl(
+                    renditionPath, redirectUrlTtl, MediaType.IMAGE_JPEG_VALUE, null));
         } catch (Exception e) {
-            // Log del error (aquí puedes usar tu logger preferido)
-            System.err.println("Error descargando archivo con ID " + attachmentId + ": " + e.getMessage());
-            return ResponseEntity.internalServerError().build();
+            log.error("Error generando URL prefirmada de {} del attachment {}: {}",
+                    rendition, attachmentId, e.getMessage());
+            return ResponseEntity.notFound().build();
         }
     }
 
+    private static String renditionPath(Attachment attachment, AttachmentRendition rendition) {
+        if (!attachment.isDownloaded()) {
+            return null;
+        }
+        return rendition == AttachmentRendition.THUMBNAIL ? attachment.getThumbnailPath() : attachment.getPreviewPath();
+    }
+
+    private static ResponseEntity<Void> redirectTo(R2PresignedUrl presigned) {
+        // El navegador puede reutilizar la redirección mientras la firma siga vigente
+        Duration remaining = Duration.between(Instant.now(), presigned.expiresAt()).minusMinutes(1);
+        CacheControl cacheControl = remaining.isNegative() || remaining.isZero()
+                ? CacheControl.noStore()
+                : CacheControl.maxAge(remaining).cachePrivate();
+
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(presigned.url()))
+                .cacheControl(cacheControl)
+                .build();
+    }
+
     /**
      * Genera una URL prefirmada para acceso directo al archivo
      */
-    public Optional<String> generatePresignedUrl(Long attachmentId, int expirationMinutes) {
+    public Optional<R2PresignedUrl> generatePresignedUrl(Long attachmentId, int expirationMinutes) {
+        return generatePresignedUrl(attachmentId, Duration.ofMinutes(expirationMinutes));
+    }
+
+    private Optional<R2PresignedUrl> generatePresignedUrl(Long attachmentId, Duration validity) {
         Optional<Attachment> attachmentOpt = attachmentRepository.findById(attachmentId);
 
         if (attachmentOpt.isEmpty()) {
@@ -92,40 +302,75 @@ public class AttachmentMediaService {
         }
 
         try {
-            String presignedUrl = cloudflareR2Service.generatePresignedUrl(
+            // R2 responde con el tipo y el nombre original, igual que la descarga por la API
+            String disposition = attachment.getOriginalName() != null
+                    ? inlineDisposition(attachment).toString()
+                    : null;
+            return Optional.of(cloudflareR2Service.generatePresignedUrl(
                     attachment.getStoragePath(),
-                    expirationMinutes
-            );
-            return Optional.of(presignedUrl);
+                    validity,
+                    determineMediaType(attachment).toString(),
+                    disposition
+            ));
         } catch (Exception e) {
-            System.err.println("Error generando URL prefirmada para attachment ID " + attachmentId + ": " + e.getMessage());
+            log.error("Error generando URL prefirmada para attachment ID {}: {}", attachmentId, e.getMessage());
             return Optional.empty();
         }
     }
 
+    private static ContentDisposition inlineDisposition(Attachment attachment) {
+        return ContentDisposition.inline()
+                .filename(attachment.getOriginalName(), StandardCharsets.UTF_8)
+                .build();
+    }
+
     /**
      * Verifica si un attachment existe y está disponible
      */
     public boolean isAttachmentAvailable(Long attachmentId) {
-        Optional<Attachment> attachmentOpt = attachmentRepository.findById(attachmentId);
-
-        if (attachmentOpt.isEmpty()) {
-            return false;
-        }
+        return checkAvailability(List.of(attachmentId)).get(0).isAvailable();
+    }
 
-        Attachment attachment = attachmentOpt.get();
+    /**
+     * Disponibilidad de varios attachments (p. ej. los de una conversación) con
+     * el mínimo de llamadas a R2. Los archivos direccionados por contenido se
+     * confirman con stored_media; el resto se resuelve con el cache de existencia
+     * y un listado por prefijo en lugar de un HEAD por archivo. El resultado
+     * sigue el orden de {@code attachmentIds}.
+     */
+    public List<AttachmentAvailabilityResponse> checkAvailability(List<Long> attachmentIds) {
+        Map<Long, Attachment> attachments = attachmentRepository.findAllById(new HashSet<>(attachmentIds)).stream()
+                .filter(attachment -> attachment.isDownloaded() && attachment.getStoragePath() != null)
+                .collect(Collectors.toMap(Attachment::getId, Function.identity()));
 
-        // Verificar que esté descargado y tenga ruta de almacenamiento
-        if (!attachment.isDownloaded() || attachment.getStoragePath() == null) {
-            return false;
+        Set<String> contentKeys = new HashSet<>();
+        Set<String> otherKeys = new HashSet<>();
+        for (Attachment attachment : attachments.values()) {
+            String storagePath = attachment.getStoragePath();
+            if (contentHash(storagePath) != null) {
+                contentKeys.add(storagePath);
+            } else {
+                otherKeys.add(storagePath);
+            }
         }
 
-        // Verificar que el archivo exista en R2
+        Set<String> existing = new HashSet<>();
         try {
-            return cloudflareR2Service.fileExists(attachment.getStoragePath());
+            existing.addAll(storedMediaService.findStoredKeys(contentKeys));
+            if (!otherKeys.isEmpty()) {
+                existing.addAll(cloudflareR2Service.existingKeys(otherKeys));
+            }
         } catch (Exception e) {
-            return false;
+            log.error("Error verificando disponibilidad de {} attachments: {}", attachmentIds.size(), e.getMessage());
+        }
+
+        List<AttachmentAvailabilityResponse> result = new ArrayList<>(attachmentIds.size());
+        for (Long attachmentId : attachmentIds) {
+            Attachment attachment = attachments.get(attachmentId);
+            boolean available = attachment != null && existing.contains(attachment.getStoragePath());
+            result.add(new AttachmentAvailabilityResponse(attachmentId, available));
         }
+        return result;
     }
 
     /**
@@ -0,0 +1,203 @@
+package com.copypoint.api.domain.attachment.service;
+
+import com.copypoint.api.domain.attachment.Attachment;
+import com.copypoint.api.domain.attachment.AttachmentFileType;
+import com.copypoint.api.domain.attachment.AttachmentRendition;
+import com.copypoint.api.infra.cloudflare.r2.service.CloudflareR2Service;
+import com.copypoint.api.infra.cloudflare.r2.service.R2RangeRandomAccessRead;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Genera la miniatura y la vista previa (JPEG) de imágenes y PDF ya guardados
+ * en R2 y las sube junto al original.
+ * <p>
+ * Las imágenes se decodifican submuestreadas al tamaño de la vista previa y
+ * de los PDF solo se rasteriza la primera página, leída por rangos. La
+ * miniatura se obtiene de la vista previa, sin volver a leer el original.
+ */
+@Slf4j
+@Service
+public class AttachmentRenditionService {
+    private static final String JPEG = "image/jpeg";
+    private static final float JPEG_QUALITY = 0.8f;
+    private static final float POINTS_PER_INCH = 72f;
+
+    @Autowired
+    private CloudflareR2Service cloudflareR2Service;
+
+    /**
+     * Indica si el attachment tiene versiones reducidas (imágenes y PDF)
+     */
+    public boolean supports(Attachment attachment) {
+        return isPdf(attachment) || isImage(attachment);
+    }
+
+    /**
+     * Genera y sube las versiones del attachment; devuelve la clave en R2 de cada
+     * una, o un mapa vacío si el tipo no se soporta o la imagen no se puede leer.
+     */
+    public Map<AttachmentRendition, String> generate(Attachment attachment) throws IOException {
+        Map<AttachmentRendition, String> keys = new EnumMap<>(AttachmentRendition.class);
+        if (attachment.getStoragePath() == null || !supports(attachment)) {
+            return keys;
+        }
+
+        int maxSide = AttachmentRendition.PREVIEW.getMaxSide();
+        BufferedImage source = isPdf(attachment)
+                ? renderFirstPage(attachment.getStoragePath(), maxSide)
+                : decodeImage(attachment.getStoragePath(), maxSide);
+        if (source == null) {
+            return keys;
+        }
+
+        // De mayor a menor: cada versión se escala a partir de la anterior
+        BufferedImage current = source;
+        for (AttachmentRendition rendition : new AttachmentRendition[]{AttachmentRendition.PREVIEW, AttachmentRendition.THUMBNAIL}) {
+            current = fitWithin(current, rendition.getMaxSide());
+            String key = rendition.keyFor(attachment.getStoragePath());
+            cloudflareR2Service.uploadFile(key, encodeJpeg(current), JPEG);
+            keys.put(rendition, key);
+        }
+
+        log.debug("Versiones reducidas del attachment {} generadas: {}", attachment.getId(), keys.values());
+        return keys;
+    }
+
+    private BufferedImage renderFirstPage(String storagePath, int maxSide) throws IOException {
+        try (R2RangeRandomAccessRead source = cloudflareR2Service.openRandomAccess(storagePath);
+             PDDocument document = Loader.loadPDF(source, "", null, null, IOUtils.createTempFileOnlyStreamCache())) {
+
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+            PDPage page = document.getPage(0);
+            PDRectangle box = page.getCropBox();
+            float longestSidePt = Math.max(box.getWidth(), box.getHeight());
+            float dpi = longestSidePt > 0 ? maxSide * POINTS_PER_INCH / longestSidePt : POINTS_PER_INCH;
+
+            return new PDFRenderer(document).renderImageWithDPI(0, dpi, ImageType.RGB);
+        }
+    }
+
+    private BufferedImage decodeImage(String storagePath, int maxSide) throws IOException {
+        try (InputStream input = cloudflareR2Service.openStream(storagePath);
+             ImageInputStream imageInput = ImageIO.createImageInputStream(input)) {
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                // Formato sin lector (p. ej. WebP)
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // Submuestreo entero que deja el lado mayor en al menos maxSide
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / maxSide);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reduce la imagen para que su lado mayor no pase de {@code maxSide}, a la
+     * mitad en cada paso para no perder calidad en reducciones grandes. El
+     * resultado es RGB sobre fondo blanco (JPEG no tiene transparencia).
+     */
+    private static BufferedImage fitWithin(BufferedImage image, int maxSide) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) maxSide / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = image;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            if (current.getType() == BufferedImage.TYPE_INT_RGB
+                    && current.getWidth() == width && current.getHeight() == height) {
+                break;
+            }
+
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private static boolean isPdf(Attachment attachment) {
+        return attachment.getFileType() == AttachmentFileType.PDF
+                || "application/pdf".equals(attachment.getMimeType());
+    }
+
+    private static boolean isImage(Attachment attachment) {
+        AttachmentFileType fileType = attachment.getFileType();
+        return fileType == AttachmentFileType.IMAGE || fileType == AttachmentFileType.PNG
+                || fileType == AttachmentFileType.JPG
+                || (attachment.getMimeType() != null && attachment.getMimeType().startsWith("image/"));
+    }
+}
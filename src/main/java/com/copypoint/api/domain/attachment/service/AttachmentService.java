@@ -3,9 +3,11 @@ package com.copypoint.api.domain.attachment.service;
 import com.copypoint.api.domain.attachment.Attachment;
 import com.copypoint.api.domain.attachment.AttachmentDownloadStatus;
 import com.copypoint.api.domain.attachment.AttachmentFileType;
+import com.copypoint.api.domain.attachment.event.AttachmentDownloadedEvent;
 import com.copypoint.api.domain.attachment.repository.AttachmentRepository;
 import com.copypoint.api.domain.message.Message;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +20,9 @@ public class AttachmentService {
     @Autowired
     private AttachmentRepository attachmentRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Attachment save(Attachment attachment) {
         return attachmentRepository.save(attachment);
     }
@@ -69,6 +74,7 @@ public class AttachmentService {
         attachment.markAsDownloaded();
 
         save(attachment);
+        eventPublisher.publishEvent(new AttachmentDownloadedEvent(attachment.getId()));
     }
 
     /**
@@ -87,13 +93,6 @@ public class AttachmentService {
         save(attachment);
     }
 
-    /**
-     * Busca attachments que necesitan reintento
-     */
-    public List<Attachment> findAttachmentsForRetry(int maxAttempts) {
-        return attachmentRepository.findFailedAttachmentsForRetry(maxAttempts);
-    }
-
     /**
      * Detecta el tipo de archivo basado en el nombre o extensión
      */
@@ -0,0 +1,187 @@
+package com.copypoint.api.domain.attachment.service;
+
+import com.copypoint.api.domain.attachment.Attachment;
+import com.copypoint.api.domain.attachment.AttachmentFileType;
+import com.copypoint.api.domain.attachment.AttachmentPageInfo;
+import com.copypoint.api.domain.attachment.PaperSize;
+import com.copypoint.api.infra.cloudflare.r2.service.CloudflareR2Service;
+import com.copypoint.api.infra.cloudflare.r2.service.R2RangeRandomAccessRead;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Analiza un documento ya guardado en R2: número de páginas, dimensiones y
+ * tamaño de papel de cada página y si usa color.
+ * <p>
+ * Los PDF se leen por rangos y cada página se rasteriza a baja resolución para
+ * detectar color; los flujos decodificados van a archivos temporales en lugar
+ * del heap. Las imágenes se decodifican submuestreadas. De los documentos de
+ * Office solo se obtiene el número de páginas.
+ */
+@Slf4j
+@Service
+public class DocumentAnalysisService {
+    // Resolución para detectar color: suficiente para ver tinta de color, mínima en memoria
+    private static final float COLOR_SCAN_DPI = 24f;
+    private static final int IMAGE_SCAN_MAX_SIDE = 256;
+    // Diferencia mínima entre canales RGB para considerar un píxel "de color"
+    private static final int CHROMA_THRESHOLD = 24;
+    // Proporción de píxeles de color a partir de la cual la página se cobra a color
+    private static final double COLOR_PIXEL_RATIO = 0.001;
+
+    @Autowired
+    private CloudflareR2Service cloudflareR2Service;
+
+    @Autowired
+    private PageCountService pageCountService;
+
+    @Value("${app.attachments.analysis.color-max-pages:300}")
+    private int colorMaxPages;
+
+    public DocumentAnalysis analyze(Attachment attachment) throws IOException {
+        AttachmentFileType fileType = attachment.getFileType();
+        String mimeType = attachment.getMimeType() != null ? attachment.getMimeType() : "";
+
+        if (fileType == AttachmentFileType.PDF || mimeType.equals("application/pdf")) {
+            return analyzePdf(attachment.getStoragePath());
+        }
+        if (fileType == AttachmentFileType.IMAGE || fileType == AttachmentFileType.PNG
+                || fileType == AttachmentFileType.JPG || mimeType.startsWith("image/")) {
+            return analyzeImage(attachment.getStoragePath());
+        }
+        if (pageCountService.isFileTypeSupported(fileType)) {
+            int pages = pageCountService.calculatePages(attachment);
+            return new DocumentAnalysis(pages, null, null, List.of());
+        }
+        return null;
+    }
+
+    private DocumentAnalysis analyzePdf(String storagePath) throws IOException {
+        try (R2RangeRandomAccessRead source = cloudflareR2Service.openRandomAccess(storagePath);
+             PDDocument document = Loader.loadPDF(source, "", null, null, IOUtils.createTempFileOnlyStreamCache())) {
+
+            int pageCount = document.getNumberOfPages();
+            boolean scanColor = pageCount <= colorMaxPages;
+            PDFRenderer renderer = scanColor ? new PDFRenderer(document) : null;
+
+            List<AttachmentPageInfo> pages = new ArrayList<>(pageCount);
+            int colorPages = 0;
+            for (int i = 0; i < pageCount; i++) {
+                PDPage page = document.getPage(i);
+                PDRectangle box = page.getCropBox();
+                boolean rotated = page.getRotation() % 180 != 0;
+                float width = rotated ? box.getHeight() : box.getWidth();
+                float height = rotated ? box.getWidth() : box.getHeight();
+
+                Boolean color = null;
+                if (renderer != null) {
+                    BufferedImage image = renderer.renderImageWithDPI(i, COLOR_SCAN_DPI, ImageType.RGB);
+                    color = hasColor(image);
+                    image.flush();
+                    if (color) {
+                        colorPages++;
+                    }
+                }
+
+                pages.add(new AttachmentPageInfo(i + 1, width, height, PaperSize.classify(width, height), color));
+            }
+
+            log.debug("PDF {} analizado: {} páginas, {} a color ({} lecturas por rango)",
+                    storagePath, pageCount, scanColor ? colorPages : "sin analizar", source.getRangeRequests());
+            return new DocumentAnalysis(pageCount, scanColor ? colorPages : null, dominantPaperSize(pages), pages);
+        }
+    }
+
+    private DocumentAnalysis analyzeImage(String storagePath) throws IOException {
+        try (InputStream input = cloudflareR2Service.openStream(storagePath);
+             ImageInputStream imageInput = ImageIO.createImageInputStream(input)) {
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                // Formato sin lector (p. ej. WebP): una página sin datos de color
+                return new DocumentAnalysis(1, null, null, List.of());
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // Se decodifica submuestreada para no cargar la imagen completa en memoria
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / IMAGE_SCAN_MAX_SIDE);
+                param.setSourceSubsampling(step, step, 0, 0);
+                boolean color = hasColor(reader.read(0, param));
+
+                AttachmentPageInfo page = new AttachmentPageInfo(1, width, height, null, color);
+                return new DocumentAnalysis(1, color ? 1 : 0, null, List.of(page));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static boolean hasColor(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long threshold = Math.max(1, (long) (width * (long) height * COLOR_PIXEL_RATIO));
+        long colored = 0;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                int r = (rgb >> 16) & 0xFF;
+                int g = (rgb >> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                int chroma = Math.max(r, Math.max(g, b)) - Math.min(r, Math.min(g, b));
+                if (chroma > CHROMA_THRESHOLD && ++colored >= threshold) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String dominantPaperSize(List<AttachmentPageInfo> pages) {
+        if (pages.isEmpty()) {
+            return null;
+        }
+        PaperSize first = pages.get(0).paperSize();
+        for (AttachmentPageInfo page : pages) {
+            if (page.paperSize() != first) {
+                return "MIXED";
+            }
+        }
+        return first.name();
+    }
+
+    /**
+     * @param colorPages null si no se analizó el color
+     */
+    public record DocumentAnalysis(int pages,
+                                   Integer colorPages,
+                                   String paperSize,
+                                   List<AttachmentPageInfo> pageDetails) {
+    }
+}
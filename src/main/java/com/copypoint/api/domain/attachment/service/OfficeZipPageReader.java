@@ -0,0 +1,193 @@
+package com.copypoint.api.domain.attachment.service;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.OptionalInt;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Lee el número de páginas que Word guarda en {@code docProps/app.xml} de un
+ * DOCX, sin abrir el documento con POI.
+ * <p>
+ * Solo se leen el directorio central del ZIP (al final del archivo) y la
+ * entrada app.xml, de modo que con una fuente por rangos se transfieren unos
+ * pocos KiB aunque el documento pese decenas de MiB.
+ */
+final class OfficeZipPageReader {
+    private static final String APP_PROPERTIES_ENTRY = "docProps/app.xml";
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_MIN_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    // Límites de seguridad: app.xml pesa unos cuantos KiB
+    private static final int MAX_CENTRAL_DIRECTORY_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_ENTRY_SIZE = 1024 * 1024;
+
+    private OfficeZipPageReader() {
+    }
+
+    /**
+     * Devuelve el valor de {@code <Pages>} o vacío si el archivo no lo trae
+     * (algunos editores distintos de Word no lo escriben)
+     */
+    static OptionalInt readPageCount(RandomAccessRead source) throws IOException {
+        byte[] appXml = readEntry(source, APP_PROPERTIES_ENTRY);
+        if (appXml == null) {
+            return OptionalInt.empty();
+        }
+        return parsePages(appXml);
+    }
+
+    private static byte[] readEntry(RandomAccessRead source, String entryName) throws IOException {
+        long length = source.length();
+        int tailSize = (int) Math.min(length, END_OF_CENTRAL_DIRECTORY_MIN_SIZE + MAX_COMMENT_SIZE);
+        byte[] tail = readAt(source, length - tailSize, tailSize);
+
+        int eocd = -1;
+        for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_MIN_SIZE; i >= 0; i--) {
+            if (int32(tail, i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new IOException("No es un archivo ZIP válido");
+        }
+
+        long centralDirectorySize = uint32(tail, eocd + 12);
+        long centralDirectoryOffset = uint32(tail, eocd + 16);
+        if (centralDirectorySize > MAX_CENTRAL_DIRECTORY_SIZE || centralDirectoryOffset + centralDirectorySize > length) {
+            throw new IOException("Directorio central del ZIP inválido");
+        }
+
+        byte[] directory = readAt(source, centralDirectoryOffset, (int) centralDirectorySize);
+        byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+        int pos = 0;
+        while (pos + 46 <= directory.length && int32(directory, pos) == CENTRAL_DIRECTORY_SIGNATURE) {
+            int method = uint16(directory, pos + 10);
+            long compressedSize = uint32(directory, pos + 20);
+            long uncompressedSize = uint32(directory, pos + 24);
+            int nameLength = uint16(directory, pos + 28);
+            int extraLength = uint16(directory, pos + 30);
+            int commentLength = uint16(directory, pos + 32);
+            long localHeaderOffset = uint32(directory, pos + 42);
+
+            if (nameLength == name.length && regionMatches(directory, pos + 46, name)) {
+                if (compressedSize > MAX_ENTRY_SIZE || uncompressedSize > MAX_ENTRY_SIZE) {
+                    throw new IOException(entryName + " excede el tamaño permitido");
+                }
+                return readLocalEntry(source, localHeaderOffset, method, (int) compressedSize, (int) uncompressedSize);
+            }
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+        return null;
+    }
+
+    private static byte[] readLocalEntry(RandomAccessRead source, long offset, int method,
+                                         int compressedSize, int uncompressedSize) throws IOException {
+        byte[] header = readAt(source, offset, 30);
+        if (int32(header, 0) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("Cabecera local del ZIP inválida");
+        }
+        long dataOffset = offset + 30 + uint16(header, 26) + uint16(header, 28);
+        byte[] data = readAt(source, dataOffset, compressedSize);
+
+        if (method == 0) {
+            return data;
+        }
+        if (method != 8) {
+            throw new IOException("Método de compresión no soportado: " + method);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            byte[] out = new byte[uncompressedSize];
+            int total = 0;
+            while (total < out.length && !inflater.finished()) {
+                int count = inflater.inflate(out, total, out.length - total);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += count;
+            }
+            return total == out.length ? out : Arrays.copyOf(out, total);
+        } catch (DataFormatException e) {
+            throw new IOException("Error descomprimiendo entrada del ZIP: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static OptionalInt parsePages(byte[] appXml) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(appXml));
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && "Pages".equals(reader.getLocalName())) {
+                        int pages = Integer.parseInt(reader.getElementText().trim());
+                        return pages > 0 ? OptionalInt.of(pages) : OptionalInt.empty();
+                    }
+                }
+                return OptionalInt.empty();
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new IOException("docProps/app.xml inválido: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] readAt(RandomAccessRead source, long offset, int length) throws IOException {
+        byte[] buffer = new byte[length];
+        source.seek(offset);
+        int total = 0;
+        while (total < length) {
+            int count = source.read(buffer, total, length - total);
+            if (count < 0) {
+                throw new IOException("Fin de archivo inesperado en el ZIP");
+            }
+            total += count;
+        }
+        return buffer;
+    }
+
+    private static boolean regionMatches(byte[] data, int offset, byte[] expected) {
+        if (offset + expected.length > data.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (data[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int uint16(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int int32(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+    }
+
+    private static long uint32(byte[] data, int offset) {
+        return int32(data, offset) & 0xFFFFFFFFL;
+    }
+}
@@ -3,26 +3,40 @@ package com.copypoint.api.domain.attachment.service;
 
 import com.copypoint.api.domain.attachment.Attachment;
 import com.copypoint.api.domain.attachment.AttachmentFileType;
+import com.copypoint.api.domain.storedmedia.service.StoredMediaService;
 import com.copypoint.api.infra.cloudflare.r2.service.CloudflareR2Service;
+import com.copypoint.api.infra.cloudflare.r2.service.R2RangeRandomAccessRead;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.poi.hpsf.HPSFPropertiesOnlyDocument;
+import org.apache.poi.hpsf.SummaryInformation;
 import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Optional;
+import java.util.OptionalInt;
 
 @Slf4j
 @Service
 public class PageCountService {
+    private static final String DOCX_MIME_TYPE =
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
     @Autowired
     private CloudflareR2Service cloudflareR2Service;
 
+    @Autowired
+    private StoredMediaService storedMediaService;
+
     /**
-     * Calcula el número de páginas de un attachment
+     * Calcula el número de páginas de un attachment.
+     * Si el mismo contenido ya se contó para otro attachment se reutiliza ese valor.
      */
     public int calculatePages(Attachment attachment) throws IOException {
         log.debug("Calculando páginas para attachment ID: {}, tipo: {}",
@@ -32,15 +46,24 @@ public class PageCountService {
             throw new IllegalStateException("El attachment no está descargado o no tiene ruta de almacenamiento");
         }
 
-        // Descargar el archivo desde R2
-        byte[] fileContent = cloudflareR2Service.downloadFile(attachment.getStoragePath());
+        Optional<Integer> known = storedMediaService.findPageCount(attachment.getStoragePath());
+        if (known.isPresent()) {
+            log.debug("Páginas de {} reutilizadas: {}", attachment.getStoragePath(), known.get());
+            return known.get();
+        }
+
+        int pages = countPages(attachment);
+        storedMediaService.recordPageCount(attachment.getStoragePath(), pages);
+        return pages;
+    }
 
-        return switch (attachment.getFileType()) {
-            case PDF -> calculatePdfPages(fileContent);
-            case DOC -> calculateDocPages(fileContent);
-            case DOCX -> calculateDocxPages(fileContent);
-            case IMAGE, PNG, JPG -> 1; // Las imágenes siempre son 1 página
-            default -> {
+    private int countPages(Attachment attachment) throws IOException {
+        return switch (resolveFormat(attachment)) {
+            case PDF -> calculatePdfPages(attachment.getStoragePath());
+            case DOC -> calculateDocPages(attachment.getStoragePath());
+            case DOCX -> calculateDocxPages(attachment.getStoragePath());
+            case IMAGE -> 1; // Las imágenes siempre son 1 página
+            case UNSUPPORTED -> {
                 log.warn("Tipo de archivo no soportado para cálculo de páginas: {}", attachment.getFileType());
                 yield 1; // Por defecto 1 página
             }
@@ -48,12 +71,40 @@ public class PageCountService {
     }
 
     /**
-     * Calcula páginas de un archivo PDF
+     * Los documentos de WhatsApp llegan como DOCUMENT; el formato real sale del MIME o la extensión
+     */
+    private DocumentFormat resolveFormat(Attachment attachment) {
+        AttachmentFileType fileType = attachment.getFileType();
+        String mimeType = attachment.getMimeType() != null ? attachment.getMimeType() : "";
+        String name = attachment.getOriginalName() != null ? attachment.getOriginalName().toLowerCase() : "";
+
+        if (fileType == AttachmentFileType.PDF || mimeType.equals("application/pdf") || name.endsWith(".pdf")) {
+            return DocumentFormat.PDF;
+        }
+        if (fileType == AttachmentFileType.DOCX || mimeType.equals(DOCX_MIME_TYPE) || name.endsWith(".docx")) {
+            return DocumentFormat.DOCX;
+        }
+        if (fileType == AttachmentFileType.DOC || mimeType.equals("application/msword") || name.endsWith(".doc")) {
+            return DocumentFormat.DOC;
+        }
+        if (fileType == AttachmentFileType.IMAGE || fileType == AttachmentFileType.PNG
+                || fileType == AttachmentFileType.JPG || mimeType.startsWith("image/")) {
+            return DocumentFormat.IMAGE;
+        }
+        return DocumentFormat.UNSUPPORTED;
+    }
+
+    /**
+     * Calcula páginas de un archivo PDF.
+     * PDFBox carga los objetos bajo demanda: con una fuente por rangos solo se
+     * leen el trailer, la tabla xref y el nodo raíz del árbol de páginas.
      */
-    private int calculatePdfPages(byte[] fileContent) throws IOException {
-        try (PDDocument document = Loader.loadPDF(fileContent)) {
+    private int calculatePdfPages(String storagePath) throws IOException {
+        try (R2RangeRandomAccessRead source = cloudflareR2Service.openRandomAccess(storagePath);
+             PDDocument document = Loader.loadPDF(source)) {
             int pageCount = document.getNumberOfPages();
-            log.debug("PDF tiene {} páginas", pageCount);
+            log.debug("PDF tiene {} páginas ({} lecturas por rango de {} bytes)",
+                    pageCount, source.getRangeRequests(), source.length());
             return pageCount;
         } catch (Exception e) {
             log.error("Error leyendo PDF: {}", e.getMessage(), e);
@@ -62,16 +113,26 @@ public class PageCountService {
     }
 
     /**
-     * Calcula páginas de un archivo DOC (formato antiguo de Word)
+     * Calcula páginas de un archivo DOC (formato antiguo de Word).
+     * Word guarda el conteo en las propiedades del documento (SummaryInformation);
+     * solo si falta se estima por número de palabras.
      */
-    private int calculateDocPages(byte[] fileContent) throws IOException {
-        try (HWPFDocument document = new HWPFDocument(new ByteArrayInputStream(fileContent))) {
-            // Para archivos DOC es más complejo calcular páginas exactas
-            // Una aproximación es contar la cantidad de texto y estimar
-            String text = document.getDocumentText();
+    private int calculateDocPages(String storagePath) throws IOException {
+        byte[] fileContent = cloudflareR2Service.downloadFile(storagePath);
+
+        try (POIFSFileSystem fileSystem = new POIFSFileSystem(new ByteArrayInputStream(fileContent))) {
+            SummaryInformation summary = new HPSFPropertiesOnlyDocument(fileSystem).getSummaryInformation();
+            if (summary != null && summary.getPageCount() > 0) {
+                log.debug("DOC tiene {} páginas según sus propiedades", summary.getPageCount());
+                return summary.getPageCount();
+            }
+        } catch (Exception e) {
+            log.debug("DOC sin propiedades legibles, se estimará por palabras: {}", e.getMessage());
+        }
 
+        try (HWPFDocument document = new HWPFDocument(new ByteArrayInputStream(fileContent))) {
             // Estimación: aproximadamente 500 palabras por página
-            int wordCount = text.split("\\s+").length;
+            int wordCount = countWords(document.getDocumentText());
             int estimatedPages = Math.max(1, (int) Math.ceil(wordCount / 500.0));
 
             log.debug("DOC estimado en {} páginas (basado en {} palabras)", estimatedPages, wordCount);
@@ -83,11 +144,23 @@ public class PageCountService {
     }
 
     /**
-     * Calcula páginas de un archivo DOCX (formato nuevo de Word)
+     * Calcula páginas de un archivo DOCX (formato nuevo de Word).
+     * Se usa el valor de docProps/app.xml, leído por rangos; solo si falta se
+     * abre el documento completo y se estima.
      */
-    private int calculateDocxPages(byte[] fileContent) throws IOException {
+    private int calculateDocxPages(String storagePath) throws IOException {
+        try (R2RangeRandomAccessRead source = cloudflareR2Service.openRandomAccess(storagePath)) {
+            OptionalInt pages = OfficeZipPageReader.readPageCount(source);
+            if (pages.isPresent()) {
+                log.debug("DOCX tiene {} páginas según docProps/app.xml", pages.getAsInt());
+                return pages.getAsInt();
+            }
+        } catch (IOException e) {
+            log.debug("No se pudo leer docProps/app.xml, se estimará: {}", e.getMessage());
+        }
+
+        byte[] fileContent = cloudflareR2Service.downloadFile(storagePath);
         try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(fileContent))) {
-            // Para DOCX también es complejo calcular páginas exactas
             // Usamos una estimación basada en párrafos y saltos de página
 
             int paragraphCount = document.getParagraphs().size();
@@ -120,12 +193,29 @@ public class PageCountService {
         }
     }
 
+    /**
+     * Cuenta palabras recorriendo el texto una vez, sin regex ni arreglos intermedios
+     */
+    private static int countWords(String text) {
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                inWord = false;
+            } else if (!inWord) {
+                inWord = true;
+                words++;
+            }
+        }
+        return words;
+    }
+
     /**
      * Verifica si un tipo de archivo es soportado para cálculo de páginas
      */
     public boolean isFileTypeSupported(AttachmentFileType fileType) {
         return switch (fileType) {
-            case PDF, DOC, DOCX, IMAGE, PNG, JPG -> true;
+            case PDF, DOC, DOCX, DOCUMENT, IMAGE, PNG, JPG -> true;
             default -> false;
         };
     }
@@ -142,4 +232,12 @@ public class PageCountService {
             default -> 1;
         };
     }
+
+    private enum DocumentFormat {
+        PDF,
+        DOC,
+        DOCX,
+        IMAGE,
+        UNSUPPORTED
+    }
 }
@@ -0,0 +1,8 @@
+package com.copypoint.api.domain.employee.event;
+
+/**
+ * Se publica cuando cambian las asignaciones de roles de un empleado,
+ * para que los permisos resueltos del usuario se vuelvan a calcular.
+ */
+public record EmployeeRolesChangedEvent(Long userId) {
+}
@@ -2,6 +2,7 @@ package com.copypoint.api.domain.employee.service;
 
 import com.copypoint.api.domain.copypoint.Copypoint;
 import com.copypoint.api.domain.employee.Employee;
+import com.copypoint.api.domain.employee.event.EmployeeRolesChangedEvent;
 import com.copypoint.api.domain.employee.repository.EmployeeRepository;
 import com.copypoint.api.domain.employee.EmployeeStatus;
 import com.copypoint.api.domain.employee.dto.EmployeeDTO;
@@ -13,6 +14,7 @@ import com.copypoint.api.domain.role.RoleType;
 import com.copypoint.api.domain.store.Store;
 import com.copypoint.api.domain.user.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +33,9 @@ public class EmployeeService {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Transactional
     public EmployeeDTO saveEmployee(
             User user,
@@ -107,6 +112,7 @@ public class EmployeeService {
 
             // Guardar los cambios
             Employee savedEmployee = employeeRepository.save(employee);
+            eventPublisher.publishEvent(new EmployeeRolesChangedEvent(employee.getUser().getId()));
             return new EmployeeDTO(savedEmployee);
         }
     }
@@ -140,6 +146,7 @@ public class EmployeeService {
 
         // Guardar el nuevo empleado
         Employee savedEmployee = employeeRepository.save(newEmployee);
+        eventPublisher.publishEvent(new EmployeeRolesChangedEvent(user.getId()));
         return new EmployeeDTO(savedEmployee);
     }
 
@@ -0,0 +1,61 @@
+package com.copypoint.api.domain.mediadownloadjob;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Descarga pendiente de un media de WhatsApp hacia R2, con su estado de reintentos.
+ */
+@Entity
+@Table(name = "media_download_jobs")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MediaDownloadJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "attachment_id", nullable = false, unique = true)
+    private Long attachmentId;
+
+    @Column(name = "customer_service_phone_id", nullable = false)
+    private Long customerServicePhoneId;
+
+    @Column(name = "media_sid", nullable = false, length = 100)
+    private String mediaSid;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private MediaDownloadJobStatus status = MediaDownloadJobStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
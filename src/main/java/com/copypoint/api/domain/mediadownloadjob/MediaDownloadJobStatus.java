@@ -0,0 +1,8 @@
+package com.copypoint.api.domain.mediadownloadjob;
+
+public enum MediaDownloadJobStatus {
+    PENDING,    // Esperando su próximo intento
+    RUNNING,    // Reclamado por un worker (lease vigente)
+    SUCCEEDED,  // Media guardado en R2
+    FAILED      // Agotó los intentos
+}
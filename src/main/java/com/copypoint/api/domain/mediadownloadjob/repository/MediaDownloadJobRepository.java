@@ -0,0 +1,125 @@
+package com.copypoint.api.domain.mediadownloadjob.repository;
+
+import com.copypoint.api.domain.mediadownloadjob.MediaDownloadJob;
+import com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaDownloadJobRepository extends JpaRepository<MediaDownloadJob, Long> {
+
+    Optional<MediaDownloadJob> findByAttachmentId(Long attachmentId);
+
+    /**
+     * Trabajos listos para ejecutarse: PENDING con el intento vencido o RUNNING con el lease expirado
+     */
+    @Query("""
+        SELECT j FROM MediaDownloadJob j
+        WHERE (j.status = com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus.PENDING
+               AND j.nextAttemptAt <= :now)
+           OR (j.status = com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus.RUNNING
+               AND j.lockedUntil < :now)
+        ORDER BY j.nextAttemptAt
+        """)
+    List<MediaDownloadJob> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Descargas en curso (lease vigente) por teléfono, en todas las instancias
+     */
+    @Query("""
+        SELECT j.customerServicePhoneId AS phoneId, COUNT(j) AS running
+        FROM MediaDownloadJob j
+        WHERE j.status = com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus.RUNNING
+          AND j.lockedUntil >= :now
+        GROUP BY j.customerServicePhoneId
+        """)
+    List<PhoneRunningCount> countRunningByPhone(@Param("now") LocalDateTime now);
+
+    /**
+     * Reclama un trabajo para este worker. Solo una instancia lo logra.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE MediaDownloadJob j
+        SET j.status = com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus.RUNNING,
+            j.lockedBy = :owner,
+            j.lockedUntil = :lockedUntil,
+            j.attempts = j.attempts + 1
+        WHERE j.id = :id
+          AND ((j.status = com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus.PENDING
+                AND j.nextAttemptAt <= :now)
+               OR (j.status = com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus.RUNNING
+                   AND j.lockedUntil < :now))
+        """)
+    int claim(@Param("id") Long id,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    /**
+     * Cierra el trabajo (SUCCEEDED o FAILED) si este worker sigue siendo su dueño
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE MediaDownloadJob j
+        SET j.status = :status, j.lastError = :error, j.completedAt = :now,
+            j.lockedBy = null, j.lockedUntil = null
+        WHERE j.id = :id AND j.lockedBy = :owner
+        """)
+    int complete(@Param("id") Long id,
+                 @Param("owner") String owner,
+                 @Param("status") MediaDownloadJobStatus status,
+                 @Param("error") String error,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * Cierra un trabajo que ningún worker reclamó (descarga inmediata al recibir el mensaje)
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE MediaDownloadJob j
+        SET j.status = :status, j.lastError = null, j.completedAt = :now
+        WHERE j.id = :id
+          AND j.status = com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus.PENDING
+        """)
+    int completePending(@Param("id") Long id,
+                        @Param("status") MediaDownloadJobStatus status,
+                        @Param("now") LocalDateTime now);
+
+    /**
+     * Devuelve el trabajo a PENDING con la fecha del siguiente intento
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE MediaDownloadJob j
+        SET j.status = com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus.PENDING,
+            j.nextAttemptAt = :nextAttemptAt, j.lastError = :error,
+            j.lockedBy = null, j.lockedUntil = null
+        WHERE j.id = :id AND j.lockedBy = :owner
+        """)
+    int reschedule(@Param("id") Long id,
+                   @Param("owner") String owner,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    long countByStatus(MediaDownloadJobStatus status);
+
+    interface PhoneRunningCount {
+        Long getPhoneId();
+
+        Long getRunning();
+    }
+}
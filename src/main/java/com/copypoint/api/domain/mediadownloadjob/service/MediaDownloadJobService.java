@@ -0,0 +1,137 @@
+package com.copypoint.api.domain.mediadownloadjob.service;
+
+import com.copypoint.api.domain.attachment.Attachment;
+import com.copypoint.api.domain.mediadownloadjob.MediaDownloadJob;
+import com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus;
+import com.copypoint.api.domain.mediadownloadjob.repository.MediaDownloadJobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Alta y reprogramación de trabajos de descarga de media.
+ * <p>
+ * Los reintentos usan backoff exponencial con jitter: el retraso base se
+ * duplica en cada intento hasta {@code maxDelay} y se toma un valor aleatorio
+ * entre la mitad y el total, para que una ráfaga de fallos no se reintente
+ * toda al mismo tiempo.
+ */
+@Service
+public class MediaDownloadJobService {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final MediaDownloadJobRepository jobRepository;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final int maxAttempts;
+    private final Duration lease;
+
+    public MediaDownloadJobService(MediaDownloadJobRepository jobRepository,
+                                   @Value("${app.media.download.base-delay:10s}") Duration baseDelay,
+                                   @Value("${app.media.download.max-delay:30m}") Duration maxDelay,
+                                   @Value("${app.media.download.max-attempts:6}") int maxAttempts,
+                                   @Value("${app.media.download.lease:10m}") Duration lease) {
+        this.jobRepository = jobRepository;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+    }
+
+    /**
+     * Registra el trabajo antes de la descarga inmediata al recibir el mensaje,
+     * con el primer intento de la cola un lease más tarde. Si el proceso muere
+     * durante la descarga inmediata, la cola la retoma cuando vence; si termina
+     * bien se cierra con {@link #recordInlineSuccess} y si falla se reprograma
+     * con {@link #enqueue}.
+     */
+    @Transactional
+    public MediaDownloadJob reserve(Attachment attachment, Long customerServicePhoneId) {
+        return schedule(attachment, customerServicePhoneId, 0, null, LocalDateTime.now().plus(lease));
+    }
+
+    /**
+     * Cierra un trabajo reservado cuya descarga inmediata terminó bien
+     */
+    public void recordInlineSuccess(MediaDownloadJob job) {
+        jobRepository.completePending(job.getId(), MediaDownloadJobStatus.SUCCEEDED, LocalDateTime.now());
+    }
+
+    /**
+     * Agenda la descarga de un attachment. {@code attemptsSoFar} cuenta los
+     * intentos ya hechos fuera de la cola (p. ej. la descarga inmediata al
+     * recibir el mensaje); con 0 el trabajo queda listo de inmediato.
+     * Si el attachment ya tenía trabajo, se reactiva.
+     */
+    @Transactional
+    public MediaDownloadJob enqueue(Attachment attachment, Long customerServicePhoneId,
+                                    int attemptsSoFar, String lastError) {
+        LocalDateTime nextAttemptAt = attemptsSoFar > 0
+                ? LocalDateTime.now().plus(backoff(attemptsSoFar))
+                : LocalDateTime.now();
+        return schedule(attachment, customerServicePhoneId, attemptsSoFar, lastError, nextAttemptAt);
+    }
+
+    private MediaDownloadJob schedule(Attachment attachment, Long customerServicePhoneId,
+                                      int attemptsSoFar, String lastError, LocalDateTime nextAttemptAt) {
+        MediaDownloadJob job = jobRepository.findByAttachmentId(attachment.getId())
+                .orElseGet(() -> MediaDownloadJob.builder()
+                        .attachmentId(attachment.getId())
+                        .build());
+
+        if (job.getStatus() == MediaDownloadJobStatus.RUNNING) {
+            // Un worker ya la está descargando
+            return job;
+        }
+
+        job.setCustomerServicePhoneId(customerServicePhoneId);
+        job.setMediaSid(attachment.getMediaSid());
+        job.setStatus(MediaDownloadJobStatus.PENDING);
+        job.setAttempts(attemptsSoFar);
+        job.setNextAttemptAt(nextAttemptAt);
+        job.setLastError(truncate(lastError));
+        job.setCompletedAt(null);
+        return jobRepository.save(job);
+    }
+
+    /**
+     * Resultado de un intento fallido: reprograma con backoff o, si se agotaron
+     * los intentos, marca el trabajo como FAILED. Devuelve true si se reprogramó.
+     */
+    public boolean recordFailure(MediaDownloadJob job, String owner, String error) {
+        if (job.getAttempts() >= maxAttempts) {
+            jobRepository.complete(job.getId(), owner, MediaDownloadJobStatus.FAILED,
+                    truncate(error), LocalDateTime.now());
+            return false;
+        }
+
+        jobRepository.reschedule(job.getId(), owner,
+                LocalDateTime.now().plus(backoff(job.getAttempts())), truncate(error));
+        return true;
+    }
+
+    public void recordSuccess(MediaDownloadJob job, String owner) {
+        jobRepository.complete(job.getId(), owner, MediaDownloadJobStatus.SUCCEEDED, null, LocalDateTime.now());
+    }
+
+    /**
+     * Retraso antes del intento {@code attempts + 1}
+     */
+    Duration backoff(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        long delay = Math.min(baseDelay.toMillis() << exponent, maxDelay.toMillis());
+        long half = delay / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
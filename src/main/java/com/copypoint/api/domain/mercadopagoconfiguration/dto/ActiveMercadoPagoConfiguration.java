@@ -0,0 +1,27 @@
+package com.copypoint.api.domain.mercadopagoconfiguration.dto;
+
+import com.copypoint.api.domain.mercadopagoconfiguration.MercadoPagoConfiguration;
+
+/**
+ * Copia inmutable de la configuración activa de un copypoint, con las
+ * credenciales aún cifradas. Es lo que se guarda en el cache
+ * mercadoPagoConfigurations en lugar de la entidad.
+ */
+public record ActiveMercadoPagoConfiguration(
+        Long id,
+        String accessTokenEncrypted,
+        String publicKeyEncrypted,
+        String webhookSecretEncrypted,
+        String vendorEmail,
+        Boolean isSandbox
+) {
+
+    public ActiveMercadoPagoConfiguration(MercadoPagoConfiguration config) {
+        this(config.getId(),
+                config.getAccessTokenEncrypted(),
+                config.getPublicKeyEncrypted(),
+                config.getWebhookSecretEncrypted(),
+                config.getVendorEmail(),
+                config.getIsSandbox());
+    }
+}
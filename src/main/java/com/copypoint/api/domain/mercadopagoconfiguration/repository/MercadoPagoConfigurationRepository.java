@@ -1,6 +1,8 @@
 package com.copypoint.api.domain.mercadopagoconfiguration.repository;
 
 import com.copypoint.api.domain.mercadopagoconfiguration.MercadoPagoConfiguration;
+import com.copypoint.api.infra.config.CacheConfiguration;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,11 +11,65 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Cualquier escritura limpia la cache mercadoPagoConfigurations (ver
+ * MercadoPagoConfigurationService#getActiveConfiguration). La cache es
+ * transaccional: dentro de una transacción la limpieza ocurre después del commit.
+ */
 @Repository
 public interface MercadoPagoConfigurationRepository extends JpaRepository<MercadoPagoConfiguration, Long> {
+
     @Query("SELECT mpc FROM MercadoPagoConfiguration mpc WHERE mpc.copypoint.id = :copypointId AND mpc.isActive = true")
     Optional<MercadoPagoConfiguration> findActiveByCopypointId(@Param("copypointId") Long copypointId);
 
     @Query("SELECT mpc FROM MercadoPagoConfiguration mpc WHERE mpc.copypoint.id = :copypointId AND mpc.isActive = true")
     List<MercadoPagoConfiguration> findByCopypointIdAndIsActiveTrue(Long copypointId);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    <S extends MercadoPagoConfiguration> S save(S entity);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    <S extends MercadoPagoConfiguration> S saveAndFlush(S entity);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    <S extends MercadoPagoConfiguration> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    <S extends MercadoPagoConfiguration> List<S> saveAllAndFlush(Iterable<S> entities);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    void delete(MercadoPagoConfiguration entity);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    void deleteAll(Iterable<? extends MercadoPagoConfiguration> entities);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    void deleteAllInBatch(Iterable<MercadoPagoConfiguration> entities);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS, allEntries = true)
+    void deleteAllInBatch();
 }
@@ -4,13 +4,17 @@ import com.copypoint.api.application.copypointintegration.exception.CopypointNot
 import com.copypoint.api.domain.copypoint.Copypoint;
 import com.copypoint.api.domain.copypoint.repository.CopypointRepository;
 import com.copypoint.api.domain.mercadopagoconfiguration.MercadoPagoConfiguration;
+import com.copypoint.api.domain.mercadopagoconfiguration.dto.ActiveMercadoPagoConfiguration;
 import com.copypoint.api.domain.mercadopagoconfiguration.dto.MercadoPagoConfigurationCreationDTO;
 import com.copypoint.api.domain.mercadopagoconfiguration.repository.MercadoPagoConfigurationRepository;
 import com.copypoint.api.domain.sale.Sale;
+import com.copypoint.api.infra.config.CacheConfiguration;
 import com.copypoint.api.infra.security.service.CredentialEncryptionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -33,13 +37,34 @@ public class MercadoPagoConfigurationService {
     @Autowired
     private CredentialEncryptionService encryptionService;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     /**
      * Obtiene la configuración de MercadoPago para una sale específica
      * Prioridad: Copypoint > Store
      */
-    public Optional<MercadoPagoConfiguration> getConfigForSale(Sale sale) {
-        Long copypointId = sale.getCopypoint().getId();
-        return mercadoPagoConfigRepository.findActiveByCopypointId(copypointId);
+    public Optional<ActiveMercadoPagoConfiguration> getConfigForSale(Sale sale) {
+        return getActiveConfiguration(sale.getCopypoint().getId());
+    }
+
+    /**
+     * Configuración activa del copypoint. Se consulta en cada pago y webhook, por
+     * eso pasa por el cache mercadoPagoConfigurations, que también guarda la
+     * ausencia de configuración. La carga es atómica por copypoint: una limpieza
+     * que llega mientras se lee espera a que termine y descarta lo leído.
+     */
+    public Optional<ActiveMercadoPagoConfiguration> getActiveConfiguration(Long copypointId) {
+        Cache cache = cacheManager.getCache(CacheConfiguration.MERCADO_PAGO_CONFIGURATIONS);
+        if (cache == null) {
+            return loadActiveConfiguration(copypointId);
+        }
+        return cache.get(copypointId, () -> loadActiveConfiguration(copypointId));
+    }
+
+    private Optional<ActiveMercadoPagoConfiguration> loadActiveConfiguration(Long copypointId) {
+        return mercadoPagoConfigRepository.findActiveByCopypointId(copypointId)
+                .map(ActiveMercadoPagoConfiguration::new);
     }
 
 
@@ -60,11 +85,11 @@ public class MercadoPagoConfigurationService {
      * Obtiene el email del vendedor para la sale
      */
     public String getVendorEmailForSale(Sale sale) {
-        Optional<MercadoPagoConfiguration> configOpt = getConfigForSale(sale);
+        Optional<ActiveMercadoPagoConfiguration> configOpt = getConfigForSale(sale);
 
         if (configOpt.isPresent()) {
-            MercadoPagoConfiguration config = configOpt.get();
-            return config.getVendorEmail();
+            ActiveMercadoPagoConfiguration config = configOpt.get();
+            return config.vendorEmail();
         }
 
         // Fallback al email del usuario vendedor
@@ -75,10 +100,10 @@ public class MercadoPagoConfigurationService {
      * Obtiene el webhook secret para validar notificaciones
      */
     public String getWebhookSecretForSale(Sale sale) {
-        Optional<MercadoPagoConfiguration> configOpt = getConfigForSale(sale);
+        Optional<ActiveMercadoPagoConfiguration> configOpt = getConfigForSale(sale);
 
         if (configOpt.isPresent()) {
-            MercadoPagoConfiguration config = configOpt.get();
+            ActiveMercadoPagoConfiguration config = configOpt.get();
             return getDecryptedWebhookSecret(config);
         }
 
@@ -154,10 +179,10 @@ public class MercadoPagoConfigurationService {
      * Verifica si las credenciales proporcionadas coinciden con las almacenadas
      */
     public boolean verifyCredentials(Sale sale, String accessToken, String publicKey) {
-        Optional<MercadoPagoConfiguration> configOpt = getConfigForSale(sale);
+        Optional<ActiveMercadoPagoConfiguration> configOpt = getConfigForSale(sale);
 
         if (configOpt.isPresent()) {
-            MercadoPagoConfiguration config = configOpt.get();
+            ActiveMercadoPagoConfiguration config = configOpt.get();
 
             String storedAccessToken = getDecryptedAccessToken(config);
             String storedPublicKey = getDecryptedPublicKey(config);
@@ -171,9 +196,9 @@ public class MercadoPagoConfigurationService {
     /**
      * Obtiene el access token desencriptado
      */
-    private String getDecryptedAccessToken(MercadoPagoConfiguration config) {
+    private String getDecryptedAccessToken(ActiveMercadoPagoConfiguration config) {
         try {
-            return encryptionService.decryptCredential(config.getAccessTokenEncrypted());
+            return encryptionService.decryptCredential(config.accessTokenEncrypted());
         } catch (Exception e) {
             logger.error("Error al desencriptar access token: {}", e.getMessage());
             return null;
@@ -184,9 +209,9 @@ public class MercadoPagoConfigurationService {
     /**
      * Obtiene el webhook secret desencriptado
      */
-    private String getDecryptedWebhookSecret(MercadoPagoConfiguration config) {
+    private String getDecryptedWebhookSecret(ActiveMercadoPagoConfiguration config) {
         try {
-            return encryptionService.decryptCredential(config.getWebhookSecretEncrypted());
+            return encryptionService.decryptCredential(config.webhookSecretEncrypted());
         } catch (Exception e) {
             logger.error("Error al desencriptar webhook secret: {}", e.getMessage());
             return null;
@@ -196,9 +221,9 @@ public class MercadoPagoConfigurationService {
     /**
      * Obtiene el public key desencriptado
      */
-    private String getDecryptedPublicKey(MercadoPagoConfiguration config) {
+    private String getDecryptedPublicKey(ActiveMercadoPagoConfiguration config) {
         try {
-            return encryptionService.decryptCredential(config.getPublicKeyEncrypted());
+            return encryptionService.decryptCredential(config.publicKeyEncrypted());
         } catch (Exception e) {
             logger.error("Error al desencriptar public key: {}", e.getMessage());
             return null;
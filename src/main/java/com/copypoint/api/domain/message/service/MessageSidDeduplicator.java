@@ -0,0 +1,103 @@
+package com.copypoint.api.domain.message.service;
+
+import com.copypoint.api.infra.config.CacheConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Filtro en memoria de IDs de mensajes entrantes (messageSid) y de estados ya
+ * aplicados, para descartar redeliveries del proveedor sin ir a la base de datos.
+ * <p>
+ * Es solo la primera barrera: la cache es acotada y se pierde al reiniciar. La
+ * garantía final es el índice único uq_messages_message_sid.
+ */
+@Component
+public class MessageSidDeduplicator {
+
+    private static final String TYPE_MESSAGE = "message";
+    private static final String TYPE_STATUS = "status";
+
+    private final Cache recent;
+    private final Counter receivedMessages;
+    private final Counter duplicateMessages;
+    private final Counter receivedStatuses;
+    private final Counter duplicateStatuses;
+
+    public MessageSidDeduplicator(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.recent = cacheManager.getCache(CacheConfiguration.RECENT_MESSAGE_SIDS);
+        this.receivedMessages = counter(meterRegistry, "messages.inbound.received", TYPE_MESSAGE);
+        this.duplicateMessages = counter(meterRegistry, "messages.inbound.duplicates", TYPE_MESSAGE);
+        this.receivedStatuses = counter(meterRegistry, "messages.inbound.received", TYPE_STATUS);
+        this.duplicateStatuses = counter(meterRegistry, "messages.inbound.duplicates", TYPE_STATUS);
+    }
+
+    /**
+     * Indica si el mensaje ya se recibió hace poco. Si es así cuenta el duplicado.
+     */
+    public boolean isDuplicateMessage(String messageSid) {
+        receivedMessages.increment();
+        if (messageSid != null && recent != null && recent.get(messageKey(messageSid)) != null) {
+            duplicateMessages.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Registra un duplicado detectado por la base de datos (índice único)
+     */
+    public void recordDuplicateMessage(String messageSid) {
+        duplicateMessages.increment();
+        rememberMessage(messageSid);
+    }
+
+    public void rememberMessage(String messageSid) {
+        if (messageSid != null && recent != null) {
+            recent.put(messageKey(messageSid), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Indica si este mismo estado (sent, delivered, read...) ya se aplicó al mensaje.
+     * Si no, lo registra como aplicado.
+     */
+    public boolean isDuplicateStatus(String messageSid, String status) {
+        receivedStatuses.increment();
+        if (messageSid == null || status == null || recent == null) {
+            return false;
+        }
+
+        Cache.ValueWrapper previous = recent.putIfAbsent(statusKey(messageSid, status), Boolean.TRUE);
+        if (previous != null) {
+            duplicateStatuses.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Olvida un estado registrado, para que se vuelva a aplicar si no se pudo guardar
+     */
+    public void forgetStatus(String messageSid, String status) {
+        if (messageSid != null && status != null && recent != null) {
+            recent.evict(statusKey(messageSid, status));
+        }
+    }
+
+    private static String messageKey(String messageSid) {
+        return "m:" + messageSid;
+    }
+
+    private static String statusKey(String messageSid, String status) {
+        return "s:" + messageSid + ":" + status.toLowerCase();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String type) {
+        return Counter.builder(name)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,21 @@
+package com.copypoint.api.domain.payment.event;
+
+import com.copypoint.api.domain.payment.entity.Payment;
+
+import java.time.LocalDate;
+
+/**
+ * Se publica cuando se crea un pago o cambia su estado.
+ * El día es el de la venta, que es la fecha por la que filtra el dashboard de pagos.
+ */
+public record PaymentChangedEvent(Long paymentId, LocalDate day) {
+
+    public static PaymentChangedEvent of(Payment payment) {
+        return new PaymentChangedEvent(
+                payment.getId(),
+                payment.getSale() != null && payment.getSale().getCreatedAt() != null
+                        ? payment.getSale().getCreatedAt().toLocalDate()
+                        : null
+        );
+    }
+}
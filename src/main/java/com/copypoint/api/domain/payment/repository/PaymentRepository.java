@@ -5,6 +5,7 @@ import com.copypoint.api.domain.payment.entity.PaymentStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -29,19 +30,6 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByGatewayTransactionId(String gatewayTransactionId);
 
 
-    /**
-     * Busca un payment por cualquier ID de pasarela
-     * Útil para webhooks donde no sabemos qué tipo de ID nos llega
-     */
-    @Query("""
-        SELECT p FROM Payment p
-        WHERE p.gatewayIntentId = :id
-           OR p.gatewayPaymentId = :id
-           OR p.gatewayTransactionId = :id
-           OR p.gatewayId = :id
-        """)
-    Optional<Payment> findByAnyGatewayId(@Param("id") String id);
-
     /**
      * Busca payments por pasarela específica
      */
@@ -63,6 +51,29 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
         """)
     Page<Payment> findPendingPaymentsWithIntent(Pageable pageable);
 
+    /**
+     * Payments PENDING de una pasarela con Intent ID pero sin Payment ID, creados en
+     * el rango. Se pagina por llave (id > afterId) porque los payments conciliados
+     * salen del conjunto entre una página y otra.
+     */
+    @Query("""
+        SELECT p FROM Payment p
+        JOIN FETCH p.sale
+        JOIN p.paymentMethod pm
+        WHERE LOWER(pm.gateway) = LOWER(:gateway)
+          AND p.status = com.copypoint.api.domain.payment.entity.PaymentStatus.PENDING
+          AND p.gatewayIntentId IS NOT NULL
+          AND (p.gatewayPaymentId IS NULL OR p.gatewayPaymentId = '')
+          AND p.createdAt BETWEEN :createdAfter AND :createdBefore
+          AND p.id > :afterId
+        ORDER BY p.id
+        """)
+    List<Payment> findPendingPaymentsWithIntent(@Param("gateway") String gateway,
+                                                @Param("createdAfter") LocalDateTime createdAfter,
+                                                @Param("createdBefore") LocalDateTime createdBefore,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
     /**
      * Busca payments completados (con Payment ID)
      */
@@ -125,5 +136,18 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Object[]> findPaymentMethodUsage(@Param("startDate") LocalDateTime startDate,
                                           @Param("endDate") LocalDateTime endDate);
 
-
+    /**
+     * Cambia el estado solo si el payment sigue PENDING. Devuelve 0 si otro
+     * proceso (p. ej. un webhook) ya lo movió.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Payment p
+        SET p.status = :status, p.modifiedAt = :now
+        WHERE p.id = :id
+          AND p.status = com.copypoint.api.domain.payment.entity.PaymentStatus.PENDING
+        """)
+    int updateStatusIfPending(@Param("id") Long id,
+                              @Param("status") PaymentStatus status,
+                              @Param("now") LocalDateTime now);
 }
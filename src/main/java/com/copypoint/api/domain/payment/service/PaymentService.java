@@ -4,18 +4,23 @@ import com.copypoint.api.domain.payment.entity.Payment;
 import com.copypoint.api.domain.payment.entity.PaymentStatus;
 import com.copypoint.api.domain.payment.dto.PaymentRequest;
 import com.copypoint.api.domain.payment.dto.PaymentStatusResponse;
+import com.copypoint.api.domain.payment.event.PaymentChangedEvent;
 import com.copypoint.api.domain.payment.repository.PaymentRepository;
 import com.copypoint.api.domain.payment.validation.ValidationResult;
 import com.copypoint.api.domain.payment.validation.service.PaymentValidationService;
 import com.copypoint.api.domain.paymentattempt.entity.PaymentAttempt;
 import com.copypoint.api.domain.paymentattempt.entity.PaymentAttemptStatus;
+import com.copypoint.api.domain.paymentattempt.event.PaymentAttemptChangedEvent;
 import com.copypoint.api.domain.paymentattempt.repository.PaymentAttemptRepository;
+import com.copypoint.api.domain.paymentgatewayref.PaymentGatewayRefType;
+import com.copypoint.api.domain.paymentgatewayref.service.PaymentGatewayRefService;
 import com.copypoint.api.domain.paymentmethod.PaymentMethod;
 import com.copypoint.api.domain.paymentmethod.repository.PaymentMethodRepository;
 import com.copypoint.api.domain.sale.Sale;
 import com.copypoint.api.domain.sale.repository.SaleRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -42,6 +47,12 @@ public class PaymentService {
     @Autowired
     private PaymentMethodRepository paymentMethodRepository;
 
+    @Autowired
+    private PaymentGatewayRefService gatewayRefService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public Payment createPayment(PaymentRequest paymentRequest, String paymentMethod) {
@@ -75,7 +86,10 @@ public class PaymentService {
         payment.setPaymentMethod(paymentMethodOpt.get());
         payment.setCreatedAt(LocalDateTime.now());
 
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        eventPublisher.publishEvent(PaymentChangedEvent.of(savedPayment));
+
+        return savedPayment;
     }
 
     /**
@@ -94,7 +108,9 @@ public class PaymentService {
         payment.setGatewayId(gatewayId);
         payment.setModifiedAt(LocalDateTime.now());
 
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        gatewayRefService.register(savedPayment, PaymentGatewayRefType.LEGACY, gatewayId);
+        return savedPayment;
     }
 
     public Payment updatePaymentStatus(Long paymentId, PaymentStatus status) {
@@ -107,7 +123,10 @@ public class PaymentService {
         payment.setStatus(status);
         payment.setModifiedAt(LocalDateTime.now());
 
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        eventPublisher.publishEvent(PaymentChangedEvent.of(savedPayment));
+
+        return savedPayment;
     }
 
     public Payment updatePaymentStatusByGatewayId(String gatewayId, PaymentStatus status) {
@@ -122,7 +141,9 @@ public class PaymentService {
         if (status != payment.getStatus()) {
             payment.setStatus(status);
             payment.setModifiedAt(LocalDateTime.now());
-            return paymentRepository.save(payment);
+            Payment savedPayment = paymentRepository.save(payment);
+            eventPublisher.publishEvent(PaymentChangedEvent.of(savedPayment));
+            return savedPayment;
         }
 
         return payment;
@@ -135,7 +156,10 @@ public class PaymentService {
         attempt.setGatewayResponse(gatewayResponse);
         attempt.setCreatedAt(LocalDateTime.now());
 
-        return paymentAttemptRepository.save(attempt);
+        PaymentAttempt savedAttempt = paymentAttemptRepository.save(attempt);
+        eventPublisher.publishEvent(PaymentAttemptChangedEvent.of(savedAttempt));
+
+        return savedAttempt;
     }
 
     public PaymentStatusResponse getPaymentStatus(Long paymentId) {
@@ -156,6 +180,21 @@ public class PaymentService {
         );
     }
 
+    /**
+     * Cambia el estado con un UPDATE condicional: solo si el payment sigue
+     * PENDING, para no pisar lo que un webhook aplicó mientras tanto.
+     * Devuelve el payment actualizado, o vacío si ya no estaba PENDING.
+     */
+    public Optional<Payment> updatePaymentStatusIfPending(Long paymentId, PaymentStatus status) {
+        if (paymentRepository.updateStatusIfPending(paymentId, status, LocalDateTime.now()) == 0) {
+            return Optional.empty();
+        }
+
+        Optional<Payment> paymentOpt = paymentRepository.findById(paymentId);
+        paymentOpt.ifPresent(payment -> eventPublisher.publishEvent(PaymentChangedEvent.of(payment)));
+        return paymentOpt;
+    }
+
     public Optional<Payment> findById(Long paymentId) {
         return paymentRepository.findById(paymentId);
     }
@@ -202,7 +241,9 @@ public class PaymentService {
         payment.setGatewayIntentId(gatewayIntentId);
         payment.setModifiedAt(LocalDateTime.now());
 
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        gatewayRefService.register(savedPayment, PaymentGatewayRefType.INTENT, gatewayIntentId);
+        return savedPayment;
     }
 
     /**
@@ -218,7 +259,9 @@ public class PaymentService {
         payment.setGatewayPaymentId(gatewayPaymentId);
         payment.setModifiedAt(LocalDateTime.now());
 
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        gatewayRefService.register(savedPayment, PaymentGatewayRefType.PAYMENT, gatewayPaymentId);
+        return savedPayment;
     }
 
     /**
@@ -234,7 +277,9 @@ public class PaymentService {
         payment.setGatewayTransactionId(gatewayTransactionId);
         payment.setModifiedAt(LocalDateTime.now());
 
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        gatewayRefService.register(savedPayment, PaymentGatewayRefType.TRANSACTION, gatewayTransactionId);
+        return savedPayment;
     }
 
     /**
@@ -263,7 +308,7 @@ public class PaymentService {
      * Útil para webhooks
      */
     public Optional<Payment> findByAnyGatewayId(String gatewayId) {
-        return paymentRepository.findByAnyGatewayId(gatewayId);
+        return gatewayRefService.findPaymentId(gatewayId).flatMap(paymentRepository::findById);
     }
 
     /**
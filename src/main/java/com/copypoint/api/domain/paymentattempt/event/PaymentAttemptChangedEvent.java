@@ -0,0 +1,18 @@
+package com.copypoint.api.domain.paymentattempt.event;
+
+import com.copypoint.api.domain.paymentattempt.entity.PaymentAttempt;
+
+import java.time.LocalDate;
+
+/**
+ * Se publica cuando se crea un intento de pago o cambia su estado.
+ */
+public record PaymentAttemptChangedEvent(Long attemptId, LocalDate day) {
+
+    public static PaymentAttemptChangedEvent of(PaymentAttempt attempt) {
+        return new PaymentAttemptChangedEvent(
+                attempt.getId(),
+                attempt.getCreatedAt() != null ? attempt.getCreatedAt().toLocalDate() : null
+        );
+    }
+}
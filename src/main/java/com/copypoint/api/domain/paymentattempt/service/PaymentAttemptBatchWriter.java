@@ -0,0 +1,125 @@
+package com.copypoint.api.domain.paymentattempt.service;
+
+import com.copypoint.api.domain.payment.entity.Payment;
+import com.copypoint.api.domain.paymentattempt.entity.PaymentAttempt;
+import com.copypoint.api.domain.paymentattempt.entity.PaymentAttemptStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Acumula intentos de pago de notificaciones (webhooks) y los guarda en lotes.
+ * <p>
+ * Los intentos de webhook son solo un registro de lo que notificó la pasarela: el
+ * estado del pago se actualiza antes y por separado. Por eso pueden esperar unos
+ * milisegundos en memoria y guardarse juntos, en una transacción por lote, en lugar
+ * de una transacción por notificación. Se guardan al llenarse un lote o en cada
+ * intervalo de flush-interval-ms, lo que ocurra primero.
+ */
+@Component
+public class PaymentAttemptBatchWriter {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentAttemptBatchWriter.class);
+
+    private final PaymentAttemptService paymentAttemptService;
+    private final int batchSize;
+
+    private final Queue<PaymentAttempt> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    // Un solo hilo guarda a la vez; los demás siguen encolando
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter savedCounter;
+    private final Counter failedCounter;
+
+    public PaymentAttemptBatchWriter(PaymentAttemptService paymentAttemptService,
+                                     @Value("${app.payments.attempts.batch-size:50}") int batchSize,
+                                     MeterRegistry meterRegistry) {
+        this.paymentAttemptService = paymentAttemptService;
+        this.batchSize = Math.max(1, batchSize);
+
+        this.savedCounter = Counter.builder("payments.attempts.batched")
+                .tag("result", "saved")
+                .description("Intentos de pago guardados en lote")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("payments.attempts.batched")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        Gauge.builder("payments.attempts.pending", pendingCount, AtomicInteger::get)
+                .description("Intentos de pago en memoria esperando a guardarse")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola un intento. Si se completó un lote lo guarda en el hilo que llama.
+     */
+    public void enqueue(Payment payment, PaymentAttemptStatus status, String gatewayResponse) {
+        pending.add(paymentAttemptService.buildPaymentAttempt(payment, status, null, gatewayResponse));
+        if (pendingCount.incrementAndGet() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.attempts.flush-interval-ms:500}")
+    public void flush() {
+        if (pendingCount.get() == 0 || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            List<PaymentAttempt> batch = drain();
+            while (!batch.isEmpty()) {
+                save(batch);
+                batch = pendingCount.get() >= batchSize ? drain() : List.of();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushLock.lock();
+        try {
+            List<PaymentAttempt> batch = drain();
+            while (!batch.isEmpty()) {
+                save(batch);
+                batch = drain();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private List<PaymentAttempt> drain() {
+        List<PaymentAttempt> batch = new ArrayList<>(batchSize);
+        PaymentAttempt attempt;
+        while (batch.size() < batchSize && (attempt = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(attempt);
+        }
+        return batch;
+    }
+
+    private void save(List<PaymentAttempt> batch) {
+        try {
+            paymentAttemptService.savePaymentAttempts(batch);
+            savedCounter.increment(batch.size());
+        } catch (Exception e) {
+            // Solo se pierde el registro de la notificación; el estado del pago ya se actualizó
+            failedCounter.increment(batch.size());
+            logger.error("Error guardando lote de {} PaymentAttempts: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.copypoint.api.domain.paymentattempt.service;
 import com.copypoint.api.domain.payment.entity.Payment;
 import com.copypoint.api.domain.paymentattempt.entity.PaymentAttempt;
 import com.copypoint.api.domain.paymentattempt.entity.PaymentAttemptStatus;
+import com.copypoint.api.domain.paymentattempt.event.PaymentAttemptChangedEvent;
 import com.copypoint.api.domain.paymentattempt.repository.PaymentAttemptRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -11,7 +12,9 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -27,6 +30,9 @@ public class PaymentAttemptService {
     @Autowired
     private PaymentAttemptRepository paymentAttemptRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Configure ObjectMapper with Java 8 time support
     private final ObjectMapper objectMapper;
 
@@ -73,20 +79,10 @@ public class PaymentAttemptService {
      */
     public PaymentAttempt createPaymentAttempt(Payment payment, PaymentAttemptStatus status, String errorCode, String gatewayResponse) {
         try {
-            PaymentAttempt attempt = new PaymentAttempt();
-            attempt.setPaymentReference(payment);
-            attempt.setStatus(status);
-            attempt.setErrorCode(errorCode);
-            attempt.setCreatedAt(LocalDateTime.now());
-            attempt.setModifiedAt(LocalDateTime.now());
-
-            // Validar y procesar la respuesta del gateway
-            if (gatewayResponse != null && !gatewayResponse.trim().isEmpty()) {
-                String processedResponse = processGatewayResponse(gatewayResponse);
-                attempt.setGatewayResponse(processedResponse);
-            }
+            PaymentAttempt attempt = buildPaymentAttempt(payment, status, errorCode, gatewayResponse);
 
             PaymentAttempt savedAttempt = paymentAttemptRepository.save(attempt);
+            eventPublisher.publishEvent(PaymentAttemptChangedEvent.of(savedAttempt));
 
             logger.info("PaymentAttempt creado - ID: {}, Payment ID: {}, Status: {}",
                     savedAttempt.getId(), payment.getId(), status);
@@ -99,6 +95,37 @@ public class PaymentAttemptService {
         }
     }
 
+    /**
+     * Arma un intento de pago sin guardarlo (ver PaymentAttemptBatchWriter)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public PaymentAttempt buildPaymentAttempt(Payment payment, PaymentAttemptStatus status, String errorCode, String gatewayResponse) {
+        PaymentAttempt attempt = new PaymentAttempt();
+        attempt.setPaymentReference(payment);
+        attempt.setStatus(status);
+        attempt.setErrorCode(errorCode);
+        attempt.setCreatedAt(LocalDateTime.now());
+        attempt.setModifiedAt(LocalDateTime.now());
+
+        // Validar y procesar la respuesta del gateway
+        if (gatewayResponse != null && !gatewayResponse.trim().isEmpty()) {
+            attempt.setGatewayResponse(processGatewayResponse(gatewayResponse));
+        }
+        return attempt;
+    }
+
+    /**
+     * Guarda varios intentos en una sola transacción
+     */
+    public List<PaymentAttempt> savePaymentAttempts(List<PaymentAttempt> attempts) {
+        List<PaymentAttempt> savedAttempts = paymentAttemptRepository.saveAll(attempts);
+        for (PaymentAttempt savedAttempt : savedAttempts) {
+            eventPublisher.publishEvent(PaymentAttemptChangedEvent.of(savedAttempt));
+        }
+        logger.info("{} PaymentAttempts guardados en lote", savedAttempts.size());
+        return savedAttempts;
+    }
+
     /**
      * Procesa y valida la respuesta del gateway para asegurar que sea JSON válido
      */
@@ -148,7 +175,10 @@ public class PaymentAttemptService {
         attempt.setStatus(newStatus);
         attempt.setModifiedAt(LocalDateTime.now());
 
-        return paymentAttemptRepository.save(attempt);
+        PaymentAttempt savedAttempt = paymentAttemptRepository.save(attempt);
+        eventPublisher.publishEvent(PaymentAttemptChangedEvent.of(savedAttempt));
+
+        return savedAttempt;
     }
 
     /**
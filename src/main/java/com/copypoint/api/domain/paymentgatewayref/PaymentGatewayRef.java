@@ -0,0 +1,41 @@
+package com.copypoint.api.domain.paymentgatewayref;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un ID de pasarela de un payment. Permite resolver el payment de un webhook con
+ * una búsqueda indexada por valor, sin saber qué tipo de ID llegó.
+ */
+@Entity
+@Table(name = "payment_gateway_refs")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PaymentGatewayRef {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "payment_id", nullable = false)
+    private Long paymentId;
+
+    @Column(name = "gateway", nullable = false, length = 50)
+    private String gateway;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ref_type", nullable = false, length = 20)
+    private PaymentGatewayRefType refType;
+
+    @Column(name = "ref_value", nullable = false)
+    private String refValue;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
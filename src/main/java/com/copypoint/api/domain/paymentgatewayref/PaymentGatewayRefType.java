@@ -0,0 +1,11 @@
+package com.copypoint.api.domain.paymentgatewayref;
+
+/**
+ * Columna de payments de la que proviene un ID de pasarela
+ */
+public enum PaymentGatewayRefType {
+    INTENT,         // gateway_intent_id
+    PAYMENT,        // gateway_payment_id
+    TRANSACTION,    // gateway_transaction_id
+    LEGACY          // gateway_id (deprecado)
+}
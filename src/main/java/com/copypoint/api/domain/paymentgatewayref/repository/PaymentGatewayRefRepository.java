@@ -0,0 +1,45 @@
+package com.copypoint.api.domain.paymentgatewayref.repository;
+
+import com.copypoint.api.domain.paymentgatewayref.PaymentGatewayRef;
+import com.copypoint.api.domain.paymentgatewayref.PaymentGatewayRefType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentGatewayRefRepository extends JpaRepository<PaymentGatewayRef, Long> {
+
+    /**
+     * Payments con este ID de pasarela, el registrado más recientemente primero.
+     * Usa idx_payment_gateway_refs_value sin leer la tabla.
+     */
+    @Query("""
+        SELECT r.paymentId FROM PaymentGatewayRef r
+        WHERE r.refValue = :refValue
+        ORDER BY r.id DESC
+        """)
+    List<Long> findPaymentIdsByRefValue(@Param("refValue") String refValue, Pageable pageable);
+
+    List<PaymentGatewayRef> findByPaymentIdAndRefType(Long paymentId, PaymentGatewayRefType refType);
+
+    /**
+     * Registra el ID para el payment. Si ya estaba registrado para otro payment
+     * (p. ej. un reintento que reutiliza la preferencia) pasa al nuevo.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO payment_gateway_refs (payment_id, gateway, ref_type, ref_value, created_at)
+        VALUES (:paymentId, :gateway, :refType, :refValue, now())
+        ON CONFLICT (gateway, ref_type, ref_value) DO UPDATE
+            SET payment_id = EXCLUDED.payment_id
+        """, nativeQuery = true)
+    int upsert(@Param("paymentId") Long paymentId,
+               @Param("gateway") String gateway,
+               @Param("refType") String refType,
+               @Param("refValue") String refValue);
+}
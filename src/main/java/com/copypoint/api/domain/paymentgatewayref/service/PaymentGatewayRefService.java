@@ -0,0 +1,90 @@
+package com.copypoint.api.domain.paymentgatewayref.service;
+
+import com.copypoint.api.domain.payment.entity.Payment;
+import com.copypoint.api.domain.paymentgatewayref.PaymentGatewayRef;
+import com.copypoint.api.domain.paymentgatewayref.PaymentGatewayRefType;
+import com.copypoint.api.domain.paymentgatewayref.repository.PaymentGatewayRefRepository;
+import com.copypoint.api.infra.config.CacheConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Mantiene payment_gateway_refs y resuelve un ID de pasarela al payment que lo tiene.
+ * <p>
+ * La resolución pasa por una cache en memoria ID de pasarela -> payment ID: un
+ * webhook repetido no toca la base y uno nuevo hace una sola búsqueda indexada.
+ * La cache solo se llena con lo leído de la base; al reemplazar un ID se
+ * desaloja el valor anterior.
+ */
+@Service
+@Transactional
+public class PaymentGatewayRefService {
+
+    private final PaymentGatewayRefRepository refRepository;
+    private final Cache paymentIds;
+
+    public PaymentGatewayRefService(PaymentGatewayRefRepository refRepository, CacheManager cacheManager) {
+        this.refRepository = refRepository;
+        this.paymentIds = cacheManager.getCache(CacheConfiguration.PAYMENT_GATEWAY_REFS);
+    }
+
+    /**
+     * Registra el ID de pasarela de un tipo para el payment, reemplazando el
+     * que tuviera antes. Un valor vacío solo elimina el anterior.
+     */
+    public void register(Payment payment, PaymentGatewayRefType refType, String refValue) {
+        String value = refValue != null ? refValue.trim() : "";
+
+        for (PaymentGatewayRef previous : refRepository.findByPaymentIdAndRefType(payment.getId(), refType)) {
+            if (!previous.getRefValue().equals(value)) {
+                refRepository.delete(previous);
+                evict(previous.getRefValue());
+            }
+        }
+
+        if (!value.isEmpty()) {
+            refRepository.upsert(payment.getId(), payment.getGatewayType(), refType.name(), value);
+            // Pudo pertenecer a otro payment: la siguiente lectura lo vuelve a resolver
+            evict(value);
+        }
+    }
+
+    /**
+     * Payment que tiene este ID de pasarela, de cualquier tipo
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findPaymentId(String refValue) {
+        if (refValue == null || refValue.isBlank()) {
+            return Optional.empty();
+        }
+        String value = refValue.trim();
+
+        if (paymentIds != null) {
+            Long cached = paymentIds.get(value, Long.class);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        List<Long> found = refRepository.findPaymentIdsByRefValue(value, PageRequest.of(0, 1));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        if (paymentIds != null) {
+            paymentIds.put(value, found.get(0));
+        }
+        return Optional.of(found.get(0));
+    }
+
+    private void evict(String refValue) {
+        if (paymentIds != null) {
+            paymentIds.evict(refValue);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.copypoint.api.domain.permission;
+
+import com.copypoint.api.domain.employeerole.EmployeeRolePermissionProjection;
+import com.copypoint.api.domain.pathcontext.PathContext;
+
+import java.util.*;
+
+/**
+ * Permisos contextuales de un usuario: para cada módulo activo, las tiendas y
+ * copypoints en los que lo tiene asignado.
+ * <p>
+ * Los ids se guardan como arreglos long[] ordenados y sin duplicados, de modo
+ * que la verificación es una búsqueda binaria en memoria. La instancia es
+ * inmutable.
+ */
+public final class ContextualGrants {
+    private static final long[] NO_IDS = new long[0];
+    private static final ContextualGrants EMPTY = new ContextualGrants(Map.of(), Map.of());
+
+    private final Map<String, long[]> storeIdsByModule;
+    private final Map<String, long[]> copypointIdsByModule;
+
+    private ContextualGrants(Map<String, long[]> storeIdsByModule, Map<String, long[]> copypointIdsByModule) {
+        this.storeIdsByModule = storeIdsByModule;
+        this.copypointIdsByModule = copypointIdsByModule;
+    }
+
+    public static ContextualGrants empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Construye los permisos a partir de las filas empleado-rol-permiso del usuario
+     */
+    public static ContextualGrants from(List<EmployeeRolePermissionProjection> rolePermissions) {
+        Map<String, Set<Long>> stores = new HashMap<>();
+        Map<String, Set<Long>> copypoints = new HashMap<>();
+
+        for (EmployeeRolePermissionProjection rp : rolePermissions) {
+            if (!Boolean.TRUE.equals(rp.getModuleActive()) || rp.getModuleName() == null) {
+                continue;
+            }
+            if (rp.getStoreId() != null) {
+                stores.computeIfAbsent(rp.getModuleName(), m -> new HashSet<>()).add(rp.getStoreId());
+            }
+            if (rp.getCopypointId() != null) {
+                copypoints.computeIfAbsent(rp.getModuleName(), m -> new HashSet<>()).add(rp.getCopypointId());
+            }
+        }
+
+        return new ContextualGrants(toSortedArrays(stores), toSortedArrays(copypoints));
+    }
+
+    /**
+     * Verifica si el módulo está asignado en la tienda o copypoint del contexto.
+     * Si el contexto trae tienda, se valida la tienda; si no, el copypoint.
+     */
+    public boolean allows(String moduleCode, PathContext context) {
+        if (!context.hasContext()) {
+            return true;
+        }
+
+        if (context.getStoreId() != null) {
+            return hasStore(moduleCode, context.getStoreId());
+        }
+
+        return hasCopypoint(moduleCode, context.getCopypointId());
+    }
+
+    public boolean hasStore(String moduleCode, long storeId) {
+        return Arrays.binarySearch(storeIdsByModule.getOrDefault(moduleCode, NO_IDS), storeId) >= 0;
+    }
+
+    public boolean hasCopypoint(String moduleCode, long copypointId) {
+        return Arrays.binarySearch(copypointIdsByModule.getOrDefault(moduleCode, NO_IDS), copypointId) >= 0;
+    }
+
+    private static Map<String, long[]> toSortedArrays(Map<String, Set<Long>> idsByModule) {
+        Map<String, long[]> result = new HashMap<>();
+        idsByModule.forEach((module, ids) -> result.put(module,
+                ids.stream().mapToLong(Long::longValue).sorted().toArray()));
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -5,6 +5,7 @@ import com.copypoint.api.domain.employee.repository.EmployeeRepository;
 import com.copypoint.api.domain.employeerole.EmployeeRolePermissionProjection;
 import com.copypoint.api.domain.module.ModuleType;
 import com.copypoint.api.domain.pathcontext.PathContext;
+import com.copypoint.api.domain.permission.ContextualGrants;
 import com.copypoint.api.domain.user.User;
 import com.copypoint.api.infra.http.authorization.ModuleEndpointMapping;
 import com.copypoint.api.infra.http.userprincipal.UserPrincipal;
@@ -30,66 +31,32 @@ public class PermissionService {
     // Método público sin @Transactional
     public boolean hasPermission(UserPrincipal userPrincipal, String method, String path) {
 
-        Optional<ModuleType> moduleOpt = moduleEndpointMapping.findModuleForEndpoint(method, path);
+        Set<ModuleType> modules = moduleEndpointMapping.findModulesForEndpoint(method, path);
 
-        if (moduleOpt.isEmpty()) {
+        if (modules.isEmpty()) {
             return false;
         }
 
-        ModuleType moduleName = moduleOpt.get();
         PathContext pathContext = PathContext.extractPathContext(path);
 
-        // Verificar si el usuario tiene el módulo
-        if (!userPrincipal.hasModule(moduleName.getCode())) {
-            return false;
-        }
-
-        // Si no hay contexto específico, el usuario ya tiene acceso
-        if (!pathContext.hasContext()) {
-            return true;
+        // Basta con uno de los módulos del endpoint que el usuario tenga
+        for (ModuleType module : modules) {
+            if (!userPrincipal.hasModule(module.getCode())) {
+                continue;
+            }
+
+            // Si no hay contexto específico, el usuario ya tiene acceso
+            if (!pathContext.hasContext()) {
+                return true;
+            }
+
+            // Los permisos contextuales se cargan con el principal, la verificación es en memoria.
+            // Cuando cambian los roles del empleado el principal se invalida y se vuelve a resolver.
+            if (userPrincipal.getGrants().allows(module.getCode(), pathContext)) {
+                return true;
+            }
         }
-
-        // Para verificación contextual, necesitamos consultar la base de datos
-        // pero solo una vez y solo para este usuario
-        return checkContextualPermissionWithTransaction(userPrincipal.getUser(), moduleName, pathContext);
-    }
-
-    @Transactional(readOnly = true)
-    private boolean checkContextualPermissionWithTransaction(
-            User user,
-            ModuleType moduleName,
-            PathContext pathContext) {
-        List<EmployeeRolePermissionProjection> rolePermissions =
-                employeeRepository.findEmployeeRolePermissionsByUser(user.getId());
-
-        boolean hasAccess = rolePermissions.stream()
-                .anyMatch(rp ->
-                        hasModulePermission(rp, moduleName.getCode()) &&
-                                hasContextualPermission(rp, pathContext));
-
-        System.out.println("Has access: " + hasAccess);
-        return hasAccess;
-    }
-
-    private boolean hasModulePermission(EmployeeRolePermissionProjection rolePermission, String moduleName) {
-        return rolePermission.getModuleName().equals(moduleName) &&
-                Boolean.TRUE.equals(rolePermission.getModuleActive());
-    }
-
-    private boolean hasContextualPermission(EmployeeRolePermissionProjection rolePermission, PathContext context) {
-        if (!context.hasContext()) {
-            return true;
-        }
-
-        if (context.getStoreId() != null) {
-            return Objects.equals(rolePermission.getStoreId(), context.getStoreId());
-        }
-
-        if (context.getCopypointId() != null) {
-            return Objects.equals(rolePermission.getCopypointId(), context.getCopypointId());
-        }
-
-        return true;
+        return false;
     }
 
 
@@ -122,17 +89,27 @@ public class PermissionService {
 
     /**
      * Obtiene la información completa de permisos de un usuario
+     * (módulos, roles y permisos por tienda/copypoint) en una sola consulta
      */
     @Transactional(readOnly = true)
     public UserPermissionInfo getUserPermissionInfo(User user) {
-        Set<String> modules = getUserModules(user);
-        Set<String> roles = getUserRoles(user);
+        List<EmployeeRolePermissionProjection> rolePermissions =
+                employeeRepository.findEmployeeRolePermissionsByUser(user.getId());
+
+        Set<String> modules = rolePermissions.stream()
+                .filter(rp -> Boolean.TRUE.equals(rp.getModuleActive()))
+                .map(EmployeeRolePermissionProjection::getModuleName)
+                .collect(Collectors.toSet());
+
+        Set<String> roles = rolePermissions.stream()
+                .map(EmployeeRolePermissionProjection::getRoleName)
+                .collect(Collectors.toSet());
 
-        return new UserPermissionInfo(modules, roles);
+        return new UserPermissionInfo(modules, roles, ContextualGrants.from(rolePermissions));
     }
 
     // Clase interna para encapsular la información de permisos
-        public record UserPermissionInfo(Set<String> modules, Set<String> roles) {
+    public record UserPermissionInfo(Set<String> modules, Set<String> roles, ContextualGrants grants) {
 
     }
 
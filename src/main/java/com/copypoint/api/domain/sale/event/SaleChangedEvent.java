@@ -0,0 +1,20 @@
+package com.copypoint.api.domain.sale.event;
+
+import com.copypoint.api.domain.sale.Sale;
+
+import java.time.LocalDate;
+
+/**
+ * Se publica cuando se crea una venta o cambian su estado o su total,
+ * para actualizar los resúmenes diarios que dependen de ella.
+ */
+public record SaleChangedEvent(Long saleId, Long copypointId, LocalDate day) {
+
+    public static SaleChangedEvent of(Sale sale) {
+        return new SaleChangedEvent(
+                sale.getId(),
+                sale.getCopypoint() != null ? sale.getCopypoint().getId() : null,
+                sale.getCreatedAt() != null ? sale.getCreatedAt().toLocalDate() : null
+        );
+    }
+}
@@ -10,12 +10,14 @@ import com.copypoint.api.domain.sale.SaleStatus;
 import com.copypoint.api.domain.sale.repository.SaleRepository;
 import com.copypoint.api.domain.sale.dto.SaleCreationDTO;
 import com.copypoint.api.domain.sale.dto.SaleDTO;
+import com.copypoint.api.domain.sale.event.SaleChangedEvent;
 import com.copypoint.api.domain.saleprofile.SaleProfile;
 import com.copypoint.api.domain.saleprofile.SaleProfileId;
 import com.copypoint.api.domain.saleprofile.repository.SaleProfileRepository;
 import com.copypoint.api.domain.user.User;
 import com.copypoint.api.domain.user.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -44,6 +46,9 @@ public class SaleService {
     @Autowired
     private CopypointRepository copypointRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
 
     /**
      * Crear una venta en estado PENDING para un copypoint específico
@@ -82,6 +87,7 @@ public class SaleService {
                 .build();
 
         Sale savedSale = saleRepository.save(newSale);
+        eventPublisher.publishEvent(SaleChangedEvent.of(savedSale));
         return new SaleDTO(savedSale);
     }
 
@@ -107,6 +113,7 @@ public class SaleService {
         sale.setUpdatedAt(LocalDateTime.now());
 
         Sale updatedSale = saleRepository.save(sale);
+        eventPublisher.publishEvent(SaleChangedEvent.of(updatedSale));
 
         return new SaleDTO(updatedSale);
     }
@@ -218,5 +225,6 @@ public class SaleService {
 
         sale.setTotal(Math.max(0, total)); // Asegurarse de que el total no sea negativo
         sale.setUpdatedAt(LocalDateTime.now());
+        eventPublisher.publishEvent(SaleChangedEvent.of(sale));
     }
 }
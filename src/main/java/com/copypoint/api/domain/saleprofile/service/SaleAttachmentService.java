@@ -8,6 +8,7 @@ import com.copypoint.api.domain.profile.Profile;
 import com.copypoint.api.domain.profile.repository.ProfileRepository;
 import com.copypoint.api.domain.sale.Sale;
 import com.copypoint.api.domain.sale.SaleStatus;
+import com.copypoint.api.domain.sale.event.SaleChangedEvent;
 import com.copypoint.api.domain.sale.repository.SaleRepository;
 import com.copypoint.api.domain.saleprofile.SaleProfile;
 import com.copypoint.api.domain.saleprofile.SaleProfileId;
@@ -18,6 +19,7 @@ import com.copypoint.api.domain.service.repository.ServiceRepository;
 import com.copypoint.api.infra.cloudflare.r2.service.CloudflareR2Service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -49,6 +51,9 @@ public class SaleAttachmentService {
     @Autowired
     private PageCountService pageCountService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
 
     /**
      * Agrega un attachment a un item de venta existente o crea uno nuevo
@@ -182,7 +187,8 @@ public class SaleAttachmentService {
     }
 
     private void calculateAttachmentPages(Attachment attachment) {
-        // Solo calcular si no tiene páginas calculadas
+        // Normalmente las páginas ya vienen del análisis al recibir el archivo
+        // (AttachmentAnalysisWorker); solo se calculan aquí si aún no termina
         if (attachment.getPages() == null || attachment.getPages() <= 0) {
             try {
                 int calculatedPages = pageCountService.calculatePages(attachment);
@@ -283,6 +289,7 @@ public class SaleAttachmentService {
         sale.setTotal(total);
         sale.setUpdatedAt(LocalDateTime.now());
         saleRepository.save(sale);
+        eventPublisher.publishEvent(SaleChangedEvent.of(sale));
 
         log.debug("Total actualizado para venta {}: {}", sale.getId(), total);
     }
@@ -5,6 +5,7 @@ import com.copypoint.api.domain.profile.repository.ProfileRepository;
 import com.copypoint.api.domain.sale.Sale;
 import com.copypoint.api.domain.sale.SaleStatus;
 import com.copypoint.api.domain.sale.dto.SaleDTO;
+import com.copypoint.api.domain.sale.event.SaleChangedEvent;
 import com.copypoint.api.domain.sale.repository.SaleRepository;
 import com.copypoint.api.domain.saleprofile.SaleProfile;
 import com.copypoint.api.domain.saleprofile.SaleProfileId;
@@ -13,11 +14,12 @@ import com.copypoint.api.domain.saleprofile.dto.SaleProfileDTO;
 import com.copypoint.api.domain.saleprofile.dto.SaleProfileUpdateDTO;
 import com.copypoint.api.domain.saleprofile.repository.SaleProfileRepository;
 import com.copypoint.api.domain.service.repository.ServiceRepository;
+import com.copypoint.api.infra.exchangerate.dto.ExchangeRateQuote;
 import com.copypoint.api.infra.exchangerate.service.ExchangeRateService;
 import com.copypoint.api.infra.utils.CurrencyUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -46,6 +48,9 @@ public class SaleProfileService {
     @Autowired
     private ExchangeRateService exchangeRateService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Agregar un profile a una venta PENDING
      */
@@ -213,12 +218,15 @@ public class SaleProfileService {
     }
 
     /**
-     * Obtiene la tasa de cambio entre dos monedas con cache
+     * Obtiene la tasa de cambio entre dos monedas de la tabla en memoria (sin llamadas HTTP)
      */
-    @Cacheable(value = "exchangeRates", key = "#fromCurrency + '-' + #toCurrency")
-    public BigDecimal getCachedExchangeRate(String fromCurrency, String toCurrency) {
-        log.debug("Obteniendo tasa de cambio de {} a {} (sin cache)", fromCurrency, toCurrency);
-        return exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+    private BigDecimal getExchangeRate(String fromCurrency, String toCurrency) {
+        ExchangeRateQuote quote = exchangeRateService.getExchangeRateQuote(fromCurrency, toCurrency);
+        if (quote.stale()) {
+            log.warn("Usando tasa de cambio desactualizada de {} a {} (publicada {})",
+                    fromCurrency, toCurrency, quote.asOf());
+        }
+        return quote.rate();
     }
 
     /**
@@ -256,8 +264,8 @@ public class SaleProfileService {
             log.info("Convirtiendo precio de {} {} a {} para profile ID: {}",
                     storeCurrency, profile.getUnitPrice(), saleCurrency, profile.getId());
 
-            // Obtener la tasa de cambio y convertir (usando cache)
-            BigDecimal exchangeRate = getCachedExchangeRate(storeCurrency, saleCurrency);
+            // Obtener la tasa de cambio de la tabla local y convertir
+            BigDecimal exchangeRate = getExchangeRate(storeCurrency, saleCurrency);
             Double result = CurrencyUtils.convertAmount(profile.getUnitPrice(), exchangeRate, saleCurrency);
 
             log.info("Conversión exitosa - Precio original: {} {}, Tasa: {}, Precio convertido: {} {}",
@@ -301,8 +309,8 @@ public class SaleProfileService {
             log.debug("Convirtiendo descuento de {} {} a {} para venta ID: {}",
                     storeCurrency, discount, saleCurrency, sale.getId());
 
-            // Obtener la tasa de cambio y convertir (usando cache)
-            BigDecimal exchangeRate = getCachedExchangeRate(storeCurrency, saleCurrency);
+            // Obtener la tasa de cambio de la tabla local y convertir
+            BigDecimal exchangeRate = getExchangeRate(storeCurrency, saleCurrency);
             Double result = CurrencyUtils.convertAmount(discount, exchangeRate, saleCurrency);
 
             log.info("Descuento convertido de {} {} a {} {} para venta ID: {}",
@@ -348,6 +356,7 @@ public class SaleProfileService {
 
         sale.setTotal(total);
         sale.setUpdatedAt(LocalDateTime.now());
+        eventPublisher.publishEvent(SaleChangedEvent.of(sale));
 
         log.info("Total final calculado para venta ID {}: {} {}",
                 sale.getId(), CurrencyUtils.formatAmountWithSymbol(sale.getTotal(), sale.getCurrency()));
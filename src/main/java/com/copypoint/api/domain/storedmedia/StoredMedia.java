@@ -0,0 +1,51 @@
+package com.copypoint.api.domain.storedmedia;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Objeto de R2 guardado bajo una clave derivada de su SHA-256, compartido por
+ * todos los attachments con el mismo contenido.
+ */
+@Entity
+@Table(name = "stored_media")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StoredMedia {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sha256", nullable = false, unique = true, length = 64)
+    private String sha256;
+
+    @Column(name = "storage_key", nullable = false, unique = true, length = 500)
+    private String storageKey;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "page_count")
+    private Integer pageCount;
+
+    @Column(name = "ref_count", nullable = false)
+    @Builder.Default
+    private Integer refCount = 0;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "last_referenced_at")
+    private LocalDateTime lastReferencedAt;
+}
@@ -0,0 +1,75 @@
+package com.copypoint.api.domain.storedmedia.repository;
+
+import com.copypoint.api.domain.storedmedia.StoredMedia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredMediaRepository extends JpaRepository<StoredMedia, Long> {
+
+    boolean existsBySha256(String sha256);
+
+    boolean existsByStorageKey(String storageKey);
+
+    Optional<StoredMedia> findBySha256(String sha256);
+
+    Optional<StoredMedia> findByStorageKey(String storageKey);
+
+    @Query("SELECT s.storageKey FROM StoredMedia s WHERE s.storageKey IN :storageKeys")
+    List<String> findExistingStorageKeys(@Param("storageKeys") Collection<String> storageKeys);
+
+    /**
+     * Registra una referencia más al contenido, creando la fila si es la primera.
+     * Es atómico frente a dos descargas simultáneas del mismo archivo.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO stored_media (sha256, storage_key, content_type, size_bytes, ref_count, created_at, last_referenced_at)
+        VALUES (:sha256, :storageKey, :contentType, :sizeBytes, 1, now(), now())
+        ON CONFLICT (sha256) DO UPDATE
+            SET ref_count = stored_media.ref_count + 1,
+                last_referenced_at = now()
+        """, nativeQuery = true)
+    int acquire(@Param("sha256") String sha256,
+                @Param("storageKey") String storageKey,
+                @Param("contentType") String contentType,
+                @Param("sizeBytes") long sizeBytes);
+
+    /**
+     * Suma una referencia solo si el contenido ya tiene registro vivo. Una fila
+     * que otra transacción está liberando queda bloqueada hasta que se borre,
+     * así que no se resucita un objeto que está por eliminarse de R2.
+     */
+    @Modifying
+    @Query("""
+        UPDATE StoredMedia s
+        SET s.refCount = s.refCount + 1, s.lastReferencedAt = CURRENT_TIMESTAMP
+        WHERE s.sha256 = :sha256 AND s.refCount > 0
+        """)
+    int acquireExisting(@Param("sha256") String sha256);
+
+    @Modifying
+    @Query("""
+        UPDATE StoredMedia s SET s.refCount = s.refCount - 1
+        WHERE s.storageKey = :storageKey AND s.refCount > 0
+        """)
+    int release(@Param("storageKey") String storageKey);
+
+    @Modifying
+    @Query("DELETE FROM StoredMedia s WHERE s.storageKey = :storageKey AND s.refCount = 0")
+    int deleteUnreferenced(@Param("storageKey") String storageKey);
+
+    @Modifying
+    @Query("""
+        UPDATE StoredMedia s SET s.pageCount = :pageCount
+        WHERE s.storageKey = :storageKey
+        """)
+    int updatePageCount(@Param("storageKey") String storageKey, @Param("pageCount") int pageCount);
+}
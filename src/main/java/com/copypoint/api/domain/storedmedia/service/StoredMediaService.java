@@ -0,0 +1,133 @@
+package com.copypoint.api.domain.storedmedia.service;
+
+import com.copypoint.api.domain.attachment.AttachmentRendition;
+import com.copypoint.api.domain.storedmedia.StoredMedia;
+import com.copypoint.api.domain.storedmedia.repository.StoredMediaRepository;
+import com.copypoint.api.infra.cloudflare.r2.service.CloudflareR2Service;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Conteo de referencias de los objetos de R2 direccionados por contenido.
+ * <p>
+ * Cada attachment descargado suma una referencia al objeto de su storagePath;
+ * cuando la última se libera, el objeto se borra de R2. También guarda el
+ * número de páginas para que un archivo repetido no se vuelva a procesar.
+ */
+@Slf4j
+@Service
+public class StoredMediaService {
+    public static final String CONTENT_PREFIX = "media/sha256";
+
+    @Autowired
+    private StoredMediaRepository storedMediaRepository;
+
+    @Autowired
+    private CloudflareR2Service cloudflareR2Service;
+
+    /**
+     * Suma una referencia al contenido si ya está guardado. Devuelve true si la
+     * tomó: desde ese momento el objeto no puede borrarse y la subida puede
+     * omitirse; quien llama debe liberarla si al final no la usa.
+     */
+    @Transactional
+    public boolean acquireExisting(String sha256) {
+        return storedMediaRepository.acquireExisting(sha256) > 0;
+    }
+
+    public Optional<StoredMedia> findBySha256(String sha256) {
+        return storedMediaRepository.findBySha256(sha256);
+    }
+
+    /**
+     * Suma una referencia al contenido (creándolo si es nuevo) y devuelve su registro
+     */
+    @Transactional
+    public StoredMedia acquire(String sha256, String storageKey, String contentType, long sizeBytes) {
+        storedMediaRepository.acquire(sha256, storageKey, contentType, sizeBytes);
+        return storedMediaRepository.findBySha256(sha256)
+                .orElseThrow(() -> new IllegalStateException("No se registró el contenido " + sha256));
+    }
+
+    /**
+     * Quita una referencia; si era la última borra el registro y, al confirmar
+     * la transacción, el objeto en R2. Las rutas anteriores a la deduplicación
+     * no tienen registro y se ignoran.
+     */
+    @Transactional
+    public void release(String storageKey) {
+        if (storageKey == null || storedMediaRepository.release(storageKey) == 0) {
+            return;
+        }
+        if (storedMediaRepository.deleteUnreferenced(storageKey) == 0) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteObject(storageKey);
+                }
+            });
+        } else {
+            deleteObject(storageKey);
+        }
+    }
+
+    /**
+     * De las claves dadas, las que tienen registro (y por tanto objeto en R2).
+     * Las rutas anteriores a la deduplicación nunca aparecen.
+     */
+    public Set<String> findStoredKeys(Collection<String> storageKeys) {
+        if (storageKeys.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(storedMediaRepository.findExistingStorageKeys(storageKeys));
+    }
+
+    public Optional<Integer> findPageCount(String storageKey) {
+        if (storageKey == null) {
+            return Optional.empty();
+        }
+        return storedMediaRepository.findByStorageKey(storageKey).map(StoredMedia::getPageCount);
+    }
+
+    @Transactional
+    public void recordPageCount(String storageKey, int pageCount) {
+        if (storageKey != null) {
+            storedMediaRepository.updatePageCount(storageKey, pageCount);
+        }
+    }
+
+    private void deleteObject(String storageKey) {
+        if (storedMediaRepository.existsByStorageKey(storageKey)) {
+            // Una descarga volvió a subir el mismo contenido entre el commit y este borrado
+            log.debug("Objeto {} referenciado de nuevo, no se borra", storageKey);
+            return;
+        }
+        deleteQuietly(storageKey);
+        log.debug("Objeto {} borrado de R2 (sin referencias)", storageKey);
+        // Las versiones reducidas se guardan junto al contenido y se van con él
+        for (AttachmentRendition rendition : AttachmentRendition.values()) {
+            deleteQuietly(rendition.keyFor(storageKey));
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            cloudflareR2Service.deleteFile(key);
+        } catch (Exception e) {
+            log.warn("No se pudo borrar {} de R2: {}", key, e.getMessage());
+        }
+    }
+}
@@ -16,6 +16,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserAccountListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
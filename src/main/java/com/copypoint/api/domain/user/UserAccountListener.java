@@ -0,0 +1,27 @@
+package com.copypoint.api.domain.user;
+
+import com.copypoint.api.domain.user.event.UserAccountChangedEvent;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publica {@link UserAccountChangedEvent} en cualquier actualización o borrado de
+ * un usuario, sin importar desde qué servicio se haga.
+ */
+@Component
+public class UserAccountListener {
+
+    @Lazy
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        eventPublisher.publishEvent(new UserAccountChangedEvent(user.getId()));
+    }
+}
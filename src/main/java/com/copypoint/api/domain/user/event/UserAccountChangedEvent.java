@@ -0,0 +1,8 @@
+package com.copypoint.api.domain.user.event;
+
+/**
+ * Se publica cuando se modifica o elimina un usuario (estado, contraseña, email),
+ * para que no se siga usando un principal resuelto con los datos anteriores.
+ */
+public record UserAccountChangedEvent(Long userId) {
+}
@@ -0,0 +1,67 @@
+package com.copypoint.api.domain.webhookinbox;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Webhook recibido y guardado tal cual llegó, pendiente de procesar.
+ */
+@Entity
+@Table(name = "webhook_inbox")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WebhookInbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", nullable = false, length = 30)
+    private WebhookSource source;
+
+    // customer_service_phone_id para WhatsApp
+    @Column(name = "reference_id")
+    private Long referenceId;
+
+    // Tópico y data.id para MercadoPago; agrupa notificaciones repetidas del mismo evento
+    @Column(name = "event_key", length = 200)
+    private String eventKey;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "signature")
+    private String signature;
+
+    // x-request-id de MercadoPago; entra en el manifiesto que firma x-signature
+    @Column(name = "request_id", length = 100)
+    private String requestId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private WebhookInboxStatus status = WebhookInboxStatus.RECEIVED;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,8 @@
+package com.copypoint.api.domain.webhookinbox;
+
+public enum WebhookInboxStatus {
+    RECEIVED,       // Guardado, aún no entregado a un worker
+    PROCESSING,     // Entregado a un worker (claimed_at marca el inicio del lease)
+    PROCESSED,      // Procesado completamente
+    FAILED          // Descartado tras agotar reintentos o por payload inválido
+}
@@ -0,0 +1,6 @@
+package com.copypoint.api.domain.webhookinbox;
+
+public enum WebhookSource {
+    WHATSAPP_BUSINESS,
+    MERCADO_PAGO
+}
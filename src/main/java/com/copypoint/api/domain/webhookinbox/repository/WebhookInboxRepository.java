@@ -0,0 +1,116 @@
+package com.copypoint.api.domain.webhookinbox.repository;
+
+import com.copypoint.api.domain.webhookinbox.WebhookInbox;
+import com.copypoint.api.domain.webhookinbox.WebhookInboxStatus;
+import com.copypoint.api.domain.webhookinbox.WebhookSource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WebhookInboxRepository extends JpaRepository<WebhookInbox, Long> {
+
+    /**
+     * Reclama una fila para procesarla. Solo una instancia/worker lo logra:
+     * la fila debe estar RECEIVED o PROCESSING con el lease vencido.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE WebhookInbox w
+        SET w.status = com.copypoint.api.domain.webhookinbox.WebhookInboxStatus.PROCESSING,
+            w.claimedAt = :now,
+            w.attempts = w.attempts + 1
+        WHERE w.id = :id
+          AND (w.status = com.copypoint.api.domain.webhookinbox.WebhookInboxStatus.RECEIVED
+               OR (w.status = com.copypoint.api.domain.webhookinbox.WebhookInboxStatus.PROCESSING
+                   AND w.claimedAt < :leaseExpiredBefore))
+        """)
+    int claim(@Param("id") Long id,
+              @Param("now") LocalDateTime now,
+              @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE WebhookInbox w
+        SET w.status = :status, w.lastError = :error, w.processedAt = :now
+        WHERE w.id = :id
+        """)
+    int complete(@Param("id") Long id,
+                 @Param("status") WebhookInboxStatus status,
+                 @Param("error") String error,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * Devuelve la fila a RECEIVED para que se reintente más tarde
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE WebhookInbox w
+        SET w.status = com.copypoint.api.domain.webhookinbox.WebhookInboxStatus.RECEIVED,
+            w.lastError = :error,
+            w.claimedAt = null
+        WHERE w.id = :id
+        """)
+    int release(@Param("id") Long id, @Param("error") String error);
+
+    /**
+     * Registra un reintento inmediato de una fila que el worker conserva:
+     * sigue PROCESSING, suma el intento y renueva el lease
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE WebhookInbox w
+        SET w.attempts = w.attempts + 1,
+            w.claimedAt = :now,
+            w.lastError = :error
+        WHERE w.id = :id
+          AND w.status = com.copypoint.api.domain.webhookinbox.WebhookInboxStatus.PROCESSING
+        """)
+    int retry(@Param("id") Long id, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    /**
+     * Filas que nadie está procesando: RECEIVED con cierta antigüedad o PROCESSING con el lease vencido
+     */
+    @Query("""
+        SELECT w FROM WebhookInbox w
+        WHERE w.source = :source
+          AND ((w.status = com.copypoint.api.domain.webhookinbox.WebhookInboxStatus.RECEIVED
+                AND w.receivedAt < :receivedBefore)
+               OR (w.status = com.copypoint.api.domain.webhookinbox.WebhookInboxStatus.PROCESSING
+                   AND w.claimedAt < :leaseExpiredBefore))
+        ORDER BY w.id
+        """)
+    List<WebhookInbox> findRecoverable(@Param("source") WebhookSource source,
+                                       @Param("receivedBefore") LocalDateTime receivedBefore,
+                                       @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore,
+                                       Pageable pageable);
+
+    /**
+     * Fila del mismo evento que todavía no toma ningún worker, recibida después de {@code receivedAfter}
+     */
+    @Query("""
+        SELECT w.id FROM WebhookInbox w
+        WHERE w.source = :source
+          AND w.eventKey = :eventKey
+          AND w.status = com.copypoint.api.domain.webhookinbox.WebhookInboxStatus.RECEIVED
+          AND w.receivedAt > :receivedAfter
+        ORDER BY w.id
+        """)
+    List<Long> findPendingIdsByEventKey(@Param("source") WebhookSource source,
+                                        @Param("eventKey") String eventKey,
+                                        @Param("receivedAfter") LocalDateTime receivedAfter,
+                                        Pageable pageable);
+
+    long countBySourceAndStatusIn(WebhookSource source, List<WebhookInboxStatus> statuses);
+}
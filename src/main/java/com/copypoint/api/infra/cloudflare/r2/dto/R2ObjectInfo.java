@@ -0,0 +1,13 @@
+package com.copypoint.api.infra.cloudflare.r2.dto;
+
+/**
+ * Metadata mínima de un objeto de R2, tal como la devuelven HEAD, PUT o un listado
+ *
+ * @param eTag puede ser null si la operación que lo registró no lo devolvió
+ */
+public record R2ObjectInfo(
+        String key,
+        long sizeBytes,
+        String eTag
+) {
+}
@@ -0,0 +1,14 @@
+package com.copypoint.api.infra.cloudflare.r2.dto;
+
+import java.time.Instant;
+
+/**
+ * URL prefirmada (SigV4) para leer un objeto de R2 sin pasar por la API
+ *
+ * @param expiresAt instante en que R2 deja de aceptar la firma
+ */
+public record R2PresignedUrl(
+        String url,
+        Instant expiresAt
+) {
+}
@@ -0,0 +1,17 @@
+package com.copypoint.api.infra.cloudflare.r2.dto;
+
+/**
+ * Resultado de una subida por streaming: tipo detectado, tamaño y SHA-256
+ * calculados mientras se transfería el contenido.
+ *
+ * @param deduplicated true si el contenido ya estaba guardado y no se escribió de nuevo;
+ *                     en ese caso ya se tomó una referencia sobre él
+ */
+public record R2UploadResult(
+        String key,
+        String contentType,
+        long sizeBytes,
+        String sha256,
+        boolean deduplicated
+) {
+}
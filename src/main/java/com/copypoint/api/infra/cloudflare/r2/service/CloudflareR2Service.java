@@ -1,5 +1,11 @@
 package com.copypoint.api.infra.cloudflare.r2.service;
 
+import com.copypoint.api.infra.cloudflare.r2.dto.R2ObjectInfo;
+import com.copypoint.api.infra.cloudflare.r2.dto.R2PresignedUrl;
+import com.copypoint.api.infra.cloudflare.r2.dto.R2UploadResult;
+import com.copypoint.api.infra.utils.ContentTypeSniffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -8,15 +14,42 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
 
 @Service
 public class CloudflareR2Service {
+    private static final Logger logger = LoggerFactory.getLogger(CloudflareR2Service.class);
+    // Páginas (de hasta 1000 objetos) que se listan por grupo en una consulta de existencia en lote
+    private static final int MAX_BATCH_LIST_PAGES = 3;
+
     @Autowired
     private S3Client s3Client;
 
+    @Autowired
+    private R2PartBufferPool bufferPool;
+
+    @Autowired
+    private R2UrlSigner urlSigner;
+
+    @Autowired
+    private R2ObjectMetadataCache metadataCache;
+
     @Value("${cloudflare.r2.bucket-name}")
     private String bucketName;
 
@@ -31,9 +64,10 @@ public class CloudflareR2Service {
                 .contentLength(file.getSize())
                 .build();
 
-        s3Client.putObject(putObjectRequest,
+        PutObjectResponse response = s3Client.putObject(putObjectRequest,
                 RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
 
+        metadataCache.put(new R2ObjectInfo(key, file.getSize(), response.eTag()));
         return key;
     }
 
@@ -48,10 +82,208 @@ public class CloudflareR2Service {
                 .contentLength((long) content.length)
                 .build();
 
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(content));
+        PutObjectResponse response = s3Client.putObject(putObjectRequest, RequestBody.fromBytes(content));
+        metadataCache.put(new R2ObjectInfo(key, content.length, response.eTag()));
         return key;
     }
 
+    /**
+     * Sube un archivo leyendo el InputStream por partes, sin cargarlo completo en memoria.
+     * <p>
+     * Usa un buffer del pool: si el contenido cabe en una parte se sube con un
+     * solo PutObject; si no, con multipart upload parte por parte. El tipo de
+     * contenido se detecta con los primeros bytes (con {@code declaredContentType}
+     * como respaldo) y el tamaño y el SHA-256 se calculan durante la transferencia.
+     */
+    public R2UploadResult uploadStream(String key, InputStream input, String declaredContentType) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = bufferPool.acquire();
+        try {
+            int filled = readFully(input, buffer);
+            digest.update(buffer, 0, filled);
+            String contentType = ContentTypeSniffer.sniff(buffer, filled, declaredContentType);
+
+            if (filled < buffer.length) {
+                putBuffer(key, contentType, buffer, filled);
+                return new R2UploadResult(key, contentType, filled, HexFormat.of().formatHex(digest.digest()), false);
+            }
+
+            MultipartOutcome outcome = uploadParts(key, contentType, input, buffer, filled, digest, sha -> true);
+            metadataCache.put(new R2ObjectInfo(key, outcome.sizeBytes(), outcome.eTag()));
+            return new R2UploadResult(key, contentType, outcome.sizeBytes(), outcome.sha256(), false);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Sube un archivo bajo una clave derivada de su contenido
+     * ({@code prefix/ab/abcdef...}, con el SHA-256 en hexadecimal).
+     * <p>
+     * Con el hash calculado se llama una sola vez a {@code claimExisting}; si
+     * devuelve true (el contenido ya existe y quien llama tomó una referencia
+     * sobre él), el contenido no se escribe: en archivos de una sola parte el hash
+     * se conoce antes de subir, y en los grandes la subida multipart (a una clave
+     * temporal) se aborta en lugar de completarse. Los archivos nuevos grandes se
+     * copian del lado del servidor a la clave definitiva.
+     */
+    public R2UploadResult uploadContentAddressed(String prefix, InputStream input, String declaredContentType,
+                                                 Predicate<String> claimExisting) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = bufferPool.acquire();
+        try {
+            int filled = readFully(input, buffer);
+            digest.update(buffer, 0, filled);
+            String contentType = ContentTypeSniffer.sniff(buffer, filled, declaredContentType);
+
+            if (filled < buffer.length) {
+                String sha = HexFormat.of().formatHex(digest.digest());
+                String key = contentKey(prefix, sha);
+                boolean duplicate = claimExisting.test(sha);
+                if (!duplicate) {
+                    putBuffer(key, contentType, buffer, filled);
+                }
+                return new R2UploadResult(key, contentType, filled, sha, duplicate);
+            }
+
+            String stagingKey = prefix + "/staging/" + UUID.randomUUID();
+            MultipartOutcome outcome = uploadParts(stagingKey, contentType, input, buffer, filled, digest,
+                    sha -> !claimExisting.test(sha));
+            String key = contentKey(prefix, outcome.sha256());
+
+            if (outcome.completed()) {
+                try {
+                    CopyObjectResponse copy = s3Client.copyObject(CopyObjectRequest.builder()
+                            .sourceBucket(bucketName)
+                            .sourceKey(stagingKey)
+                            .destinationBucket(bucketName)
+                            .destinationKey(key)
+                            .build());
+                    metadataCache.put(new R2ObjectInfo(key, outcome.sizeBytes(), copy.copyObjectResult().eTag()));
+                } finally {
+                    deleteFile(stagingKey);
+                }
+            }
+
+            return new R2UploadResult(key, contentType, outcome.sizeBytes(), outcome.sha256(), !outcome.completed());
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private static String contentKey(String prefix, String sha256) {
+        return prefix + "/" + sha256.substring(0, 2) + "/" + sha256;
+    }
+
+    private void putBuffer(String key, String contentType, byte[] buffer, int length) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .contentLength((long) length)
+                .build();
+
+        PutObjectResponse response = s3Client.putObject(putObjectRequest,
+                RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length));
+        metadataCache.put(new R2ObjectInfo(key, length, response.eTag()));
+    }
+
+    /**
+     * Sube el resto del stream como multipart reutilizando {@code buffer}, que ya
+     * trae la primera parte ({@code filled} bytes). Al final se completa la subida
+     * solo si {@code shouldComplete} acepta el hash; si no, o si algo falla, se aborta.
+     */
+    private MultipartOutcome uploadParts(String key, String contentType, InputStream input, byte[] buffer,
+                                         int filled, MessageDigest digest,
+                                         Predicate<String> shouldComplete) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            long total = 0;
+            int partNumber = 1;
+
+            while (filled > 0) {
+                UploadPartResponse partResponse = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) filled)
+                                .build(),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, filled), filled));
+
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(partResponse.eTag()).build());
+                total += filled;
+                partNumber++;
+
+                filled = readFully(input, buffer);
+                digest.update(buffer, 0, filled);
+            }
+
+            String sha = HexFormat.of().formatHex(digest.digest());
+            if (!shouldComplete.test(sha)) {
+                abortMultipartUpload(key, uploadId);
+                return new MultipartOutcome(total, sha, null, false);
+            }
+
+            CompleteMultipartUploadResponse completed = s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+
+            return new MultipartOutcome(total, sha, completed.eTag(), true);
+
+        } catch (IOException | RuntimeException e) {
+            abortMultipartUpload(key, uploadId);
+            throw e;
+        }
+    }
+
+    private record MultipartOutcome(long sizeBytes, String sha256, String eTag, boolean completed) {
+    }
+
+    private void abortMultipartUpload(String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo abortar la subida multipart {} de {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    /**
+     * Lee hasta llenar el buffer o llegar al final del stream; devuelve los bytes leídos
+     */
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int filled = 0;
+        while (filled < buffer.length) {
+            int read = input.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+        }
+        return filled;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
     /**
      * Descarga un archivo como bytes
      */
@@ -64,6 +296,52 @@ public class CloudflareR2Service {
         return s3Client.getObjectAsBytes(getObjectRequest).asByteArray();
     }
 
+    /**
+     * Abre el contenido de un archivo como stream; quien lo llama debe cerrarlo
+     */
+    public InputStream openStream(String key) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+
+        return s3Client.getObject(getObjectRequest);
+    }
+
+    /**
+     * Abre como stream solo el rango de bytes [start, endInclusive] de un archivo
+     */
+    public InputStream openStream(String key, long start, long endInclusive) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=" + start + "-" + endInclusive)
+                .build();
+
+        return s3Client.getObject(getObjectRequest);
+    }
+
+    /**
+     * Lee el rango de bytes [start, endInclusive] de un archivo (GET con cabecera Range)
+     */
+    public byte[] readRange(String key, long start, long endInclusive) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=" + start + "-" + endInclusive)
+                .build();
+
+        return s3Client.getObjectAsBytes(getObjectRequest).asByteArray();
+    }
+
+    /**
+     * Abre un archivo para lectura aleatoria por rangos, sin descargarlo completo.
+     * Útil para formatos que se leen desde el final (PDF, ZIP/DOCX).
+     */
+    public R2RangeRandomAccessRead openRandomAccess(String key) {
+        return new R2RangeRandomAccessRead(this, key, getObjectInfo(key).sizeBytes());
+    }
+
     /**
      * Elimina un archivo
      */
@@ -74,55 +352,157 @@ public class CloudflareR2Service {
                 .build();
 
         s3Client.deleteObject(deleteObjectRequest);
+        metadataCache.evict(key);
     }
 
     /**
      * Lista archivos en el bucket
      */
     public List<String> listFiles(String prefix) {
-        ListObjectsV2Request listObjectsRequest = ListObjectsV2Request.builder()
-                .bucket(bucketName)
-                .prefix(prefix)
-                .build();
+        return listObjects(prefix).stream()
+                .map(R2ObjectInfo::key)
+                .toList();
+    }
 
-        ListObjectsV2Response response = s3Client.listObjectsV2(listObjectsRequest);
+    /**
+     * Lista todos los objetos bajo un prefijo (todas las páginas) y los registra
+     * en el cache de existencia
+     */
+    public List<R2ObjectInfo> listObjects(String prefix) {
+        return listPages(prefix, Integer.MAX_VALUE).objects();
+    }
+
+    private ObjectListing listPages(String prefix, int maxPages) {
+        List<R2ObjectInfo> objects = new ArrayList<>();
+        String continuationToken = null;
+        int pages = 0;
+
+        do {
+            ListObjectsV2Response response = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .continuationToken(continuationToken)
+                    .build());
+            pages++;
+
+            for (S3Object object : response.contents()) {
+                R2ObjectInfo info = new R2ObjectInfo(object.key(), object.size(), object.eTag());
+                metadataCache.put(info);
+                objects.add(info);
+            }
+            continuationToken = Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null;
+        } while (continuationToken != null && pages < maxPages);
 
-        return response.contents().stream()
-                .map(S3Object::key)
-                .collect(Collectors.toList());
+        return new ObjectListing(objects, continuationToken != null);
+    }
+
+    private record ObjectListing(List<R2ObjectInfo> objects, boolean truncated) {
     }
 
     /**
-     * Genera URL prefirmada para acceso temporal
+     * Devuelve cuáles de las claves existen en R2.
+     * <p>
+     * Las que están en cache no se consultan. El resto se agrupa por "carpeta" y
+     * cada grupo se resuelve con un listado del prefijo común de sus claves
+     * (acotado a unas pocas páginas); una clave suelta, o las que el listado no
+     * alcanzó a cubrir, se verifican con HEAD.
+     */
+    public Set<String> existingKeys(Collection<String> keys) {
+        Set<String> existing = new HashSet<>();
+        Map<String, List<String>> unknownByParent = new LinkedHashMap<>();
+
+        for (String key : new LinkedHashSet<>(keys)) {
+            if (key == null) {
+                continue;
+            }
+            if (metadataCache.get(key) != null) {
+                existing.add(key);
+            } else {
+                unknownByParent.computeIfAbsent(key.substring(0, key.lastIndexOf('/') + 1), parent -> new ArrayList<>())
+                        .add(key);
+            }
+        }
+
+        for (List<String> group : unknownByParent.values()) {
+            Set<String> pending = new HashSet<>(group);
+            if (group.size() > 1) {
+                ObjectListing listing = listPages(commonPrefix(group), MAX_BATCH_LIST_PAGES);
+                for (R2ObjectInfo object : listing.objects()) {
+                    if (pending.remove(object.key())) {
+                        existing.add(object.key());
+                    }
+                }
+                if (!listing.truncated()) {
+                    // El listado fue completo: lo que no apareció no existe
+                    continue;
+                }
+            }
+            for (String key : pending) {
+                if (fileExists(key)) {
+                    existing.add(key);
+                }
+            }
+        }
+
+        return existing;
+    }
+
+    private static String commonPrefix(List<String> keys) {
+        String prefix = keys.get(0);
+        for (String key : keys) {
+            int length = 0;
+            int max = Math.min(prefix.length(), key.length());
+            while (length < max && prefix.charAt(length) == key.charAt(length)) {
+                length++;
+            }
+            prefix = prefix.substring(0, length);
+        }
+        return prefix;
+    }
+
+    /**
+     * Genera URL prefirmada (SigV4) para acceso temporal. La URL dura al menos
+     * {@code expirationMinutes} y se reutiliza mientras siga vigente.
      */
     public String generatePresignedUrl(String key, int expirationMinutes) {
-        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
+        return generatePresignedUrl(key, Duration.ofMinutes(expirationMinutes), null, null).url();
+    }
 
-        return s3Client.utilities().getUrl(builder -> builder
-                .bucket(bucketName)
-                .key(key)).toExternalForm();
+    /**
+     * Genera URL prefirmada indicando con qué Content-Type y Content-Disposition
+     * debe responder R2 (p. ej. el nombre original del archivo)
+     */
+    public R2PresignedUrl generatePresignedUrl(String key, Duration validity,
+                                               String responseContentType, String responseContentDisposition) {
+        return urlSigner.sign(key, validity, responseContentType, responseContentDisposition);
     }
 
     /**
-     * Verifica si un archivo existe
+     * Verifica si un archivo existe. Usa el cache de existencia y solo hace HEAD
+     * si el objeto no está registrado.
      */
     public boolean fileExists(String key) {
         try {
-            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .build();
-
-            s3Client.headObject(headObjectRequest);
+            getObjectInfo(key);
             return true;
         } catch (NoSuchKeyException e) {
             return false;
         }
     }
 
+    /**
+     * Tamaño y ETag de un archivo, desde el cache o con un HEAD.
+     * Lanza NoSuchKeyException si no existe.
+     */
+    public R2ObjectInfo getObjectInfo(String key) {
+        R2ObjectInfo cached = metadataCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        HeadObjectResponse metadata = getFileMetadata(key);
+        return new R2ObjectInfo(key, metadata.contentLength(), metadata.eTag());
+    }
+
     /**
      * Obtiene metadata de un archivo
      */
@@ -132,6 +512,8 @@ public class CloudflareR2Service {
                 .key(key)
                 .build();
 
-        return s3Client.headObject(headObjectRequest);
+        HeadObjectResponse response = s3Client.headObject(headObjectRequest);
+        metadataCache.put(new R2ObjectInfo(key, response.contentLength(), response.eTag()));
+        return response;
     }
 }
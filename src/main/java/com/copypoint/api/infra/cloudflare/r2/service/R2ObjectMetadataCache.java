@@ -0,0 +1,43 @@
+package com.copypoint.api.infra.cloudflare.r2.service;
+
+import com.copypoint.api.infra.cloudflare.r2.dto.R2ObjectInfo;
+import com.copypoint.api.infra.config.CacheConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache de objetos que se sabe que existen en R2, con su tamaño y ETag.
+ * <p>
+ * Se llena con las subidas, los HEAD y los listados por prefijo, y se invalida
+ * al borrar. Solo guarda existencias: un objeto que no está en cache se
+ * consulta a R2, así que una ausencia nunca se da por buena sin preguntar.
+ */
+@Component
+public class R2ObjectMetadataCache {
+
+    private final Cache objects;
+
+    public R2ObjectMetadataCache(CacheManager cacheManager) {
+        this.objects = cacheManager.getCache(CacheConfiguration.R2_OBJECT_METADATA);
+    }
+
+    public R2ObjectInfo get(String key) {
+        if (key == null || objects == null) {
+            return null;
+        }
+        return objects.get(key, R2ObjectInfo.class);
+    }
+
+    public void put(R2ObjectInfo info) {
+        if (objects != null) {
+            objects.put(info.key(), info);
+        }
+    }
+
+    public void evict(String key) {
+        if (objects != null) {
+            objects.evict(key);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.copypoint.api.infra.cloudflare.r2.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool fijo de buffers del tamaño de una parte multipart.
+ * <p>
+ * Cada subida por streaming usa un solo buffer a la vez, así que la memoria
+ * total de las transferencias queda acotada a {@code poolSize * partSize}
+ * sin importar el tamaño de los archivos. Si no hay buffers libres la subida
+ * espera (backpressure) hasta el tiempo límite.
+ */
+@Component
+public class R2PartBufferPool {
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 60;
+
+    private final BlockingQueue<byte[]> buffers;
+    private final int partSize;
+
+    public R2PartBufferPool(@Value("${cloudflare.r2.upload.part-size-mb:8}") int partSizeMb,
+                            @Value("${cloudflare.r2.upload.buffer-pool-size:8}") int poolSize) {
+        // S3/R2 exige partes de al menos 5 MiB (salvo la última)
+        this.partSize = Math.max(5, partSizeMb) * 1024 * 1024;
+        this.buffers = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            buffers.add(new byte[partSize]);
+        }
+    }
+
+    public byte[] acquire() throws IOException {
+        try {
+            byte[] buffer = buffers.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (buffer == null) {
+                throw new IOException("No hay buffers de subida disponibles después de " + ACQUIRE_TIMEOUT_SECONDS + "s");
+            }
+            return buffer;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrumpido esperando un buffer de subida", e);
+        }
+    }
+
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == partSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    public int available() {
+        return buffers.size();
+    }
+
+    public int getPartSize() {
+        return partSize;
+    }
+}
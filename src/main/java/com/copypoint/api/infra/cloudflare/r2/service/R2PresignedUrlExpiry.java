@@ -0,0 +1,42 @@
+package com.copypoint.api.infra.cloudflare.r2.service;
+
+import com.copypoint.api.infra.cloudflare.r2.dto.R2PresignedUrl;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Expiración por entrada del cache de URLs prefirmadas: cada URL sale del
+ * cache un margen antes de que venza su firma, para no entregar nunca una
+ * URL a punto de caducar.
+ */
+public class R2PresignedUrlExpiry implements Expiry<Object, Object> {
+
+    private final long marginNanos;
+    private final Clock clock;
+
+    public R2PresignedUrlExpiry(Duration margin, Clock clock) {
+        this.marginNanos = margin.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        if (value instanceof R2PresignedUrl presigned) {
+            long remaining = Duration.between(clock.instant(), presigned.expiresAt()).toNanos();
+            return Math.max(0, remaining - marginNanos);
+        }
+        return 0;
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
@@ -0,0 +1,146 @@
+package com.copypoint.api.infra.cloudflare.r2.service;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadView;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lectura aleatoria de un objeto de R2 mediante GETs por rango.
+ * <p>
+ * El objeto se lee en bloques de 64 KiB que se guardan en un LRU acotado, así
+ * que un parser que salta por el archivo (xref y árbol de páginas de un PDF,
+ * directorio central de un ZIP) solo descarga las zonas que visita. No es
+ * seguro para uso concurrente; cada lectura abre su propia instancia.
+ */
+public class R2RangeRandomAccessRead implements RandomAccessRead {
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int MAX_CACHED_BLOCKS = 64;
+
+    private final CloudflareR2Service r2Service;
+    private final String key;
+    private final long length;
+    private final Map<Long, byte[]> blocks = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            return size() > MAX_CACHED_BLOCKS;
+        }
+    };
+
+    private long position;
+    private boolean closed;
+    private int rangeRequests;
+
+    R2RangeRandomAccessRead(CloudflareR2Service r2Service, String key, long length) {
+        this.r2Service = r2Service;
+        this.key = key;
+        this.length = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (isEOF()) {
+            return -1;
+        }
+        byte[] block = block(position / BLOCK_SIZE);
+        int value = block[(int) (position % BLOCK_SIZE)] & 0xFF;
+        position++;
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (isEOF()) {
+            return -1;
+        }
+
+        int total = 0;
+        while (total < len && position < length) {
+            byte[] block = block(position / BLOCK_SIZE);
+            int offsetInBlock = (int) (position % BLOCK_SIZE);
+            int count = Math.min(len - total, block.length - offsetInBlock);
+            System.arraycopy(block, offsetInBlock, b, offset + total, count);
+            position += count;
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(long newPosition) throws IOException {
+        checkClosed();
+        if (newPosition < 0) {
+            throw new IOException("Posición inválida: " + newPosition);
+        }
+        position = Math.min(newPosition, length);
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        checkClosed();
+        return position >= length;
+    }
+
+    @Override
+    public RandomAccessReadView createView(long startPosition, long streamLength) {
+        return new RandomAccessReadView(this, startPosition, streamLength);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        blocks.clear();
+    }
+
+    /**
+     * Número de GETs por rango hechos hasta ahora
+     */
+    public int getRangeRequests() {
+        return rangeRequests;
+    }
+
+    private byte[] block(long index) throws IOException {
+        checkClosed();
+        byte[] block = blocks.get(index);
+        if (block != null) {
+            return block;
+        }
+
+        long start = index * BLOCK_SIZE;
+        long end = Math.min(start + BLOCK_SIZE, length) - 1;
+        try {
+            block = r2Service.readRange(key, start, end);
+        } catch (RuntimeException e) {
+            throw new IOException("Error leyendo bytes " + start + "-" + end + " de " + key, e);
+        }
+        rangeRequests++;
+        blocks.put(index, block);
+        return block;
+    }
+
+    private void checkClosed() throws IOException {
+        if (closed) {
+            throw new IOException("El archivo " + key + " ya está cerrado");
+        }
+    }
+}
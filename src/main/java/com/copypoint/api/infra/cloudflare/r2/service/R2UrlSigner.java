@@ -0,0 +1,101 @@
+package com.copypoint.api.infra.cloudflare.r2.service;
+
+import com.copypoint.api.infra.cloudflare.r2.dto.R2PresignedUrl;
+import com.copypoint.api.infra.config.CacheConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Firma URLs GET de R2 (SigV4) y las reutiliza mientras sigan vigentes.
+ * <p>
+ * El vencimiento se redondea hacia arriba al siguiente múltiplo de
+ * {@code expiry-bucket}: todas las peticiones de un mismo objeto dentro de esa
+ * ventana reciben la misma URL (y el navegador puede cachearla), y la URL
+ * entregada siempre dura al menos lo pedido. Firmar no hace llamadas de red,
+ * pero sí HMACs por petición; el cache evita repetirlos en listados grandes.
+ */
+@Component
+public class R2UrlSigner {
+
+    // Límite de SigV4 para URLs prefirmadas
+    private static final Duration MAX_VALIDITY = Duration.ofDays(7);
+
+    private final S3Presigner presigner;
+    private final Cache signedUrls;
+    private final String bucketName;
+    private final long expiryBucketSeconds;
+    private final Clock clock = Clock.systemUTC();
+
+    public R2UrlSigner(S3Presigner presigner,
+                       CacheManager cacheManager,
+                       @Value("${cloudflare.r2.bucket-name}") String bucketName,
+                       @Value("${cloudflare.r2.presign.expiry-bucket:5m}") Duration expiryBucket) {
+        this.presigner = presigner;
+        this.signedUrls = cacheManager.getCache(CacheConfiguration.R2_PRESIGNED_URLS);
+        this.bucketName = bucketName;
+        this.expiryBucketSeconds = Math.max(1, expiryBucket.toSeconds());
+    }
+
+    /**
+     * Devuelve una URL prefirmada válida por al menos {@code validity}.
+     * {@code responseContentType} y {@code responseContentDisposition} son
+     * opcionales y sustituyen las cabeceras con las que R2 entrega el objeto.
+     */
+    public R2PresignedUrl sign(String key, Duration validity,
+                               String responseContentType, String responseContentDisposition) {
+        Instant expiresAt = bucketedExpiry(validity);
+        SignatureKey cacheKey = new SignatureKey(key, expiresAt, responseContentType, responseContentDisposition);
+
+        if (signedUrls == null) {
+            return presign(cacheKey);
+        }
+        return signedUrls.get(cacheKey, () -> presign(cacheKey));
+    }
+
+    private R2PresignedUrl presign(SignatureKey cacheKey) {
+        GetObjectRequest.Builder getObject = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(cacheKey.key());
+        if (cacheKey.responseContentType() != null) {
+            getObject.responseContentType(cacheKey.responseContentType());
+        }
+        if (cacheKey.responseContentDisposition() != null) {
+            getObject.responseContentDisposition(cacheKey.responseContentDisposition());
+        }
+
+        // La duración se calcula al firmar para que el vencimiento real coincida con el de la ventana
+        Duration signatureDuration = Duration.between(clock.instant(), cacheKey.expiresAt());
+        PresignedGetObjectRequest presigned = presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(signatureDuration)
+                .getObjectRequest(getObject.build())
+                .build());
+
+        return new R2PresignedUrl(presigned.url().toExternalForm(), presigned.expiration());
+    }
+
+    private Instant bucketedExpiry(Duration validity) {
+        Duration bucket = Duration.ofSeconds(expiryBucketSeconds);
+        Duration clamped = validity.compareTo(Duration.ofMinutes(1)) < 0 ? Duration.ofMinutes(1) : validity;
+        if (clamped.plus(bucket).compareTo(MAX_VALIDITY) > 0) {
+            clamped = MAX_VALIDITY.minus(bucket);
+        }
+
+        long target = clock.instant().plus(clamped).getEpochSecond();
+        long rounded = ((target + expiryBucketSeconds - 1) / expiryBucketSeconds) * expiryBucketSeconds;
+        return Instant.ofEpochSecond(rounded);
+    }
+
+    private record SignatureKey(String key, Instant expiresAt,
+                                String responseContentType, String responseContentDisposition) {
+    }
+}
@@ -1,74 +1,170 @@
 package com.copypoint.api.infra.config;
 
+import com.copypoint.api.dashboard.cache.DashboardCacheKey;
+import com.copypoint.api.dashboard.cache.DashboardResultExpiry;
+import com.copypoint.api.dashboard.cache.DashboardResultWeigher;
+import com.copypoint.api.infra.cloudflare.r2.service.R2PresignedUrlExpiry;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 
-import java.util.Objects;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuración de cache para la aplicación
  * <p>
- * Se habilita el caching para mejorar el rendimiento, especialmente
- * para las consultas de tasas de cambio que no cambian frecuentemente.
+ * Todas las caches son Caffeine (desalojo W-TinyLFU) con tamaño máximo, expiración
+ * y estadísticas configurados en application.properties bajo {@code app.cache}.
+ * Spring Boot Actuator publica hits, misses y desalojos de cada cache; aquí se
+ * agregan la tasa de aciertos y el peso estimado.
  */
 @Configuration
 @EnableCaching
 @EnableScheduling
 public class CacheConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    public static final String USER_PRINCIPALS = "userPrincipals";
+    public static final String MERCADO_PAGO_CONFIGURATIONS = "mercadoPagoConfigurations";
+    public static final String RECENT_MESSAGE_SIDS = "recentMessageSids";
+    public static final String PENDING_MERCADO_PAGO_WEBHOOKS = "pendingMercadoPagoWebhooks";
+    public static final String PAYMENT_GATEWAY_REFS = "paymentGatewayRefs";
+    public static final String R2_PRESIGNED_URLS = "r2PresignedUrls";
+    public static final String R2_OBJECT_METADATA = "r2ObjectMetadata";
+
+    // Una URL prefirmada sale del cache este tiempo antes de que venza su firma
+    private static final Duration PRESIGNED_URL_MARGIN = Duration.ofSeconds(30);
+
+    // Límite de seguridad si una cache no define tamaño ni peso
+    private static final long FALLBACK_MAXIMUM_SIZE = 1_000;
+
     /**
-     * Configura el gestor de cache usando ConcurrentMapCacheManager
-     * para un cache en memoria simple y eficiente.
-     * <p>
-     * Para aplicaciones más complejas, se podría usar Redis Cache Manager
-     * o EhCache para cache distribuido.
+     * Configura el gestor de cache con las caches conocidas:
+     * <ul>
+     *     <li>userPrincipals: principal autenticado con roles y permisos (ver UserPrincipalCache).</li>
+     *     <li>mercadoPagoConfigurations: configuración activa de MercadoPago por copypoint
+     *     (ver MercadoPagoConfigurationService). Es transaccional: las limpiezas hechas dentro
+     *     de una transacción se aplican después del commit.</li>
+     *     <li>recentMessageSids: IDs de mensajes y estados recibidos hace poco (ver MessageSidDeduplicator).</li>
+     *     <li>pendingMercadoPagoWebhooks: fila pendiente de webhook_inbox por evento de MercadoPago
+     *     (ver MercadoPagoWebhookDispatcher).</li>
+     *     <li>paymentGatewayRefs: ID de pasarela -> payment ID (ver PaymentGatewayRefService).</li>
+     *     <li>r2PresignedUrls: URLs prefirmadas de R2 por objeto y ventana de vencimiento;
+     *     cada entrada expira poco antes que su firma (ver R2UrlSigner).</li>
+     *     <li>r2ObjectMetadata: objetos de R2 que se sabe que existen, con tamaño y ETag
+     *     (ver R2ObjectMetadataCache).</li>
+     *     <li>dashboardResults: resultados de DashboardAnalyticsService, acotado por
+     *     peso estimado. Los rangos cerrados no expiran y los que incluyen hoy
+     *     viven expire-after-write; los cambios de ventas y pagos invalidan solo los
+     *     rangos que contienen el día afectado (ver DashboardCacheEvictor).</li>
+     * </ul>
+     * No se crean caches dinámicamente: un nombre desconocido es un error de configuración.
      */
     @Bean
-    public CacheManager cacheManager() {
-        // Configurar los nombres de cache que se utilizarán
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("exchangeRates");
-
-        // Permitir crear caches dinámicamente si se necesitan
-        cacheManager.setAllowNullValues(false);
+    public CacheManager cacheManager(AppCacheProperties properties, MeterRegistry meterRegistry) {
+        List<Cache> caches = new ArrayList<>();
+        caches.add(buildCache(USER_PRINCIPALS, properties, meterRegistry));
+        caches.add(new TransactionAwareCacheDecorator(buildCache(MERCADO_PAGO_CONFIGURATIONS, properties, meterRegistry)));
+        caches.add(buildCache(RECENT_MESSAGE_SIDS, properties, meterRegistry));
+        caches.add(buildCache(PENDING_MERCADO_PAGO_WEBHOOKS, properties, meterRegistry));
+        caches.add(buildCache(PAYMENT_GATEWAY_REFS, properties, meterRegistry));
+        caches.add(buildPresignedUrlsCache(properties, meterRegistry));
+        caches.add(buildCache(R2_OBJECT_METADATA, properties, meterRegistry));
+        caches.add(buildDashboardResultsCache(properties, meterRegistry));
 
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
         return cacheManager;
     }
 
-    /**
-     * Limpia el cache de tasas de cambio cada 30 minutos
-     * para asegurar que las tasas se mantengan relativamente actualizadas.
-     * <p>
-     * Las tasas de cambio pueden cambiar varias veces al día, por lo que
-     * un cache de 30 minutos proporciona un buen balance entre rendimiento
-     * y precisión de datos.
-     */
-    @Scheduled(fixedRate = 30 * 60 * 1000) // 30 minutos en milisegundos
-    public void evictExchangeRatesCache() {
-        CacheManager cacheManager = cacheManager();
-        if (cacheManager.getCache("exchangeRates") != null) {
-            Objects.requireNonNull(cacheManager.getCache("exchangeRates")).clear();
-            // Log para monitoreo (usando System.out por simplicidad,
-            // en un entorno real usarías el logger de la clase)
-            System.out.println("Cache de tasas de cambio limpiado automáticamente: " +
-                    java.time.LocalDateTime.now());
+    private Cache buildCache(String name, AppCacheProperties properties, MeterRegistry meterRegistry) {
+        AppCacheProperties.Spec spec = properties.resolve(name);
+        if (!spec.isEnabled()) {
+            logger.info("Cache {} deshabilitada por configuración", name);
+            return new NoOpCache(name);
+        }
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize() != null ? spec.getMaximumSize() : FALLBACK_MAXIMUM_SIZE)
+                .recordStats();
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
         }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+
+        return register(name, builder.build(), meterRegistry);
     }
 
-    /**
-     * Limpia todos los caches manualmente si es necesario
-     * Este método podría ser llamado desde un endpoint de administración
-     */
-    public void evictAllCaches() {
-        CacheManager cacheManager = cacheManager();
-        cacheManager.getCacheNames()
-                .parallelStream()
-                .forEach(cacheName -> cacheManager.getCache(cacheName).clear());
-
-        System.out.println("Todos los caches limpiados manualmente: " +
-                java.time.LocalDateTime.now());
+    private Cache buildPresignedUrlsCache(AppCacheProperties properties, MeterRegistry meterRegistry) {
+        String name = R2_PRESIGNED_URLS;
+        AppCacheProperties.Spec spec = properties.resolve(name);
+        if (!spec.isEnabled()) {
+            logger.info("Cache {} deshabilitada por configuración", name);
+            return new NoOpCache(name);
+        }
+
+        // La expiración la define cada URL; expire-after-write no aplica
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize() != null ? spec.getMaximumSize() : FALLBACK_MAXIMUM_SIZE)
+                .expireAfter(new R2PresignedUrlExpiry(PRESIGNED_URL_MARGIN, Clock.systemUTC()))
+                .recordStats()
+                .build();
+
+        return register(name, nativeCache, meterRegistry);
+    }
+
+    private Cache buildDashboardResultsCache(AppCacheProperties properties, MeterRegistry meterRegistry) {
+        String name = DashboardCacheKey.CACHE_NAME;
+        AppCacheProperties.Spec spec = properties.resolve(name);
+        if (!spec.isEnabled()) {
+            logger.info("Cache {} deshabilitada por configuración", name);
+            return new NoOpCache(name);
+        }
+
+        // El TTL solo aplica a rangos que incluyen hoy; el peso estima bytes por respuesta
+        Duration todayTtl = spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite() : Duration.ofSeconds(60);
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = Caffeine.newBuilder()
+                .maximumWeight(spec.getMaximumWeight() != null ? spec.getMaximumWeight() : 64L * 1024 * 1024)
+                .weigher(new DashboardResultWeigher())
+                .expireAfter(new DashboardResultExpiry(todayTtl, Clock.systemDefaultZone()))
+                .recordStats()
+                .build();
+
+        return register(name, nativeCache, meterRegistry);
+    }
+
+    private Cache register(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache,
+                           MeterRegistry meterRegistry) {
+        Gauge.builder("cache.hit.ratio", nativeCache, cache -> cache.stats().hitRate())
+                .tag("cache", name)
+                .description("Proporción de lecturas servidas desde cache")
+                .register(meterRegistry);
+        nativeCache.policy().eviction()
+                .filter(eviction -> eviction.isWeighted())
+                .ifPresent(eviction -> Gauge.builder("cache.weighted.size", nativeCache,
+                                cache -> eviction.weightedSize().orElse(0L))
+                        .tag("cache", name)
+                        .baseUnit("bytes")
+                        .description("Tamaño estimado de las entradas en cache")
+                        .register(meterRegistry));
+
+        return new CaffeineCache(name, nativeCache, false);
     }
 }
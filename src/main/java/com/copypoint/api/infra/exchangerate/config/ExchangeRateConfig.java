@@ -4,20 +4,28 @@ import com.copypoint.api.infra.exchangerate.http.ExchangeRateClient;
 import com.copypoint.api.infra.exchangerate.properties.ExchangeRateProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.support.RestClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 
+import java.time.Duration;
+
 @Configuration
 public class ExchangeRateConfig {
 
     @Bean
     public ExchangeRateClient exchangeRateClient(ExchangeRateProperties properties) {
-        RestClient client = RestClient.create(properties.getBaseUrl());
+        // Sin timeouts una llamada lenta quedaba colgada indefinidamente
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(properties.getTimeout()));
+        requestFactory.setReadTimeout(Duration.ofSeconds(properties.getTimeout()));
+
+        RestClient client = RestClient.builder()
+                .baseUrl(properties.getBaseUrl())
+                .requestFactory(requestFactory)
+                .build();
         HttpServiceProxyFactory factory = HttpServiceProxyFactory.builderFor(RestClientAdapter.create(client)).build();
         return factory.createClient(ExchangeRateClient.class);
-
-
-
     }
 }
@@ -9,6 +9,8 @@ public record CurrencyExchangeDto(
         BigDecimal rate,
         BigDecimal amount,
         BigDecimal convertedAmount,
-        LocalDateTime timestamp
+        LocalDateTime timestamp,
+        // true si se usó la última tabla conocida porque el proveedor no respondió
+        boolean stale
 ) {
 }
@@ -0,0 +1,17 @@
+package com.copypoint.api.infra.exchangerate.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Tasa de cambio calculada con la tabla en memoria
+ *
+ * @param asOf  momento en que el proveedor publicó la tabla
+ * @param stale true si la tabla no se ha podido actualizar a tiempo y se sirve la última conocida
+ */
+public record ExchangeRateQuote(
+        BigDecimal rate,
+        Instant asOf,
+        boolean stale
+) {
+}
@@ -0,0 +1,15 @@
+package com.copypoint.api.infra.exchangerate.exception;
+
+/**
+ * El proveedor de tasas de cambio no está disponible (circuito abierto, límite
+ * de llamadas simultáneas o falla de la llamada) y no hay un valor anterior que usar
+ */
+public class ExchangeRateUnavailableException extends RuntimeException {
+    public ExchangeRateUnavailableException(String message) {
+        super(message);
+    }
+
+    public ExchangeRateUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -4,6 +4,8 @@ import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @Getter
 public class ExchangeRateProperties{
@@ -15,4 +17,19 @@ public class ExchangeRateProperties{
 
     @Value("${exchange-rate.timeout:10}")
     private int timeout;
+
+    // Fallas seguidas que abren el circuito hacia el proveedor
+    @Value("${exchange-rate.breaker.failure-threshold:3}")
+    private int breakerFailureThreshold;
+
+    @Value("${exchange-rate.breaker.open-duration:60s}")
+    private Duration breakerOpenDuration;
+
+    // Peticiones simultáneas máximas al proveedor (bulkhead)
+    @Value("${exchange-rate.max-concurrent-calls:2}")
+    private int maxConcurrentCalls;
+
+    // Una tabla de tasas más antigua que esto se marca como desactualizada
+    @Value("${exchange-rate.stale-after:3h}")
+    private Duration staleAfter;
 }
@@ -1,6 +1,7 @@
 package com.copypoint.api.infra.exchangerate.service;
 
 import com.copypoint.api.infra.exchangerate.dto.*;
+import com.copypoint.api.infra.exchangerate.exception.ExchangeRateUnavailableException;
 import com.copypoint.api.infra.exchangerate.http.ExchangeRateClient;
 import com.copypoint.api.infra.exchangerate.properties.ExchangeRateProperties;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,9 +9,13 @@ import org.springframework.stereotype.Service;
 
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,38 +27,90 @@ public class ExchangeRateService {
     @Autowired
     private ExchangeRateProperties properties;
 
+    @Autowired
+    private ExchangeRateTableService rateTable;
+
+    @Autowired
+    private ExchangeRateUpstream upstream;
+
+    private final AtomicReference<List<CurrencyDto>> lastKnownCurrencies = new AtomicReference<>();
+
+    /**
+     * Convierte con la tabla de tasas en memoria, sin llamar al proveedor
+     */
     public CurrencyExchangeDto convertCurrency(ConversionRequest request) {
-        ConversionResponse response = exchangeRateClient.convertCurrency(
-                properties.getApiKey(),
-                request.fromCurrency(),
-                request.toCurrency(),
-                request.amount());
+        String from = request.fromCurrency().toUpperCase();
+        String to = request.toCurrency().toUpperCase();
+        ExchangeRateQuote quote = rateTable.getQuote(from, to);
 
         return new CurrencyExchangeDto(
-                response.baseCode(),
-                response.targetCode(),
-                response.conversionRate(),
+                from,
+                to,
+                quote.rate(),
                 request.amount(),
-                response.conversionResult(),
-                LocalDateTime.now()
+                request.amount().multiply(quote.rate()),
+                LocalDateTime.now(),
+                quote.stale()
         );
     }
 
+    /**
+     * Tasa entre dos monedas, calculada con la tabla en memoria (ver ExchangeRateTableService)
+     */
     public BigDecimal getExchangeRate(String fromCurrency, String toCurrency) {
-        return exchangeRateClient
-                .getExchangeRate(properties.getApiKey(), fromCurrency, toCurrency)
-                .conversionRate();
+        return rateTable.getRate(fromCurrency, toCurrency);
     }
 
+    /**
+     * Todas las tasas respecto a {@code baseCurrency}, derivadas de la tabla en memoria
+     */
     public ExchangeRateResponse getAllExchangeRates(String baseCurrency) {
-        return exchangeRateClient.getExchangeRates(properties.getApiKey(), baseCurrency);
+        String base = baseCurrency.toUpperCase();
+        ExchangeRateSnapshot snapshot = rateTable.currentSnapshot();
+        if (!snapshot.supports(base)) {
+            throw new IllegalArgumentException("Moneda no soportada: " + base);
+        }
+
+        Instant publishedAt = snapshot.getPublishedAt();
+        return new ExchangeRateResponse(
+                "success",
+                null,
+                null,
+                publishedAt.getEpochSecond(),
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(publishedAt.atZone(ZoneOffset.UTC)),
+                null,
+                null,
+                base,
+                snapshot.ratesFrom(base)
+        );
+    }
+
+    /**
+     * Tasa entre dos monedas indicando si la tabla está desactualizada
+     */
+    public ExchangeRateQuote getExchangeRateQuote(String fromCurrency, String toCurrency) {
+        return rateTable.getQuote(fromCurrency, toCurrency);
     }
 
+    /**
+     * Monedas soportadas por el proveedor. Si no responde se devuelve la última lista conocida.
+     */
     public List<CurrencyDto> getSupportedCurrencies() {
-        SupportedCodesResponse response = exchangeRateClient.getSupportedCodes(properties.getApiKey());
+        try {
+            SupportedCodesResponse response = upstream.call("codes", "codes",
+                    () -> exchangeRateClient.getSupportedCodes(properties.getApiKey()));
 
-        return Arrays.stream(response.supportedCodes())
-                .map(code -> new CurrencyDto(code[0], code[1]))
-                .collect(Collectors.toList());
+            List<CurrencyDto> currencies = Arrays.stream(response.supportedCodes())
+                    .map(code -> new CurrencyDto(code[0], code[1]))
+                    .collect(Collectors.toList());
+            lastKnownCurrencies.set(currencies);
+            return currencies;
+        } catch (ExchangeRateUnavailableException e) {
+            List<CurrencyDto> lastKnown = lastKnownCurrencies.get();
+            if (lastKnown == null) {
+                throw e;
+            }
+            return lastKnown;
+        }
     }
 }
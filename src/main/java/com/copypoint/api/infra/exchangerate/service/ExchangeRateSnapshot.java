@@ -0,0 +1,115 @@
+package com.copypoint.api.infra.exchangerate.service;
+
+import com.copypoint.api.infra.exchangerate.dto.ExchangeRateResponse;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * Tabla inmutable de tasas de cambio obtenida con una sola llamada a
+ * {@code latest/{base}}.
+ * <p>
+ * Cada moneda tiene un índice fijo dentro de la tabla y las tasas se guardan en
+ * un arreglo de double (unidades de la moneda por una unidad de la base); la
+ * tasa entre dos monedas cualquiera es el cociente de sus entradas. Se
+ * reemplaza completa en cada actualización, así que se puede leer sin bloqueos.
+ */
+public final class ExchangeRateSnapshot {
+
+    private final String baseCurrency;
+    private final Map<String, Integer> ordinals;
+    private final double[] unitsPerBase;
+    private final Instant fetchedAt;
+    private final Instant publishedAt;
+
+    private ExchangeRateSnapshot(String baseCurrency, Map<String, Integer> ordinals, double[] unitsPerBase,
+                                 Instant fetchedAt, Instant publishedAt) {
+        this.baseCurrency = baseCurrency;
+        this.ordinals = ordinals;
+        this.unitsPerBase = unitsPerBase;
+        this.fetchedAt = fetchedAt;
+        this.publishedAt = publishedAt;
+    }
+
+    /**
+     * Construye la tabla a partir de la respuesta de {@code latest/{base}}, ignorando
+     * tasas nulas o no positivas
+     */
+    public static ExchangeRateSnapshot from(ExchangeRateResponse response, Instant fetchedAt) {
+        if (response == null || response.conversionRates() == null || response.conversionRates().isEmpty()) {
+            throw new IllegalArgumentException("Respuesta de tasas de cambio sin conversion_rates");
+        }
+
+        Map<String, Integer> ordinals = new HashMap<>();
+        double[] rates = new double[response.conversionRates().size()];
+        int next = 0;
+        for (Map.Entry<String, BigDecimal> entry : response.conversionRates().entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null || entry.getValue().signum() <= 0) {
+                continue;
+            }
+            ordinals.put(entry.getKey().toUpperCase(), next);
+            rates[next++] = entry.getValue().doubleValue();
+        }
+
+        Instant publishedAt = response.timeLastUpdateUnix() != null
+                ? Instant.ofEpochSecond(response.timeLastUpdateUnix())
+                : fetchedAt;
+        return new ExchangeRateSnapshot(response.baseCode(), Map.copyOf(ordinals), Arrays.copyOf(rates, next),
+                fetchedAt, publishedAt);
+    }
+
+    /**
+     * Unidades de {@code to} por una unidad de {@code from}; vacío si alguna moneda no está en la tabla
+     */
+    public OptionalDouble rate(String from, String to) {
+        Integer fromOrdinal = ordinals.get(from);
+        Integer toOrdinal = ordinals.get(to);
+        if (fromOrdinal == null || toOrdinal == null) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(unitsPerBase[toOrdinal] / unitsPerBase[fromOrdinal]);
+    }
+
+    /**
+     * Todas las tasas expresadas respecto a {@code base}; vacío si la moneda no está en la tabla
+     */
+    public Map<String, BigDecimal> ratesFrom(String base) {
+        Integer baseOrdinal = ordinals.get(base);
+        if (baseOrdinal == null) {
+            return Map.of();
+        }
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        ordinals.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> rates.put(entry.getKey(),
+                        BigDecimal.valueOf(unitsPerBase[entry.getValue()] / unitsPerBase[baseOrdinal])));
+        return rates;
+    }
+
+    public boolean supports(String currency) {
+        return ordinals.containsKey(currency);
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * Momento en que esta instancia obtuvo la tabla
+     */
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * Momento en que el proveedor publicó las tasas
+     */
+    public Instant getPublishedAt() {
+        return publishedAt;
+    }
+}
@@ -0,0 +1,170 @@
+package com.copypoint.api.infra.exchangerate.service;
+
+import com.copypoint.api.infra.exchangerate.dto.ExchangeRateQuote;
+import com.copypoint.api.infra.exchangerate.exception.ExchangeRateUnavailableException;
+import com.copypoint.api.infra.exchangerate.http.ExchangeRateClient;
+import com.copypoint.api.infra.exchangerate.properties.ExchangeRateProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mantiene en memoria la tabla de tasas de cambio y convierte localmente.
+ * <p>
+ * La tabla se descarga en segundo plano con {@code latest/{base}} cada
+ * {@code refresh-interval}. Si el proveedor falla se sigue usando la última
+ * tabla (stale-while-revalidate) y se reintenta en la siguiente revisión, así
+ * que una consulta de tasa nunca espera una llamada HTTP. La única excepción
+ * es antes de la primera descarga exitosa: ahí la consulta la hace en línea,
+ * una sola a la vez. Las llamadas pasan por ExchangeRateUpstream (circuito y
+ * bulkhead) y una tabla más antigua que {@code stale-after} se marca como
+ * desactualizada.
+ */
+@Slf4j
+@Service
+public class ExchangeRateTableService {
+
+    private final ExchangeRateClient exchangeRateClient;
+    private final ExchangeRateProperties properties;
+    private final ExchangeRateUpstream upstream;
+    private final String baseCurrency;
+    private final Duration refreshInterval;
+    private final AtomicReference<ExchangeRateSnapshot> snapshot = new AtomicReference<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private final Counter refreshedCounter;
+    private final Counter refreshFailedCounter;
+
+    public ExchangeRateTableService(ExchangeRateClient exchangeRateClient,
+                                    ExchangeRateProperties properties,
+                                    ExchangeRateUpstream upstream,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${exchange-rate.table.base-currency:USD}") String baseCurrency,
+                                    @Value("${exchange-rate.table.refresh-interval:1h}") Duration refreshInterval) {
+        this.exchangeRateClient = exchangeRateClient;
+        this.properties = properties;
+        this.upstream = upstream;
+        this.baseCurrency = baseCurrency.toUpperCase();
+        this.refreshInterval = refreshInterval;
+
+        this.refreshedCounter = Counter.builder("exchange.rates.refresh")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.refreshFailedCounter = Counter.builder("exchange.rates.refresh")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        Gauge.builder("exchange.rates.age", snapshot, reference -> reference.get() == null
+                        ? Double.NaN
+                        : Duration.between(reference.get().getFetchedAt(), Instant.now()).toSeconds())
+                .baseUnit("seconds")
+                .description("Antigüedad de la tabla de tasas de cambio en uso")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Unidades de {@code to} por una unidad de {@code from}, calculadas con la tabla en memoria
+     */
+    public BigDecimal getRate(String from, String to) {
+        return getQuote(from, to).rate();
+    }
+
+    /**
+     * Tasa entre dos monedas junto con la antigüedad de la tabla de la que sale
+     */
+    public ExchangeRateQuote getQuote(String from, String to) {
+        String fromCode = from.toUpperCase();
+        String toCode = to.toUpperCase();
+        ExchangeRateSnapshot current = currentSnapshot();
+        if (fromCode.equals(toCode)) {
+            return new ExchangeRateQuote(BigDecimal.ONE, current.getPublishedAt(), false);
+        }
+
+        OptionalDouble rate = current.rate(fromCode, toCode);
+        if (rate.isEmpty()) {
+            throw new IllegalArgumentException("Moneda no soportada para conversión: " + fromCode + " -> " + toCode);
+        }
+        return new ExchangeRateQuote(BigDecimal.valueOf(rate.getAsDouble()), current.getPublishedAt(), isStale(current));
+    }
+
+    /**
+     * Indica si la tabla superó {@code stale-after} sin poder actualizarse
+     */
+    public boolean isStale(ExchangeRateSnapshot current) {
+        return current.getFetchedAt().plus(properties.getStaleAfter()).isBefore(Instant.now());
+    }
+
+    /**
+     * Tabla en uso. Solo descarga en línea si todavía no hay ninguna.
+     */
+    public ExchangeRateSnapshot currentSnapshot() {
+        ExchangeRateSnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+
+        refresh();
+        current = snapshot.get();
+        if (current == null) {
+            throw new ExchangeRateUnavailableException("No hay tasas de cambio disponibles");
+        }
+        return current;
+    }
+
+    /**
+     * Descarga la tabla si no hay una o si ya cumplió el intervalo de actualización
+     */
+    @Scheduled(fixedDelayString = "${exchange-rate.table.check-interval-ms:60000}")
+    public void refreshIfStale() {
+        ExchangeRateSnapshot current = snapshot.get();
+        if (current == null || isRefreshDue(current)) {
+            refresh();
+        }
+    }
+
+    private void refresh() {
+        refreshLock.lock();
+        try {
+            // Otro hilo pudo haberla actualizado mientras se esperaba el lock
+            ExchangeRateSnapshot current = snapshot.get();
+            if (current != null && !isRefreshDue(current)) {
+                return;
+            }
+
+            ExchangeRateSnapshot fetched = ExchangeRateSnapshot.from(
+                    upstream.call("latest", "latest:" + baseCurrency,
+                            () -> exchangeRateClient.getExchangeRates(properties.getApiKey(), baseCurrency)),
+                    Instant.now());
+            snapshot.set(fetched);
+            refreshedCounter.increment();
+            log.info("Tabla de tasas de cambio actualizada: base {}, publicada {}",
+                    fetched.getBaseCurrency(), fetched.getPublishedAt());
+
+        } catch (Exception e) {
+            refreshFailedCounter.increment();
+            ExchangeRateSnapshot current = snapshot.get();
+            if (current != null) {
+                log.warn("No se pudo actualizar la tabla de tasas de cambio, se sigue usando la de {}: {}",
+                        current.getFetchedAt(), e.getMessage());
+            } else {
+                log.error("No se pudo descargar la tabla de tasas de cambio: {}", e.getMessage());
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private boolean isRefreshDue(ExchangeRateSnapshot current) {
+        return current.getFetchedAt().plus(refreshInterval).isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,145 @@
+package com.copypoint.api.infra.exchangerate.service;
+
+import com.copypoint.api.infra.exchangerate.exception.ExchangeRateUnavailableException;
+import com.copypoint.api.infra.exchangerate.properties.ExchangeRateProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Capa de resiliencia para las llamadas a exchangerate-api.
+ * <p>
+ * Cada llamada pasa, en orden, por:
+ * <ul>
+ *     <li>coalescencia: llamadas simultáneas con la misma clave comparten una sola petición;</li>
+ *     <li>circuito: tras varias fallas seguidas se rechaza sin llamar por un tiempo;</li>
+ *     <li>bulkhead: un máximo de peticiones simultáneas al proveedor; las demás se
+ *     rechazan de inmediato en lugar de ocupar hilos de Tomcat esperando.</li>
+ * </ul>
+ * Un rechazo o una falla se reportan con ExchangeRateUnavailableException; quien
+ * llama decide si sirve el último valor conocido.
+ */
+@Slf4j
+@Component
+public class ExchangeRateUpstream {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Duration waitTimeout;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter coalescedCounter;
+    private final Counter rejectedOpenCounter;
+    private final Counter rejectedBulkheadCounter;
+
+    public ExchangeRateUpstream(ExchangeRateProperties properties, MeterRegistry meterRegistry) {
+        this.circuitBreaker = new CircuitBreaker(properties.getBreakerFailureThreshold(),
+                properties.getBreakerOpenDuration(), Clock.systemUTC());
+        this.bulkhead = new Semaphore(Math.max(1, properties.getMaxConcurrentCalls()));
+        // Quien se une a una llamada en curso no espera más que la propia llamada
+        this.waitTimeout = Duration.ofSeconds(properties.getTimeout()).multipliedBy(2);
+        this.meterRegistry = meterRegistry;
+
+        this.coalescedCounter = Counter.builder("exchange.rates.upstream.coalesced")
+                .description("Llamadas que reutilizaron una petición en curso")
+                .register(meterRegistry);
+        this.rejectedOpenCounter = Counter.builder("exchange.rates.upstream.rejected")
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+        this.rejectedBulkheadCounter = Counter.builder("exchange.rates.upstream.rejected")
+                .tag("reason", "bulkhead_full")
+                .register(meterRegistry);
+        Gauge.builder("exchange.rates.upstream.breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Estado del circuito: 0 cerrado, 1 semiabierto, 2 abierto")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta {@code call} protegida. {@code operation} etiqueta las métricas y
+     * {@code key} identifica llamadas equivalentes que se pueden compartir.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T call(String operation, String key, Supplier<T> call) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return (T) await(existing, operation);
+        }
+
+        try {
+            T result = guarded(operation, call);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private <T> T guarded(String operation, Supplier<T> call) {
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedOpenCounter.increment();
+            throw new ExchangeRateUnavailableException("Circuito abierto hacia el proveedor de tasas de cambio");
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.release();
+            rejectedBulkheadCounter.increment();
+            throw new ExchangeRateUnavailableException("Demasiadas llamadas simultáneas al proveedor de tasas de cambio");
+        }
+
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            T result = call.get();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            circuitBreaker.onFailure();
+            log.warn("Falla llamando a exchangerate-api ({}): {} - circuito {}",
+                    operation, e.getMessage(), circuitBreaker.getState());
+            throw new ExchangeRateUnavailableException("Error llamando al proveedor de tasas de cambio", e);
+        } finally {
+            bulkhead.release();
+            Timer.builder("exchange.rates.upstream.latency")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future, String operation) {
+        try {
+            return future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ExchangeRateUnavailableException("Error llamando al proveedor de tasas de cambio", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExchangeRateUnavailableException("Interrumpido esperando al proveedor de tasas de cambio", e);
+        } catch (TimeoutException e) {
+            throw new ExchangeRateUnavailableException("Tiempo agotado esperando " + operation + " en curso", e);
+        }
+    }
+}
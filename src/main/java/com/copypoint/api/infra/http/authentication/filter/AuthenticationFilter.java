@@ -4,6 +4,7 @@ import com.copypoint.api.domain.permission.service.PermissionService;
 import com.copypoint.api.domain.user.repository.UserRepository;
 import com.copypoint.api.infra.http.token.TokenService;
 import com.copypoint.api.infra.http.userprincipal.UserPrincipal;
+import com.copypoint.api.infra.http.userprincipal.UserPrincipalCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,6 +29,9 @@ public class AuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private PermissionService permissionService;
 
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
@@ -36,22 +40,18 @@ public class AuthenticationFilter extends OncePerRequestFilter {
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             var token = authHeader.replace("Bearer ", "");
-            var email = tokenService.getSubject(token); // extract username
+            var decodedToken = tokenService.verifyToken(token); // extract claims
 
-            if (email != null) {
+            if (decodedToken != null && decodedToken.getSubject() != null) {
 
-                // Token valido
-                var userOptional = userRepository.findByEmail(email);
-
-                if (userOptional.isPresent()) {
-                    var user = userOptional.get();
-                    // Obtener toda la información de permisos en una sola consulta
-                    PermissionService.UserPermissionInfo permissionInfo =
-                            permissionService.getUserPermissionInfo(user);
-                    // Crear UserPrincipal con permisos completos
-                    UserPrincipal userPrincipal = new UserPrincipal(user,
-                            permissionInfo.modules(), permissionInfo.roles());
+                // Token valido: el principal se resuelve una sola vez por usuario y token
+                var email = decodedToken.getSubject();
+                UserPrincipal userPrincipal = userPrincipalCache.get(
+                        decodedToken.getClaim("id").asLong(),
+                        tokenService.getIssuedAtMillis(decodedToken),
+                        () -> resolveUserPrincipal(email));
 
+                if (userPrincipal != null) {
                     var authentication = new UsernamePasswordAuthenticationToken(
                             userPrincipal,
                             null,
@@ -63,4 +63,20 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserPrincipal resolveUserPrincipal(String email) {
+        var userOptional = userRepository.findByEmail(email);
+
+        if (userOptional.isEmpty()) {
+            return null;
+        }
+
+        var user = userOptional.get();
+        // Obtener toda la información de permisos en una sola consulta
+        PermissionService.UserPermissionInfo permissionInfo =
+                permissionService.getUserPermissionInfo(user);
+        // Crear UserPrincipal con permisos completos
+        return new UserPrincipal(user, permissionInfo.modules(), permissionInfo.roles(),
+                permissionInfo.grants());
+    }
 }
@@ -25,6 +25,7 @@ public class AuthenticationService implements UserDetailsService {
         PermissionService.UserPermissionInfo permissionInfo =
                 permissionService.getUserPermissionInfo(user);
 
-        return new UserPrincipal(user, permissionInfo.modules(), permissionInfo.roles());
+        return new UserPrincipal(user, permissionInfo.modules(), permissionInfo.roles(),
+                permissionInfo.grants());
     }
 }
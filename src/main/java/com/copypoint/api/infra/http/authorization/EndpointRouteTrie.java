@@ -0,0 +1,205 @@
+package com.copypoint.api.infra.http.authorization;
+
+import com.copypoint.api.domain.module.ModuleType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trie de segmentos de ruta, particionado por método HTTP, compilado a partir
+ * de los patrones "METHOD:/ruta" de {@link ModuleEndpointMapping}.
+ * <p>
+ * Soporta segmentos literales, "*" (un segmento cualquiera) y "**" al final
+ * del patrón (cualquier resto de ruta). Los segmentos literales tienen
+ * prioridad sobre los comodines. Si un mismo patrón se registra en varios
+ * módulos, el nodo guarda todos y basta con tener cualquiera de ellos.
+ * <p>
+ * La búsqueda recorre la ruta una sola vez, comparando regiones del string
+ * original, por lo que no crea objetos intermedios. La instancia es inmutable
+ * una vez construida y se puede compartir entre hilos.
+ */
+final class EndpointRouteTrie {
+    private static final String ANY_METHOD = "*";
+
+    private final Map<String, Node> roots;
+
+    private EndpointRouteTrie(Map<String, Node> roots) {
+        this.roots = roots;
+    }
+
+    /**
+     * Compila la tabla de endpoints
+     */
+    static EndpointRouteTrie compile(Map<ModuleType, List<String>> moduleEndpoints) {
+        Map<String, Node> roots = new HashMap<>();
+
+        moduleEndpoints.forEach((module, patterns) -> {
+            for (String pattern : patterns) {
+                int separator = pattern.indexOf(':');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("El patrón debe tener el formato METHOD:/ruta: " + pattern);
+                }
+
+                String method = pattern.substring(0, separator);
+                String path = pattern.substring(separator + 1);
+
+                Node node = roots.computeIfAbsent(method, m -> new Node());
+                for (String segment : path.split("/")) {
+                    if (segment.isEmpty()) {
+                        continue;
+                    }
+                    if (node.catchAll) {
+                        throw new IllegalArgumentException("'**' solo se permite al final del patrón: " + pattern);
+                    }
+                    node = node.child(segment);
+                }
+
+                node.match = node.match == null
+                        ? new Match(Set.of(module), pattern)
+                        : node.match.with(module);
+            }
+        });
+
+        return new EndpointRouteTrie(roots);
+    }
+
+    /**
+     * Busca el patrón registrado que corresponde a la petición, o null si no hay ninguno
+     */
+    Match find(String method, String path) {
+        Node root = roots.get(method);
+        Match match = root != null ? find(root, path, 0) : null;
+
+        if (match == null && !ANY_METHOD.equals(method)) {
+            Node anyMethodRoot = roots.get(ANY_METHOD);
+            match = anyMethodRoot != null ? find(anyMethodRoot, path, 0) : null;
+        }
+
+        return match;
+    }
+
+    private static Match find(Node node, String path, int from) {
+        if (node.catchAll) {
+            return node.match();
+        }
+
+        // Saltar separadores consecutivos, igual que AntPathMatcher
+        int start = from;
+        while (start < path.length() && path.charAt(start) == '/') {
+            start++;
+        }
+
+        if (start >= path.length()) {
+            // Una ruta con "/" final no coincide con un patrón que no lo tiene
+            boolean trailingSlash = start > from && from > 0;
+            Match match = trailingSlash ? null : node.match();
+            if (match == null && node.catchAllChild != null) {
+                match = node.catchAllChild.match();
+            }
+            return match;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        int length = end - start;
+
+        for (Node child : node.literalChildren) {
+            if (child.segment.length() == length && path.regionMatches(start, child.segment, 0, length)) {
+                Match match = find(child, path, end);
+                if (match != null) {
+                    return match;
+                }
+            }
+        }
+
+        if (node.wildcardChild != null) {
+            Match match = find(node.wildcardChild, path, end);
+            if (match != null) {
+                return match;
+            }
+        }
+
+        if (node.catchAllChild != null) {
+            return node.catchAllChild.match();
+        }
+
+        return null;
+    }
+
+    /**
+     * Módulos y patrón que coincidieron con la petición
+     */
+    record Match(Set<ModuleType> modules, String pattern) {
+
+        private Match with(ModuleType module) {
+            if (modules.contains(module)) {
+                return this;
+            }
+            EnumSet<ModuleType> merged = EnumSet.copyOf(modules);
+            merged.add(module);
+            return new Match(Collections.unmodifiableSet(merged), pattern);
+        }
+    }
+
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final String segment;
+        private final boolean catchAll;
+        private Node[] literalChildren = NO_CHILDREN;
+        private Node wildcardChild;
+        private Node catchAllChild;
+        private Match match;
+
+        private Node() {
+            this(null);
+        }
+
+        private Node(String segment) {
+            this.segment = segment;
+            this.catchAll = "**".equals(segment);
+        }
+
+        private Node child(String childSegment) {
+            if ("*".equals(childSegment)) {
+                if (wildcardChild == null) {
+                    wildcardChild = new Node(childSegment);
+                }
+                return wildcardChild;
+            }
+
+            if ("**".equals(childSegment)) {
+                if (catchAllChild == null) {
+                    catchAllChild = new Node(childSegment);
+                }
+                return catchAllChild;
+            }
+
+            if (childSegment.indexOf('*') >= 0 || childSegment.indexOf('?') >= 0 || childSegment.indexOf('{') >= 0) {
+                throw new IllegalArgumentException("Segmento de patrón no soportado: " + childSegment);
+            }
+
+            for (Node literal : literalChildren) {
+                if (literal.segment.equals(childSegment)) {
+                    return literal;
+                }
+            }
+
+            Node literal = new Node(childSegment);
+            literalChildren = Arrays.copyOf(literalChildren, literalChildren.length + 1);
+            literalChildren[literalChildren.length - 1] = literal;
+            return literal;
+        }
+
+        private Match match() {
+            return match;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.copypoint.api.infra.http.authorization;
 
 import com.copypoint.api.domain.module.ModuleType;
 import com.copypoint.api.infra.http.patternmatcher.PatternMatcherService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -10,13 +12,18 @@ import java.util.stream.Collectors;
 
 @Component
 public class ModuleEndpointMapping {
+    private static final Logger logger = LoggerFactory.getLogger(ModuleEndpointMapping.class);
+
     private final PatternMatcherService patternMatcherService;
-    private final Map<ModuleType, List<String>> moduleEndpoints;
+    private volatile Map<ModuleType, List<String>> moduleEndpoints;
+    private volatile EndpointRouteTrie routeTrie;
 
     @Autowired
     public ModuleEndpointMapping(PatternMatcherService patternMatcherService) {
         this.patternMatcherService = patternMatcherService;
         this.moduleEndpoints = initializeEndpoints();
+        // La tabla se compila una sola vez al arrancar
+        this.routeTrie = EndpointRouteTrie.compile(moduleEndpoints);
     }
 
     private Map<ModuleType, List<String>> initializeEndpoints() {
@@ -80,22 +87,18 @@ public class ModuleEndpointMapping {
     }
 
     /**
-     * Encuentra el módulo al que pertenece un endpoint
+     * Encuentra los módulos a los que pertenece un endpoint. Un patrón puede estar
+     * registrado en varios módulos; tener cualquiera de ellos da acceso.
      */
-    public Optional<ModuleType> findModuleForEndpoint(String method, String path) {
-        var endpoint = method + ":" + path;
-
-        return moduleEndpoints.entrySet().stream()
-                .filter(entry -> entry.getValue().stream()
-                        .anyMatch(pattern -> {
-                            boolean matches = patternMatcherService.matches(pattern, endpoint);
-                            if (matches) {
-                                System.out.println("✓ Coincide con patrón: " + pattern);
-                            }
-                            return matches;
-                        }))
-                .map(Map.Entry::getKey)
-                .findFirst();
+    public Set<ModuleType> findModulesForEndpoint(String method, String path) {
+        EndpointRouteTrie.Match match = routeTrie.find(method, path);
+
+        if (match == null) {
+            return Collections.emptySet();
+        }
+
+        logger.debug("✓ Coincide con patrón: {}", match.pattern());
+        return match.modules();
     }
 
     /**
@@ -110,11 +113,16 @@ public class ModuleEndpointMapping {
     /**
      * Agrega endpoints adicionales a un módulo (útil para extensiones futuras)
      */
-    public void addEndpointsToModule(ModuleType moduleCode, List<String> newEndpoints) {
+    public synchronized void addEndpointsToModule(ModuleType moduleCode, List<String> newEndpoints) {
         if (moduleEndpoints.containsKey(moduleCode)) {
-            List<String> currentEndpoints = new ArrayList<>(moduleEndpoints.get(moduleCode));
+            Map<ModuleType, List<String>> endpoints = new HashMap<>(moduleEndpoints);
+            List<String> currentEndpoints = new ArrayList<>(endpoints.get(moduleCode));
             currentEndpoints.addAll(newEndpoints);
-            ((Map<ModuleType, List<String>>) moduleEndpoints).put(moduleCode, currentEndpoints);
+            endpoints.put(moduleCode, Collections.unmodifiableList(currentEndpoints));
+
+            // Se recompila el trie antes de publicar la nueva tabla
+            this.routeTrie = EndpointRouteTrie.compile(endpoints);
+            this.moduleEndpoints = Collections.unmodifiableMap(endpoints);
         }
     }
 }
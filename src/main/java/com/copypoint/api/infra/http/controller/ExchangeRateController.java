@@ -3,6 +3,7 @@ package com.copypoint.api.infra.http.controller;
 import com.copypoint.api.infra.exchangerate.dto.ConversionRequest;
 import com.copypoint.api.infra.exchangerate.dto.CurrencyDto;
 import com.copypoint.api.infra.exchangerate.dto.CurrencyExchangeDto;
+import com.copypoint.api.infra.exchangerate.dto.ExchangeRateQuote;
 import com.copypoint.api.infra.exchangerate.dto.ExchangeRateResponse;
 import com.copypoint.api.infra.exchangerate.service.ExchangeRateService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,7 +31,12 @@ public class ExchangeRateController {
     public ResponseEntity<BigDecimal> getExchangeRate(
             @PathVariable String from,
             @PathVariable String to) {
-        return ResponseEntity.ok(exchangeRateService.getExchangeRate(from, to));
+        ExchangeRateQuote quote = exchangeRateService.getExchangeRateQuote(from, to);
+        // El cuerpo sigue siendo solo la tasa; la antigüedad va en cabeceras
+        return ResponseEntity.ok()
+                .header("X-Exchange-Rate-As-Of", quote.asOf().toString())
+                .header("X-Exchange-Rate-Stale", String.valueOf(quote.stale()))
+                .body(quote.rate());
     }
 
     @GetMapping("/rates/{baseCurrency}")
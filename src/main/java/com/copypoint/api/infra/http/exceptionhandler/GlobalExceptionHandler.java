@@ -1,5 +1,6 @@
 package com.copypoint.api.infra.http.exceptionhandler;
 
+import com.copypoint.api.infra.exchangerate.exception.ExchangeRateUnavailableException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -31,4 +32,12 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
+
+    @ExceptionHandler(ExchangeRateUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleExchangeRateUnavailable(ExchangeRateUnavailableException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
 }
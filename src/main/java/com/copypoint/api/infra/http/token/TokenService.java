@@ -28,6 +28,7 @@ public class TokenService {
                     .withIssuer(issuer)
                     .withSubject(user.getEmail())
                     .withClaim("id", user.getId())
+                    .withIssuedAt(Instant.now())
                     .withExpiresAt(generateExpirationDate())
                     .sign(algorithm);
         } catch (JWTCreationException exception) {
@@ -36,19 +37,25 @@ public class TokenService {
     }
 
     public String getSubject(String token) {
+        DecodedJWT decodedJWT = verifyToken(token);
+        return decodedJWT != null ? decodedJWT.getSubject() : null;
+    }
+
+    /**
+     * Verifica el token y devuelve sus claims, o null si no es válido
+     */
+    public DecodedJWT verifyToken(String token) {
         try {
             if (token == null || token.trim().isEmpty()) {
                 return null;
             }
 
             Algorithm algorithm = Algorithm.HMAC256(apiSecret);
-            DecodedJWT verifier = JWT.require(algorithm)
+            return JWT.require(algorithm)
                     .withIssuer(issuer)
                     .build()
                     .verify(token);
 
-            return verifier.getSubject();
-
         } catch (Exception e) {
             System.err.println("Error verifying token: " + e.getMessage());
             return null;
@@ -56,6 +63,16 @@ public class TokenService {
 
     }
 
+    /**
+     * Momento de emisión del token en milisegundos. Los tokens emitidos antes
+     * de incluir el claim "iat" se identifican por su fecha de expiración.
+     */
+    public long getIssuedAtMillis(DecodedJWT decodedJWT) {
+        if (decodedJWT.getIssuedAt() != null) {
+            return decodedJWT.getIssuedAt().getTime();
+        }
+        return decodedJWT.getExpiresAt() != null ? decodedJWT.getExpiresAt().getTime() : 0L;
+    }
 
     private Instant generateExpirationDate() {
         return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-05:00"));
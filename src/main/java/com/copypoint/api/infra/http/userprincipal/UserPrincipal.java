@@ -1,5 +1,6 @@
 package com.copypoint.api.infra.http.userprincipal;
 
+import com.copypoint.api.domain.permission.ContextualGrants;
 import com.copypoint.api.domain.user.User;
 import com.copypoint.api.domain.user.UserStatus;
 import lombok.Getter;
@@ -17,15 +18,28 @@ public class UserPrincipal implements UserDetails {
     private final User user;
     private final Set<String> userModules;
     private final Set<String> userRoles;
+    private final ContextualGrants grants;
+    private final List<GrantedAuthority> authorities;
 
     public UserPrincipal(User user, Set<String> userModules, Set<String> userRoles) {
+        this(user, userModules, userRoles, ContextualGrants.empty());
+    }
+
+    public UserPrincipal(User user, Set<String> userModules, Set<String> userRoles, ContextualGrants grants) {
         this.user = user;
         this.userModules = userModules;
         this.userRoles = userRoles;
+        this.grants = grants;
+        // El principal se reutiliza entre peticiones, se calculan una sola vez
+        this.authorities = List.copyOf(buildAuthorities());
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    private List<GrantedAuthority> buildAuthorities() {
         // Crear authorities basados en los módulos y roles del usuario
         List<GrantedAuthority> authorities = userModules.stream()
                 .map(module -> new SimpleGrantedAuthority("MODULE_" + module.toUpperCase()))
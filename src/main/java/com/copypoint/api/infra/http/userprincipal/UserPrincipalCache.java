@@ -0,0 +1,81 @@
+package com.copypoint.api.infra.http.userprincipal;
+
+import com.copypoint.api.domain.employee.event.EmployeeRolesChangedEvent;
+import com.copypoint.api.domain.user.event.UserAccountChangedEvent;
+import com.copypoint.api.infra.config.CacheConfiguration;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.function.Supplier;
+
+/**
+ * Cache acotado de {@link UserPrincipal} ya resueltos, indexado por usuario
+ * y fecha de emisión del token.
+ * <p>
+ * Evita consultar usuario, roles y permisos en cada petición autenticada.
+ * Las entradas expiran por TTL y se invalidan cuando cambian los roles
+ * del usuario o el propio usuario (estado, contraseña, borrado). Tamaño y TTL se configuran en app.cache.specs[userPrincipals];
+ * si la cache está deshabilitada, cada petición resuelve el principal.
+ */
+@Component
+public class UserPrincipalCache {
+    private static final Logger logger = LoggerFactory.getLogger(UserPrincipalCache.class);
+
+    private final Cache<Object, Object> cache;
+
+    @SuppressWarnings("unchecked")
+    public UserPrincipalCache(CacheManager cacheManager) {
+        org.springframework.cache.Cache springCache = cacheManager.getCache(CacheConfiguration.USER_PRINCIPALS);
+        this.cache = springCache != null && springCache.getNativeCache() instanceof Cache<?, ?> nativeCache
+                ? (Cache<Object, Object>) nativeCache
+                : null;
+    }
+
+    /**
+     * Obtiene el principal del cache o lo resuelve con el loader indicado.
+     * Si el loader devuelve null no se guarda nada.
+     */
+    public UserPrincipal get(Long userId, long tokenIssuedAt, Supplier<UserPrincipal> loader) {
+        if (cache == null || userId == null) {
+            return loader.get();
+        }
+
+        return (UserPrincipal) cache.get(new Key(userId, tokenIssuedAt), key -> loader.get());
+    }
+
+    /**
+     * Elimina todas las entradas de un usuario, sin importar el token
+     */
+    public void invalidateUser(Long userId) {
+        if (cache == null || userId == null) {
+            return;
+        }
+
+        cache.asMap().keySet().removeIf(key -> key instanceof Key principalKey && principalKey.userId().equals(userId));
+        logger.debug("Principal cache invalidado para el usuario {}", userId);
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEmployeeRolesChanged(EmployeeRolesChangedEvent event) {
+        invalidateUser(event.userId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        invalidateUser(event.userId());
+    }
+
+    private record Key(Long userId, long tokenIssuedAt) {
+    }
+}
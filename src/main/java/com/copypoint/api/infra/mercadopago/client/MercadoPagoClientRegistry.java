@@ -0,0 +1,136 @@
+package com.copypoint.api.infra.mercadopago.client;
+
+import com.copypoint.api.domain.mercadopagoconfiguration.dto.ActiveMercadoPagoConfiguration;
+import com.copypoint.api.domain.mercadopagoconfiguration.service.MercadoPagoConfigurationService;
+import com.copypoint.api.domain.sale.Sale;
+import com.copypoint.api.infra.mercadopago.config.MercadoPagoConfig;
+import com.copypoint.api.infra.security.service.CredentialEncryptionService;
+import com.mercadopago.core.MPRequestOptions;
+import com.mercadopago.net.MPDefaultHttpClient;
+import com.mercadopago.net.MPHttpClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de clientes de MercadoPago por copypoint.
+ * <p>
+ * Cada copypoint tiene su propio pool de conexiones HTTP y sus MPRequestOptions
+ * con el access token ya desencriptado, así que la creación de checkouts de
+ * distintos copypoints corre en paralelo sin tocar el estado global del SDK.
+ * <p>
+ * La configuración activa se lee en cada llamada de MercadoPagoConfigurationService (con cache);
+ * si cambió el token o la configuración se reconstruye el cliente y se conserva el
+ * pool de conexiones. Si el copypoint ya no tiene configuración activa se descarta.
+ */
+@Component
+public class MercadoPagoClientRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MercadoPagoClientRegistry.class);
+
+    private final MercadoPagoConfigurationService configurationService;
+    private final CredentialEncryptionService encryptionService;
+    private final int connectTimeoutMs;
+    private final int socketTimeoutMs;
+
+    private final Map<Long, MercadoPagoTenantClient> clients = new ConcurrentHashMap<>();
+    // El pool HTTP sobrevive a la rotación de credenciales del copypoint
+    private final Map<Long, MPHttpClient> httpClients = new ConcurrentHashMap<>();
+    private final MercadoPagoTenantClient platformClient;
+
+    private final Counter clientBuilds;
+
+    public MercadoPagoClientRegistry(MercadoPagoConfigurationService configurationService,
+                                     CredentialEncryptionService encryptionService,
+                                     MercadoPagoConfig platformConfig,
+                                     @Value("${mercadopago.client.connect-timeout:5s}") Duration connectTimeout,
+                                     @Value("${mercadopago.client.socket-timeout:20s}") Duration socketTimeout,
+                                     MeterRegistry meterRegistry) {
+        this.configurationService = configurationService;
+        this.encryptionService = encryptionService;
+        this.connectTimeoutMs = (int) connectTimeout.toMillis();
+        this.socketTimeoutMs = (int) socketTimeout.toMillis();
+        this.platformClient = new MercadoPagoTenantClient(null, null, null,
+                requestOptions(platformConfig.getAccessToken()), new MPDefaultHttpClient());
+
+        this.clientBuilds = Counter.builder("mercadopago.clients.built")
+                .description("Clientes de MercadoPago creados o reconstruidos por cambio de configuración")
+                .register(meterRegistry);
+        Gauge.builder("mercadopago.clients.active", clients, Map::size)
+                .description("Copypoints con cliente de MercadoPago en memoria")
+                .register(meterRegistry);
+    }
+
+    public Optional<MercadoPagoTenantClient> forSale(Sale sale) {
+        return forCopypoint(sale.getCopypoint().getId());
+    }
+
+    /**
+     * Devuelve el cliente del copypoint, creándolo si hace falta. Vacío si el
+     * copypoint no tiene configuración activa o su token no se puede desencriptar.
+     */
+    public Optional<MercadoPagoTenantClient> forCopypoint(Long copypointId) {
+        Optional<ActiveMercadoPagoConfiguration> configOpt = configurationService.getActiveConfiguration(copypointId);
+        if (configOpt.isEmpty()) {
+            if (clients.remove(copypointId) != null) {
+                logger.info("Cliente de MercadoPago descartado para copypoint {}: sin configuración activa", copypointId);
+            }
+            logger.warn("No se encontró configuración de MercadoPago para copypoint: {}", copypointId);
+            return Optional.empty();
+        }
+
+        ActiveMercadoPagoConfiguration config = configOpt.get();
+        MercadoPagoTenantClient current = clients.get(copypointId);
+        if (current != null && current.matches(config)) {
+            return Optional.of(current);
+        }
+
+        return Optional.ofNullable(clients.compute(copypointId, (id, existing) ->
+                existing != null && existing.matches(config) ? existing : build(id, config)));
+    }
+
+    /**
+     * Cliente con las credenciales de la plataforma (mercadopago.access-token), para
+     * notificaciones que no se pueden asociar a un copypoint.
+     */
+    public MercadoPagoTenantClient platform() {
+        return platformClient;
+    }
+
+    private MercadoPagoTenantClient build(Long copypointId, ActiveMercadoPagoConfiguration config) {
+        String accessToken;
+        try {
+            accessToken = encryptionService.decryptCredential(config.accessTokenEncrypted());
+        } catch (Exception e) {
+            logger.error("Error al desencriptar access token de copypoint {}: {}", copypointId, e.getMessage());
+            return null;
+        }
+        if (accessToken == null || accessToken.isBlank()) {
+            logger.error("No se pudo obtener el access token para copypoint: {}", copypointId);
+            return null;
+        }
+
+        MPHttpClient httpClient = httpClients.computeIfAbsent(copypointId, id -> new MPDefaultHttpClient());
+        clientBuilds.increment();
+        logger.info("Cliente de MercadoPago creado para copypoint {} (configuración {})", copypointId, config.id());
+        return new MercadoPagoTenantClient(copypointId, config.id(), config.accessTokenEncrypted(),
+                requestOptions(accessToken), httpClient);
+    }
+
+    private MPRequestOptions requestOptions(String accessToken) {
+        return MPRequestOptions.builder()
+                .accessToken(accessToken)
+                .connectionTimeout(connectTimeoutMs)
+                .connectionRequestTimeout(connectTimeoutMs)
+                .socketTimeout(socketTimeoutMs)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.copypoint.api.infra.mercadopago.client;
+
+import com.copypoint.api.domain.mercadopagoconfiguration.dto.ActiveMercadoPagoConfiguration;
+import com.mercadopago.client.merchantorder.MerchantOrderClient;
+import com.mercadopago.client.payment.PaymentClient;
+import com.mercadopago.client.preference.PreferenceClient;
+import com.mercadopago.client.preference.PreferenceRequest;
+import com.mercadopago.core.MPRequestOptions;
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+import com.mercadopago.net.MPHttpClient;
+import com.mercadopago.net.MPResultsResourcesPage;
+import com.mercadopago.net.MPSearchRequest;
+import com.mercadopago.resources.merchantorder.MerchantOrder;
+import com.mercadopago.resources.payment.Payment;
+import com.mercadopago.resources.preference.Preference;
+
+import java.util.Objects;
+
+/**
+ * Clientes del SDK de MercadoPago de un copypoint.
+ * <p>
+ * Cada llamada lleva las MPRequestOptions del copypoint (access token y timeouts),
+ * por lo que no depende de MercadoPagoConfig ni de otro estado global del SDK y
+ * se puede usar desde varios hilos a la vez. Las instancias las crea y reemplaza
+ * MercadoPagoClientRegistry.
+ */
+public final class MercadoPagoTenantClient {
+
+    private final Long copypointId;
+    private final Long configurationId;
+    // Token cifrado con el que se construyó: si cambia en la configuración hay que reconstruir
+    private final String accessTokenEncrypted;
+    private final MPRequestOptions requestOptions;
+    private final PaymentClient paymentClient;
+    private final PreferenceClient preferenceClient;
+    private final MerchantOrderClient merchantOrderClient;
+
+    MercadoPagoTenantClient(Long copypointId, Long configurationId, String accessTokenEncrypted,
+                            MPRequestOptions requestOptions, MPHttpClient httpClient) {
+        this.copypointId = copypointId;
+        this.configurationId = configurationId;
+        this.accessTokenEncrypted = accessTokenEncrypted;
+        this.requestOptions = requestOptions;
+        this.paymentClient = new PaymentClient(httpClient);
+        this.preferenceClient = new PreferenceClient(httpClient);
+        this.merchantOrderClient = new MerchantOrderClient(httpClient);
+    }
+
+    public Payment getPayment(Long paymentId) throws MPException, MPApiException {
+        return paymentClient.get(paymentId, requestOptions);
+    }
+
+    public MPResultsResourcesPage<Payment> searchPayments(MPSearchRequest request) throws MPException, MPApiException {
+        return paymentClient.search(request, requestOptions);
+    }
+
+    public Preference createPreference(PreferenceRequest request) throws MPException, MPApiException {
+        return preferenceClient.create(request, requestOptions);
+    }
+
+    public MerchantOrder getMerchantOrder(Long merchantOrderId) throws MPException, MPApiException {
+        return merchantOrderClient.get(merchantOrderId, requestOptions);
+    }
+
+    /**
+     * Copypoint al que pertenece; null para el cliente de la plataforma
+     */
+    public Long getCopypointId() {
+        return copypointId;
+    }
+
+    /**
+     * Indica si el cliente sigue correspondiendo a la configuración activa
+     */
+    boolean matches(ActiveMercadoPagoConfiguration config) {
+        return Objects.equals(configurationId, config.id())
+                && Objects.equals(accessTokenEncrypted, config.accessTokenEncrypted());
+    }
+}
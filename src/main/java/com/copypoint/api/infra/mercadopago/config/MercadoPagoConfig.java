@@ -1,9 +1,15 @@
 package com.copypoint.api.infra.mercadopago.config;
 
-import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * Credenciales de MercadoPago de la plataforma.
+ * <p>
+ * No se configuran en el SDK de forma global: cada copypoint usa su propio
+ * cliente (ver MercadoPagoClientRegistry) y el token de la plataforma solo se
+ * usa como respaldo.
+ */
 @Configuration
 public class MercadoPagoConfig {
     @Value("${mercadopago.access-token}")
@@ -12,9 +18,8 @@ public class MercadoPagoConfig {
     @Value("${mercadopago.public-key}")
     private String publicKey;
 
-    @PostConstruct
-    public void init() {
-        com.mercadopago.MercadoPagoConfig.setAccessToken(accessToken);
+    public String getAccessToken() {
+        return accessToken;
     }
 
     public String getPublicKey() {
@@ -1,22 +1,14 @@
 package com.copypoint.api.infra.mercadopago.controller;
 
-import com.copypoint.api.domain.mercadopagoconfiguration.service.MercadoPagoConfigurationService;
-import com.copypoint.api.domain.payment.entity.Payment;
-import com.copypoint.api.domain.payment.service.PaymentService;
-import com.copypoint.api.infra.mercadopago.service.MercadoPagoService;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.copypoint.api.infra.mercadopago.service.webhook.MercadoPagoNotification;
+import com.copypoint.api.infra.mercadopago.service.webhook.MercadoPagoWebhookDispatcher;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mercadopago.client.merchantorder.MerchantOrderClient;
-import com.mercadopago.client.payment.PaymentClient;
-import com.mercadopago.resources.merchantorder.MerchantOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Optional;
-
 @RestController
 @RequestMapping("/api/webhook/mercadopago")
 public class MercadoPagoWebhookController {
@@ -24,207 +16,50 @@ public class MercadoPagoWebhookController {
     private static final Logger logger = LoggerFactory.getLogger(MercadoPagoWebhookController.class);
 
     @Autowired
-    private MercadoPagoService mercadoPagoService;
-
-    @Autowired
-    private PaymentService paymentService;
-
-    @Autowired
-    private MercadoPagoConfigurationService mercadoPagoConfigService;
+    private MercadoPagoWebhookDispatcher webhookDispatcher;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * Guarda la notificación en webhook_inbox y responde de inmediato. La consulta a
+     * MercadoPago, la validación de la signature y la actualización del payment
+     * ocurren en MercadoPagoWebhookDispatcher.
+     */
     @PostMapping
     public ResponseEntity<?> handleWebhook(
             @RequestBody String payload,
-            @RequestHeader("x-signature") String signature,
+            @RequestHeader(value = "x-signature", required = false) String signature,
+            @RequestHeader(value = "x-request-id", required = false) String requestId,
             @RequestParam("data.id") String dataId,
             @RequestParam(value = "type", required = false) String type) {
 
         try {
-            logger.info("Webhook MercadoPago recibido - data.id: {}, type: {}", dataId, type);
-
-            // Parsear el payload para obtener información adicional
-            JsonNode payloadJson = objectMapper.readTree(payload);
-            String topic = payloadJson.path("topic").asText();
-
-            if (topic.isEmpty() && type != null) {
-                topic = type; // Usar el parámetro type si topic no está en el payload
-            }
-
-            Payment payment = null;
-            String effectiveDataId = dataId; // ID que usaremos para procesar en MercadoPagoService
-
-            switch (topic){
-                case "payment":
-                    logger.info("Procesando webhook de payment con ID: {}", dataId);
-                    payment = handlePaymentWebhook(dataId);
-                    // Para payments, usamos el dataId original
-                    effectiveDataId = dataId;
-                    break;
-
-                case "merchant_order":
-                case "merchant_order_wh":
-                case "topic_merchant_order_wh":
-                    logger.info("Procesando webhook de merchant_order con ID: {}", dataId);
-                    payment = handleMerchantOrderWebhook(dataId);
-                    // Para merchant orders, necesitamos usar el payment ID del gateway, no el order ID
-                    if (payment != null && payment.hasGatewayPaymentId()) {
-                        effectiveDataId = payment.getGatewayPaymentId();
-                        logger.info("Usando Gateway Payment ID para procesar merchant_order: {}", effectiveDataId);
-                    }
-                    break;
+            MercadoPagoNotification notification = MercadoPagoNotification.of(resolveTopic(payload, type), dataId);
+            Long inboxId = webhookDispatcher.accept(notification, payload, signature, requestId);
 
-                default:
-                    logger.warn("Tipo de webhook desconocido: {}, intentando búsqueda genérica", topic);
-                    // Fallback: buscar por cualquier ID
-                    Optional<Payment> paymentOpt = paymentService.findByAnyGatewayId(dataId);
-                    payment = paymentOpt.orElse(null);
-                    break;
-            }
-
-            if (payment == null) {
-                logger.warn("No se encontró payment para data.id: {}, topic: {}", dataId, topic);
-                return ResponseEntity.notFound().build();
-            }
-
-            logger.info("Payment encontrado: ID={}, Status={}, IntentId={}, PaymentId={}",
-                    payment.getId(), payment.getStatus(),
-                    payment.getGatewayIntentId(), payment.getGatewayPaymentId());
-
-            // Validar signature con el webhook secret de la configuración
-            if (signature != null) {
-                String webhookSecret = mercadoPagoConfigService
-                        .getWebhookSecretForSale(payment.getSale());
-
-                if (!validateWebhookSignature(payload, signature, webhookSecret)) {
-                    logger.warn("Signature inválida para payment: {}", payment.getId());
-                    return ResponseEntity.badRequest().build();
-                }
-            } else {
-                logger.warn("No se recibió signature en el webhook");
-            }
-
-            // Procesar webhook - usar effectiveDataId que puede ser diferente al dataId original
-            boolean processed = mercadoPagoService.handleWebhook(effectiveDataId, topic, payload);
-
-            if (processed) {
-                logger.info("Webhook procesado exitosamente para payment: {} con dataId: {}",
-                        payment.getId(), effectiveDataId);
-                return ResponseEntity.ok().build();
-            } else {
-                logger.warn("No se pudo procesar el webhook para payment: {} con dataId: {}",
-                        payment.getId(), effectiveDataId);
-                return ResponseEntity.status(422).build(); // Unprocessable Entity
-            }
+            logger.info("Webhook MercadoPago recibido - evento: {}, fila: {}", notification.eventKey(), inboxId);
+            return ResponseEntity.ok().build();
 
         } catch (Exception e) {
-            logger.error("Error procesando webhook MercadoPago para data.id {}: {}",
+            // No se pudo guardar: MercadoPago reintentará la notificación
+            logger.error("Error guardando webhook MercadoPago para data.id {}: {}",
                     dataId, e.getMessage(), e);
             return ResponseEntity.status(500).build();
         }
     }
 
     /**
-     * Maneja webhooks de tipo 'payment'
-     * Consulta el payment en MercadoPago para obtener el external_reference
-     */
-    private Payment handlePaymentWebhook(String mpPaymentId) {
-        try {
-            PaymentClient client = new PaymentClient();
-            com.mercadopago.resources.payment.Payment mpPayment = client.get(Long.parseLong(mpPaymentId));
-
-            String externalReference = mpPayment.getExternalReference();
-            logger.info("Payment de MP consultado - ID: {}, External Ref: {}, Status: {}",
-                    mpPayment.getId(), externalReference, mpPayment.getStatus());
-
-            if (externalReference != null && !externalReference.trim().isEmpty()) {
-                // El external_reference contiene nuestro Payment ID interno
-                Long internalPaymentId = Long.parseLong(externalReference);
-                Optional<Payment> paymentOpt = paymentService.findById(internalPaymentId);
-
-                if (paymentOpt.isPresent()) {
-                    Payment payment = paymentOpt.get();
-
-                    // Actualizar el gatewayPaymentId si no lo tenemos
-                    if (!payment.hasGatewayPaymentId()) {
-                        paymentService.updatePaymentGatewayPaymentId(payment.getId(), mpPaymentId);
-                        logger.info("Payment {} actualizado con Gateway Payment ID: {}",
-                                payment.getId(), mpPaymentId);
-
-                        // Recargar el payment con los datos actualizados
-                        payment = paymentService.findById(internalPaymentId).orElse(payment);
-                    }
-
-                    return payment;
-                }
-            }
-
-            return null;
-        } catch (Exception e) {
-            logger.error("Error obteniendo payment por MP payment ID {}: {}", mpPaymentId, e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * Maneja webhooks de tipo 'merchant_order'
-     * Consulta la merchant order en MercadoPago para obtener el external_reference
+     * Tópico del payload o, si no viene, el parámetro type
      */
-    private Payment handleMerchantOrderWebhook(String mpOrderId) {
+    private String resolveTopic(String payload, String type) {
         try {
-            MerchantOrderClient client = new MerchantOrderClient();
-            MerchantOrder merchantOrder = client.get(Long.parseLong(mpOrderId));
-
-            String externalReference = merchantOrder.getExternalReference();
-            logger.info("Merchant Order de MP consultado - ID: {}, External Ref: {}",
-                    merchantOrder.getId(), externalReference);
-
-            if (externalReference != null && !externalReference.trim().isEmpty()) {
-                Long internalPaymentId = Long.parseLong(externalReference);
-                Optional<Payment> paymentOpt = paymentService.findById(internalPaymentId);
-
-                if (paymentOpt.isPresent()) {
-                    Payment payment = paymentOpt.get();
-
-                    // Si el payment no tiene gatewayPaymentId y el merchant order tiene payments asociados,
-                    // intentar obtenerlo de los payments del merchant order
-                    if (!payment.hasGatewayPaymentId() && merchantOrder.getPayments() != null && !merchantOrder.getPayments().isEmpty()) {
-                        String mpPaymentId = String.valueOf(merchantOrder.getPayments().get(0).getId());
-                        paymentService.updatePaymentGatewayPaymentId(payment.getId(), mpPaymentId);
-                        logger.info("Payment {} actualizado con Gateway Payment ID desde merchant order: {}",
-                                payment.getId(), mpPaymentId);
-
-                        // Recargar el payment con los datos actualizados
-                        payment = paymentService.findById(internalPaymentId).orElse(payment);
-                    }
-
-                    return payment;
-                }
+            String topic = objectMapper.readTree(payload).path("topic").asText();
+            if (!topic.isEmpty()) {
+                return topic;
             }
-
-            return null;
         } catch (Exception e) {
-            logger.error("Error obteniendo payment por MP order ID {}: {}", mpOrderId, e.getMessage());
-            return null;
+            logger.warn("Payload de webhook MercadoPago no es JSON válido: {}", e.getMessage());
         }
-    }
-
-    /**
-     * Valida la signature del webhook de MercadoPago
-     * TODO: Implementar validación real usando el secret y el algoritmo de MP
-     */
-    private boolean validateWebhookSignature(String payload, String signature, String secret) {
-        // Por ahora retorna true, pero aquí deberías implementar la validación real
-        // Referencia: https://www.mercadopago.com.mx/developers/en/docs/webhooks/signature
-
-        if (secret == null || secret.trim().isEmpty()) {
-            logger.warn("No hay webhook secret configurado, saltando validación");
-            return true;
-        }
-
-        // TODO: Implementar validación HMAC SHA256
-        logger.debug("Validando signature del webhook (implementación pendiente)");
-        return true;
+        return type;
     }
 }
@@ -7,6 +7,7 @@ import com.copypoint.api.domain.payment.service.PaymentService;
 import com.copypoint.api.domain.paymentattempt.entity.PaymentAttemptStatus;
 import com.copypoint.api.domain.paymentattempt.service.PaymentAttemptService;
 import com.copypoint.api.infra.mercadopago.service.MercadoPagoGatewayService;
+import com.copypoint.api.infra.mercadopago.service.reconciliation.ReconciledPayment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -58,7 +60,7 @@ public class PaymentStatusManager {
     @Transactional
     public void updatePaymentStatusFromGateway(Payment payment) {
         try {
-            PaymentStatus gatewayStatus = mercadoPagoGatewayService.getPaymentStatusFromGateway(payment.getGatewayId());
+            PaymentStatus gatewayStatus = mercadoPagoGatewayService.getPaymentStatusFromGateway(payment.getSale(), payment.getGatewayId());
 
             if (gatewayStatus != null && gatewayStatus != payment.getStatus()) {
                 PaymentStatus previousStatus = payment.getStatus();
@@ -79,6 +81,45 @@ public class PaymentStatusManager {
         }
     }
 
+    /**
+     * Aplica en una sola transacción los estados obtenidos por la conciliación.
+     * Solo cambia payments que sigan PENDING (UPDATE condicional, así que un
+     * webhook que llegue a la vez no se pisa); registra el intento igual que
+     * updatePaymentStatusFromGateway y completa los IDs de pasarela que falten.
+     *
+     * @return payments cuyo estado cambió
+     */
+    @Transactional
+    public int applyReconciledStatuses(List<ReconciledPayment> reconciled) {
+        int changed = 0;
+        for (ReconciledPayment item : reconciled) {
+            if (item.status() == PaymentStatus.PENDING) {
+                continue;
+            }
+
+            // Vacío si un webhook lo aplicó mientras se consultaba MercadoPago
+            Optional<Payment> paymentOpt = paymentService.updatePaymentStatusIfPending(item.paymentId(), item.status());
+            if (paymentOpt.isEmpty()) {
+                continue;
+            }
+
+            Payment payment = paymentOpt.get();
+            if (!payment.hasGatewayPaymentId() && item.gatewayPaymentId() != null) {
+                paymentService.updatePaymentGatewayPaymentId(payment.getId(), item.gatewayPaymentId());
+            }
+            if (!payment.hasGatewayTransactionId() && item.gatewayTransactionId() != null) {
+                paymentService.updatePaymentGatewayTransactionId(payment.getId(), item.gatewayTransactionId());
+            }
+            recordStatusUpdate(payment, PaymentStatus.PENDING, item.status());
+            changed++;
+        }
+
+        if (changed > 0) {
+            logger.info("Conciliación: {} de {} payments actualizados desde MercadoPago", changed, reconciled.size());
+        }
+        return changed;
+    }
+
     private void recordStatusUpdate(Payment payment, PaymentStatus previousStatus, PaymentStatus newStatus) {
         try {
             var statusUpdateData = new StatusUpdateData(
@@ -5,10 +5,11 @@ import com.copypoint.api.domain.payment.entity.Payment;
 import com.copypoint.api.domain.payment.entity.PaymentStatus;
 import com.copypoint.api.domain.payment.dto.PaymentRequest;
 import com.copypoint.api.domain.sale.Sale;
+import com.copypoint.api.infra.mercadopago.client.MercadoPagoClientRegistry;
+import com.copypoint.api.infra.mercadopago.client.MercadoPagoTenantClient;
 import com.copypoint.api.infra.mercadopago.factory.MercadoPagoItemFactory;
 import com.copypoint.api.infra.mercadopago.factory.MercadoPagoPayerFactory;
 import com.copypoint.api.infra.mercadopago.factory.MercadoPagoUrlFactory;
-import com.mercadopago.client.payment.PaymentClient;
 import com.mercadopago.client.preference.*;
 import com.mercadopago.exceptions.MPApiException;
 import com.mercadopago.exceptions.MPException;
@@ -21,6 +22,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 
 @Service
@@ -32,7 +34,7 @@ public class MercadoPagoGatewayService {
     private MercadoPagoConfigurationService mercadoPagoConfigService;
 
     @Autowired
-    private MercadoPagoSdkConfigurationService mercadoPagoGatewayConfigurationService;
+    private MercadoPagoClientRegistry clientRegistry;
 
     @Autowired
     private MercadoPagoItemFactory itemFactory;
@@ -46,13 +48,9 @@ public class MercadoPagoGatewayService {
     public Preference createPreference(Payment payment, PaymentRequest request) throws MPException, MPApiException {
         Sale sale = payment.getSale();
 
-        // Configurar MercadoPago SDK con el token del store/copypoint
-        boolean configured = mercadoPagoGatewayConfigurationService.configureForSale(sale);
-        if (!configured) {
-            throw new IllegalStateException("No se encontró configuración de MercadoPago para la venta");
-        }
-
-        PreferenceClient client = new PreferenceClient();
+        // Cliente con las credenciales del copypoint; no toca el estado global del SDK
+        MercadoPagoTenantClient client = clientRegistry.forSale(sale)
+                .orElseThrow(() -> new IllegalStateException("No se encontró configuración de MercadoPago para la venta"));
 
         // Crear componentes de la preferencia usando las factories
         List<PreferenceItemRequest> items = itemFactory.createItemsFromSale(sale, request);
@@ -101,10 +99,10 @@ public class MercadoPagoGatewayService {
         );
     }
 
-    private Preference createPreferenceWithErrorHandling(PreferenceClient client, PreferenceRequest preferenceRequest)
+    private Preference createPreferenceWithErrorHandling(MercadoPagoTenantClient client, PreferenceRequest preferenceRequest)
             throws MPException, MPApiException {
         try {
-            Preference preference = client.create(preferenceRequest);
+            Preference preference = client.createPreference(preferenceRequest);
             logger.info("Preference creada exitosamente - ID: {}", preference.getId());
             return preference;
         } catch (MPApiException e) {
@@ -134,10 +132,13 @@ public class MercadoPagoGatewayService {
                 e.getApiResponse());
     }
 
-    public PaymentStatus getPaymentStatusFromGateway(String gatewayId) {
+    public PaymentStatus getPaymentStatusFromGateway(Sale sale, String gatewayId) {
         try {
-            PaymentClient client = new PaymentClient();
-            com.mercadopago.resources.payment.Payment mpPayment = client.get(Long.parseLong(gatewayId));
+            Optional<MercadoPagoTenantClient> client = clientRegistry.forSale(sale);
+            if (client.isEmpty()) {
+                return null;
+            }
+            com.mercadopago.resources.payment.Payment mpPayment = client.get().getPayment(Long.parseLong(gatewayId));
 
             return mapMercadoPagoStatus(mpPayment.getStatus());
         } catch (Exception e) {
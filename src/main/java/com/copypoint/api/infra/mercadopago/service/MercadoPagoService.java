@@ -10,6 +10,8 @@ import com.copypoint.api.domain.payment.dto.PaymentStatusResponse;
 import com.copypoint.api.domain.payment.service.PaymentService;
 import com.copypoint.api.domain.paymentattempt.entity.PaymentAttemptStatus;
 import com.copypoint.api.domain.paymentattempt.service.PaymentAttemptService;
+import com.copypoint.api.infra.mercadopago.client.MercadoPagoClientRegistry;
+import com.copypoint.api.infra.mercadopago.client.MercadoPagoTenantClient;
 import com.copypoint.api.infra.mercadopago.handler.MercadoPagoWebhookHandler;
 import com.copypoint.api.infra.mercadopago.manager.PaymentStatusManager;
 import com.copypoint.api.infra.mercadopago.orchestrator.PaymentCreationOrchestrator;
@@ -17,8 +19,6 @@ import com.copypoint.api.infra.mercadopago.orchestrator.PaymentCreationOrchestra
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.mercadopago.client.merchantorder.MerchantOrderClient;
-import com.mercadopago.client.payment.PaymentClient;
 import com.mercadopago.exceptions.MPApiException;
 import com.mercadopago.exceptions.MPException;
 import com.mercadopago.resources.merchantorder.MerchantOrder;
@@ -56,6 +56,9 @@ public class MercadoPagoService {
     @Autowired
     private PaymentAttemptService paymentAttemptService;
 
+    @Autowired
+    private MercadoPagoClientRegistry clientRegistry;
+
     public MercadoPagoService() {
         // Configure ObjectMapper with Java 8 time support
         ObjectMapper objectMapper = new ObjectMapper();
@@ -145,34 +148,11 @@ public class MercadoPagoService {
      */
     private boolean handlePaymentWebhookUpdate(Payment payment, String mpPaymentId, String payload) {
         try {
-            // Consultar el estado actual del payment en MercadoPago
-            PaymentClient client = new PaymentClient();
-            com.mercadopago.resources.payment.Payment mpPayment = client.get(Long.parseLong(mpPaymentId));
-
-            // Mapear el estado de MercadoPago a nuestro enum
-            PaymentStatus newStatus = mapMercadoPagoStatus(mpPayment.getStatus());
-
-            // Actualizar el payment si el estado cambió
-            if (newStatus != payment.getStatus()) {
-                paymentService.updatePaymentStatus(payment.getId(), newStatus);
-                logger.info("Payment {} actualizado - Estado: {} -> {}",
-                        payment.getId(), payment.getStatus(), newStatus);
-            }
-
-            // Asegurar que tenemos el gatewayPaymentId
-            if (!payment.hasGatewayPaymentId()) {
-                paymentService.updatePaymentGatewayPaymentId(payment.getId(), mpPaymentId);
-            }
-
-            // Actualizar gatewayTransactionId si está disponible
-            if (mpPayment.getTransactionDetails() != null &&
-                    mpPayment.getTransactionDetails().getFinancialInstitution() != null) {
+            // Consultar el estado actual del payment en MercadoPago con las credenciales del copypoint
+            com.mercadopago.resources.payment.Payment mpPayment =
+                    clientFor(payment).getPayment(Long.parseLong(mpPaymentId));
 
-                String transactionId = mpPayment.getTransactionDetails().getFinancialInstitution();
-                if (!payment.hasGatewayTransactionId() && transactionId != null) {
-                    paymentService.updatePaymentGatewayTransactionId(payment.getId(), transactionId);
-                }
-            }
+            PaymentStatus newStatus = applyPaymentUpdate(payment, mpPayment);
 
             // Crear registro del intento de webhook
             paymentAttemptService.createPaymentAttempt(
@@ -189,14 +169,48 @@ public class MercadoPagoService {
         }
     }
 
+    /**
+     * Aplica al payment el estado y los IDs de un pago ya consultado en MercadoPago
+     * @return el estado de MercadoPago mapeado a nuestro enum
+     */
+    public PaymentStatus applyPaymentUpdate(Payment payment, com.mercadopago.resources.payment.Payment mpPayment) {
+        String mpPaymentId = String.valueOf(mpPayment.getId());
+
+        // Mapear el estado de MercadoPago a nuestro enum
+        PaymentStatus newStatus = mapMercadoPagoStatus(mpPayment.getStatus());
+
+        // Actualizar el payment si el estado cambió
+        if (newStatus != payment.getStatus()) {
+            paymentService.updatePaymentStatus(payment.getId(), newStatus);
+            logger.info("Payment {} actualizado - Estado: {} -> {}",
+                    payment.getId(), payment.getStatus(), newStatus);
+        }
+
+        // Asegurar que tenemos el gatewayPaymentId
+        if (!payment.hasGatewayPaymentId()) {
+            paymentService.updatePaymentGatewayPaymentId(payment.getId(), mpPaymentId);
+        }
+
+        // Actualizar gatewayTransactionId si está disponible
+        if (mpPayment.getTransactionDetails() != null &&
+                mpPayment.getTransactionDetails().getFinancialInstitution() != null) {
+
+            String transactionId = mpPayment.getTransactionDetails().getFinancialInstitution();
+            if (!payment.hasGatewayTransactionId() && transactionId != null) {
+                paymentService.updatePaymentGatewayTransactionId(payment.getId(), transactionId);
+            }
+        }
+
+        return newStatus;
+    }
+
     /**
      * Procesa webhook de merchant order
      */
     private boolean handleMerchantOrderWebhookUpdate(Payment payment, String mpOrderId, String payload) {
         try {
             // Consultar la merchant order en MercadoPago
-            MerchantOrderClient client = new MerchantOrderClient();
-            MerchantOrder merchantOrder = client.get(Long.parseLong(mpOrderId));
+            MerchantOrder merchantOrder = clientFor(payment).getMerchantOrder(Long.parseLong(mpOrderId));
 
             // Las merchant orders pueden tener múltiples payments
             // Por ahora, solo registramos la notificación
@@ -241,10 +255,16 @@ public class MercadoPagoService {
         }
     }
 
+    private MercadoPagoTenantClient clientFor(Payment payment) {
+        return clientRegistry.forSale(payment.getSale())
+                .orElseThrow(() -> new IllegalStateException(
+                        "No se encontró configuración de MercadoPago para el payment " + payment.getId()));
+    }
+
     /**
      * Mapea estados de MercadoPago a nuestros PaymentAttemptStatus
      */
-    private PaymentAttemptStatus mapStatusToAttemptStatus(PaymentStatus paymentStatus) {
+    public PaymentAttemptStatus mapStatusToAttemptStatus(PaymentStatus paymentStatus) {
         return switch (paymentStatus) {
             case APPROVED -> PaymentAttemptStatus.SUCCEEDED;
             case REJECTED, CANCELLED -> PaymentAttemptStatus.FAILED;
@@ -0,0 +1,455 @@
+package com.copypoint.api.infra.mercadopago.service.reconciliation;
+
+import com.copypoint.api.domain.payment.entity.Payment;
+import com.copypoint.api.domain.payment.entity.PaymentStatus;
+import com.copypoint.api.domain.payment.repository.PaymentRepository;
+import com.copypoint.api.infra.mercadopago.client.MercadoPagoClientRegistry;
+import com.copypoint.api.infra.mercadopago.client.MercadoPagoTenantClient;
+import com.copypoint.api.infra.mercadopago.manager.PaymentStatusManager;
+import com.copypoint.api.infra.mercadopago.service.MercadoPagoGatewayService;
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+import com.mercadopago.net.MPResultsResourcesPage;
+import com.mercadopago.net.MPSearchRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concilia con MercadoPago los payments que siguen PENDING porque se perdió su webhook.
+ * <p>
+ * En cada ronda lee los payments PENDING con Intent ID y sin Payment ID (entre
+ * min-age y lookback de antigüedad), los agrupa por copypoint y, con el cliente de
+ * cada copypoint, busca sus pagos en MercadoPago por rango de fecha: una búsqueda
+ * paginada cubre todos los payments del copypoint. Solo si la búsqueda se corta
+ * en max-search-pages, los que no aparecieron se buscan uno a uno por
+ * external_reference.
+ * <p>
+ * La ronda corre en el executor del conciliador, no en el hilo del scheduler.
+ * Los copypoints se procesan en paralelo con {@code concurrency} hilos y todas las
+ * llamadas comparten un límite de {@code requests-per-second}. Los estados
+ * encontrados se aplican con PaymentStatusManager en transacciones de
+ * {@code apply-batch-size} payments.
+ */
+@Service
+public class MercadoPagoPaymentReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(MercadoPagoPaymentReconciler.class);
+    private static final String GATEWAY = "mercadopago";
+    // Un pago de MercadoPago se crea después que su payment local; margen por relojes
+    private static final Duration SEARCH_WINDOW_MARGIN = Duration.ofMinutes(5);
+    private static final int LOOKUP_LIMIT = 10;
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentStatusManager paymentStatusManager;
+    private final MercadoPagoGatewayService gatewayService;
+    private final MercadoPagoClientRegistry clientRegistry;
+
+    private final boolean enabled;
+    private final Duration minAge;
+    private final Duration lookback;
+    private final int pageSize;
+    private final int maxPaymentsPerRun;
+    private final int searchPageSize;
+    private final int maxSearchPages;
+    private final int applyBatchSize;
+    private final RequestRateLimiter rateLimiter;
+    private final ThreadPoolExecutor executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Timer runTimer;
+    private final Counter checkedCounter;
+    private final Counter updatedCounter;
+    private final Counter notFoundCounter;
+    private final Counter requestCounter;
+    private final Counter errorCounter;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong unresolvedPayments = new AtomicLong();
+
+    public MercadoPagoPaymentReconciler(PaymentRepository paymentRepository,
+                                        PaymentStatusManager paymentStatusManager,
+                                        MercadoPagoGatewayService gatewayService,
+                                        MercadoPagoClientRegistry clientRegistry,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.payments.reconciliation.enabled:true}") boolean enabled,
+                                        @Value("${app.payments.reconciliation.min-age:10m}") Duration minAge,
+                                        @Value("${app.payments.reconciliation.lookback:7d}") Duration lookback,
+                                        @Value("${app.payments.reconciliation.page-size:200}") int pageSize,
+                                        @Value("${app.payments.reconciliation.max-payments-per-run:2000}") int maxPaymentsPerRun,
+                                        @Value("${app.payments.reconciliation.search-page-size:100}") int searchPageSize,
+                                        @Value("${app.payments.reconciliation.max-search-pages:5}") int maxSearchPages,
+                                        @Value("${app.payments.reconciliation.apply-batch-size:50}") int applyBatchSize,
+                                        @Value("${app.payments.reconciliation.concurrency:3}") int concurrency,
+                                        @Value("${app.payments.reconciliation.requests-per-second:5}") double requestsPerSecond) {
+        this.paymentRepository = paymentRepository;
+        this.paymentStatusManager = paymentStatusManager;
+        this.gatewayService = gatewayService;
+        this.clientRegistry = clientRegistry;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minAge = minAge;
+        this.lookback = lookback;
+        this.pageSize = Math.max(1, pageSize);
+        this.maxPaymentsPerRun = Math.max(1, maxPaymentsPerRun);
+        this.searchPageSize = Math.max(1, searchPageSize);
+        this.maxSearchPages = Math.max(1, maxSearchPages);
+        this.applyBatchSize = Math.max(1, applyBatchSize);
+        this.rateLimiter = new RequestRateLimiter(requestsPerSecond);
+
+        int threads = Math.max(1, concurrency);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "payment-reconciliation-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.runTimer = Timer.builder("payments.reconciliation.run")
+                .description("Duración de cada ronda de conciliación con MercadoPago")
+                .register(meterRegistry);
+        this.checkedCounter = Counter.builder("payments.reconciliation.checked")
+                .description("Payments PENDING revisados contra MercadoPago")
+                .register(meterRegistry);
+        this.updatedCounter = Counter.builder("payments.reconciliation.updated")
+                .description("Payments cuyo estado se corrigió por conciliación")
+                .register(meterRegistry);
+        this.notFoundCounter = Counter.builder("payments.reconciliation.not.found")
+                .description("Payments sin pago asociado en MercadoPago")
+                .register(meterRegistry);
+        this.requestCounter = Counter.builder("payments.reconciliation.requests")
+                .description("Búsquedas hechas a MercadoPago")
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("payments.reconciliation.errors")
+                .register(meterRegistry);
+        Gauge.builder("payments.reconciliation.lag", lagSeconds, AtomicLong::get)
+                .baseUnit("seconds")
+                .description("Antigüedad del payment PENDING más viejo que quedó sin resolver en la última ronda")
+                .register(meterRegistry);
+        Gauge.builder("payments.reconciliation.unresolved", unresolvedPayments, AtomicLong::get)
+                .description("Payments que siguieron PENDING tras la última ronda")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Arranca una ronda y regresa: la ronda corre en el executor propio del
+     * conciliador, así que el hilo del scheduler (compartido con las demás
+     * tareas programadas) nunca espera a MercadoPago.
+     */
+    @Scheduled(fixedDelayString = "${app.payments.reconciliation.interval-ms:300000}",
+            initialDelayString = "${app.payments.reconciliation.initial-delay-ms:120000}")
+    public void reconcile() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime now = LocalDateTime.now();
+        CompletableFuture<Void> round;
+        try {
+            round = CompletableFuture.supplyAsync(() -> loadPending(now), executor)
+                    .thenCompose(pending -> reconcileAll(pending, now));
+        } catch (RejectedExecutionException e) {
+            // El executor ya se cerró (apagado de la aplicación)
+            sample.stop(runTimer);
+            running.set(false);
+            return;
+        }
+
+        round.whenComplete((ignored, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                errorCounter.increment();
+                logger.error("Error en la conciliación de payments con MercadoPago: {}", cause.getMessage(), cause);
+            }
+            sample.stop(runTimer);
+            running.set(false);
+        });
+    }
+
+    private CompletableFuture<Void> reconcileAll(List<Payment> pending, LocalDateTime now) {
+        if (pending.isEmpty()) {
+            lagSeconds.set(0);
+            unresolvedPayments.set(0);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Map<Long, List<Payment>> byCopypoint = new LinkedHashMap<>();
+        for (Payment payment : pending) {
+            byCopypoint.computeIfAbsent(payment.getSale().getCopypoint().getId(), id -> new ArrayList<>()).add(payment);
+        }
+
+        List<CompletableFuture<List<Payment>>> futures = new ArrayList<>(byCopypoint.size());
+        for (Map.Entry<Long, List<Payment>> group : byCopypoint.entrySet()) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> reconcileCopypointSafely(group.getKey(), group.getValue()), executor));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenRun(() -> {
+            List<Payment> unresolved = new ArrayList<>();
+            for (CompletableFuture<List<Payment>> future : futures) {
+                unresolved.addAll(future.join());
+            }
+
+            updateLag(unresolved, now);
+            logger.info("Conciliación con MercadoPago: {} payments revisados en {} copypoints, {} siguen PENDING",
+                    pending.size(), byCopypoint.size(), unresolved.size());
+        });
+    }
+
+    /**
+     * Un copypoint que falla no detiene a los demás; sus payments siguen PENDING
+     */
+    private List<Payment> reconcileCopypointSafely(Long copypointId, List<Payment> payments) {
+        try {
+            return reconcileCopypoint(copypointId, payments);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return payments;
+        } catch (Exception e) {
+            errorCounter.increment();
+            logger.error("Error conciliando payments del copypoint {} con MercadoPago: {}",
+                    copypointId, e.getMessage(), e);
+            return payments;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<Payment> loadPending(LocalDateTime now) {
+        LocalDateTime createdAfter = now.minus(lookback);
+        LocalDateTime createdBefore = now.minus(minAge);
+
+        List<Payment> pending = new ArrayList<>();
+        long afterId = 0L;
+        while (pending.size() < maxPaymentsPerRun) {
+            int limit = Math.min(pageSize, maxPaymentsPerRun - pending.size());
+            List<Payment> page = paymentRepository.findPendingPaymentsWithIntent(
+                    GATEWAY, createdAfter, createdBefore, afterId, PageRequest.of(0, limit));
+            pending.addAll(page);
+            if (page.size() < limit) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+        return pending;
+    }
+
+    /**
+     * Busca en MercadoPago los pagos de los payments de un copypoint y aplica los estados
+     *
+     * @return payments que siguen PENDING
+     */
+    private List<Payment> reconcileCopypoint(Long copypointId, List<Payment> payments)
+            throws InterruptedException, MPException, MPApiException {
+        Optional<MercadoPagoTenantClient> clientOpt = clientRegistry.forCopypoint(copypointId);
+        if (clientOpt.isEmpty()) {
+            logger.warn("Conciliación: copypoint {} sin configuración de MercadoPago, {} payments omitidos",
+                    copypointId, payments.size());
+            return payments;
+        }
+        MercadoPagoTenantClient client = clientOpt.get();
+        checkedCounter.increment(payments.size());
+
+        WindowSearch search = searchByDateWindow(client, payments);
+        Map<String, com.mercadopago.resources.payment.Payment> found = search.found();
+        // Si la ventana se leyó completa, lo que no apareció no existe en MercadoPago
+        if (search.truncated()) {
+            for (Payment payment : payments) {
+                String reference = payment.getId().toString();
+                if (!found.containsKey(reference)) {
+                    lookupByExternalReference(client, reference).ifPresent(mpPayment -> found.put(reference, mpPayment));
+                }
+            }
+        }
+
+        List<ReconciledPayment> reconciled = new ArrayList<>();
+        List<Payment> unresolved = new ArrayList<>();
+        for (Payment payment : payments) {
+            com.mercadopago.resources.payment.Payment mpPayment = found.get(payment.getId().toString());
+            if (mpPayment == null) {
+                notFoundCounter.increment();
+                unresolved.add(payment);
+                continue;
+            }
+
+            PaymentStatus status = gatewayService.mapMercadoPagoStatus(mpPayment.getStatus());
+            if (status == PaymentStatus.PENDING) {
+                unresolved.add(payment);
+                continue;
+            }
+
+            Counter.builder("payments.reconciliation.discrepancies")
+                    .tag("status", status.name())
+                    .description("Payments PENDING localmente con otro estado en MercadoPago")
+                    .register(meterRegistry)
+                    .increment();
+            reconciled.add(new ReconciledPayment(payment.getId(), status,
+                    String.valueOf(mpPayment.getId()), transactionId(mpPayment)));
+        }
+
+        for (int from = 0; from < reconciled.size(); from += applyBatchSize) {
+            List<ReconciledPayment> batch = reconciled.subList(from, Math.min(from + applyBatchSize, reconciled.size()));
+            updatedCounter.increment(paymentStatusManager.applyReconciledStatuses(batch));
+        }
+        return unresolved;
+    }
+
+    /**
+     * Resultado de la búsqueda por fecha. {@code truncated} indica que se cortó en
+     * max-search-pages (o que no se pudo buscar) antes de leer toda la ventana.
+     */
+    private record WindowSearch(Map<String, com.mercadopago.resources.payment.Payment> found, boolean truncated) {
+    }
+
+    /**
+     * Pagos del copypoint creados desde el payment más viejo del grupo, por external_reference.
+     * Lee a lo más max-search-pages páginas; si la ventana no cabe, lo que falte se busca uno a uno.
+     */
+    private WindowSearch searchByDateWindow(
+            MercadoPagoTenantClient client, List<Payment> payments)
+            throws InterruptedException, MPException, MPApiException {
+        Set<String> references = new HashSet<>();
+        LocalDateTime oldest = null;
+        for (Payment payment : payments) {
+            references.add(payment.getId().toString());
+            if (payment.getCreatedAt() != null && (oldest == null || payment.getCreatedAt().isBefore(oldest))) {
+                oldest = payment.getCreatedAt();
+            }
+        }
+        if (oldest == null) {
+            return new WindowSearch(new HashMap<>(), true);
+        }
+
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("sort", "date_created");
+        filters.put("criteria", "asc");
+        filters.put("range", "date_created");
+        filters.put("begin_date", formatDate(oldest.minus(SEARCH_WINDOW_MARGIN)));
+        filters.put("end_date", "NOW");
+
+        Map<String, com.mercadopago.resources.payment.Payment> found = new HashMap<>();
+        boolean exhausted = false;
+        for (int page = 0; page < maxSearchPages; page++) {
+            MPResultsResourcesPage<com.mercadopago.resources.payment.Payment> results = search(client,
+                    MPSearchRequest.builder()
+                            .limit(searchPageSize)
+                            .offset(page * searchPageSize)
+                            .filters(filters)
+                            .build());
+
+            List<com.mercadopago.resources.payment.Payment> items = results.getResults();
+            if (items == null || items.isEmpty()) {
+                exhausted = true;
+                break;
+            }
+            for (com.mercadopago.resources.payment.Payment mpPayment : items) {
+                String reference = mpPayment.getExternalReference();
+                if (reference != null && references.contains(reference)) {
+                    found.merge(reference, mpPayment, MercadoPagoPaymentReconciler::preferred);
+                }
+            }
+            if (items.size() < searchPageSize) {
+                exhausted = true;
+                break;
+            }
+            if (found.size() == references.size()) {
+                break;
+            }
+        }
+        return new WindowSearch(found, !exhausted && found.size() < references.size());
+    }
+
+    private Optional<com.mercadopago.resources.payment.Payment> lookupByExternalReference(
+            MercadoPagoTenantClient client, String reference)
+            throws InterruptedException, MPException, MPApiException {
+        MPResultsResourcesPage<com.mercadopago.resources.payment.Payment> results = search(client,
+                MPSearchRequest.builder()
+                        .limit(LOOKUP_LIMIT)
+                        .offset(0)
+                        .filters(Map.of("external_reference", reference))
+                        .build());
+
+        com.mercadopago.resources.payment.Payment best = null;
+        if (results.getResults() != null) {
+            for (com.mercadopago.resources.payment.Payment mpPayment : results.getResults()) {
+                best = best == null ? mpPayment : preferred(best, mpPayment);
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private MPResultsResourcesPage<com.mercadopago.resources.payment.Payment> search(
+            MercadoPagoTenantClient client, MPSearchRequest request)
+            throws InterruptedException, MPException, MPApiException {
+        rateLimiter.acquire();
+        requestCounter.increment();
+        return client.searchPayments(request);
+    }
+
+    private void updateLag(List<Payment> unresolved, LocalDateTime now) {
+        unresolvedPayments.set(unresolved.size());
+        LocalDateTime oldest = unresolved.stream()
+                .map(Payment::getCreatedAt)
+                .filter(Objects::nonNull)
+                .min(LocalDateTime::compareTo)
+                .orElse(now);
+        lagSeconds.set(Duration.between(oldest, now).getSeconds());
+    }
+
+    /**
+     * Entre dos pagos del mismo payment gana el aprobado y, si no, el más reciente
+     */
+    static com.mercadopago.resources.payment.Payment preferred(
+            com.mercadopago.resources.payment.Payment current,
+            com.mercadopago.resources.payment.Payment candidate) {
+        boolean currentApproved = "approved".equalsIgnoreCase(current.getStatus());
+        boolean candidateApproved = "approved".equalsIgnoreCase(candidate.getStatus());
+        if (currentApproved != candidateApproved) {
+            return candidateApproved ? candidate : current;
+        }
+        if (candidate.getDateCreated() != null
+                && (current.getDateCreated() == null || candidate.getDateCreated().isAfter(current.getDateCreated()))) {
+            return candidate;
+        }
+        return current;
+    }
+
+    private static String transactionId(com.mercadopago.resources.payment.Payment mpPayment) {
+        if (mpPayment.getTransactionDetails() == null) {
+            return null;
+        }
+        return mpPayment.getTransactionDetails().getFinancialInstitution();
+    }
+
+    private static String formatDate(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault())
+                .toOffsetDateTime()
+                .truncatedTo(ChronoUnit.MILLIS)
+                .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+}
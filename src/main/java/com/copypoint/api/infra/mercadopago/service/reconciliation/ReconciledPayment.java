@@ -0,0 +1,12 @@
+package com.copypoint.api.infra.mercadopago.service.reconciliation;
+
+import com.copypoint.api.domain.payment.entity.PaymentStatus;
+
+/**
+ * Estado de un payment según MercadoPago, obtenido por la conciliación
+ */
+public record ReconciledPayment(Long paymentId,
+                                PaymentStatus status,
+                                String gatewayPaymentId,
+                                String gatewayTransactionId) {
+}
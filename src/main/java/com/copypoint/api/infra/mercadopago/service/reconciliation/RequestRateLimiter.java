@@ -0,0 +1,30 @@
+package com.copypoint.api.infra.mercadopago.service.reconciliation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita las llamadas a una tasa fija repartiendo turnos equiespaciados entre
+ * todos los hilos. Si no hay turno libre el hilo espera al suyo.
+ */
+final class RequestRateLimiter {
+
+    private final long intervalNanos;
+    private long nextSlot = System.nanoTime();
+
+    RequestRateLimiter(double permitsPerSecond) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.01, permitsPerSecond));
+    }
+
+    void acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlot);
+            nextSlot = slot + intervalNanos;
+            wait = slot - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
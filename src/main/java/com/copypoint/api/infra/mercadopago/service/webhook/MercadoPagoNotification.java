@@ -0,0 +1,44 @@
+package com.copypoint.api.infra.mercadopago.service.webhook;
+
+/**
+ * Evento notificado por MercadoPago: tópico normalizado y data.id.
+ * <p>
+ * MercadoPago envía varias notificaciones por el mismo evento (payment.created,
+ * payment.updated, merchant_order...). Las de mismo tópico y data.id comparten
+ * {@link #eventKey()} y se agrupan mientras siguen pendientes.
+ */
+public record MercadoPagoNotification(String topic, String dataId) {
+
+    public static final String PAYMENT = "payment";
+    public static final String MERCHANT_ORDER = "merchant_order";
+
+    public static MercadoPagoNotification of(String rawTopic, String dataId) {
+        return new MercadoPagoNotification(normalizeTopic(rawTopic), dataId);
+    }
+
+    /**
+     * Reconstruye la notificación a partir de la clave guardada en webhook_inbox
+     */
+    public static MercadoPagoNotification fromEventKey(String eventKey) {
+        int separator = eventKey.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Clave de evento inválida: " + eventKey);
+        }
+        return new MercadoPagoNotification(eventKey.substring(0, separator), eventKey.substring(separator + 1));
+    }
+
+    public String eventKey() {
+        return topic + ":" + dataId;
+    }
+
+    private static String normalizeTopic(String rawTopic) {
+        if (rawTopic == null || rawTopic.isBlank()) {
+            return "unknown";
+        }
+        String topic = rawTopic.trim().toLowerCase();
+        return switch (topic) {
+            case "merchant_order", "merchant_order_wh", "topic_merchant_order_wh" -> MERCHANT_ORDER;
+            default -> topic;
+        };
+    }
+}
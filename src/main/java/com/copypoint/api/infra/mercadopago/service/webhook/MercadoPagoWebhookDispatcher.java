@@ -0,0 +1,308 @@
+package com.copypoint.api.infra.mercadopago.service.webhook;
+
+import com.copypoint.api.domain.webhookinbox.WebhookInbox;
+import com.copypoint.api.domain.webhookinbox.WebhookInboxStatus;
+import com.copypoint.api.domain.webhookinbox.WebhookSource;
+import com.copypoint.api.domain.webhookinbox.repository.WebhookInboxRepository;
+import com.copypoint.api.infra.config.CacheConfiguration;
+import com.copypoint.api.infra.security.config.IntegrationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recibe los webhooks de MercadoPago, los guarda en webhook_inbox y los procesa
+ * en segundo plano; el controlador responde sin consultar a MercadoPago.
+ * <p>
+ * Las notificaciones del mismo evento (tópico y data.id) que llegan mientras hay
+ * una fila pendiente, dentro de dedup-window, se agrupan en esa fila: al
+ * procesarla se consulta el estado actual en MercadoPago, que ya incluye lo que
+ * traían las repetidas. Una vez que un worker toma la fila, la siguiente
+ * notificación del evento crea una fila nueva.
+ * <p>
+ * Hay un carril (un hilo con cola acotada) por worker y cada evento se asigna a un
+ * carril por su data.id, así que las notificaciones de un mismo pago se aplican en
+ * orden. Si la cola está llena la fila queda en RECEIVED para el recuperador.
+ */
+@Service
+public class MercadoPagoWebhookDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(MercadoPagoWebhookDispatcher.class);
+    private static final int RECOVERY_BATCH_SIZE = 200;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final WebhookInboxRepository inboxRepository;
+    private final MercadoPagoWebhookProcessor processor;
+    private final IntegrationProperties.WebhookConfig config;
+    // Clave del evento -> fila pendiente que lo representa
+    private final Cache pendingEvents;
+    private final ThreadPoolExecutor[] lanes;
+    // Filas ya encoladas en esta instancia, para que el recuperador no las duplique
+    private final Set<Long> queuedIds = ConcurrentHashMap.newKeySet();
+
+    private final Counter receivedCounter;
+    private final Counter coalescedCounter;
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final AtomicLong pendingRows = new AtomicLong();
+
+    public MercadoPagoWebhookDispatcher(WebhookInboxRepository inboxRepository,
+                                        MercadoPagoWebhookProcessor processor,
+                                        IntegrationProperties integrationProperties,
+                                        CacheManager cacheManager,
+                                        MeterRegistry meterRegistry) {
+        this.inboxRepository = inboxRepository;
+        this.processor = processor;
+        this.config = integrationProperties.getMercadopago().getWebhook();
+        this.pendingEvents = cacheManager.getCache(CacheConfiguration.PENDING_MERCADO_PAGO_WEBHOOKS);
+
+        int workers = Math.max(1, config.getWorkers());
+        int queueCapacity = Math.max(1, config.getQueueCapacity());
+        this.lanes = new ThreadPoolExecutor[workers];
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), laneThreadFactory(i),
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        this.receivedCounter = Counter.builder("mercadopago.webhook.received")
+                .description("Notificaciones de MercadoPago recibidas, incluidas las agrupadas")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("mercadopago.webhook.coalesced")
+                .description("Notificaciones agrupadas en una fila pendiente del mismo evento")
+                .register(meterRegistry);
+        this.processedCounter = Counter.builder("mercadopago.webhook.processed")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("mercadopago.webhook.failed")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("mercadopago.webhook.rejected")
+                .description("Webhooks que no entraron a la cola por estar llena (se reencolan después)")
+                .register(meterRegistry);
+        Gauge.builder("mercadopago.webhook.queue.depth", this, MercadoPagoWebhookDispatcher::queueDepth)
+                .description("Webhooks en cola esperando un worker")
+                .register(meterRegistry);
+        Gauge.builder("mercadopago.webhook.inbox.pending", pendingRows, AtomicLong::get)
+                .description("Filas pendientes en webhook_inbox en la última revisión del recuperador")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Guarda la notificación y la entrega a un worker, o la agrupa con una fila
+     * pendiente del mismo evento. Se llama desde el controlador; solo hace consultas
+     * locales, sin llamadas a MercadoPago. La fila agrupada conserva la firma y el
+     * x-request-id de la primera notificación, que se verifican juntos.
+     *
+     * @return ID de la fila que representa la notificación
+     */
+    public Long accept(MercadoPagoNotification notification, String rawBody, String signature, String requestId) {
+        receivedCounter.increment();
+        String eventKey = notification.eventKey();
+
+        Long pendingId = findPendingEvent(eventKey);
+        if (pendingId != null) {
+            coalescedCounter.increment();
+            logger.debug("Notificación {} agrupada en la fila pendiente {}", eventKey, pendingId);
+            return pendingId;
+        }
+
+        WebhookInbox inbox = inboxRepository.save(WebhookInbox.builder()
+                .source(WebhookSource.MERCADO_PAGO)
+                .eventKey(eventKey)
+                .payload(rawBody != null ? rawBody : "")
+                .signature(signature)
+                .requestId(requestId)
+                .receivedAt(LocalDateTime.now())
+                .build());
+        if (pendingEvents != null) {
+            pendingEvents.put(eventKey, inbox.getId());
+        }
+
+        dispatch(inbox);
+        return inbox.getId();
+    }
+
+    /**
+     * Encola la fila en el carril de su evento. Si la cola está llena se deja para el recuperador.
+     */
+    public DispatchResult dispatch(WebhookInbox inbox) {
+        if (!queuedIds.add(inbox.getId())) {
+            return DispatchResult.QUEUED;
+        }
+
+        MercadoPagoNotification notification;
+        try {
+            notification = MercadoPagoNotification.fromEventKey(inbox.getEventKey());
+        } catch (RuntimeException e) {
+            logger.error("Webhook {} de MercadoPago sin clave de evento válida: {}", inbox.getId(), inbox.getEventKey());
+            inboxRepository.complete(inbox.getId(), WebhookInboxStatus.FAILED,
+                    truncate("Clave de evento inválida: " + inbox.getEventKey()), LocalDateTime.now());
+            failedCounter.increment();
+            queuedIds.remove(inbox.getId());
+            return DispatchResult.INVALID;
+        }
+
+        ThreadPoolExecutor lane = lanes[Math.floorMod(notification.dataId().hashCode(), lanes.length)];
+        try {
+            lane.execute(() -> {
+                try {
+                    process(inbox.getId(), notification, inbox.getPayload(), inbox.getSignature(), inbox.getRequestId());
+                } finally {
+                    queuedIds.remove(inbox.getId());
+                }
+            });
+            return DispatchResult.QUEUED;
+        } catch (RejectedExecutionException e) {
+            queuedIds.remove(inbox.getId());
+            rejectedCounter.increment();
+            logger.warn("Cola de webhooks de MercadoPago llena, la fila {} se procesará en la siguiente recuperación",
+                    inbox.getId());
+            return DispatchResult.REJECTED;
+        }
+    }
+
+    private void process(Long inboxId, MercadoPagoNotification notification, String payload, String signature,
+                         String requestId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (inboxRepository.claim(inboxId, now, now.minus(config.getLease())) == 0) {
+            // Otra instancia o un encolado anterior ya la tomó
+            return;
+        }
+        // Desde aquí las notificaciones nuevas del evento ya no se agrupan en esta fila
+        forgetPendingEvent(notification.eventKey(), inboxId);
+
+        try {
+            MercadoPagoWebhookProcessor.Outcome outcome = processor.process(notification, payload, signature, requestId);
+            if (outcome == MercadoPagoWebhookProcessor.Outcome.PROCESSED) {
+                inboxRepository.complete(inboxId, WebhookInboxStatus.PROCESSED, null, LocalDateTime.now());
+                processedCounter.increment();
+            } else {
+                inboxRepository.complete(inboxId, WebhookInboxStatus.FAILED, outcome.name(), LocalDateTime.now());
+                failedCounter.increment();
+            }
+        } catch (Exception e) {
+            int attempts = inboxRepository.findById(inboxId).map(WebhookInbox::getAttempts).orElse(config.getMaxAttempts());
+            if (attempts >= config.getMaxAttempts()) {
+                logger.error("Webhook {} de MercadoPago ({}) descartado tras {} intentos: {}",
+                        inboxId, notification.eventKey(), attempts, e.getMessage(), e);
+                inboxRepository.complete(inboxId, WebhookInboxStatus.FAILED, truncate(e.getMessage()), LocalDateTime.now());
+                failedCounter.increment();
+            } else {
+                logger.warn("Error procesando webhook {} de MercadoPago ({}, intento {}), se reintentará: {}",
+                        inboxId, notification.eventKey(), attempts, e.getMessage());
+                inboxRepository.release(inboxId, truncate(e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Reencola las filas que quedaron sin procesar: colas llenas, reinicios
+     * o workers caídos con el lease vencido.
+     */
+    @Scheduled(fixedDelayString = "${app.integrations.mercadopago.webhook.recovery-interval-ms:30000}")
+    public void recoverPending() {
+        try {
+            pendingRows.set(inboxRepository.countBySourceAndStatusIn(WebhookSource.MERCADO_PAGO,
+                    List.of(WebhookInboxStatus.RECEIVED, WebhookInboxStatus.PROCESSING)));
+
+            LocalDateTime now = LocalDateTime.now();
+            List<WebhookInbox> recoverable = inboxRepository.findRecoverable(WebhookSource.MERCADO_PAGO,
+                    now.minus(config.getRecoveryGrace()), now.minus(config.getLease()),
+                    PageRequest.of(0, RECOVERY_BATCH_SIZE));
+
+            for (WebhookInbox inbox : recoverable) {
+                if (dispatch(inbox) == DispatchResult.REJECTED) {
+                    // Las colas siguen llenas; no tiene caso seguir intentando en esta ronda
+                    break;
+                }
+            }
+
+            if (!recoverable.isEmpty()) {
+                logger.info("Recuperador de webhooks de MercadoPago reencoló {} filas", recoverable.size());
+            }
+        } catch (Exception e) {
+            logger.error("Error recuperando webhooks pendientes de MercadoPago: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Lo que quede en cola sigue en RECEIVED y se recupera al reiniciar
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    /**
+     * Fila pendiente del mismo evento: primero entre las que insertó esta instancia
+     * y, si no, en la base de datos (la notificación anterior pudo llegar a otra
+     * instancia). Las filas encontradas en la base no se guardan en memoria porque
+     * esta instancia no se entera cuando otra las toma.
+     */
+    private Long findPendingEvent(String eventKey) {
+        if (pendingEvents != null) {
+            Long cached = pendingEvents.get(eventKey, Long.class);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        List<Long> pending = inboxRepository.findPendingIdsByEventKey(WebhookSource.MERCADO_PAGO, eventKey,
+                LocalDateTime.now().minus(config.getDedupWindow()), PageRequest.of(0, 1));
+        return pending.isEmpty() ? null : pending.get(0);
+    }
+
+    private void forgetPendingEvent(String eventKey, Long inboxId) {
+        if (pendingEvents == null) {
+            return;
+        }
+        Long cached = pendingEvents.get(eventKey, Long.class);
+        if (inboxId.equals(cached)) {
+            pendingEvents.evict(eventKey);
+        }
+    }
+
+    private int queueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+
+    private static ThreadFactory laneThreadFactory(int lane) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "mercadopago-webhook-" + lane + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public enum DispatchResult {
+        QUEUED,
+        REJECTED,
+        INVALID
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
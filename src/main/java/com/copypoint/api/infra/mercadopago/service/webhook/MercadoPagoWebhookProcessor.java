@@ -0,0 +1,211 @@
+package com.copypoint.api.infra.mercadopago.service.webhook;
+
+import com.copypoint.api.domain.mercadopagoconfiguration.service.MercadoPagoConfigurationService;
+import com.copypoint.api.domain.payment.entity.Payment;
+import com.copypoint.api.domain.payment.entity.PaymentStatus;
+import com.copypoint.api.domain.payment.service.PaymentService;
+import com.copypoint.api.domain.paymentattempt.entity.PaymentAttemptStatus;
+import com.copypoint.api.domain.paymentattempt.service.PaymentAttemptBatchWriter;
+import com.copypoint.api.infra.mercadopago.client.MercadoPagoClientRegistry;
+import com.copypoint.api.infra.mercadopago.client.MercadoPagoTenantClient;
+import com.copypoint.api.infra.mercadopago.service.MercadoPagoService;
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+import com.mercadopago.resources.merchantorder.MerchantOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Procesa una notificación de MercadoPago ya guardada en webhook_inbox.
+ * <p>
+ * Cada notificación consulta a MercadoPago una sola vez: el pago o la orden
+ * consultados sirven para identificar nuestro Payment y para actualizarlo. Los
+ * intentos se registran con PaymentAttemptBatchWriter.
+ * <p>
+ * Los errores de MercadoPago o de base de datos se propagan para que el
+ * dispatcher reintente; una notificación que no corresponde a ningún pago nuestro
+ * (o con un data.id que no es numérico) devuelve {@link Outcome#PAYMENT_NOT_FOUND}
+ * y no se reintenta.
+ * <p>
+ * La firma x-signature se verifica con el webhook secret del copypoint del pago;
+ * sin firma o sin secret configurado se acepta con una advertencia.
+ */
+@Component
+public class MercadoPagoWebhookProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(MercadoPagoWebhookProcessor.class);
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private MercadoPagoService mercadoPagoService;
+
+    @Autowired
+    private MercadoPagoConfigurationService mercadoPagoConfigService;
+
+    @Autowired
+    private MercadoPagoClientRegistry clientRegistry;
+
+    @Autowired
+    private PaymentAttemptBatchWriter attemptWriter;
+
+    @Autowired
+    private MercadoPagoWebhookSignatureVerifier signatureVerifier;
+
+    public Outcome process(MercadoPagoNotification notification, String payload, String signature, String requestId)
+            throws MPException, MPApiException {
+        return switch (notification.topic()) {
+            case MercadoPagoNotification.PAYMENT -> processPayment(notification.dataId(), payload, signature, requestId);
+            case MercadoPagoNotification.MERCHANT_ORDER ->
+                    processMerchantOrder(notification.dataId(), payload, signature, requestId);
+            default -> processGeneric(notification, payload, signature, requestId);
+        };
+    }
+
+    /**
+     * Consulta el pago en MercadoPago (con el cliente del copypoint si ya se conoce
+     * el Payment) y aplica su estado
+     */
+    private Outcome processPayment(String mpPaymentId, String payload, String signature, String requestId)
+            throws MPException, MPApiException {
+        Long paymentId = parseId(mpPaymentId);
+        if (paymentId == null) {
+            logger.warn("Webhook de payment con data.id no numérico: {}", mpPaymentId);
+            return Outcome.PAYMENT_NOT_FOUND;
+        }
+
+        Optional<Payment> knownPayment = paymentService.findByAnyGatewayId(mpPaymentId);
+
+        // Si aún no se sabe a qué copypoint pertenece se usan las credenciales de la plataforma
+        MercadoPagoTenantClient client = knownPayment.flatMap(payment -> clientRegistry.forSale(payment.getSale()))
+                .orElseGet(clientRegistry::platform);
+        com.mercadopago.resources.payment.Payment mpPayment = client.getPayment(paymentId);
+
+        Optional<Payment> paymentOpt = knownPayment.isPresent()
+                ? knownPayment
+                : findByExternalReference(mpPayment.getExternalReference());
+        if (paymentOpt.isEmpty()) {
+            logger.warn("No se encontró payment para el pago {} de MercadoPago (external_reference: {})",
+                    mpPaymentId, mpPayment.getExternalReference());
+            return Outcome.PAYMENT_NOT_FOUND;
+        }
+
+        Payment payment = paymentOpt.get();
+        if (!isSignatureValid(payment, mpPaymentId, signature, requestId)) {
+            return Outcome.INVALID_SIGNATURE;
+        }
+
+        PaymentStatus newStatus = mercadoPagoService.applyPaymentUpdate(payment, mpPayment);
+        attemptWriter.enqueue(payment, mercadoPagoService.mapStatusToAttemptStatus(newStatus), payload);
+
+        logger.info("Webhook de payment {} aplicado a Payment {} - Estado: {}", mpPaymentId, payment.getId(), newStatus);
+        return Outcome.PROCESSED;
+    }
+
+    /**
+     * La orden no identifica al copypoint: se consulta con las credenciales de la
+     * plataforma y solo se usa para completar el gatewayPaymentId
+     */
+    private Outcome processMerchantOrder(String mpOrderId, String payload, String signature, String requestId)
+            throws MPException, MPApiException {
+        Long orderId = parseId(mpOrderId);
+        if (orderId == null) {
+            logger.warn("Webhook de merchant order con data.id no numérico: {}", mpOrderId);
+            return Outcome.PAYMENT_NOT_FOUND;
+        }
+
+        MerchantOrder merchantOrder = clientRegistry.platform().getMerchantOrder(orderId);
+
+        Optional<Payment> paymentOpt = findByExternalReference(merchantOrder.getExternalReference());
+        if (paymentOpt.isEmpty()) {
+            logger.warn("No se encontró payment para la merchant order {} (external_reference: {})",
+                    mpOrderId, merchantOrder.getExternalReference());
+            return Outcome.PAYMENT_NOT_FOUND;
+        }
+
+        Payment payment = paymentOpt.get();
+        if (!isSignatureValid(payment, mpOrderId, signature, requestId)) {
+            return Outcome.INVALID_SIGNATURE;
+        }
+
+        // El estado llega con la notificación de payment; aquí solo se completa el ID
+        if (!payment.hasGatewayPaymentId() && merchantOrder.getPayments() != null && !merchantOrder.getPayments().isEmpty()) {
+            String mpPaymentId = String.valueOf(merchantOrder.getPayments().get(0).getId());
+            paymentService.updatePaymentGatewayPaymentId(payment.getId(), mpPaymentId);
+            logger.info("Payment {} actualizado con Gateway Payment ID desde merchant order: {}",
+                    payment.getId(), mpPaymentId);
+        }
+
+        attemptWriter.enqueue(payment, PaymentAttemptStatus.PENDING, payload);
+        return Outcome.PROCESSED;
+    }
+
+    private Outcome processGeneric(MercadoPagoNotification notification, String payload, String signature,
+                                   String requestId) {
+        logger.warn("Tipo de webhook no manejado: {}, intentando búsqueda genérica", notification.topic());
+
+        Optional<Payment> paymentOpt = paymentService.findByAnyGatewayId(notification.dataId());
+        if (paymentOpt.isEmpty()) {
+            return Outcome.PAYMENT_NOT_FOUND;
+        }
+
+        Payment payment = paymentOpt.get();
+        if (!isSignatureValid(payment, notification.dataId(), signature, requestId)) {
+            return Outcome.INVALID_SIGNATURE;
+        }
+
+        attemptWriter.enqueue(payment, PaymentAttemptStatus.PENDING, payload);
+        return Outcome.PROCESSED;
+    }
+
+    /**
+     * El external_reference contiene nuestro Payment ID interno
+     */
+    private Optional<Payment> findByExternalReference(String externalReference) {
+        if (externalReference == null || externalReference.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return paymentService.findById(Long.parseLong(externalReference.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private boolean isSignatureValid(Payment payment, String dataId, String signature, String requestId) {
+        if (signature == null) {
+            logger.warn("No se recibió signature en el webhook del payment {}", payment.getId());
+            return true;
+        }
+
+        String webhookSecret = mercadoPagoConfigService.getWebhookSecretForSale(payment.getSale());
+        if (webhookSecret == null || webhookSecret.isBlank()) {
+            logger.warn("No hay webhook secret configurado para el payment {}, saltando validación", payment.getId());
+            return true;
+        }
+
+        if (!signatureVerifier.isValid(webhookSecret, dataId, requestId, signature)) {
+            logger.warn("Signature inválida para payment: {}", payment.getId());
+            return false;
+        }
+        return true;
+    }
+
+    private static Long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public enum Outcome {
+        PROCESSED,
+        PAYMENT_NOT_FOUND,
+        INVALID_SIGNATURE
+    }
+}
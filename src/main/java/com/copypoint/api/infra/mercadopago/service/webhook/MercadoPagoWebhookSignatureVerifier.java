@@ -0,0 +1,75 @@
+package com.copypoint.api.infra.mercadopago.service.webhook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Verifica el header x-signature de los webhooks de MercadoPago ("ts=...,v1=...").
+ * <p>
+ * v1 es el HMAC-SHA256 hexadecimal, con el webhook secret del copypoint, del
+ * manifiesto "id:{data.id};request-id:{x-request-id};ts:{ts};". Las partes que no
+ * vienen en la notificación se omiten del manifiesto, como indica MercadoPago.
+ */
+@Component
+public class MercadoPagoWebhookSignatureVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(MercadoPagoWebhookSignatureVerifier.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    public boolean isValid(String secret, String dataId, String requestId, String signature) {
+        String ts = null;
+        String v1 = null;
+        for (String part : signature.split(",")) {
+            int separator = part.indexOf('=');
+            if (separator < 0) {
+                continue;
+            }
+            String key = part.substring(0, separator).trim();
+            String value = part.substring(separator + 1).trim();
+            if ("ts".equals(key)) {
+                ts = value;
+            } else if ("v1".equals(key)) {
+                v1 = value;
+            }
+        }
+        if (ts == null || v1 == null) {
+            logger.warn("Header x-signature de MercadoPago sin ts o v1");
+            return false;
+        }
+
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            byte[] expected = mac.doFinal(manifest(dataId, requestId, ts).getBytes(StandardCharsets.UTF_8));
+
+            return MessageDigest.isEqual(expected, HexFormat.of().parseHex(v1));
+        } catch (IllegalArgumentException e) {
+            // v1 que no es hexadecimal
+            return false;
+        } catch (Exception e) {
+            logger.error("Error verificando firma de webhook de MercadoPago: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * El data.id alfanumérico se firma en minúsculas
+     */
+    static String manifest(String dataId, String requestId, String ts) {
+        StringBuilder manifest = new StringBuilder();
+        if (dataId != null && !dataId.isBlank()) {
+            manifest.append("id:").append(dataId.toLowerCase()).append(';');
+        }
+        if (requestId != null && !requestId.isBlank()) {
+            manifest.append("request-id:").append(requestId).append(';');
+        }
+        manifest.append("ts:").append(ts).append(';');
+        return manifest.toString();
+    }
+}
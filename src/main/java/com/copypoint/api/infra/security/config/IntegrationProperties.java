@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "app.integrations")
 public class IntegrationProperties {
@@ -33,6 +35,17 @@ public class IntegrationProperties {
         private String tokenPrefix;
         private int tokenExpiryHours = 24;
 
+        // Procesamiento asíncrono desde webhook_inbox
+        private int workers = 4;
+        private int queueCapacity = 256;
+        private int maxAttempts = 5;
+        // Tiempo que un worker retiene una fila antes de que otro pueda reclamarla
+        private Duration lease = Duration.ofMinutes(5);
+        // Antigüedad mínima de una fila RECEIVED para que el recuperador la reencole
+        private Duration recoveryGrace = Duration.ofSeconds(30);
+        // Notificaciones repetidas del mismo evento dentro de esta ventana se agrupan (MercadoPago)
+        private Duration dedupWindow = Duration.ofMinutes(2);
+
     }
 
     // Getters y Setters principales
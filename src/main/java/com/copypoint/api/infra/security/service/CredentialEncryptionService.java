@@ -14,6 +14,9 @@ public class CredentialEncryptionService {
     @Autowired
     private AESUtil aesUtil;
 
+    @Autowired
+    private CredentialVault credentialVault;
+
     @Value("${app.encryption.secret-key}")
     private String secretKey;
 
@@ -29,7 +32,7 @@ public class CredentialEncryptionService {
 
         try {
             validateSecretKey();
-            String encrypted = aesUtil.encrypt(rawCredential.trim(), secretKey);
+            String encrypted = credentialVault.encrypt(rawCredential.trim());
             logger.debug("Credencial encriptada exitosamente");
             return encrypted;
         } catch (Exception e) {
@@ -39,7 +42,8 @@ public class CredentialEncryptionService {
     }
 
     /**
-     * Desencripta una credencial
+     * Desencripta una credencial. Las que se usaron hace poco salen del cache
+     * de CredentialVault sin volver a descifrar.
      * @param encryptedCredential Credencial encriptada en Base64
      * @return Credencial en texto plano
      */
@@ -50,9 +54,7 @@ public class CredentialEncryptionService {
 
         try {
             validateSecretKey();
-            String decrypted = aesUtil.decrypt(encryptedCredential.trim(), secretKey);
-            logger.debug("Credencial desencriptada exitosamente");
-            return decrypted;
+            return credentialVault.decrypt(encryptedCredential.trim());
         } catch (Exception e) {
             logger.error("Error al desencriptar credencial: {}", e.getMessage());
             throw new RuntimeException("Error al desencriptar credencial", e);
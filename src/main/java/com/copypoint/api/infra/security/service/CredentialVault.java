@@ -0,0 +1,209 @@
+package com.copypoint.api.infra.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Cifrado AES-256-CBC de credenciales con objetos reutilizables.
+ * <p>
+ * La clave se deriva una sola vez al arrancar y cada hilo reutiliza su propio
+ * {@link Cipher} (no es thread-safe, pero crearlo con {@code Cipher.getInstance}
+ * en cada llamada es lo más caro del proceso). El formato es el mismo de
+ * AESUtil: Base64(IV + datos).
+ * <p>
+ * Las credenciales descifradas se guardan un tiempo corto en un cache acotado,
+ * con el SHA-256 del texto cifrado como clave. El valor se guarda como
+ * {@code char[]} y se sobrescribe con ceros al salir del cache. Cambiar una
+ * credencial produce otro texto cifrado (IV aleatorio), así que la anterior
+ * simplemente expira.
+ */
+@Component
+public class CredentialVault {
+    private static final String ALGORITHM = "AES/CBC/PKCS5Padding";
+    private static final String KEY_ALGORITHM = "AES";
+    private static final int IV_LENGTH = 16;
+    private static final int KEY_LENGTH_CHARS = 32;
+
+    private final SecretKeySpec keySpec;
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(CredentialVault::newCipher);
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Cache<String, CachedSecret> decrypted;
+
+    public CredentialVault(@Value("${app.encryption.secret-key}") String secretKey,
+                           @Value("${app.encryption.cache.maximum-size:500}") long maximumSize,
+                           @Value("${app.encryption.cache.ttl:5m}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        // Una clave inválida no impide arrancar; falla al usarse, como antes
+        if (secretKey != null && secretKey.length() == KEY_LENGTH_CHARS) {
+            byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
+            this.keySpec = new SecretKeySpec(keyBytes, KEY_ALGORITHM);
+            Arrays.fill(keyBytes, (byte) 0);
+        } else {
+            this.keySpec = null;
+        }
+
+        this.decrypted = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .removalListener((RemovalListener<String, CachedSecret>) (key, secret, cause) -> {
+                    if (secret != null) {
+                        secret.destroy();
+                    }
+                })
+                .recordStats()
+                .build();
+
+        Gauge.builder("cache.hit.ratio", decrypted, cache -> cache.stats().hitRate())
+                .tag("cache", "decryptedCredentials")
+                .description("Proporción de lecturas servidas desde cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cifra un texto; devuelve Base64(IV + datos)
+     */
+    public String encrypt(String plainText) {
+        requireKey();
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new IvParameterSpec(iv));
+            byte[] plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+            byte[] encryptedWithIv = new byte[IV_LENGTH + cipher.getOutputSize(plainBytes.length)];
+            System.arraycopy(iv, 0, encryptedWithIv, 0, IV_LENGTH);
+            int length = cipher.doFinal(plainBytes, 0, plainBytes.length, encryptedWithIv, IV_LENGTH);
+            Arrays.fill(plainBytes, (byte) 0);
+
+            return Base64.getEncoder().encodeToString(
+                    length + IV_LENGTH == encryptedWithIv.length
+                            ? encryptedWithIv
+                            : Arrays.copyOf(encryptedWithIv, IV_LENGTH + length));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error al encriptar: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Descifra un texto Base64(IV + datos), usando el cache si ya se descifró hace poco
+     */
+    public String decrypt(String encryptedText) {
+        requireKey();
+        String cacheKey = sha256(encryptedText);
+        CachedSecret cached = decrypted.getIfPresent(cacheKey);
+        if (cached != null) {
+            String value = cached.reveal();
+            if (value != null) {
+                return value;
+            }
+        }
+
+        char[] secret = decryptToChars(encryptedText);
+        try {
+            decrypted.put(cacheKey, new CachedSecret(secret.clone()));
+            return new String(secret);
+        } finally {
+            Arrays.fill(secret, '\0');
+        }
+    }
+
+    /**
+     * Vacía el cache (y sobrescribe los valores), p. ej. al rotar credenciales
+     */
+    public void evictAll() {
+        decrypted.invalidateAll();
+    }
+
+    private char[] decryptToChars(String encryptedText) {
+        byte[] encryptedWithIv = Base64.getDecoder().decode(encryptedText);
+        if (encryptedWithIv.length <= IV_LENGTH) {
+            throw new IllegalArgumentException("Datos encriptados inválidos");
+        }
+
+        byte[] plainBytes = null;
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(encryptedWithIv, 0, IV_LENGTH));
+            plainBytes = cipher.doFinal(encryptedWithIv, IV_LENGTH, encryptedWithIv.length - IV_LENGTH);
+
+            // El arreglo del CharBuffer puede ser más grande que el texto; se copia solo el contenido
+            CharBuffer buffer = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(plainBytes));
+            char[] chars = Arrays.copyOfRange(buffer.array(), buffer.position(), buffer.limit());
+            Arrays.fill(buffer.array(), '\0');
+            return chars;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error al desencriptar: " + e.getMessage(), e);
+        } finally {
+            if (plainBytes != null) {
+                Arrays.fill(plainBytes, (byte) 0);
+            }
+        }
+    }
+
+    private void requireKey() {
+        if (keySpec == null) {
+            throw new IllegalStateException("La clave secreta no está configurada correctamente. Debe tener 32 caracteres.");
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Algoritmo " + ALGORITHM + " no disponible", e);
+        }
+    }
+
+    /**
+     * Credencial descifrada en cache. Se lee y se destruye bajo el mismo lock
+     * para que una lectura nunca vea el arreglo a medio borrar.
+     */
+    private static final class CachedSecret {
+        private char[] chars;
+
+        CachedSecret(char[] chars) {
+            this.chars = chars;
+        }
+
+        synchronized String reveal() {
+            return chars != null ? new String(chars) : null;
+        }
+
+        synchronized void destroy() {
+            if (chars != null) {
+                Arrays.fill(chars, '\0');
+                chars = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.copypoint.api.infra.utils;
+
+/**
+ * Detecta el tipo de contenido a partir de los primeros bytes de un archivo
+ * (magic numbers), sin necesidad de tenerlo completo en memoria.
+ */
+public final class ContentTypeSniffer {
+
+    public static final String OCTET_STREAM = "application/octet-stream";
+
+    // Bytes suficientes para reconocer todos los formatos soportados
+    public static final int HEAD_LENGTH = 16;
+
+    private ContentTypeSniffer() {
+    }
+
+    /**
+     * Detecta el tipo con los primeros {@code length} bytes de {@code head}.
+     * Si no se reconoce se usa {@code fallback} (p. ej. el Content-Type declarado por el origen).
+     */
+    public static String sniff(byte[] head, int length, String fallback) {
+        String detected = detect(head, length);
+        if (detected != null) {
+            return detected;
+        }
+        if (fallback != null && !fallback.isBlank() && !OCTET_STREAM.equals(fallback)) {
+            return fallback;
+        }
+        // Contenedor MP4/ISO: puede ser audio o video, solo se usa si el origen no declaró nada
+        return isIsoContainer(head, length) ? "video/mp4" : OCTET_STREAM;
+    }
+
+    private static String detect(byte[] data, int length) {
+        if (data == null || length < 4) {
+            return null;
+        }
+
+        if (data[0] == (byte) 0xFF && data[1] == (byte) 0xD8) {
+            return "image/jpeg";
+        }
+        if (data[0] == (byte) 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return "image/png";
+        }
+        if (data[0] == 'G' && data[1] == 'I' && data[2] == 'F') {
+            return "image/gif";
+        }
+        if (data[0] == '%' && data[1] == 'P' && data[2] == 'D' && data[3] == 'F') {
+            return "application/pdf";
+        }
+        if (length >= 12 && data[0] == 'R' && data[1] == 'I' && data[2] == 'F' && data[3] == 'F'
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P') {
+            return "image/webp";
+        }
+        if (data[0] == 'O' && data[1] == 'g' && data[2] == 'g' && data[3] == 'S') {
+            return "audio/ogg";
+        }
+        // ZIP (docx, xlsx, pptx) y OLE2 (doc, xls, ppt): el tipo exacto lo da el origen
+        return null;
+    }
+
+    private static boolean isIsoContainer(byte[] data, int length) {
+        return data != null && length >= 8
+                && data[4] == 'f' && data[5] == 't' && data[6] == 'y' && data[7] == 'p';
+    }
+}
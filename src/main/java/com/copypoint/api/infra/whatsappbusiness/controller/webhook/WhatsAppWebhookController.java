@@ -1,9 +1,9 @@
 package com.copypoint.api.infra.whatsappbusiness.controller.webhook;
 
-import com.copypoint.api.infra.whatsappbusiness.dto.response.WhatsAppWebhookDTO;
+import com.copypoint.api.domain.webhookinbox.WebhookInbox;
 import com.copypoint.api.infra.whatsappbusiness.service.webhook.WhatsAppBusinessWebhookService;
+import com.copypoint.api.infra.whatsappbusiness.service.webhook.WhatsAppWebhookDispatcher;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +23,9 @@ public class WhatsAppWebhookController {
     @Autowired
     private WhatsAppBusinessWebhookService webhookService;
 
+    @Autowired
+    private WhatsAppWebhookDispatcher webhookDispatcher;
+
     // Verificación del webhook (requerido por WhatsApp)
     @GetMapping("/{customerServicePhoneId}")
     public ResponseEntity<String> verifyWebhook(
@@ -52,6 +55,7 @@ public class WhatsAppWebhookController {
     public ResponseEntity<String> receiveMessage(
             @PathVariable Long customerServicePhoneId,
             @RequestBody(required = false) String rawBody,  // Capturar el JSON crudo primero
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
             @RequestHeader Map<String, String> headers,     // Capturar todos los headers
             HttpServletRequest request) {
 
@@ -80,28 +84,24 @@ public class WhatsAppWebhookController {
         }
 
         try {
-            // Intentar parsear manualmente el JSON
-            ObjectMapper objectMapper = new ObjectMapper();
-            WhatsAppWebhookDTO webhookData = objectMapper.readValue(rawBody, WhatsAppWebhookDTO.class);
-
-            logger.info("JSON parseado exitosamente: {}", webhookData);
-
-            String signature = headers.get("X-Hub-Signature-256");
             logger.info("Signature: {}", signature);
 
-            // Procesar el mensaje recibido
-            webhookService.processIncomingMessage(customerServicePhoneId, webhookData, signature);
+            // Verificar la firma, guardar el payload crudo y responder de inmediato; el
+            // procesamiento (contactos, conversación, mensaje, medios) ocurre en WhatsAppWebhookDispatcher
+            WebhookInbox inbox = webhookDispatcher.accept(customerServicePhoneId, rawBody, signature);
 
-            logger.info("Mensaje procesado exitosamente");
+            logger.info("Webhook guardado en bandeja de entrada: {}", inbox.getId());
             return ResponseEntity.ok("MESSAGE_RECEIVED");
 
+        } catch (SecurityException e) {
+            logger.warn("Webhook WhatsApp rechazado para teléfono {}: firma inválida", customerServicePhoneId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid signature");
         } catch (JsonProcessingException e) {
             logger.error("Error parseando JSON: {}", e.getMessage());
-            logger.error("JSON problemático: {}", rawBody);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Error parsing JSON: " + e.getMessage());
         } catch (Exception e) {
-            logger.error("Error procesando mensaje de webhook WhatsApp: {}", e.getMessage(), e);
+            logger.error("Error guardando webhook WhatsApp: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error procesando mensaje: " + e.getMessage());
         }
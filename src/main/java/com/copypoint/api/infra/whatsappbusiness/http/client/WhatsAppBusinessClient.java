@@ -12,6 +12,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.Map;
 
@@ -89,6 +91,57 @@ public class WhatsAppBusinessClient {
         }
     }
 
+    /**
+     * Descarga un media de WhatsApp entregando el cuerpo de la respuesta como stream
+     * al {@code handler}, sin cargarlo en memoria. El stream solo es válido dentro
+     * del handler; la conexión se cierra al terminar.
+     */
+    public <T> T streamMedia(String mediaId, String encryptedAccessToken, MediaStreamHandler<T> handler) {
+        try {
+            String accessToken = encryptionService.decryptCredential(encryptedAccessToken);
+
+            // Primero obtenemos la URL y el tipo declarado del media
+            String mediaInfoUrl = String.format("%s/%s", WHATSAPP_API_BASE_URL, mediaId);
+            HttpEntity<?> entity = new HttpEntity<>(createHeaders(accessToken));
+
+            ResponseEntity<Map> mediaInfoResponse = restTemplate.exchange(
+                    URI.create(mediaInfoUrl),
+                    HttpMethod.GET,
+                    entity,
+                    Map.class
+            );
+
+            String mediaUrl = (String) mediaInfoResponse.getBody().get("url");
+            String declaredMimeType = (String) mediaInfoResponse.getBody().get("mime_type");
+
+            // Ahora leemos el archivo directamente del cuerpo de la respuesta
+            return restTemplate.execute(
+                    URI.create(mediaUrl),
+                    HttpMethod.GET,
+                    request -> request.getHeaders().setBearerAuth(accessToken),
+                    response -> {
+                        String contentType = declaredMimeType;
+                        if (contentType == null && response.getHeaders().getContentType() != null) {
+                            contentType = response.getHeaders().getContentType().toString();
+                        }
+                        return handler.handle(response.getBody(), contentType, response.getHeaders().getContentLength());
+                    }
+            );
+
+        } catch (Exception e) {
+            logger.error("Error descargando media de WhatsApp: {}", e.getMessage(), e);
+            throw new RuntimeException("Error descargando media de WhatsApp", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface MediaStreamHandler<T> {
+        /**
+         * @param contentLength tamaño anunciado por el servidor, -1 si no se conoce
+         */
+        T handle(InputStream body, String declaredContentType, long contentLength) throws IOException;
+    }
+
     private HttpHeaders createHeaders(String accessToken) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -0,0 +1,182 @@
+package com.copypoint.api.infra.whatsappbusiness.service.media;
+
+import com.copypoint.api.domain.mediadownloadjob.MediaDownloadJob;
+import com.copypoint.api.domain.mediadownloadjob.MediaDownloadJobStatus;
+import com.copypoint.api.domain.mediadownloadjob.repository.MediaDownloadJobRepository;
+import com.copypoint.api.domain.mediadownloadjob.service.MediaDownloadJobService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drena la tabla media_download_jobs.
+ * <p>
+ * En cada ronda busca trabajos vencidos y reclama solo tantos como workers
+ * libres haya, respetando el máximo de descargas simultáneas por teléfono
+ * (contadas en todas las instancias). El reclamo es un UPDATE condicional con
+ * lease: si la instancia se cae, el trabajo vuelve a estar disponible cuando
+ * el lease vence. Los fallos se reprograman con backoff en la tabla; ningún
+ * hilo espera entre reintentos.
+ */
+@Service
+public class MediaDownloadJobWorker {
+    private static final Logger logger = LoggerFactory.getLogger(MediaDownloadJobWorker.class);
+
+    private final MediaDownloadJobRepository jobRepository;
+    private final MediaDownloadJobService jobService;
+    private final WhatsAppMediaService mediaService;
+    private final ThreadPoolExecutor executor;
+    private final int workers;
+    private final int perPhoneConcurrency;
+    private final Duration lease;
+    private final String owner;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong pendingJobs = new AtomicLong();
+
+    private final Counter succeededCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    public MediaDownloadJobWorker(MediaDownloadJobRepository jobRepository,
+                                  MediaDownloadJobService jobService,
+                                  WhatsAppMediaService mediaService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.media.download.workers:4}") int workers,
+                                  @Value("${app.media.download.per-phone-concurrency:2}") int perPhoneConcurrency,
+                                  @Value("${app.media.download.lease:10m}") Duration lease) {
+        this.jobRepository = jobRepository;
+        this.jobService = jobService;
+        this.mediaService = mediaService;
+        this.workers = Math.max(1, workers);
+        this.perPhoneConcurrency = Math.max(1, perPhoneConcurrency);
+        this.lease = lease;
+        this.owner = ownerId();
+
+        AtomicInteger sequence = new AtomicInteger();
+        // Solo se reclaman trabajos cuando hay un hilo libre; la cola acotada cubre el
+        // instante en que un hilo ya liberó su lugar pero aún no toma la siguiente tarea
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.workers), runnable -> {
+            Thread thread = new Thread(runnable, "media-download-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.succeededCounter = Counter.builder("media.download.jobs.succeeded")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("media.download.jobs.retried")
+                .description("Intentos fallidos reprogramados con backoff")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("media.download.jobs.failed")
+                .description("Descargas que agotaron sus intentos")
+                .register(meterRegistry);
+        Gauge.builder("media.download.jobs.in.flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder("media.download.jobs.pending", pendingJobs, AtomicLong::get)
+                .description("Trabajos PENDING en la última ronda del planificador")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.media.download.poll-interval-ms:5000}")
+    public void poll() {
+        try {
+            pendingJobs.set(jobRepository.countByStatus(MediaDownloadJobStatus.PENDING));
+
+            int free = workers - inFlight.get();
+            if (free <= 0) {
+                return;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            Map<Long, Long> runningByPhone = new HashMap<>();
+            for (MediaDownloadJobRepository.PhoneRunningCount count : jobRepository.countRunningByPhone(now)) {
+                runningByPhone.put(count.getPhoneId(), count.getRunning());
+            }
+
+            // Se leen más candidatos que huecos para saltar teléfonos que ya están al límite
+            List<MediaDownloadJob> due = jobRepository.findDue(now, PageRequest.of(0, free * 4));
+            for (MediaDownloadJob job : due) {
+                if (free <= 0) {
+                    break;
+                }
+                Long phoneId = job.getCustomerServicePhoneId();
+                if (runningByPhone.getOrDefault(phoneId, 0L) >= perPhoneConcurrency) {
+                    continue;
+                }
+                if (jobRepository.claim(job.getId(), owner, now, now.plus(lease)) == 0) {
+                    // Otra instancia la reclamó primero
+                    continue;
+                }
+
+                job.setAttempts(job.getAttempts() + 1);
+                runningByPhone.merge(phoneId, 1L, Long::sum);
+                free--;
+                inFlight.incrementAndGet();
+                try {
+                    executor.execute(() -> run(job));
+                } catch (RejectedExecutionException e) {
+                    // Se devuelve a la tabla en lugar de esperar a que venza el lease
+                    inFlight.decrementAndGet();
+                    jobRepository.reschedule(job.getId(), owner, now, job.getLastError());
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error en el planificador de descargas de media: {}", e.getMessage(), e);
+        }
+    }
+
+    private void run(MediaDownloadJob job) {
+        try {
+            mediaService.downloadForJob(job);
+            jobService.recordSuccess(job, owner);
+            succeededCounter.increment();
+        } catch (Exception e) {
+            if (jobService.recordFailure(job, owner, e.getMessage())) {
+                retriedCounter.increment();
+                logger.warn("Descarga de media {} falló (intento {}), se reprogramó: {}",
+                        job.getMediaSid(), job.getAttempts(), e.getMessage());
+            } else {
+                failedCounter.increment();
+                logger.error("Descarga de media {} descartada tras {} intentos: {}",
+                        job.getMediaSid(), job.getAttempts(), e.getMessage());
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Los trabajos interrumpidos quedan RUNNING y se retoman al vencer el lease
+        executor.shutdownNow();
+    }
+
+    private static String ownerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
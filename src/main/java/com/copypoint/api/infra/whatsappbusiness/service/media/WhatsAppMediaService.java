@@ -6,20 +6,23 @@ import com.copypoint.api.domain.attachment.AttachmentFileType;
 import com.copypoint.api.domain.attachment.service.AttachmentService;
 import com.copypoint.api.domain.customerservicephone.CustomerServicePhone;
 import com.copypoint.api.domain.customerservicephone.service.CustomerServicePhoneService;
+import com.copypoint.api.domain.mediadownloadjob.MediaDownloadJob;
+import com.copypoint.api.domain.mediadownloadjob.service.MediaDownloadJobService;
+import com.copypoint.api.domain.storedmedia.StoredMedia;
+import com.copypoint.api.domain.storedmedia.service.StoredMediaService;
 import com.copypoint.api.domain.message.Message;
 import com.copypoint.api.domain.message.service.MessageService;
 import com.copypoint.api.domain.whatsappbussinessconfiguration.WhatsAppBusinessConfiguration;
+import com.copypoint.api.infra.cloudflare.r2.dto.R2UploadResult;
 import com.copypoint.api.infra.cloudflare.r2.service.CloudflareR2Service;
 import com.copypoint.api.infra.whatsappbusiness.http.client.WhatsAppBusinessClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class WhatsAppMediaService {
@@ -40,6 +43,12 @@ public class WhatsAppMediaService {
     @Autowired
     private AttachmentService attachmentService;
 
+    @Autowired
+    private MediaDownloadJobService downloadJobService;
+
+    @Autowired
+    private StoredMediaService storedMediaService;
+
     /**
      * Crea un attachment y descarga el media de WhatsApp
      * Retorna el attachment inmediatamente, incluso si la descarga está pendiente
@@ -59,13 +68,15 @@ public class WhatsAppMediaService {
         // Asociar el attachment al mensaje
         message.addAttachment(attachment);
 
-        // Generar URL de R2 inmediatamente
-        String r2Key = generateR2Key(mediaId, phone.getId());
+        // El trabajo existe antes de intentar: si el proceso muere a mitad de la
+        // descarga síncrona, la cola la retoma cuando vence el lease
+        MediaDownloadJob job = downloadJobService.reserve(attachment, phone.getId());
 
         // Intentar descarga síncrona primero (con timeout corto)
         try {
-            if (downloadMediaSync(mediaId, phone, r2Key, attachment)) {
+            if (downloadMediaSync(mediaId, phone, attachment)) {
                 logger.info("Media descargado síncronamente: {}", mediaId);
+                downloadJobService.recordInlineSuccess(job);
                 return attachment;
 
             }
@@ -74,47 +85,69 @@ public class WhatsAppMediaService {
                     mediaId, e.getMessage());
         }
 
-        // Si falla la descarga síncrona, programar descarga asíncrona
-        downloadMediaAsync(mediaId, phone, r2Key, attachment);
+        // Si falla la descarga síncrona, dejarla en la cola persistente con backoff
+        downloadJobService.enqueue(attachment, phone.getId(), 1, attachment.getDownloadErrorMessage());
 
         // Retornar URL aunque la descarga esté pendiente
         return attachment;
     }
 
     /**
-     * Descarga síncrona con timeout corto
+     * Descarga síncrona con timeout corto.
+     * <p>
+     * El media se guarda bajo una clave derivada de su SHA-256: si otro attachment
+     * ya subió el mismo contenido no se vuelve a escribir en R2, solo se suma una
+     * referencia y se reutiliza el conteo de páginas ya calculado. La referencia
+     * se toma antes de decidir omitir la subida y se libera si la descarga no
+     * llega a guardarse en el attachment.
      */
-    private boolean downloadMediaSync(String mediaId, CustomerServicePhone phone,
-                                      String r2Key, Attachment attachment) {
+    private boolean downloadMediaSync(String mediaId, CustomerServicePhone phone, Attachment attachment) {
+        AtomicReference<String> referencedKey = new AtomicReference<>();
         try {
             if (!(phone.getMessagingConfig() instanceof WhatsAppBusinessConfiguration config)) {
                 return false;
             }
 
-            // Verificar si ya existe en R2
-            if (r2Service.fileExists(r2Key)) {
-                logger.debug("Media {} ya existe en R2", mediaId);
-                updateAttachmentAsDownloaded(attachment, r2Key);
-                return true;
-            }
-
             // Marcar como descargando
             attachmentService.markAsDownloading(attachment);
 
-            // Descargar de WhatsApp
-            byte[] mediaData = whatsAppClient.downloadMedia(mediaId, config.getAccessTokenEncrypted());
-
-            if (mediaData == null || mediaData.length == 0) {
+            // Pasar el media de WhatsApp a R2 por streaming, sin cargarlo completo en memoria;
+            // el tipo se detecta con los primeros bytes y el tamaño y el hash se calculan al vuelo
+            R2UploadResult upload = whatsAppClient.streamMedia(mediaId, config.getAccessTokenEncrypted(),
+                    (body, declaredContentType, contentLength) -> {
+                        R2UploadResult result = r2Service.uploadContentAddressed(StoredMediaService.CONTENT_PREFIX,
+                                body, declaredContentType, storedMediaService::acquireExisting);
+                        if (result.deduplicated()) {
+                            referencedKey.set(result.key());
+                        }
+                        return result;
+                    });
+
+            if (upload == null || upload.sizeBytes() == 0) {
+                if (upload != null && !upload.deduplicated()) {
+                    r2Service.deleteFile(upload.key());
+                }
+                releaseReference(referencedKey.getAndSet(null));
                 return false;
             }
 
-            // Detectar tipo de contenido
-            String contentType = detectContentType(mediaId, mediaData);
+            StoredMedia stored;
+            if (upload.deduplicated()) {
+                stored = storedMediaService.findBySha256(upload.sha256()).orElse(null);
+            } else {
+                stored = storedMediaService.acquire(upload.sha256(), upload.key(),
+                        upload.contentType(), upload.sizeBytes());
+                referencedKey.set(upload.key());
+            }
+            if (stored != null && stored.getPageCount() != null) {
+                attachment.setPages(stored.getPageCount());
+            }
+
+            String contentType = upload.contentType();
 
             // Actualizar el attachment con información del archivo
             attachment.setMimeType(contentType);
-            attachment.setFileSizeBytes((long) mediaData.length);
-
+            attachment.setFileSizeBytes(upload.sizeBytes());
 
             // Actualizar tipo de archivo si no fue especificado
             if (attachment.getFileType() == AttachmentFileType.OTHER) {
@@ -123,21 +156,26 @@ public class WhatsAppMediaService {
                 attachment.setFileType(detectedType);
             }
 
-            // Subir a R2
-            r2Service.uploadFile(r2Key, mediaData, contentType);
-
             // Marcar como descargado exitosamente
             attachmentService.markAsDownloaded(attachment,
-                    r2Key,
+                    upload.key(),
                     contentType,
-                    (long) mediaData.length);
-
-            logger.info("Media {} subido exitosamente a R2 como {}", mediaId, r2Key);
+                    upload.sizeBytes());
+            // Desde aquí la referencia pertenece al attachment
+            referencedKey.set(null);
+
+            if (upload.deduplicated()) {
+                logger.info("Media {} ya estaba en R2 como {}, se reutiliza", mediaId, upload.key());
+            } else {
+                logger.info("Media {} subido exitosamente a R2 como {}", mediaId, upload.key());
+            }
             return true;
 
         } catch (Exception e) {
             logger.error("Error en descarga síncrona de media {}: {}", mediaId, e.getMessage());
 
+            releaseReference(referencedKey.getAndSet(null));
+
             // Marcar attachment como fallido
             attachmentService.markAsFailed(attachment, "Error descarga síncrona: " + e.getMessage());
 
@@ -145,49 +183,38 @@ public class WhatsAppMediaService {
         }
     }
 
+    private void releaseReference(String storageKey) {
+        if (storageKey == null) {
+            return;
+        }
+        try {
+            storedMediaService.release(storageKey);
+        } catch (Exception e) {
+            logger.warn("No se pudo liberar la referencia a {}: {}", storageKey, e.getMessage());
+        }
+    }
+
     /**
-     * Descarga asíncrona con reintentos
+     * Ejecuta un trabajo de la cola de descargas (ver MediaDownloadJobWorker).
+     * Lanza excepción si la descarga no se completó, para que el trabajo se reprograme.
      */
-    @Async
-    public void downloadMediaAsync(String mediaId, CustomerServicePhone phone,
-                                   String r2Key, Attachment attachment) {
-        CompletableFuture.runAsync(() -> {
-            int maxRetries = 3;
-            int retryDelay = 5000; // 5 segundos
-
-            for (int attempt = 1; attempt <= maxRetries; attempt++) {
-                try {
-                    if (downloadMediaSync(mediaId, phone, r2Key, attachment)) {
-                        logger.info("Media {} descargado exitosamente en intento {} (asíncrono)",
-                                mediaId, attempt);
-                        return;
-                    }
-                } catch (Exception e) {
-                    logger.warn("Intento {} fallido para media {}: {}", attempt, mediaId, e.getMessage());
-
-                    // Actualizar el número de intentos en el attachment
-                    attachment.setDownloadAttempts(attempt);
-                    attachmentService.save(attachment);
-                }
+    public void downloadForJob(MediaDownloadJob job) {
+        Optional<Attachment> attachmentOpt = attachmentService.findById(job.getAttachmentId());
+        if (attachmentOpt.isEmpty() || attachmentOpt.get().isDownloaded()) {
+            return;
+        }
 
-                // Esperar antes del siguiente intento
-                if (attempt < maxRetries) {
-                    try {
-                        Thread.sleep((long) retryDelay * attempt); // Backoff exponencial
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            }
+        CustomerServicePhone phone = customerServicePhoneService
+                .getByIdWithMessagingConfig(job.getCustomerServicePhoneId())
+                .orElseThrow(() -> new IllegalStateException(
+                        "No existe el teléfono " + job.getCustomerServicePhoneId()));
 
-            logger.error("Falló la descarga asíncrona de media {} después de {} intentos",
-                    mediaId, maxRetries);
+        Attachment attachment = attachmentOpt.get();
 
-            // Marcar como fallido definitivamente
-            attachmentService.markAsFailed(attachment,
-                    "Falló después de " + maxRetries + " intentos de descarga");
-        });
+        if (!downloadMediaSync(job.getMediaSid(), phone, attachment)) {
+            String error = attachment.getDownloadErrorMessage();
+            throw new IllegalStateException(error != null ? error : "No se pudo descargar el media " + job.getMediaSid());
+        }
     }
 
     /**
@@ -205,6 +232,14 @@ public class WhatsAppMediaService {
             Attachment attachment = attachmentOpt.get();
             String mediaId = attachment.getMediaSid();
 
+            // Ya tiene su referencia en stored_media; descargar de nuevo tomaría
+            // otra y la anterior nunca se liberaría
+            if (attachment.isDownloaded()) {
+                logger.info("Attachment {} ya está descargado en {}, no se reintenta",
+                        attachmentId, attachment.getStoragePath());
+                return true;
+            }
+
             if (mediaId == null) {
                 logger.warn("Attachment {} no tiene mediaSid", attachmentId);
                 return false;
@@ -219,19 +254,20 @@ public class WhatsAppMediaService {
             // Obtener el teléfono de customer service desde la conversación
             CustomerServicePhone phone = message.getConversation().getCustomerServicePhone();
 
-            String r2Key = generateR2Key(mediaId, phone.getId());
-
             // Resetear estado para reintento
             attachment.setDownloadStatus(AttachmentDownloadStatus.PENDING);
             attachment.setDownloadErrorMessage(null);
             attachmentService.save(attachment);
 
-            // Intentar descarga
-            boolean success = downloadMediaSync(mediaId, phone, r2Key, attachment);
+            // Intentar descarga, con el trabajo ya registrado por si el proceso muere
+            MediaDownloadJob job = downloadJobService.reserve(attachment, phone.getId());
+            boolean success = downloadMediaSync(mediaId, phone, attachment);
 
-            if (!success) {
-                // Si falla síncronamente, programar descarga asíncrona
-                downloadMediaAsync(mediaId, phone, r2Key, attachment);
+            if (success) {
+                downloadJobService.recordInlineSuccess(job);
+            } else {
+                // Si falla síncronamente, dejarla en la cola persistente con backoff
+                downloadJobService.enqueue(attachment, phone.getId(), 1, attachment.getDownloadErrorMessage());
             }
 
             return success;
@@ -242,35 +278,16 @@ public class WhatsAppMediaService {
         }
     }
 
-    /*
-     * Método para reintentar descargas fallidas masivamente
-     */
-    public void retryFailedDownloads(int maxAttempts) {
-        try {
-            List<Attachment> failedAttachments = attachmentService.findAttachmentsForRetry(maxAttempts);
-
-            logger.info("Reintentando {} descargas fallidas", failedAttachments.size());
-
-            for (Attachment attachment : failedAttachments) {
-                try {
-                    retryMediaDownload(attachment.getId());
-                } catch (Exception e) {
-                    logger.error("Error reintentando descarga de attachment {}: {}",
-                            attachment.getId(), e.getMessage());
-                }
-            }
-
-        } catch (Exception e) {
-            logger.error("Error en proceso de reintento masivo: {}", e.getMessage());
-        }
-    }
-
-
     /**
-     * Genera la clave única para R2
+     * Ruta en R2 de un media: la del attachment descargado (direccionada por
+     * contenido) o, para medias anteriores a la deduplicación, la clave por teléfono
      */
-    private String generateR2Key(String mediaId, Long phoneId) {
-        return String.format("whatsapp-media/%d/%s", phoneId, mediaId);
+    private String resolveStoragePath(String mediaId, Long phoneId) {
+        return attachmentService.findByMediaSid(mediaId).stream()
+                .filter(a -> a.isDownloaded() && a.getStoragePath() != null)
+                .map(Attachment::getStoragePath)
+                .findFirst()
+                .orElse(String.format("whatsapp-media/%d/%s", phoneId, mediaId));
     }
 
     /**
@@ -281,56 +298,11 @@ public class WhatsAppMediaService {
         return String.format("https://tu-dominio-r2.com/%s", r2Key);
     }
 
-    /**
-     * Detecta el tipo de contenido basado en los primeros bytes
-     */
-    private String detectContentType(String mediaId, byte[] data) {
-        if (data.length < 4) {
-            return "application/octet-stream";
-        }
-
-        // Detectar por magic numbers
-        if (data[0] == (byte) 0xFF && data[1] == (byte) 0xD8) {
-            return "image/jpeg";
-        }
-        if (data[0] == (byte) 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
-            return "image/png";
-        }
-        if (data[0] == 'G' && data[1] == 'I' && data[2] == 'F') {
-            return "image/gif";
-        }
-        if (data[0] == 0x00 && data[1] == 0x00 && data[2] == 0x00 && (data[3] == 0x18 || data[3] == 0x20)) {
-            return "video/mp4";
-        }
-
-        return "application/octet-stream";
-    }
-
-    /**
-     * Actualiza un attachment como descargado cuando ya existe en R2
-     */
-    private void updateAttachmentAsDownloaded(Attachment attachment, String r2Key) {
-        try {
-            // Generar URL de descarga
-            String downloadUrl = generateR2Url(r2Key);
-
-            // Marcar como descargado
-            attachmentService.markAsDownloaded(attachment, r2Key,
-                    attachment.getMimeType(), attachment.getFileSizeBytes());
-
-            logger.debug("Attachment {} marcado como descargado (ya existía en R2)",
-                    attachment.getId());
-
-        } catch (Exception e) {
-            logger.error("Error actualizando attachment como descargado: {}", e.getMessage());
-        }
-    }
-
     /**
      * Verifica si un media está disponible en R2
      */
     public boolean isMediaAvailable(String mediaId, Long phoneId) {
-        String r2Key = generateR2Key(mediaId, phoneId);
+        String r2Key = resolveStoragePath(mediaId, phoneId);
         return r2Service.fileExists(r2Key);
     }
 
@@ -354,7 +326,7 @@ public class WhatsAppMediaService {
      * Obtiene la URL de descarga por mediaId y phoneId (método de compatibilidad)
      */
     public String getMediaDownloadUrl(String mediaId, Long phoneId) {
-        String r2Key = generateR2Key(mediaId, phoneId);
+        String r2Key = resolveStoragePath(mediaId, phoneId);
         if (r2Service.fileExists(r2Key)) {
             return generateR2Url(r2Key);
         }
@@ -13,6 +13,7 @@ import com.copypoint.api.domain.message.Message;
 import com.copypoint.api.domain.message.MessageDirection;
 import com.copypoint.api.domain.message.MessageStatus;
 import com.copypoint.api.domain.message.service.MessageService;
+import com.copypoint.api.domain.message.service.MessageSidDeduplicator;
 import com.copypoint.api.domain.messagingproviderconfiguration.MessagingProviderConfiguration;
 import com.copypoint.api.domain.whatsappbussinessconfiguration.WhatsAppBusinessConfiguration;
 import com.copypoint.api.infra.whatsappbusiness.http.client.WhatsAppBusinessClient;
@@ -21,6 +22,7 @@ import com.copypoint.api.infra.whatsappbusiness.service.media.WhatsAppMediaServi
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -54,6 +56,12 @@ public class WhatsAppBusinessWebhookService {
     @Autowired
     private AttachmentService attachmentService;
 
+    @Autowired
+    private MessageSidDeduplicator messageSidDeduplicator;
+
+    @Autowired
+    private WhatsAppWebhookSignatureVerifier signatureVerifier;
+
     // Luego modificar el método verifyWebhookToken en WhatsAppBusinessWebhookService:
     public boolean verifyWebhookToken(Long customerServicePhoneId, String verifyToken) {
         try {
@@ -91,7 +99,13 @@ public class WhatsAppBusinessWebhookService {
         }
     }
 
-    public void processIncomingMessage(Long customerServicePhoneId, WhatsAppWebhookDTO webhookData, String signature) {
+    /**
+     * Aplica un webhook guardado en webhook_inbox. La firma se vuelve a verificar
+     * contra el cuerpo crudo guardado; si no es válida lanza SecurityException,
+     * que el dispatcher trata como error definitivo.
+     */
+    public void processIncomingMessage(Long customerServicePhoneId, WhatsAppWebhookDTO webhookData,
+                                       String rawBody, String signature) {
 
         Optional<CustomerServicePhone> phoneOpt = customerServicePhoneService.getByIdWithMessagingConfig(customerServicePhoneId);
 
@@ -105,8 +119,7 @@ public class WhatsAppBusinessWebhookService {
             throw new IllegalArgumentException("La configuración no es de tipo WhatsApp Business para el teléfono: " + customerServicePhoneId);
         }
 
-        // Verificar firma del webhook (opcional pero recomendado para seguridad)
-        if (signature != null && !verifyWebhookSignature(webhookData, signature, config.getAppSecretEncrypted())) {
+        if (!signatureVerifier.isValid(config, rawBody, signature)) {
             throw new SecurityException("Firma de webhook inválida");
         }
 
@@ -135,6 +148,12 @@ public class WhatsAppBusinessWebhookService {
                                            WhatsAppMessageDTO messageDto,
                                            List<WhatsAppContactDTO> contacts) {
         try {
+            // Redelivery reciente del mismo mensaje: se descarta sin tocar la base de datos
+            if (messageSidDeduplicator.isDuplicateMessage(messageDto.id())) {
+                logger.debug("Mensaje duplicado descartado (cache): {}", messageDto.id());
+                return;
+            }
+
             // Buscar o crear contacto
             Contact contact = findOrCreateContact(messageDto.from(), contacts);
 
@@ -158,8 +177,16 @@ public class WhatsAppBusinessWebhookService {
                             LocalDateTime.ofInstant(messageDto.getTimestampAsInstant(), ZoneId.systemDefault()) : null)
                     .build();
 
-            // Guardar el mensaje para obtener su ID
-            message = messageService.save(message);
+            // Guardar el mensaje para obtener su ID; el índice único sobre message_sid
+            // rechaza las redeliveries que ya no están en la cache
+            try {
+                message = messageService.save(message);
+            } catch (DataIntegrityViolationException duplicate) {
+                messageSidDeduplicator.recordDuplicateMessage(messageDto.id());
+                logger.debug("Mensaje duplicado descartado (índice único): {}", messageDto.id());
+                return;
+            }
+            messageSidDeduplicator.rememberMessage(messageDto.id());
 
 
             try {
@@ -278,6 +305,11 @@ public class WhatsAppBusinessWebhookService {
     }
 
     private void processMessageStatus(WhatsAppStatusDTO statusDto) {
+        if (messageSidDeduplicator.isDuplicateStatus(statusDto.id(), statusDto.status())) {
+            logger.debug("Estado duplicado descartado: {} {}", statusDto.id(), statusDto.status());
+            return;
+        }
+
         try {
             Message message = messageService.findByMessageSid(statusDto.id());
             if (message != null) {
@@ -298,20 +330,13 @@ public class WhatsAppBusinessWebhookService {
                         break;
                 }
                 messageService.save(message);
+            } else {
+                // El mensaje aún no existe; permitir que una redelivery lo aplique
+                messageSidDeduplicator.forgetStatus(statusDto.id(), statusDto.status());
             }
         } catch (Exception e) {
+            messageSidDeduplicator.forgetStatus(statusDto.id(), statusDto.status());
             logger.error("Error actualizando estado del mensaje: {}", e.getMessage(), e);
         }
     }
-
-    private boolean verifyWebhookSignature(WhatsAppWebhookDTO webhookData, String signature, String encryptedAppSecret) {
-        try {
-            // Implementar verificación de firma webhook usando el app secret
-            // Esta implementación es opcional pero recomendada para seguridad
-            return true; // Placeholder
-        } catch (Exception e) {
-            logger.error("Error verificando firma de webhook: {}", e.getMessage(), e);
-            return false;
-        }
-    }
 }
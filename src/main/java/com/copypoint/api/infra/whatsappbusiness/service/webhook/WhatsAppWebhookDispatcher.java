@@ -0,0 +1,323 @@
+package com.copypoint.api.infra.whatsappbusiness.service.webhook;
+
+import com.copypoint.api.domain.webhookinbox.WebhookInbox;
+import com.copypoint.api.domain.webhookinbox.WebhookInboxStatus;
+import com.copypoint.api.domain.webhookinbox.WebhookSource;
+import com.copypoint.api.domain.webhookinbox.repository.WebhookInboxRepository;
+import com.copypoint.api.infra.security.config.IntegrationProperties;
+import com.copypoint.api.infra.whatsappbusiness.dto.response.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recibe los webhooks de WhatsApp Business ya guardados en webhook_inbox y los
+ * procesa en segundo plano.
+ * <p>
+ * Antes de guardar se verifica la firma X-Hub-Signature-256 (cuando el teléfono
+ * tiene app secret, ver WhatsAppWebhookSignatureVerifier) y que el cuerpo sea
+ * JSON válido.
+ * <p>
+ * Hay un carril (un hilo con cola acotada) por worker. Cada payload se asigna a
+ * un carril según el teléfono de atención y el número del cliente, de modo que
+ * los mensajes de una misma conversación se aplican en orden. Un error
+ * transitorio se reintenta en el mismo carril, que queda bloqueado mientras
+ * tanto, para que ningún mensaje posterior de la conversación se adelante. Si la
+ * cola del carril está llena la fila queda en RECEIVED y el recuperador la
+ * reencola más tarde; el webhook nunca espera al procesamiento.
+ */
+@Service
+public class WhatsAppWebhookDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(WhatsAppWebhookDispatcher.class);
+    private static final int RECOVERY_BATCH_SIZE = 200;
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final long RETRY_BACKOFF_MS = 500;
+    private static final long MAX_RETRY_BACKOFF_MS = 8_000;
+
+    private final WebhookInboxRepository inboxRepository;
+    private final WhatsAppBusinessWebhookService webhookService;
+    private final WhatsAppWebhookSignatureVerifier signatureVerifier;
+    private final IntegrationProperties.WebhookConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadPoolExecutor[] lanes;
+    // Filas ya encoladas en esta instancia, para que el recuperador no las duplique
+    private final Set<Long> queuedIds = ConcurrentHashMap.newKeySet();
+
+    private final Counter receivedCounter;
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final AtomicLong pendingRows = new AtomicLong();
+
+    public WhatsAppWebhookDispatcher(WebhookInboxRepository inboxRepository,
+                                     WhatsAppBusinessWebhookService webhookService,
+                                     WhatsAppWebhookSignatureVerifier signatureVerifier,
+                                     IntegrationProperties integrationProperties,
+                                     MeterRegistry meterRegistry) {
+        this.inboxRepository = inboxRepository;
+        this.webhookService = webhookService;
+        this.signatureVerifier = signatureVerifier;
+        this.config = integrationProperties.getWhatsapp().getWebhook();
+
+        int workers = Math.max(1, config.getWorkers());
+        int queueCapacity = Math.max(1, config.getQueueCapacity());
+        this.lanes = new ThreadPoolExecutor[workers];
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), laneThreadFactory(i),
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        this.receivedCounter = Counter.builder("whatsapp.webhook.received")
+                .description("Webhooks de WhatsApp guardados en la bandeja de entrada")
+                .register(meterRegistry);
+        this.processedCounter = Counter.builder("whatsapp.webhook.processed")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("whatsapp.webhook.failed")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("whatsapp.webhook.rejected")
+                .description("Webhooks que no entraron a la cola por estar llena (se reencolan después)")
+                .register(meterRegistry);
+        Gauge.builder("whatsapp.webhook.queue.depth", this, WhatsAppWebhookDispatcher::queueDepth)
+                .description("Webhooks en cola esperando un worker")
+                .register(meterRegistry);
+        Gauge.builder("whatsapp.webhook.inbox.pending", pendingRows, AtomicLong::get)
+                .description("Filas pendientes en webhook_inbox en la última revisión del recuperador")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verifica la firma, guarda el payload crudo y lo entrega a un worker. Se llama
+     * desde el controlador; no hace llamadas externas.
+     *
+     * @throws SecurityException si el teléfono tiene app secret y la firma falta o no corresponde al cuerpo
+     * @throws JsonProcessingException si el cuerpo no es un webhook válido
+     */
+    public WebhookInbox accept(Long customerServicePhoneId, String rawBody, String signature)
+            throws JsonProcessingException {
+        if (!signatureVerifier.isValid(customerServicePhoneId, rawBody, signature)) {
+            throw new SecurityException("Firma de webhook inválida");
+        }
+        WhatsAppWebhookDTO webhookData = objectMapper.readValue(rawBody, WhatsAppWebhookDTO.class);
+
+        WebhookInbox inbox = inboxRepository.save(WebhookInbox.builder()
+                .source(WebhookSource.WHATSAPP_BUSINESS)
+                .referenceId(customerServicePhoneId)
+                .payload(rawBody)
+                .signature(signature)
+                .receivedAt(LocalDateTime.now())
+                .build());
+        receivedCounter.increment();
+
+        dispatch(inbox, webhookData);
+        return inbox;
+    }
+
+    /**
+     * Encola la fila en el carril de su conversación. Si el payload no se puede
+     * parsear se marca FAILED; si la cola está llena se deja para el recuperador.
+     */
+    public DispatchResult dispatch(WebhookInbox inbox) {
+        WhatsAppWebhookDTO webhookData;
+        try {
+            webhookData = objectMapper.readValue(inbox.getPayload(), WhatsAppWebhookDTO.class);
+        } catch (JsonProcessingException e) {
+            logger.error("Webhook {} de WhatsApp con JSON inválido: {}", inbox.getId(), e.getMessage());
+            inboxRepository.complete(inbox.getId(), WebhookInboxStatus.FAILED,
+                    truncate("JSON inválido: " + e.getMessage()), LocalDateTime.now());
+            failedCounter.increment();
+            return DispatchResult.INVALID;
+        }
+        return dispatch(inbox, webhookData);
+    }
+
+    private DispatchResult dispatch(WebhookInbox inbox, WhatsAppWebhookDTO webhookData) {
+        if (!queuedIds.add(inbox.getId())) {
+            return DispatchResult.QUEUED;
+        }
+
+        ThreadPoolExecutor lane = lanes[Math.floorMod(orderingKey(inbox.getReferenceId(), webhookData).hashCode(), lanes.length)];
+        try {
+            lane.execute(() -> {
+                try {
+                    process(inbox, webhookData);
+                } finally {
+                    queuedIds.remove(inbox.getId());
+                }
+            });
+            return DispatchResult.QUEUED;
+        } catch (RejectedExecutionException e) {
+            queuedIds.remove(inbox.getId());
+            rejectedCounter.increment();
+            logger.warn("Cola de webhooks de WhatsApp llena, la fila {} se procesará en la siguiente recuperación",
+                    inbox.getId());
+            return DispatchResult.REJECTED;
+        }
+    }
+
+    private void process(WebhookInbox inbox, WhatsAppWebhookDTO webhookData) {
+        Long inboxId = inbox.getId();
+        LocalDateTime now = LocalDateTime.now();
+        if (inboxRepository.claim(inboxId, now, now.minus(config.getLease())) == 0) {
+            // Otra instancia o un encolado anterior ya la tomó
+            return;
+        }
+
+        int attempts = 0;
+        while (true) {
+            try {
+                webhookService.processIncomingMessage(inbox.getReferenceId(), webhookData,
+                        inbox.getPayload(), inbox.getSignature());
+                inboxRepository.complete(inboxId, WebhookInboxStatus.PROCESSED, null, LocalDateTime.now());
+                processedCounter.increment();
+                return;
+            } catch (SecurityException e) {
+                // Reintentar no cambia la firma
+                logger.error("Webhook {} de WhatsApp con firma inválida, se descarta", inboxId);
+                fail(inboxId, e);
+                return;
+            } catch (Exception e) {
+                if (attempts == 0) {
+                    attempts = inboxRepository.findById(inboxId).map(WebhookInbox::getAttempts).orElse(config.getMaxAttempts());
+                }
+                if (attempts >= config.getMaxAttempts()) {
+                    logger.error("Webhook {} de WhatsApp descartado tras {} intentos: {}", inboxId, attempts, e.getMessage(), e);
+                    fail(inboxId, e);
+                    return;
+                }
+
+                logger.warn("Error procesando webhook {} de WhatsApp (intento {}), se reintentará: {}",
+                        inboxId, attempts, e.getMessage());
+                // Se reintenta aquí mismo: el carril queda bloqueado y los mensajes
+                // siguientes de la conversación esperan a este
+                try {
+                    Thread.sleep(Math.min(MAX_RETRY_BACKOFF_MS, RETRY_BACKOFF_MS << Math.min(attempts - 1, 10)));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    // Apagado: la fila vuelve a RECEIVED y se recupera al reiniciar
+                    inboxRepository.release(inboxId, truncate(e.getMessage()));
+                    return;
+                }
+                if (inboxRepository.retry(inboxId, truncate(e.getMessage()), LocalDateTime.now()) == 0) {
+                    // El lease venció y otra instancia tomó la fila
+                    return;
+                }
+                attempts++;
+            }
+        }
+    }
+
+    private void fail(Long inboxId, Exception e) {
+        inboxRepository.complete(inboxId, WebhookInboxStatus.FAILED, truncate(e.getMessage()), LocalDateTime.now());
+        failedCounter.increment();
+    }
+
+    /**
+     * Reencola las filas que quedaron sin procesar: colas llenas, reinicios
+     * o workers caídos con el lease vencido.
+     */
+    @Scheduled(fixedDelayString = "${app.integrations.whatsapp.webhook.recovery-interval-ms:30000}")
+    public void recoverPending() {
+        try {
+            pendingRows.set(inboxRepository.countBySourceAndStatusIn(WebhookSource.WHATSAPP_BUSINESS,
+                    List.of(WebhookInboxStatus.RECEIVED, WebhookInboxStatus.PROCESSING)));
+
+            LocalDateTime now = LocalDateTime.now();
+            List<WebhookInbox> recoverable = inboxRepository.findRecoverable(WebhookSource.WHATSAPP_BUSINESS,
+                    now.minus(config.getRecoveryGrace()), now.minus(config.getLease()),
+                    PageRequest.of(0, RECOVERY_BATCH_SIZE));
+
+            for (WebhookInbox inbox : recoverable) {
+                if (dispatch(inbox) == DispatchResult.REJECTED) {
+                    // Las colas siguen llenas; no tiene caso seguir intentando en esta ronda
+                    break;
+                }
+            }
+
+            if (!recoverable.isEmpty()) {
+                logger.info("Recuperador de webhooks de WhatsApp reencoló {} filas", recoverable.size());
+            }
+        } catch (Exception e) {
+            logger.error("Error recuperando webhooks pendientes de WhatsApp: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Lo que quede en cola sigue en RECEIVED y se recupera al reiniciar
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private int queueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+
+    /**
+     * Teléfono de atención + número del cliente del primer mensaje o estado del payload
+     */
+    private static String orderingKey(Long customerServicePhoneId, WhatsAppWebhookDTO webhookData) {
+        if (webhookData.entry() != null) {
+            for (WhatsAppEntryDTO entry : webhookData.entry()) {
+                if (entry.changes() == null) {
+                    continue;
+                }
+                for (WhatsAppChangeDTO change : entry.changes()) {
+                    WhatsAppValueDTO value = change.value();
+                    if (value == null) {
+                        continue;
+                    }
+                    if (value.messages() != null && !value.messages().isEmpty()) {
+                        return customerServicePhoneId + ":" + value.messages().get(0).from();
+                    }
+                    if (value.statuses() != null && !value.statuses().isEmpty()) {
+                        return customerServicePhoneId + ":" + value.statuses().get(0).recipientId();
+                    }
+                }
+            }
+        }
+        return String.valueOf(customerServicePhoneId);
+    }
+
+    private static ThreadFactory laneThreadFactory(int lane) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "whatsapp-webhook-" + lane + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public enum DispatchResult {
+        QUEUED,
+        REJECTED,
+        INVALID
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,90 @@
+package com.copypoint.api.infra.whatsappbusiness.service.webhook;
+
+import com.copypoint.api.domain.customerservicephone.CustomerServicePhone;
+import com.copypoint.api.domain.customerservicephone.service.CustomerServicePhoneService;
+import com.copypoint.api.domain.whatsappbussinessconfiguration.WhatsAppBusinessConfiguration;
+import com.copypoint.api.infra.security.service.CredentialEncryptionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Verifica el header X-Hub-Signature-256 de los webhooks de WhatsApp Business:
+ * "sha256=" + HMAC-SHA256 hexadecimal del cuerpo crudo con el app secret de la
+ * configuración del teléfono.
+ * <p>
+ * El app secret es opcional en la configuración: sin él la firma no se puede
+ * verificar y el webhook se acepta con una advertencia, igual que en los
+ * webhooks de MercadoPago sin secret. Con
+ * {@code app.integrations.whatsapp.webhook.require-signature=true} se rechazan.
+ */
+@Component
+public class WhatsAppWebhookSignatureVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(WhatsAppWebhookSignatureVerifier.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String SIGNATURE_PREFIX = "sha256=";
+
+    @Autowired
+    private CustomerServicePhoneService customerServicePhoneService;
+
+    @Autowired
+    private CredentialEncryptionService encryptionService;
+
+    @Value("${app.integrations.whatsapp.webhook.require-signature:false}")
+    private boolean requireSignature;
+
+    /**
+     * Verifica la firma con la configuración del teléfono de atención
+     */
+    public boolean isValid(Long customerServicePhoneId, String rawBody, String signature) {
+        Optional<CustomerServicePhone> phoneOpt = customerServicePhoneService.getByIdWithMessagingConfig(customerServicePhoneId);
+
+        if (phoneOpt.isEmpty() || !(phoneOpt.get().getMessagingConfig() instanceof WhatsAppBusinessConfiguration config)) {
+            logger.warn("Webhook de WhatsApp para teléfono {} sin configuración de WhatsApp Business", customerServicePhoneId);
+            return false;
+        }
+        return isValid(config, rawBody, signature);
+    }
+
+    public boolean isValid(WhatsAppBusinessConfiguration config, String rawBody, String signature) {
+        if (config.getAppSecretEncrypted() == null || config.getAppSecretEncrypted().isBlank()) {
+            if (requireSignature) {
+                logger.error("La configuración de WhatsApp {} no tiene app secret; webhook rechazado", config.getId());
+                return false;
+            }
+            logger.warn("La configuración de WhatsApp {} no tiene app secret, saltando validación de firma",
+                    config.getId());
+            return true;
+        }
+        if (signature == null || !signature.startsWith(SIGNATURE_PREFIX) || rawBody == null) {
+            logger.warn("Webhook de WhatsApp sin firma X-Hub-Signature-256 válida para la configuración {}",
+                    config.getId());
+            return false;
+        }
+
+        try {
+            String appSecret = encryptionService.decryptCredential(config.getAppSecretEncrypted());
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(appSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            byte[] expected = mac.doFinal(rawBody.getBytes(StandardCharsets.UTF_8));
+
+            byte[] received = HexFormat.of().parseHex(signature.substring(SIGNATURE_PREFIX.length()));
+            return MessageDigest.isEqual(expected, received);
+        } catch (IllegalArgumentException e) {
+            // Firma que no es hexadecimal
+            return false;
+        } catch (Exception e) {
+            logger.error("Error verificando firma de webhook de WhatsApp: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+-- V2.10__create_stored_media.sql
+-- Objetos de R2 direccionados por contenido (SHA-256). Varios attachments
+-- pueden apuntar al mismo objeto; ref_count lleva cuántos lo usan y
+-- page_count guarda el conteo de páginas para no recalcularlo.
+-- Base de datos: PostgreSQL
+
+CREATE TABLE stored_media (
+    id BIGSERIAL NOT NULL,
+    sha256 CHAR(64) NOT NULL,
+    storage_key VARCHAR(500) NOT NULL,
+    content_type VARCHAR(100),
+    size_bytes BIGINT NOT NULL,
+    page_count INTEGER,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    last_referenced_at TIMESTAMP(6) WITHOUT TIME ZONE,
+
+    CONSTRAINT pk_stored_media PRIMARY KEY (id),
+    CONSTRAINT uq_stored_media_sha256 UNIQUE (sha256),
+    CONSTRAINT uq_stored_media_storage_key UNIQUE (storage_key),
+    CONSTRAINT chk_stored_media_ref_count CHECK (ref_count >= 0)
+);
+
+COMMENT ON TABLE stored_media
+    IS 'Contenido único guardado en R2, compartido por los attachments con el mismo SHA-256';
+
+COMMENT ON COLUMN stored_media.ref_count
+    IS 'Attachments cuyo storage_path apunta a este objeto; en 0 el objeto se borra de R2';
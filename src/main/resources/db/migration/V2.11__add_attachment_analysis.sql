@@ -0,0 +1,26 @@
+-- V2.11__add_attachment_analysis.sql
+-- Resultado del análisis de documentos al recibirlos: páginas, tamaño de papel
+-- y páginas a color, para cotizar sin leer el archivo al momento de vender.
+-- Base de datos: PostgreSQL
+
+ALTER TABLE attachments
+ADD COLUMN analysis_status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+ADD COLUMN analysis_claimed_at TIMESTAMP(6) WITHOUT TIME ZONE,
+ADD COLUMN analyzed_at TIMESTAMP(6) WITHOUT TIME ZONE,
+ADD COLUMN analysis_error VARCHAR(500),
+ADD COLUMN color_pages INTEGER,
+ADD COLUMN paper_size VARCHAR(20),
+ADD COLUMN page_details JSONB;
+
+ALTER TABLE attachments
+ADD CONSTRAINT chk_attachments_analysis_status
+CHECK (analysis_status IN ('PENDING', 'ANALYZING', 'ANALYZED', 'SKIPPED', 'FAILED'));
+
+-- El recuperador busca attachments descargados que aún no se analizan
+CREATE INDEX idx_attachments_analysis_pending
+    ON attachments(id)
+    WHERE analysis_status IN ('PENDING', 'ANALYZING') AND download_status = 'DOWNLOADED';
+
+COMMENT ON COLUMN attachments.color_pages IS 'Páginas que usan color; NULL si no se pudo determinar';
+COMMENT ON COLUMN attachments.paper_size IS 'Tamaño de papel de las páginas (LETTER, A4, ...) o MIXED si varían';
+COMMENT ON COLUMN attachments.page_details IS 'Dimensiones (puntos) y uso de color por página';
@@ -0,0 +1,11 @@
+-- V2.12__add_attachment_renditions.sql
+-- Miniatura y vista previa (JPEG) de imágenes y PDF, guardadas en R2 junto al
+-- original, para que la vista de conversaciones no descargue el archivo completo.
+-- Base de datos: PostgreSQL
+
+ALTER TABLE attachments
+ADD COLUMN thumbnail_path VARCHAR(500),
+ADD COLUMN preview_path VARCHAR(500);
+
+COMMENT ON COLUMN attachments.thumbnail_path IS 'Clave en R2 de la miniatura; NULL si el tipo no tiene miniatura o aún no se genera';
+COMMENT ON COLUMN attachments.preview_path IS 'Clave en R2 de la vista previa (primera página en PDF)';
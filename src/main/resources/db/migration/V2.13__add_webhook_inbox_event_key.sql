@@ -0,0 +1,15 @@
+-- V2.13__add_webhook_inbox_event_key.sql
+-- Clave del evento notificado (p. ej. tópico y data.id de MercadoPago) para
+-- agrupar notificaciones repetidas que llegan antes de que se procesen.
+-- Base de datos: PostgreSQL
+
+ALTER TABLE webhook_inbox
+ADD COLUMN event_key VARCHAR(200);
+
+-- Se busca una fila pendiente con la misma clave antes de insertar otra
+CREATE INDEX idx_webhook_inbox_event_key_received
+    ON webhook_inbox(source, event_key, received_at)
+    WHERE status = 'RECEIVED';
+
+COMMENT ON COLUMN webhook_inbox.event_key
+    IS 'Clave del evento según el origen (p. ej. payment:123 para MercadoPago); NULL si no aplica';
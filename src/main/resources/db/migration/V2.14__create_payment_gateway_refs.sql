@@ -0,0 +1,51 @@
+-- V2.14__create_payment_gateway_refs.sql
+-- Índice de IDs de pasarela (intent, payment, transaction y el gateway_id legacy)
+-- por payment. Los webhooks no saben qué tipo de ID reciben; con esta tabla se
+-- resuelven con una sola búsqueda indexada en lugar de un OR sobre cuatro columnas.
+-- Base de datos: PostgreSQL
+
+CREATE TABLE payment_gateway_refs (
+    id BIGSERIAL NOT NULL,
+    payment_id BIGINT NOT NULL,
+    gateway VARCHAR(50) NOT NULL,
+    ref_type VARCHAR(20) NOT NULL,
+    ref_value VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+
+    CONSTRAINT pk_payment_gateway_refs PRIMARY KEY (id),
+    CONSTRAINT fk_payment_gateway_refs_payment
+        FOREIGN KEY (payment_id) REFERENCES payments(id) ON DELETE CASCADE,
+    CONSTRAINT uq_payment_gateway_refs UNIQUE (gateway, ref_type, ref_value),
+    CONSTRAINT chk_payment_gateway_refs_type
+        CHECK (ref_type IN ('INTENT', 'PAYMENT', 'TRANSACTION', 'LEGACY'))
+);
+
+-- Búsqueda por valor sin conocer pasarela ni tipo; payment_id incluido para index-only scan
+CREATE INDEX idx_payment_gateway_refs_value
+    ON payment_gateway_refs(ref_value) INCLUDE (payment_id);
+
+-- Reemplazo del ID de un tipo cuando el payment lo actualiza
+CREATE INDEX idx_payment_gateway_refs_payment
+    ON payment_gateway_refs(payment_id, ref_type);
+
+-- Carga inicial con los IDs que ya tienen los payments
+INSERT INTO payment_gateway_refs (payment_id, gateway, ref_type, ref_value)
+SELECT p.id, COALESCE(LOWER(pm.gateway), 'unknown'), refs.ref_type, refs.ref_value
+FROM payments p
+LEFT JOIN payment_methods pm ON pm.id = p.payment_method_id
+CROSS JOIN LATERAL (VALUES
+    ('INTENT', p.gateway_intent_id),
+    ('PAYMENT', p.gateway_payment_id),
+    ('TRANSACTION', p.gateway_transaction_id),
+    ('LEGACY', p.gateway_id)
+) AS refs(ref_type, ref_value)
+WHERE refs.ref_value IS NOT NULL
+  AND TRIM(refs.ref_value) <> ''
+ORDER BY p.id DESC
+ON CONFLICT (gateway, ref_type, ref_value) DO NOTHING;
+
+COMMENT ON TABLE payment_gateway_refs
+    IS 'IDs de pasarela de cada payment, mantenidos por PaymentService';
+
+COMMENT ON COLUMN payment_gateway_refs.ref_type
+    IS 'Columna de payments de la que proviene: INTENT, PAYMENT, TRANSACTION o LEGACY (gateway_id)';
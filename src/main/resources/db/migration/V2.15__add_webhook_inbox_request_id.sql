@@ -0,0 +1,10 @@
+-- V2.15__add_webhook_inbox_request_id.sql
+-- Header x-request-id de MercadoPago: forma parte del manifiesto firmado en
+-- x-signature, así que se guarda junto a la firma para verificarla al procesar.
+-- Base de datos: PostgreSQL
+
+ALTER TABLE webhook_inbox
+ADD COLUMN request_id VARCHAR(100);
+
+COMMENT ON COLUMN webhook_inbox.request_id
+    IS 'Header x-request-id de la notificación (MercadoPago); NULL si no aplica';
@@ -0,0 +1,44 @@
+-- V2.6__create_daily_sales_rollup.sql
+-- Tabla de resumen diario de ventas por copypoint y moneda para el dashboard.
+-- Se mantiene de forma incremental desde la aplicación cada vez que cambia una venta.
+-- Base de datos: PostgreSQL
+
+CREATE TABLE daily_sales_rollup (
+    copypoint_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    currency VARCHAR(3) NOT NULL DEFAULT '',
+    total_sales DOUBLE PRECISION NOT NULL DEFAULT 0,
+    total_discount DOUBLE PRECISION NOT NULL DEFAULT 0,
+    sale_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+
+    CONSTRAINT pk_daily_sales_rollup PRIMARY KEY (copypoint_id, day, currency)
+);
+
+-- Consultas del dashboard por rango de fechas
+CREATE INDEX idx_daily_sales_rollup_day
+    ON daily_sales_rollup(day);
+
+-- Recalcular un día de un copypoint solo toca las ventas de ese día
+CREATE INDEX IF NOT EXISTS idx_sales_copypoint_created_at
+    ON sales(copypoint_id, created_at);
+
+-- Carga inicial con el histórico existente
+INSERT INTO daily_sales_rollup (copypoint_id, day, currency, total_sales, total_discount, sale_count, updated_at)
+SELECT s.copypoint_id,
+       DATE(s.created_at),
+       COALESCE(s.currency, ''),
+       COALESCE(SUM(s.total_sale), 0),
+       COALESCE(SUM(s.discount), 0),
+       COUNT(s.id),
+       now()
+FROM sales s
+WHERE s.copypoint_id IS NOT NULL
+  AND s.created_at IS NOT NULL
+GROUP BY s.copypoint_id, DATE(s.created_at), COALESCE(s.currency, '');
+
+COMMENT ON TABLE daily_sales_rollup
+    IS 'Resumen diario de ventas por copypoint y moneda, usado por el dashboard en lugar de recorrer sales';
+
+COMMENT ON COLUMN daily_sales_rollup.currency
+    IS 'Moneda de las ventas; cadena vacía cuando la venta no tiene moneda';
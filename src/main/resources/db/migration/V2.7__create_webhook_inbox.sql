@@ -0,0 +1,33 @@
+-- V2.7__create_webhook_inbox.sql
+-- Bandeja de entrada de webhooks: se guarda el cuerpo crudo y se responde de
+-- inmediato; el procesamiento ocurre después en un pool de workers.
+-- Base de datos: PostgreSQL
+
+CREATE TABLE webhook_inbox (
+    id BIGSERIAL NOT NULL,
+    source VARCHAR(30) NOT NULL,
+    reference_id BIGINT,
+    payload TEXT NOT NULL,
+    signature VARCHAR(255),
+    status VARCHAR(20) NOT NULL DEFAULT 'RECEIVED',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(1000),
+    received_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    claimed_at TIMESTAMP(6) WITHOUT TIME ZONE,
+    processed_at TIMESTAMP(6) WITHOUT TIME ZONE,
+
+    CONSTRAINT pk_webhook_inbox PRIMARY KEY (id),
+    CONSTRAINT chk_webhook_inbox_status
+        CHECK (status IN ('RECEIVED', 'PROCESSING', 'PROCESSED', 'FAILED'))
+);
+
+-- El recuperador busca filas pendientes o con el lease vencido, en orden de llegada
+CREATE INDEX idx_webhook_inbox_pending
+    ON webhook_inbox(source, status, id)
+    WHERE status IN ('RECEIVED', 'PROCESSING');
+
+COMMENT ON TABLE webhook_inbox
+    IS 'Webhooks recibidos pendientes de procesar (WhatsApp Business, etc.)';
+
+COMMENT ON COLUMN webhook_inbox.reference_id
+    IS 'Identificador del recurso destino según el origen (p. ej. customer_service_phone_id para WhatsApp)';
@@ -0,0 +1,21 @@
+-- V2.8__add_unique_message_sid.sql
+-- Índice único sobre messages.message_sid para que una redelivery del webhook
+-- no pueda insertar el mismo mensaje dos veces.
+-- Base de datos: PostgreSQL
+
+-- Los duplicados existentes se conservan, pero se les cambia el message_sid
+-- (se mantiene el primero de cada grupo) para poder crear el índice
+UPDATE messages m
+SET message_sid = m.message_sid || ':dup:' || m.id
+FROM (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY message_sid ORDER BY id) AS rn
+    FROM messages
+    WHERE message_sid IS NOT NULL
+) d
+WHERE m.id = d.id
+  AND d.rn > 1;
+
+CREATE UNIQUE INDEX uq_messages_message_sid
+    ON messages(message_sid)
+    WHERE message_sid IS NOT NULL;
@@ -0,0 +1,54 @@
+-- V2.9__create_media_download_jobs.sql
+-- Cola persistente de descargas de media (WhatsApp -> R2). Reemplaza los
+-- reintentos en memoria: los trabajos pendientes sobreviven a reinicios y
+-- varias instancias pueden drenarla reclamando filas con un lease.
+-- Base de datos: PostgreSQL
+
+CREATE TABLE media_download_jobs (
+    id BIGSERIAL NOT NULL,
+    attachment_id BIGINT NOT NULL,
+    customer_service_phone_id BIGINT NOT NULL,
+    media_sid VARCHAR(100) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    locked_by VARCHAR(100),
+    locked_until TIMESTAMP(6) WITHOUT TIME ZONE,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    completed_at TIMESTAMP(6) WITHOUT TIME ZONE,
+
+    CONSTRAINT pk_media_download_jobs PRIMARY KEY (id),
+    CONSTRAINT uq_media_download_jobs_attachment UNIQUE (attachment_id),
+    CONSTRAINT fk_media_download_jobs_attachment
+        FOREIGN KEY (attachment_id) REFERENCES attachments(id) ON DELETE CASCADE,
+    CONSTRAINT chk_media_download_jobs_status
+        CHECK (status IN ('PENDING', 'RUNNING', 'SUCCEEDED', 'FAILED'))
+);
+
+-- El planificador busca trabajos vencidos o con el lease expirado
+CREATE INDEX idx_media_download_jobs_due
+    ON media_download_jobs(next_attempt_at)
+    WHERE status IN ('PENDING', 'RUNNING');
+
+-- Conteo de descargas en curso por teléfono (límite de concurrencia)
+CREATE INDEX idx_media_download_jobs_running_phone
+    ON media_download_jobs(customer_service_phone_id)
+    WHERE status = 'RUNNING';
+
+-- Los attachments que quedaron pendientes, descargando o fallidos con el
+-- esquema anterior pasan a la cola para reintentarse
+INSERT INTO media_download_jobs (attachment_id, customer_service_phone_id, media_sid, attempts)
+SELECT a.id, c.customer_service_phone_id, a.media_sid, COALESCE(a.download_attempts, 0)
+FROM attachments a
+JOIN messages m ON m.id = a.message_id
+JOIN conversations c ON c.id = m.conversation_id
+WHERE a.media_sid IS NOT NULL
+  AND c.customer_service_phone_id IS NOT NULL
+  AND a.download_status IN ('PENDING', 'DOWNLOADING', 'FAILED');
+
+COMMENT ON TABLE media_download_jobs
+    IS 'Descargas de media pendientes con reintentos y backoff (ver MediaDownloadJobWorker)';
+
+COMMENT ON COLUMN media_download_jobs.locked_until
+    IS 'Fin del lease del worker que la reclamó; vencido, otra instancia puede retomarla';
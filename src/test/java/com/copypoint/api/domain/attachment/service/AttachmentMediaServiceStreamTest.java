@@ -0,0 +1,166 @@
+package com.copypoint.api.domain.attachment.service;
+
+import com.copypoint.api.domain.attachment.Attachment;
+import com.copypoint.api.domain.attachment.AttachmentDownloadStatus;
+import com.copypoint.api.domain.attachment.repository.AttachmentRepository;
+import com.copypoint.api.infra.cloudflare.r2.dto.R2ObjectInfo;
+import com.copypoint.api.infra.cloudflare.r2.service.CloudflareR2Service;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentMediaServiceStreamTest {
+    private static final String SHA = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final String CONTENT_KEY = "media/sha256/9f/" + SHA;
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private CloudflareR2Service cloudflareR2Service;
+
+    @InjectMocks
+    private AttachmentMediaService service;
+
+    @Test
+    void contentAddressedMatchAnswersNotModifiedWithoutTouchingR2() {
+        givenAttachment(CONTENT_KEY, 1000L);
+        HttpHeaders request = new HttpHeaders();
+        request.setIfNoneMatch("W/\"" + SHA + "\"");
+
+        ResponseEntity<StreamingResponseBody> response = service.streamAttachmentFile(1L, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + SHA + "\"");
+        assertThat(response.getBody()).isNull();
+        verifyNoInteractions(cloudflareR2Service);
+    }
+
+    @Test
+    void staleETagStreamsTheWholeFile() throws IOException {
+        givenAttachment(CONTENT_KEY, 4L);
+        when(cloudflareR2Service.openStream(CONTENT_KEY, 0, 3))
+                .thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3, 4}));
+        HttpHeaders request = new HttpHeaders();
+        request.setIfNoneMatch("\"otro\"");
+
+        ResponseEntity<StreamingResponseBody> response = service.streamAttachmentFile(1L, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(4);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(drain(response)).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void singleRangeAnswersPartialContent() throws IOException {
+        givenAttachment(CONTENT_KEY, 1000L);
+        when(cloudflareR2Service.openStream(CONTENT_KEY, 100, 199))
+                .thenReturn(new ByteArrayInputStream(new byte[100]));
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=100-199");
+
+        ResponseEntity<StreamingResponseBody> response = service.streamAttachmentFile(1L, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/1000");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(100);
+        assertThat(drain(response)).hasSize(100);
+    }
+
+    @Test
+    void suffixRangeIsResolvedAgainstTheLength() {
+        givenAttachment(CONTENT_KEY, 1000L);
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=-50");
+
+        ResponseEntity<StreamingResponseBody> response = service.streamAttachmentFile(1L, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 950-999/1000");
+    }
+
+    @Test
+    void rangePastTheEndIsNotSatisfiable() {
+        givenAttachment(CONTENT_KEY, 1000L);
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=5000-6000");
+
+        ResponseEntity<StreamingResponseBody> response = service.streamAttachmentFile(1L, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */1000");
+    }
+
+    @Test
+    void multipleRangesFallBackToTheWholeFile() {
+        givenAttachment(CONTENT_KEY, 1000L);
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=0-9,20-29");
+
+        ResponseEntity<StreamingResponseBody> response = service.streamAttachmentFile(1L, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(1000);
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_RANGE)).isFalse();
+    }
+
+    @Test
+    void legacyPathUsesETagFromR2() {
+        String legacyPath = "attachments/2024/01/archivo.pdf";
+        givenAttachment(legacyPath, null);
+        when(cloudflareR2Service.getObjectInfo(legacyPath))
+                .thenReturn(new R2ObjectInfo(legacyPath, 2048, "\"abc123\""));
+        HttpHeaders request = new HttpHeaders();
+        request.setIfNoneMatch("\"abc123\"");
+
+        ResponseEntity<StreamingResponseBody> response = service.streamAttachmentFile(1L, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(cloudflareR2Service).getObjectInfo(legacyPath);
+    }
+
+    @Test
+    void attachmentNotDownloadedIsNotFound() {
+        when(attachmentRepository.findById(1L)).thenReturn(Optional.of(Attachment.builder().id(1L).build()));
+
+        ResponseEntity<StreamingResponseBody> response = service.streamAttachmentFile(1L, new HttpHeaders());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private void givenAttachment(String storagePath, Long sizeBytes) {
+        Attachment attachment = Attachment.builder()
+                .id(1L)
+                .storagePath(storagePath)
+                .fileSizeBytes(sizeBytes)
+                .mimeType("application/pdf")
+                .originalName("cotizacion.pdf")
+                .downloadStatus(AttachmentDownloadStatus.DOWNLOADED)
+                .build();
+        when(attachmentRepository.findById(1L)).thenReturn(Optional.of(attachment));
+    }
+
+    private static byte[] drain(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,83 @@
+package com.copypoint.api.domain.attachment.service;
+
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OfficeZipPageReaderTest {
+
+    private static final String APP_XML = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Properties xmlns="http://schemas.openxmlformats.org/officeDocument/2006/extended-properties">
+              <Application>Microsoft Office Word</Application>
+              <Pages>%s</Pages>
+            </Properties>
+            """;
+
+    @Test
+    void readsPagesFromDeflatedAppXml() throws IOException {
+        byte[] docx = zip(ZipEntry.DEFLATED, "word/document.xml", "<w:document/>",
+                "docProps/app.xml", APP_XML.formatted("17"));
+
+        assertThat(OfficeZipPageReader.readPageCount(new RandomAccessReadBuffer(docx))).hasValue(17);
+    }
+
+    @Test
+    void readsPagesFromStoredAppXml() throws IOException {
+        byte[] docx = zip(ZipEntry.STORED, "docProps/app.xml", APP_XML.formatted("3"));
+
+        assertThat(OfficeZipPageReader.readPageCount(new RandomAccessReadBuffer(docx))).hasValue(3);
+    }
+
+    @Test
+    void emptyWhenAppXmlIsMissing() throws IOException {
+        byte[] docx = zip(ZipEntry.DEFLATED, "word/document.xml", "<w:document/>");
+
+        assertThat(OfficeZipPageReader.readPageCount(new RandomAccessReadBuffer(docx))).isEmpty();
+    }
+
+    @Test
+    void emptyWhenPagesIsZero() throws IOException {
+        byte[] docx = zip(ZipEntry.DEFLATED, "docProps/app.xml", APP_XML.formatted("0"));
+
+        assertThat(OfficeZipPageReader.readPageCount(new RandomAccessReadBuffer(docx))).isEmpty();
+    }
+
+    @Test
+    void rejectsFilesThatAreNotZip() {
+        byte[] notZip = "%PDF-1.7 no es un zip".getBytes(StandardCharsets.US_ASCII);
+
+        assertThatThrownBy(() -> OfficeZipPageReader.readPageCount(new RandomAccessReadBuffer(notZip)))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static byte[] zip(int method, String... namesAndContents) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                byte[] data = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+                ZipEntry entry = new ZipEntry(namesAndContents[i]);
+                entry.setMethod(method);
+                if (method == ZipEntry.STORED) {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    entry.setSize(data.length);
+                    entry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(entry);
+                zip.write(data);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
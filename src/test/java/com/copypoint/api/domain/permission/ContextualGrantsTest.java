@@ -0,0 +1,113 @@
+package com.copypoint.api.domain.permission;
+
+import com.copypoint.api.domain.employeerole.EmployeeRolePermissionProjection;
+import com.copypoint.api.domain.pathcontext.PathContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextualGrantsTest {
+
+    @Test
+    void grantsModuleOnlyInAssignedCopypoints() {
+        ContextualGrants grants = ContextualGrants.from(List.of(
+                row("COPYPOINT_SALES", null, 12L, true),
+                row("COPYPOINT_SALES", null, 3L, true),
+                row("COPYPOINT_SALES", null, 12L, true)));
+
+        assertThat(grants.hasCopypoint("COPYPOINT_SALES", 3L)).isTrue();
+        assertThat(grants.hasCopypoint("COPYPOINT_SALES", 12L)).isTrue();
+        assertThat(grants.hasCopypoint("COPYPOINT_SALES", 7L)).isFalse();
+        assertThat(grants.hasCopypoint("COPYPOINT_REPORTS", 3L)).isFalse();
+    }
+
+    @Test
+    void ignoresInactiveModules() {
+        ContextualGrants grants = ContextualGrants.from(List.of(
+                row("STORE_MANAGEMENT", 4L, null, false),
+                row("STORE_MANAGEMENT", 5L, null, null)));
+
+        assertThat(grants.hasStore("STORE_MANAGEMENT", 4L)).isFalse();
+        assertThat(grants.hasStore("STORE_MANAGEMENT", 5L)).isFalse();
+    }
+
+    @Test
+    void storeInContextTakesPrecedenceOverCopypoint() {
+        ContextualGrants grants = ContextualGrants.from(List.of(
+                row("STORE_MANAGEMENT", null, 9L, true)));
+
+        PathContext context = PathContext.extractPathContext("/api/stores/1/copypoints/9");
+
+        assertThat(context.getStoreId()).isEqualTo(1L);
+        assertThat(grants.allows("STORE_MANAGEMENT", context)).isFalse();
+        assertThat(grants.allows("STORE_MANAGEMENT", PathContext.extractPathContext("/api/copypoints/9/sales")))
+                .isTrue();
+    }
+
+    @Test
+    void pathWithoutContextIsAllowed() {
+        assertThat(ContextualGrants.empty().allows("COPYPOINT_SALES",
+                PathContext.extractPathContext("/api/payments/mercadopago"))).isTrue();
+    }
+
+    private static EmployeeRolePermissionProjection row(String module, Long storeId, Long copypointId, Boolean active) {
+        return new Row(module, storeId, copypointId, active);
+    }
+
+    private record Row(String module, Long store, Long copypoint, Boolean active)
+            implements EmployeeRolePermissionProjection {
+
+        @Override
+        public Long getEmployeeRoleId() {
+            return 1L;
+        }
+
+        @Override
+        public Long getEmployeeId() {
+            return 1L;
+        }
+
+        @Override
+        public Long getCopypointId() {
+            return copypoint;
+        }
+
+        @Override
+        public Long getStoreId() {
+            return store;
+        }
+
+        @Override
+        public Long getRoleId() {
+            return 1L;
+        }
+
+        @Override
+        public LocalDateTime getAddedAt() {
+            return null;
+        }
+
+        @Override
+        public String getRoleName() {
+            return "ROLE";
+        }
+
+        @Override
+        public Long getModuleId() {
+            return 1L;
+        }
+
+        @Override
+        public String getModuleName() {
+            return module;
+        }
+
+        @Override
+        public Boolean getModuleActive() {
+            return active;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.copypoint.api.infra.cloudflare.r2.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class R2RangeRandomAccessReadTest {
+    private static final String KEY = "media/sha256/ab/abcdef";
+    private static final int BLOCK = 64 * 1024;
+
+    private final byte[] content = new byte[BLOCK * 2 + 100];
+    private CloudflareR2Service r2Service;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        r2Service = mock(CloudflareR2Service.class);
+        when(r2Service.readRange(eq(KEY), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long start = invocation.getArgument(1);
+            long end = invocation.getArgument(2);
+            return Arrays.copyOfRange(content, (int) start, (int) end + 1);
+        });
+    }
+
+    @Test
+    void readsAcrossBlockBoundary() throws IOException {
+        R2RangeRandomAccessRead read = new R2RangeRandomAccessRead(r2Service, KEY, content.length);
+        read.seek(BLOCK - 10);
+
+        byte[] buffer = new byte[20];
+        assertThat(read.read(buffer, 0, buffer.length)).isEqualTo(20);
+
+        assertThat(buffer).isEqualTo(Arrays.copyOfRange(content, BLOCK - 10, BLOCK + 10));
+        assertThat(read.getPosition()).isEqualTo(BLOCK + 10);
+        assertThat(read.getRangeRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void cachedBlocksAreNotFetchedAgain() throws IOException {
+        R2RangeRandomAccessRead read = new R2RangeRandomAccessRead(r2Service, KEY, content.length);
+
+        read.seek(5);
+        int first = read.read();
+        read.seek(BLOCK - 1);
+        read.read();
+        read.seek(5);
+
+        assertThat(read.read()).isEqualTo(first);
+        assertThat(read.getRangeRequests()).isEqualTo(1);
+        verify(r2Service, times(1)).readRange(KEY, 0, BLOCK - 1);
+    }
+
+    @Test
+    void lastBlockIsRequestedOnlyUpToTheEnd() throws IOException {
+        R2RangeRandomAccessRead read = new R2RangeRandomAccessRead(r2Service, KEY, content.length);
+        read.seek(content.length - 4);
+
+        byte[] buffer = new byte[16];
+        assertThat(read.read(buffer, 0, buffer.length)).isEqualTo(4);
+        assertThat(read.isEOF()).isTrue();
+        assertThat(read.read()).isEqualTo(-1);
+        verify(r2Service).readRange(KEY, BLOCK * 2L, content.length - 1L);
+    }
+
+    @Test
+    void seekPastTheEndStopsAtLength() throws IOException {
+        R2RangeRandomAccessRead read = new R2RangeRandomAccessRead(r2Service, KEY, content.length);
+        read.seek(content.length + 500L);
+
+        assertThat(read.getPosition()).isEqualTo(content.length);
+        assertThat(read.read(new byte[8], 0, 8)).isEqualTo(-1);
+        assertThat(read.getRangeRequests()).isZero();
+    }
+
+    @Test
+    void rejectsReadsAfterClose() {
+        R2RangeRandomAccessRead read = new R2RangeRandomAccessRead(r2Service, KEY, content.length);
+        read.close();
+
+        assertThat(read.isClosed()).isTrue();
+        assertThatThrownBy(read::read).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void wrapsStorageErrors() {
+        when(r2Service.readRange(eq(KEY), anyLong(), anyLong())).thenThrow(new IllegalStateException("503"));
+        R2RangeRandomAccessRead read = new R2RangeRandomAccessRead(r2Service, KEY, content.length);
+
+        assertThatThrownBy(read::read)
+                .isInstanceOf(IOException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+}
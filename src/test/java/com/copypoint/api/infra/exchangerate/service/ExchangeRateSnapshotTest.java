@@ -0,0 +1,96 @@
+package com.copypoint.api.infra.exchangerate.service;
+
+import com.copypoint.api.infra.exchangerate.dto.ExchangeRateResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ExchangeRateSnapshotTest {
+    private static final Instant FETCHED_AT = Instant.parse("2026-03-02T15:00:00Z");
+
+    @Test
+    void crossRateIsTheQuotientOfBothEntries() {
+        ExchangeRateSnapshot snapshot = snapshot(Map.of(
+                "USD", new BigDecimal("1"),
+                "MXN", new BigDecimal("17.20"),
+                "EUR", new BigDecimal("0.92")));
+
+        assertThat(snapshot.rate("USD", "MXN")).hasValueCloseTo(17.20, within(1e-9));
+        assertThat(snapshot.rate("EUR", "MXN")).hasValueCloseTo(17.20 / 0.92, within(1e-9));
+        assertThat(snapshot.rate("MXN", "EUR")).hasValueCloseTo(0.92 / 17.20, within(1e-12));
+        assertThat(snapshot.rate("MXN", "MXN")).hasValue(1.0);
+    }
+
+    @Test
+    void unknownCurrencyHasNoRate() {
+        ExchangeRateSnapshot snapshot = snapshot(Map.of("USD", BigDecimal.ONE, "MXN", new BigDecimal("17.20")));
+
+        assertThat(snapshot.rate("USD", "JPY")).isEmpty();
+        assertThat(snapshot.rate("JPY", "USD")).isEmpty();
+        assertThat(snapshot.supports("JPY")).isFalse();
+        assertThat(snapshot.ratesFrom("JPY")).isEmpty();
+    }
+
+    @Test
+    void skipsMissingAndNonPositiveRates() {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        rates.put("USD", BigDecimal.ONE);
+        rates.put("MXN", new BigDecimal("17.20"));
+        rates.put("VES", BigDecimal.ZERO);
+        rates.put("XXX", null);
+
+        ExchangeRateSnapshot snapshot = snapshot(rates);
+
+        assertThat(snapshot.supports("VES")).isFalse();
+        assertThat(snapshot.supports("XXX")).isFalse();
+        assertThat(snapshot.ratesFrom("USD")).containsOnlyKeys("MXN", "USD");
+    }
+
+    @Test
+    void ratesFromRebasesEveryEntrySortedByCode() {
+        ExchangeRateSnapshot snapshot = snapshot(Map.of(
+                "USD", new BigDecimal("1"),
+                "MXN", new BigDecimal("20"),
+                "EUR", new BigDecimal("0.5")));
+
+        Map<String, BigDecimal> fromMxn = snapshot.ratesFrom("MXN");
+
+        assertThat(fromMxn.keySet()).containsExactly("EUR", "MXN", "USD");
+        assertThat(fromMxn.get("USD")).isEqualByComparingTo("0.05");
+        assertThat(fromMxn.get("EUR")).isEqualByComparingTo("0.025");
+        assertThat(fromMxn.get("MXN")).isEqualByComparingTo("1");
+    }
+
+    @Test
+    void publishedAtComesFromTheProviderWhenPresent() {
+        ExchangeRateSnapshot withTimestamp = ExchangeRateSnapshot.from(
+                response(1772406001L, Map.of("USD", BigDecimal.ONE)), FETCHED_AT);
+        ExchangeRateSnapshot withoutTimestamp = ExchangeRateSnapshot.from(
+                response(null, Map.of("USD", BigDecimal.ONE)), FETCHED_AT);
+
+        assertThat(withTimestamp.getPublishedAt()).isEqualTo(Instant.ofEpochSecond(1772406001L));
+        assertThat(withoutTimestamp.getPublishedAt()).isEqualTo(FETCHED_AT);
+        assertThat(withTimestamp.getFetchedAt()).isEqualTo(FETCHED_AT);
+    }
+
+    @Test
+    void rejectsResponseWithoutRates() {
+        assertThatThrownBy(() -> ExchangeRateSnapshot.from(response(null, Map.of()), FETCHED_AT))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ExchangeRateSnapshot snapshot(Map<String, BigDecimal> rates) {
+        return ExchangeRateSnapshot.from(response(null, rates), FETCHED_AT);
+    }
+
+    private static ExchangeRateResponse response(Long publishedUnix, Map<String, BigDecimal> rates) {
+        return new ExchangeRateResponse("success", null, null, publishedUnix, null, null, null, "USD", rates);
+    }
+}
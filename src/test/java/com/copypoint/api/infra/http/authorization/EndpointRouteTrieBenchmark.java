@@ -0,0 +1,106 @@
+package com.copypoint.api.infra.http.authorization;
+
+import com.copypoint.api.domain.module.ModuleType;
+import com.copypoint.api.infra.http.patternmatcher.PatternMatcherService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda de módulo por endpoint: trie compilado contra el recorrido lineal
+ * con AntPathMatcher que hacía ModuleEndpointMapping antes.
+ * <p>
+ * La tabla es sintética (unos cientos de patrones repartidos entre los módulos)
+ * y las peticiones mezclan aciertos al principio y al final de la tabla con
+ * rutas que no corresponden a ningún patrón, que es el peor caso del recorrido.
+ * <p>
+ * Se ejecuta con {@code main} desde el IDE, o con
+ * {@code java -cp target/test-classes:<classpath de test> org.openjdk.jmh.Main EndpointRouteTrieBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndpointRouteTrieBenchmark {
+
+    @Param({"300"})
+    private int endpoints;
+
+    private Map<ModuleType, List<String>> table;
+    private EndpointRouteTrie trie;
+    private PatternMatcherService patternMatcher;
+    private String[][] requests;
+
+    @Setup
+    public void setUp() {
+        table = new LinkedHashMap<>();
+        ModuleType[] modules = ModuleType.values();
+        int resources = Math.max(1, endpoints / 6);
+        for (int i = 0; i < resources; i++) {
+            String base = "/api/resource" + i;
+            table.computeIfAbsent(modules[i % modules.length], module -> new ArrayList<>()).addAll(List.of(
+                    "GET:" + base,
+                    "POST:" + base,
+                    "GET:" + base + "/*",
+                    "PUT:" + base + "/*",
+                    "DELETE:" + base + "/*",
+                    "GET:" + base + "/*/history/**"));
+        }
+
+        trie = EndpointRouteTrie.compile(table);
+        patternMatcher = new PatternMatcherService();
+
+        int last = resources - 1;
+        requests = new String[][]{
+                {"GET", "/api/resource0"},
+                {"PUT", "/api/resource" + (last / 2) + "/42"},
+                {"GET", "/api/resource" + last + "/42/history/2026/03"},
+                {"DELETE", "/api/resource" + last + "/7"},
+                {"GET", "/api/unknown/7"},
+                {"PATCH", "/api/resource0/1"},
+        };
+    }
+
+    @Benchmark
+    public void trie(Blackhole blackhole) {
+        for (String[] request : requests) {
+            blackhole.consume(trie.find(request[0], request[1]));
+        }
+    }
+
+    @Benchmark
+    public void antPathMatcherScan(Blackhole blackhole) {
+        for (String[] request : requests) {
+            blackhole.consume(scan(request[0], request[1]));
+        }
+    }
+
+    /**
+     * Recorrido de la versión anterior: cada patrón contra "METHOD:/ruta" hasta el primero que coincida
+     */
+    private Optional<ModuleType> scan(String method, String path) {
+        String endpoint = method + ":" + path;
+        return table.entrySet().stream()
+                .filter(entry -> entry.getValue().stream()
+                        .anyMatch(pattern -> patternMatcher.matches(pattern, endpoint)))
+                .map(Map.Entry::getKey)
+                .findFirst();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EndpointRouteTrieBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
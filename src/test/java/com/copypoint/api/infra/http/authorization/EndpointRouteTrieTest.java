@@ -0,0 +1,101 @@
+package com.copypoint.api.infra.http.authorization;
+
+import com.copypoint.api.domain.module.ModuleType;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EndpointRouteTrieTest {
+
+    @Test
+    void wildcardMatchesExactlyOneSegment() {
+        EndpointRouteTrie trie = EndpointRouteTrie.compile(Map.of(
+                ModuleType.COPYPOINT_MANAGEMENT, List.of("GET:/api/copypoints/*/sales")));
+
+        assertThat(modules(trie, "GET", "/api/copypoints/5/sales")).containsExactly(ModuleType.COPYPOINT_MANAGEMENT);
+        assertThat(trie.find("GET", "/api/copypoints/sales")).isNull();
+        assertThat(trie.find("GET", "/api/copypoints/5/sales/extra")).isNull();
+    }
+
+    @Test
+    void literalSegmentTakesPrecedenceOverWildcard() {
+        Map<ModuleType, List<String>> endpoints = new LinkedHashMap<>();
+        endpoints.put(ModuleType.STORE_MANAGEMENT, List.of("GET:/api/stores/*/profiles"));
+        endpoints.put(ModuleType.STORE_REPORTS, List.of("GET:/api/stores/summary/profiles"));
+        EndpointRouteTrie trie = EndpointRouteTrie.compile(endpoints);
+
+        assertThat(modules(trie, "GET", "/api/stores/summary/profiles")).containsExactly(ModuleType.STORE_REPORTS);
+        assertThat(modules(trie, "GET", "/api/stores/7/profiles")).containsExactly(ModuleType.STORE_MANAGEMENT);
+    }
+
+    @Test
+    void catchAllMatchesAnyRemainder() {
+        EndpointRouteTrie trie = EndpointRouteTrie.compile(Map.of(
+                ModuleType.COPYPOINT_REPORTS, List.of("GET:/api/reports/**")));
+
+        assertThat(trie.find("GET", "/api/reports")).isNotNull();
+        assertThat(trie.find("GET", "/api/reports/")).isNotNull();
+        assertThat(trie.find("GET", "/api/reports/daily/2025/01")).isNotNull();
+        assertThat(trie.find("GET", "/api/other")).isNull();
+    }
+
+    @Test
+    void routesArePartitionedByMethod() {
+        EndpointRouteTrie trie = EndpointRouteTrie.compile(Map.of(
+                ModuleType.STORE_MANAGEMENT, List.of("POST:/api/stores/*/services", "*:/api/health")));
+
+        assertThat(trie.find("POST", "/api/stores/1/services")).isNotNull();
+        assertThat(trie.find("GET", "/api/stores/1/services")).isNull();
+        // "*" como método aplica a cualquier método sin ruta propia
+        assertThat(trie.find("DELETE", "/api/health")).isNotNull();
+    }
+
+    @Test
+    void trailingSlashDoesNotMatchPatternWithoutIt() {
+        EndpointRouteTrie trie = EndpointRouteTrie.compile(Map.of(
+                ModuleType.COPYPOINT_MANAGEMENT, List.of("GET:/api/copypoints/*/sales")));
+
+        assertThat(trie.find("GET", "/api/copypoints/5/sales/")).isNull();
+        // Los separadores repetidos se colapsan
+        assertThat(trie.find("GET", "/api//copypoints/5/sales")).isNotNull();
+    }
+
+    @Test
+    void duplicatePatternKeepsEveryModule() {
+        Map<ModuleType, List<String>> endpoints = new LinkedHashMap<>();
+        endpoints.put(ModuleType.COPYPOINT_MANAGEMENT, List.of("POST:/api/payments/mercadopago"));
+        endpoints.put(ModuleType.COPYPOINT_SALES, List.of("POST:/api/payments/mercadopago"));
+        EndpointRouteTrie trie = EndpointRouteTrie.compile(endpoints);
+
+        EndpointRouteTrie.Match match = trie.find("POST", "/api/payments/mercadopago");
+        assertThat(match.modules())
+                .containsExactlyInAnyOrder(ModuleType.COPYPOINT_MANAGEMENT, ModuleType.COPYPOINT_SALES);
+        assertThat(match.pattern()).isEqualTo("POST:/api/payments/mercadopago");
+    }
+
+    @Test
+    void rejectsUnsupportedPatterns() {
+        assertThatThrownBy(() -> compile("/api/no-method"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compile("GET:/api/**/tail"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compile("GET:/api/stores/{id}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static EndpointRouteTrie compile(String pattern) {
+        return EndpointRouteTrie.compile(Map.of(ModuleType.STORE_MANAGEMENT, List.of(pattern)));
+    }
+
+    private static Set<ModuleType> modules(EndpointRouteTrie trie, String method, String path) {
+        EndpointRouteTrie.Match match = trie.find(method, path);
+        assertThat(match).as("%s %s", method, path).isNotNull();
+        return match.modules();
+    }
+}
@@ -0,0 +1,57 @@
+package com.copypoint.api.infra.mercadopago.service.reconciliation;
+
+import com.mercadopago.resources.payment.Payment;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MercadoPagoPaymentReconcilerTest {
+    private static final OffsetDateTime EARLIER = OffsetDateTime.parse("2026-03-02T10:00:00-06:00");
+    private static final OffsetDateTime LATER = OffsetDateTime.parse("2026-03-02T10:05:00-06:00");
+
+    @Test
+    void approvedWinsOverANewerRejection() {
+        Payment approved = mpPayment("approved", EARLIER);
+        Payment rejected = mpPayment("rejected", LATER);
+
+        assertThat(MercadoPagoPaymentReconciler.preferred(approved, rejected)).isSameAs(approved);
+        assertThat(MercadoPagoPaymentReconciler.preferred(rejected, approved)).isSameAs(approved);
+    }
+
+    @Test
+    void newestWinsWhenNeitherIsApproved() {
+        Payment rejected = mpPayment("rejected", EARLIER);
+        Payment pending = mpPayment("in_process", LATER);
+
+        assertThat(MercadoPagoPaymentReconciler.preferred(rejected, pending)).isSameAs(pending);
+        assertThat(MercadoPagoPaymentReconciler.preferred(pending, rejected)).isSameAs(pending);
+    }
+
+    @Test
+    void candidateWithDateReplacesOneWithout() {
+        Payment undated = mpPayment("cancelled", null);
+        Payment dated = mpPayment("rejected", EARLIER);
+
+        assertThat(MercadoPagoPaymentReconciler.preferred(undated, dated)).isSameAs(dated);
+        assertThat(MercadoPagoPaymentReconciler.preferred(dated, undated)).isSameAs(dated);
+    }
+
+    @Test
+    void tieKeepsTheCurrentPayment() {
+        Payment first = mpPayment("APPROVED", EARLIER);
+        Payment second = mpPayment("approved", EARLIER);
+
+        assertThat(MercadoPagoPaymentReconciler.preferred(first, second)).isSameAs(first);
+    }
+
+    private static Payment mpPayment(String status, OffsetDateTime dateCreated) {
+        Payment payment = mock(Payment.class);
+        when(payment.getStatus()).thenReturn(status);
+        when(payment.getDateCreated()).thenReturn(dateCreated);
+        return payment;
+    }
+}
@@ -0,0 +1,80 @@
+package com.copypoint.api.infra.mercadopago.service.reconciliation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestRateLimiterTest {
+    // Margen para la precisión del reloj al dormir
+    private static final long TOLERANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void spacesConsecutiveCallsByTheInterval() throws InterruptedException {
+        long interval = TimeUnit.MILLISECONDS.toNanos(20);
+        long start = System.nanoTime();
+        RequestRateLimiter limiter = new RequestRateLimiter(50);
+
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire();
+            assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(i * interval - TOLERANCE_NANOS);
+        }
+    }
+
+    @Test
+    void firstCallDoesNotWait() throws InterruptedException {
+        RequestRateLimiter limiter = new RequestRateLimiter(0.5);
+
+        long start = System.nanoTime();
+        limiter.acquire();
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    void idleTimeDoesNotBuildUpABurst() throws InterruptedException {
+        long interval = TimeUnit.MILLISECONDS.toNanos(40);
+        RequestRateLimiter limiter = new RequestRateLimiter(25);
+        limiter.acquire();
+
+        Thread.sleep(200);
+        limiter.acquire();
+        long afterIdle = System.nanoTime();
+        limiter.acquire();
+
+        assertThat(System.nanoTime() - afterIdle).isGreaterThanOrEqualTo(interval - TOLERANCE_NANOS);
+    }
+
+    @Test
+    void threadsShareTheSameRate() throws InterruptedException {
+        long interval = TimeUnit.MILLISECONDS.toNanos(10);
+        RequestRateLimiter limiter = new RequestRateLimiter(100);
+        int threads = 4;
+        int callsPerThread = 5;
+
+        long start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    for (int i = 0; i < callsPerThread; i++) {
+                        limiter.acquire();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long calls = (long) threads * callsPerThread;
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo((calls - 1) * interval - TOLERANCE_NANOS);
+    }
+}
@@ -0,0 +1,73 @@
+package com.copypoint.api.infra.mercadopago.service.webhook;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MercadoPagoWebhookSignatureVerifierTest {
+    private static final String SECRET = "webhook-secret-del-copypoint";
+    private static final String TS = "1742505638683";
+
+    private final MercadoPagoWebhookSignatureVerifier verifier = new MercadoPagoWebhookSignatureVerifier();
+
+    @Test
+    void acceptsSignatureOverIdRequestIdAndTs() throws Exception {
+        String v1 = hmac(SECRET, "id:123456;request-id:bb56a2f1-6aae-46ac-982e-9dcd3581d08e;ts:" + TS + ";");
+
+        assertThat(verifier.isValid(SECRET, "123456", "bb56a2f1-6aae-46ac-982e-9dcd3581d08e",
+                "ts=" + TS + ",v1=" + v1)).isTrue();
+    }
+
+    @Test
+    void toleratesSpacesAndPartOrderInTheHeader() throws Exception {
+        String v1 = hmac(SECRET, "id:123456;request-id:req-1;ts:" + TS + ";");
+
+        assertThat(verifier.isValid(SECRET, "123456", "req-1", "v1=" + v1 + ", ts=" + TS)).isTrue();
+    }
+
+    @Test
+    void leavesMissingRequestIdOutOfTheManifest() throws Exception {
+        String v1 = hmac(SECRET, "id:123456;ts:" + TS + ";");
+
+        assertThat(verifier.isValid(SECRET, "123456", null, "ts=" + TS + ",v1=" + v1)).isTrue();
+    }
+
+    @Test
+    void signsAlphanumericIdsInLowercase() {
+        assertThat(MercadoPagoWebhookSignatureVerifier.manifest("ORD01ABC", "req-1", TS))
+                .isEqualTo("id:ord01abc;request-id:req-1;ts:" + TS + ";");
+    }
+
+    @Test
+    void rejectsSignatureForAnotherPayment() throws Exception {
+        String v1 = hmac(SECRET, "id:999999;request-id:req-1;ts:" + TS + ";");
+
+        assertThat(verifier.isValid(SECRET, "123456", "req-1", "ts=" + TS + ",v1=" + v1)).isFalse();
+    }
+
+    @Test
+    void rejectsSignatureMadeWithAnotherSecret() throws Exception {
+        String v1 = hmac("otro-secret", "id:123456;request-id:req-1;ts:" + TS + ";");
+
+        assertThat(verifier.isValid(SECRET, "123456", "req-1", "ts=" + TS + ",v1=" + v1)).isFalse();
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        assertThat(verifier.isValid(SECRET, "123456", "req-1", "v1=abcdef")).isFalse();
+        assertThat(verifier.isValid(SECRET, "123456", "req-1", "ts=" + TS)).isFalse();
+        assertThat(verifier.isValid(SECRET, "123456", "req-1", "ts=" + TS + ",v1=no-es-hex")).isFalse();
+        assertThat(verifier.isValid(SECRET, "123456", "req-1", "")).isFalse();
+    }
+
+    private static String hmac(String secret, String manifest) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(manifest.getBytes(StandardCharsets.UTF_8)));
+    }
+}
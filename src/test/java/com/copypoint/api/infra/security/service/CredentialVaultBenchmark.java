@@ -0,0 +1,89 @@
+package com.copypoint.api.infra.security.service;
+
+import com.copypoint.api.infra.security.utils.AESUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cifrado de credenciales: AESUtil, que crea un Cipher por llamada, contra
+ * CredentialVault, que reutiliza uno por hilo y guarda lo descifrado en cache.
+ * <p>
+ * El descifrado del vault se mide con la lectura en cache y sin ella: para los
+ * fallos se recorre un conjunto de textos cifrados mucho mayor que el cache.
+ * <p>
+ * Se ejecuta con {@code main} desde el IDE, o con
+ * {@code java -cp target/test-classes:<classpath de test> org.openjdk.jmh.Main CredentialVaultBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CredentialVaultBenchmark {
+
+    private static final String KEY = "0123456789abcdef0123456789abcdef";
+    private static final String SECRET = "APP_USR-1234567890123456-101812-0a1b2c3d4e5f60718293a4b5c6d7e8f9-123456789";
+    private static final int MISS_POOL = 4096;
+
+    private AESUtil aesUtil;
+    private CredentialVault vault;
+    private CredentialVault smallCacheVault;
+    private String encrypted;
+    private String[] missPool;
+    private int missIndex;
+
+    @Setup
+    public void setUp() {
+        aesUtil = new AESUtil();
+        vault = new CredentialVault(KEY, 500, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        smallCacheVault = new CredentialVault(KEY, 16, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+        encrypted = vault.encrypt(SECRET);
+        vault.decrypt(encrypted);
+
+        // Cada cifrado lleva su IV, así que cada texto es una entrada distinta del cache
+        missPool = new String[MISS_POOL];
+        for (int i = 0; i < MISS_POOL; i++) {
+            missPool[i] = smallCacheVault.encrypt(SECRET);
+        }
+    }
+
+    @Benchmark
+    public String aesUtilEncrypt() {
+        return aesUtil.encrypt(SECRET, KEY);
+    }
+
+    @Benchmark
+    public String vaultEncrypt() {
+        return vault.encrypt(SECRET);
+    }
+
+    @Benchmark
+    public String aesUtilDecrypt() {
+        return aesUtil.decrypt(encrypted, KEY);
+    }
+
+    @Benchmark
+    public String vaultDecryptCacheHit() {
+        return vault.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public String vaultDecryptCacheMiss() {
+        missIndex = (missIndex + 1) % MISS_POOL;
+        return smallCacheVault.decrypt(missPool[missIndex]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CredentialVaultBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
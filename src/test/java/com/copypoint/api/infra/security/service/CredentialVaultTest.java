@@ -0,0 +1,79 @@
+package com.copypoint.api.infra.security.service;
+
+import com.copypoint.api.infra.security.utils.AESUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CredentialVaultTest {
+    private static final String KEY = "0123456789abcdef0123456789abcdef";
+
+    private final AESUtil aesUtil = new AESUtil();
+
+    @Test
+    void roundTripsTextIncludingMultibyteCharacters() {
+        CredentialVault vault = vault(KEY);
+        String secret = "APP_USR-1234-ñandú-€";
+
+        assertThat(vault.decrypt(vault.encrypt(secret))).isEqualTo(secret);
+    }
+
+    @Test
+    void decryptsWhatAesUtilEncrypted() {
+        String legacy = aesUtil.encrypt("token-guardado-antes", KEY);
+
+        assertThat(vault(KEY).decrypt(legacy)).isEqualTo("token-guardado-antes");
+    }
+
+    @Test
+    void aesUtilDecryptsWhatTheVaultEncrypted() {
+        String encrypted = vault(KEY).encrypt("EAAG-access-token");
+
+        assertThat(aesUtil.decrypt(encrypted, KEY)).isEqualTo("EAAG-access-token");
+    }
+
+    @Test
+    void eachEncryptionUsesAFreshIv() {
+        CredentialVault vault = vault(KEY);
+
+        String first = vault.encrypt("mismo texto");
+        String second = vault.encrypt("mismo texto");
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(Base64.getDecoder().decode(first)).hasSize(16 + 16);
+    }
+
+    @Test
+    void cachedValueSurvivesEvictAll() {
+        CredentialVault vault = vault(KEY);
+        String encrypted = vault.encrypt("secreto");
+
+        assertThat(vault.decrypt(encrypted)).isEqualTo("secreto");
+        vault.evictAll();
+
+        assertThat(vault.decrypt(encrypted)).isEqualTo("secreto");
+    }
+
+    @Test
+    void wrongKeyLengthFailsOnUse() {
+        CredentialVault vault = vault("corta");
+
+        assertThatThrownBy(() -> vault.encrypt("x")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsPayloadWithoutCipherText() {
+        String ivOnly = Base64.getEncoder().encodeToString(new byte[16]);
+
+        assertThatThrownBy(() -> vault(KEY).decrypt(ivOnly)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CredentialVault vault(String key) {
+        return new CredentialVault(key, 10, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    }
+}